@@ -2,6 +2,7 @@ plugins {
     java
     alias(libs.plugins.spring.boot)
     alias(libs.plugins.spring.dependency.management)
+    alias(libs.plugins.jmh)
 }
 
 group = "com.neighbor.eventmosaic"
@@ -56,6 +57,14 @@ dependencies {
 
     // MinIO
     implementation(libs.minio.client)
+
+    // Сжатие
+    implementation(libs.zstd.jni)
+
+    // Parquet (Hadoop нужен ParquetWriter только для кодеков, используется затененный клиент)
+    implementation(libs.parquet.hadoop)
+    implementation(libs.hadoop.client.api)
+    runtimeOnly(libs.hadoop.client.runtime)
 }
 
 dependencyManagement {
@@ -66,4 +75,12 @@ dependencyManagement {
 
 tasks.withType<Test> {
     useJUnitPlatform()
+}
+
+// Бенчмарки JMH (src/jmh/java): ./gradlew jmh, результаты в build/results/jmh
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    resultFormat = "JSON"
+    includes = listOf(providers.gradleProperty("jmhIncludes").getOrElse(".*"))
+    jvmArgsAppend = listOf("-Dbenchmark.gdelt-archive=${file("src/test/resources/data/gdelt-archive.zip")}")
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.neighbor.eventmosaic.collector.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Тестовые данные для бенчмарков: архив GDELT из тестовых ресурсов
+ * и синтетические файлы и ZIP-архивы заданного размера.
+ */
+final class BenchmarkData {
+
+    /**
+     * Набор данных "архив GDELT из тестовых ресурсов"
+     */
+    static final String GDELT_ARCHIVE = "gdelt-archive";
+
+    /**
+     * Набор данных "синтетический файл заданного размера"
+     */
+    static final String SYNTHETIC = "synthetic";
+
+    static final long BYTES_IN_MEGABYTE = 1024L * 1024;
+
+    private static final Path GDELT_ARCHIVE_PATH = Paths.get(
+            System.getProperty("benchmark.gdelt-archive", "src/test/resources/data/gdelt-archive.zip"));
+
+    private static final long SEED = 20250421L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Возвращает путь к файлу выбранного набора данных.
+     * Синтетический файл создается во временной директории.
+     *
+     * @param dataset       набор данных ({@link #GDELT_ARCHIVE} или {@link #SYNTHETIC})
+     * @param sizeMegabytes размер синтетического файла в мегабайтах
+     * @param workDir       временная директория бенчмарка
+     * @return путь к файлу
+     * @throws IOException при ошибках ввода-вывода
+     */
+    static Path file(String dataset, int sizeMegabytes, Path workDir) throws IOException {
+        if (GDELT_ARCHIVE.equals(dataset)) {
+            return gdeltArchive();
+        }
+        Path file = workDir.resolve("synthetic-" + sizeMegabytes + "mb.bin");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeRandomBytes(out, sizeMegabytes * BYTES_IN_MEGABYTE);
+        }
+        return file;
+    }
+
+    /**
+     * Возвращает путь к ZIP-архиву выбранного набора данных.
+     * Синтетический архив содержит {@code entries} CSV-подобных файлов
+     * общим размером {@code sizeMegabytes} мегабайт.
+     *
+     * @param dataset       набор данных ({@link #GDELT_ARCHIVE} или {@link #SYNTHETIC})
+     * @param sizeMegabytes суммарный размер распакованных файлов в мегабайтах
+     * @param entries       количество файлов в синтетическом архиве
+     * @param workDir       временная директория бенчмарка
+     * @return путь к ZIP-архиву
+     * @throws IOException при ошибках ввода-вывода
+     */
+    static Path zipArchive(String dataset, int sizeMegabytes, int entries, Path workDir) throws IOException {
+        if (GDELT_ARCHIVE.equals(dataset)) {
+            return gdeltArchive();
+        }
+        Path zip = workDir.resolve("synthetic-" + sizeMegabytes + "mb-" + entries + ".zip");
+        long entrySize = sizeMegabytes * BYTES_IN_MEGABYTE / entries;
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (int i = 0; i < entries; i++) {
+                out.putNextEntry(new ZipEntry("entry-" + i + ".CSV"));
+                writeCsvLikeBytes(out, entrySize);
+                out.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    /**
+     * Возвращает суммарный размер распакованных файлов ZIP-архива.
+     *
+     * @param zip путь к ZIP-архиву
+     * @return размер в байтах
+     * @throws IOException при ошибках ввода-вывода
+     */
+    static long uncompressedSize(Path zip) throws IOException {
+        try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(zip.toFile())) {
+            return zipFile.stream()
+                    .mapToLong(ZipEntry::getSize)
+                    .sum();
+        }
+    }
+
+    private static Path gdeltArchive() {
+        if (!Files.exists(GDELT_ARCHIVE_PATH)) {
+            throw new IllegalStateException("Архив GDELT для бенчмарка не найден: " + GDELT_ARCHIVE_PATH.toAbsolutePath()
+                    + ". Укажите путь в системном свойстве benchmark.gdelt-archive");
+        }
+        return GDELT_ARCHIVE_PATH;
+    }
+
+    /**
+     * Записывает случайные (несжимаемые) данные.
+     */
+    private static void writeRandomBytes(OutputStream out, long size) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        byte[] buffer = new byte[64 * 1024];
+        for (long written = 0; written < size; written += buffer.length) {
+            random.nextBytes(buffer);
+            out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+        }
+    }
+
+    /**
+     * Записывает табличные данные, сжимаемые примерно как CSV-файлы GDELT.
+     */
+    private static void writeCsvLikeBytes(OutputStream out, long size) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder line = new StringBuilder();
+        long written = 0;
+        while (written < size) {
+            line.setLength(0);
+            line.append(20250421073000L + random.nextInt(900)).append('\t')
+                    .append(random.nextInt(1_000_000)).append('\t')
+                    .append("https://example.org/news/").append(random.nextInt(100_000)).append('\t')
+                    .append(random.nextDouble()).append('\n');
+            byte[] bytes = line.toString().getBytes();
+            int length = (int) Math.min(bytes.length, size - written);
+            out.write(bytes, 0, length);
+            written += length;
+        }
+    }
+}
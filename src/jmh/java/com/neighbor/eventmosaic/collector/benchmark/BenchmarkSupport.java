@@ -0,0 +1,51 @@
+package com.neighbor.eventmosaic.collector.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Вспомогательные операции бенчмарков.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Рекурсивно удаляет директорию.
+     *
+     * @param directory директория или null
+     * @throws IOException при ошибках ввода-вывода
+     */
+    static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Устанавливает значение поля, которое в приложении внедряется через {@code @Value}.
+     *
+     * @param target объект
+     * @param name   имя поля
+     * @param value  значение
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось установить поле " + name, e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.neighbor.eventmosaic.collector.benchmark;
+
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+import com.neighbor.eventmosaic.collector.service.impl.FileSystemServiceImpl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Бенчмарк загрузки файла по HTTP с локального сервера.
+ * <p>
+ * Сравнивает {@link FileSystemServiceImpl#downloadFileWithDigest} (загрузка одним потоком
+ * через {@code downloadWithBuffering} или параллельными Range-сегментами) с копированием
+ * тела ответа потоком при разных размерах буфера и записью через {@link HttpResponse.BodyHandlers#ofFile}.
+ * Сервер отдает данные из памяти, поэтому измеряется стоимость клиентской стороны, а не сети.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @Param({BenchmarkData.GDELT_ARCHIVE, BenchmarkData.SYNTHETIC})
+    public String dataset;
+
+    @Param({"64"})
+    public int syntheticSizeMb;
+
+    @Param({"1", "4"})
+    public int segments;        // Используется только загрузкой сервиса
+
+    @Param({"8192", "65536"})
+    public int bufferSize;      // Используется только потоковым копированием
+
+    private final FileSystemServiceImpl fileSystemService = new FileSystemServiceImpl();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private Path workDir;
+    private byte[] payload;
+    private HttpServer server;
+    private String url;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("download-benchmark");
+        payload = Files.readAllBytes(BenchmarkData.file(dataset, syntheticSizeMb, workDir));
+        target = workDir.resolve("downloaded.bin");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/file";
+
+        BenchmarkSupport.setField(fileSystemService, "segmentCount", segments);
+        BenchmarkSupport.setField(fileSystemService, "minSegmentSize", 1024L);
+        BenchmarkSupport.setField(fileSystemService, "maxAttempts", 1);
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanTarget() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.stop(0);
+        BenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public DownloadedFile serviceDownloadFileWithDigest(ThroughputCounters counters) throws IOException {
+        DownloadedFile file = fileSystemService.downloadFileWithDigest(url, target.toString(), payload.length, null);
+        counters.add(payload.length);
+        return file;
+    }
+
+    @Benchmark
+    public long streamCopy(ThroughputCounters counters) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(request(), HttpResponse.BodyHandlers.ofInputStream());
+        long total = 0;
+        byte[] buffer = new byte[bufferSize];
+        try (InputStream in = response.body();
+             OutputStream out = Files.newOutputStream(target)) {
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+                total += bytesRead;
+            }
+        }
+        counters.add(total);
+        return total;
+    }
+
+    @Benchmark
+    public Path bodyHandlerOfFile(ThroughputCounters counters) throws IOException, InterruptedException {
+        Path file = httpClient.send(request(), HttpResponse.BodyHandlers.ofFile(target)).body();
+        counters.add(payload.length);
+        return file;
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    /**
+     * Отдает данные целиком или диапазон {@code bytes=start-end}.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range == null ? null : RANGE.matcher(range);
+
+        int start = 0;
+        int end = payload.length - 1;
+        int status = 200;
+        if (matcher != null && matcher.matches()) {
+            start = Integer.parseInt(matcher.group(1));
+            end = Math.min(Integer.parseInt(matcher.group(2)), payload.length - 1);
+            status = 206;
+            exchange.getResponseHeaders().add("Content-Range", "bytes %d-%d/%d".formatted(start, end, payload.length));
+        }
+
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(status, length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload, start, length);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.neighbor.eventmosaic.collector.benchmark;
+
+import com.neighbor.eventmosaic.collector.service.impl.FileSystemServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк вычисления MD5-хеша файла.
+ * <p>
+ * Сравнивает {@link FileSystemServiceImpl#calculateMd5} (поток и буфер {@code BUFFER_SIZE = 8192})
+ * с вариантами чтения при разных размерах буфера: поток с буфером в куче,
+ * канал с буфером в куче и канал с direct-буфером.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Md5Benchmark {
+
+    @Param({BenchmarkData.GDELT_ARCHIVE, BenchmarkData.SYNTHETIC})
+    public String dataset;
+
+    @Param({"64"})
+    public int syntheticSizeMb;
+
+    @Param({"8192", "65536", "1048576"})
+    public int bufferSize;
+
+    private final FileSystemServiceImpl fileSystemService = new FileSystemServiceImpl();
+
+    private Path workDir;
+    private Path file;
+    private long fileSize;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("md5-benchmark");
+        file = BenchmarkData.file(dataset, syntheticSizeMb, workDir);
+        fileSize = Files.size(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    /**
+     * Базовая линия: текущая реализация сервиса (размер буфера не параметризуется).
+     */
+    @Benchmark
+    public String serviceCalculateMd5(ThroughputCounters counters) throws IOException {
+        String hash = fileSystemService.calculateMd5(file);
+        counters.add(fileSize);
+        return hash;
+    }
+
+    @Benchmark
+    public String streamHeapBuffer(ThroughputCounters counters) throws IOException {
+        MessageDigest md = md5();
+        byte[] buffer = new byte[bufferSize];
+        try (InputStream in = Files.newInputStream(file)) {
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                md.update(buffer, 0, bytesRead);
+            }
+        }
+        counters.add(fileSize);
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    @Benchmark
+    public String channelHeapBuffer(ThroughputCounters counters) throws IOException {
+        String hash = digestChannel(ByteBuffer.allocate(bufferSize));
+        counters.add(fileSize);
+        return hash;
+    }
+
+    @Benchmark
+    public String channelDirectBuffer(ThroughputCounters counters) throws IOException {
+        String hash = digestChannel(ByteBuffer.allocateDirect(bufferSize));
+        counters.add(fileSize);
+        return hash;
+    }
+
+    private String digestChannel(ByteBuffer buffer) throws IOException {
+        MessageDigest md = md5();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
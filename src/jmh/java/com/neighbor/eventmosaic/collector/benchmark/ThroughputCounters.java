@@ -0,0 +1,33 @@
+package com.neighbor.eventmosaic.collector.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Дополнительный счетчик JMH для отчета о пропускной способности.
+ * В режиме {@code Throughput} с единицей времени в секундах
+ * метрика {@code megabytes} выводится как МБ/с.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+
+    public double megabytes; // Количество обработанных мегабайт
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+    }
+
+    /**
+     * Учитывает обработанные данные.
+     *
+     * @param bytes количество обработанных байт
+     */
+    void add(long bytes) {
+        megabytes += (double) bytes / BenchmarkData.BYTES_IN_MEGABYTE;
+    }
+}
@@ -0,0 +1,119 @@
+package com.neighbor.eventmosaic.collector.benchmark;
+
+import com.neighbor.eventmosaic.collector.dto.ExtractedFile;
+import com.neighbor.eventmosaic.collector.service.impl.FileSystemServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Бенчмарк распаковки ZIP-архивов.
+ * <p>
+ * Сравнивает {@link FileSystemServiceImpl#extractZipFile} (произвольный доступ через центральный каталог,
+ * параллельная распаковка и запись через канал) при разной параллельности
+ * с последовательной потоковой распаковкой через {@link ZipInputStream}.
+ * Пропускная способность считается по объему распакованных данных.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipExtractBenchmark {
+
+    @Param({BenchmarkData.GDELT_ARCHIVE, BenchmarkData.SYNTHETIC})
+    public String dataset;
+
+    @Param({"64"})
+    public int syntheticSizeMb;
+
+    @Param({"8"})
+    public int syntheticEntries;
+
+    @Param({"1", "0"})
+    public int parallelism;     // 0 - по числу ядер
+
+    @Param({"8192", "65536"})
+    public int bufferSize;      // Используется только потоковой распаковкой
+
+    private final FileSystemServiceImpl fileSystemService = new FileSystemServiceImpl();
+
+    private Path workDir;
+    private Path zip;
+    private Path outputDir;
+    private long uncompressedSize;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("zip-benchmark");
+        zip = BenchmarkData.zipArchive(dataset, syntheticSizeMb, syntheticEntries, workDir);
+        uncompressedSize = BenchmarkData.uncompressedSize(zip);
+        outputDir = workDir.resolve("out");
+        BenchmarkSupport.setField(fileSystemService, "extractParallelism", parallelism);
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanOutput() throws IOException {
+        BenchmarkSupport.deleteRecursively(outputDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public List<ExtractedFile> serviceExtractZipFile(ThroughputCounters counters) throws IOException {
+        List<ExtractedFile> files = fileSystemService.extractZipFile(zip, outputDir);
+        counters.add(uncompressedSize);
+        return files;
+    }
+
+    @Benchmark
+    public long zipInputStreamSequential(ThroughputCounters counters) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[bufferSize];
+        Files.createDirectories(outputDir);
+        try (ZipInputStream zipStream = new ZipInputStream(Files.newInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = zipStream.getNextEntry()) != null) {
+                try (OutputStream out = Files.newOutputStream(outputDir.resolve(Path.of(entry.getName()).getFileName()))) {
+                    total += copy(zipStream, out, buffer);
+                }
+            }
+        }
+        counters.add(total);
+        return total;
+    }
+
+    private static long copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        long total = 0;
+        int bytesRead;
+        while ((bytesRead = in.read(buffer)) != -1) {
+            out.write(buffer, 0, bytesRead);
+            total += bytesRead;
+        }
+        return total;
+    }
+}
@@ -2,7 +2,10 @@ package com.neighbor.eventmosaic.collector.client;
 
 import com.neighbor.eventmosaic.collector.config.FeignClientConfig;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 /**
  * Feign-клиент для взаимодействия с API GDELT.
@@ -17,10 +20,17 @@ public interface GdeltClient {
 
     /**
      * Получает информацию о последних доступных архивах переводов.
+     * Поддерживает условный запрос: если переданы валидаторы предыдущего ответа
+     * и файл с тех пор не изменился, сервер отвечает {@code 304 Not Modified},
+     * что приводит к {@link feign.FeignException} со статусом 304.
      *
-     * @return Строка с информацией об архивах в формате:
-     * размер хеш URL для каждого архива на отдельной строке
+     * @param ifNoneMatch     значение ETag предыдущего ответа или null
+     * @param ifModifiedSince значение Last-Modified предыдущего ответа или null
+     * @return Ответ со строкой с информацией об архивах в формате:
+     * размер хеш URL для каждого архива на отдельной строке, и заголовками ETag/Last-Modified
      */
     @GetMapping("${gdelt.api.translation-updates-path}")
-    String getLatestArchivesList();
+    ResponseEntity<String> getLatestArchivesList(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince);
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.neighbor.eventmosaic.collector.client;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.UploadPartResponse;
+import io.minio.messages.Part;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Клиент S3 multipart-загрузки MinIO.
+ * <p>
+ * Публичный API MinIO SDK выполняет multipart-загрузку только целиком внутри {@code putObject}
+ * и не позволяет загружать части одного объекта параллельно из независимых источников.
+ * Низкоуровневые операции CreateMultipartUpload, UploadPart, CompleteMultipartUpload
+ * и AbortMultipartUpload доступны только наследникам {@link MinioAsyncClient};
+ * этот класс открывает их в блокирующем виде. Регион бакета определяется клиентом.
+ */
+public class MinioMultipartClient extends MinioAsyncClient {
+
+    /**
+     * Префикс заголовков пользовательских метаданных S3
+     */
+    private static final String USER_METADATA_PREFIX = "x-amz-meta-";
+
+    /**
+     * Создает клиент с настройками (endpoint, учетные данные, HTTP-клиент) существующего клиента.
+     *
+     * @param client настроенный асинхронный клиент MinIO
+     */
+    public MinioMultipartClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * Начинает multipart-загрузку объекта.
+     *
+     * @param bucket       имя бакета
+     * @param object       имя объекта
+     * @param headers      заголовки объекта (например, Content-Type и Content-Encoding)
+     * @param userMetadata пользовательские метаданные объекта
+     * @return идентификатор загрузки
+     * @throws Exception при ошибке запроса к MinIO
+     */
+    public String createMultipartUpload(String bucket,
+                                        String object,
+                                        Map<String, String> headers,
+                                        Map<String, String> userMetadata) throws Exception {
+        Multimap<String, String> allHeaders = HashMultimap.create();
+        headers.forEach(allHeaders::put);
+        userMetadata.forEach((key, value) -> allHeaders.put(USER_METADATA_PREFIX + key, value));
+
+        return await(createMultipartUploadAsync(bucket, null, object, allHeaders, null))
+                .result()
+                .uploadId();
+    }
+
+    /**
+     * Загружает одну часть объекта. Повторная загрузка части с тем же номером заменяет предыдущую.
+     *
+     * @param bucket     имя бакета
+     * @param object     имя объекта
+     * @param uploadId   идентификатор загрузки
+     * @param partNumber номер части, начиная с 1
+     * @param data       данные части
+     * @return номер и ETag загруженной части
+     * @throws Exception при ошибке запроса к MinIO
+     */
+    public Part uploadPart(String bucket,
+                           String object,
+                           String uploadId,
+                           int partNumber,
+                           byte[] data) throws Exception {
+        UploadPartResponse response = await(
+                uploadPartAsync(bucket, null, object, data, data.length, uploadId, partNumber, null, null));
+        return new Part(partNumber, response.etag());
+    }
+
+    /**
+     * Завершает multipart-загрузку: объект атомарно становится видимым целиком.
+     *
+     * @param bucket   имя бакета
+     * @param object   имя объекта
+     * @param uploadId идентификатор загрузки
+     * @param parts    загруженные части в порядке номеров
+     * @return ответ MinIO с ETag итогового объекта
+     * @throws Exception при ошибке запроса к MinIO
+     */
+    public ObjectWriteResponse completeMultipartUpload(String bucket,
+                                                       String object,
+                                                       String uploadId,
+                                                       Part[] parts) throws Exception {
+        return await(completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null));
+    }
+
+    /**
+     * Отменяет multipart-загрузку; MinIO удаляет все уже загруженные части.
+     *
+     * @param bucket   имя бакета
+     * @param object   имя объекта
+     * @param uploadId идентификатор загрузки
+     * @throws Exception при ошибке запроса к MinIO
+     */
+    public void abortMultipartUpload(String bucket,
+                                     String object,
+                                     String uploadId) throws Exception {
+        await(abortMultipartUploadAsync(bucket, null, object, uploadId, null, null));
+    }
+
+    /**
+     * Дожидается результата асинхронной операции и пробрасывает ее исходную ошибку.
+     *
+     * @param future асинхронная операция
+     * @return результат операции
+     * @throws Exception ошибка операции
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.neighbor.eventmosaic.collector.config;
+
+import com.neighbor.eventmosaic.collector.limiter.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация обработки архивов.
+ * Настраивает адаптивное ограничение количества одновременно обрабатываемых архивов.
+ */
+@Configuration
+public class ArchiveProcessingConfig {
+
+    @Value("${gdelt.processing.concurrency.initial-limit:4}")
+    private int initialLimit;           // Начальный лимит одновременно обрабатываемых архивов
+
+    @Value("${gdelt.processing.concurrency.min-limit:1}")
+    private int minLimit;               // Минимальный лимит
+
+    @Value("${gdelt.processing.concurrency.max-limit:32}")
+    private int maxLimit;               // Максимальный лимит
+
+    @Value("${gdelt.processing.concurrency.backoff-ratio:0.7}")
+    private double backoffRatio;        // Множитель уменьшения лимита при ошибке или росте задержки
+
+    @Value("${gdelt.processing.concurrency.latency-tolerance:2.0}")
+    private double latencyTolerance;    // Допустимое превышение базового времени обработки байта
+
+    /**
+     * Создает адаптивный ограничитель одновременной обработки архивов
+     * и регистрирует его показатели в Micrometer.
+     *
+     * @param meterRegistry реестр метрик
+     * @return Настроенный экземпляр AdaptiveConcurrencyLimiter
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter archiveConcurrencyLimiter(MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance);
+
+        Gauge.builder("gdelt.archive.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Текущий лимит одновременно обрабатываемых архивов")
+                .register(meterRegistry);
+        Gauge.builder("gdelt.archive.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Количество обрабатываемых архивов")
+                .register(meterRegistry);
+        Gauge.builder("gdelt.archive.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+                .description("Количество архивов, ожидающих обработки")
+                .register(meterRegistry);
+        Gauge.builder("gdelt.archive.throughput.baseline", limiter, AdaptiveConcurrencyLimiter::getBaselineThroughput)
+                .description("Базовая пропускная способность обработки одного архива")
+                .baseUnit("bytes/s")
+                .register(meterRegistry);
+
+        return limiter;
+    }
+}
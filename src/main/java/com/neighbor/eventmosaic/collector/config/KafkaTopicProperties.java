@@ -14,4 +14,6 @@ public class KafkaTopicProperties {
 
     private String collectorEvent;
     private String collectorMention;
+    private String collectorEventParquet;
+    private String collectorMentionParquet;
 }
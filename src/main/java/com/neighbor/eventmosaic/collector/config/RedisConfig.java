@@ -1,8 +1,11 @@
 package com.neighbor.eventmosaic.collector.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 @Configuration
 public class RedisConfig {
@@ -11,4 +14,19 @@ public class RedisConfig {
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
     }
+
+    /**
+     * Контейнер подписок Redis pub/sub.
+     * Нужен только локальному кешу хешей для получения обновлений от других реплик.
+     *
+     * @param connectionFactory фабрика соединений Redis
+     * @return контейнер подписок
+     */
+    @Bean
+    @ConditionalOnProperty(name = "gdelt.hash-cache.enabled", havingValue = "true")
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
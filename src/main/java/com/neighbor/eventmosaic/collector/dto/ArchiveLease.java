@@ -0,0 +1,19 @@
+package com.neighbor.eventmosaic.collector.dto;
+
+/**
+ * Аренда архива - право текущей реплики обрабатывать архив.
+ * Токен ограждения (fencing token) монотонно растет с каждой выданной арендой,
+ * поэтому по нему можно отличить более позднего владельца архива от устаревшего.
+ */
+public record ArchiveLease(
+
+        // Имя архива
+        String archiveName,
+
+        // Значение ключа аренды, уникальное для владельца и аренды
+        String owner,
+
+        // Токен ограждения
+        long fencingToken
+) {
+}
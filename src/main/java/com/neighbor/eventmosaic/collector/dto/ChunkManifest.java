@@ -0,0 +1,35 @@
+package com.neighbor.eventmosaic.collector.dto;
+
+import java.util.List;
+
+/**
+ * Манифест частей распакованного файла.
+ * Описывает границы частей файла, выровненные по концу строки, и количество строк в каждой части.
+ * Потребители могут читать части параллельно HTTP-запросами с заголовком Range
+ * ({@code bytes=offset-(offset+length-1)}) без поиска границ строк.
+ */
+public record ChunkManifest(
+
+        // Размер файла в байтах
+        long fileSize,
+
+        // Общее количество строк в файле
+        long rowCount,
+
+        // Целевой размер части в байтах
+        long chunkSize,
+
+        // Части файла в порядке следования
+        List<Chunk> chunks
+) {
+
+    /**
+     * Часть файла.
+     *
+     * @param offset смещение начала части в байтах (начало строки)
+     * @param length длина части в байтах (часть заканчивается концом строки)
+     * @param rows   количество строк в части
+     */
+    public record Chunk(long offset, long length, long rows) {
+    }
+}
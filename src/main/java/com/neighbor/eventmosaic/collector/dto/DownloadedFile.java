@@ -0,0 +1,16 @@
+package com.neighbor.eventmosaic.collector.dto;
+
+import java.nio.file.Path;
+
+/**
+ * Результат загрузки файла.
+ * Содержит путь к сохраненному файлу и MD5-хеш, вычисленный во время загрузки.
+ */
+public record DownloadedFile(
+        // Путь к загруженному файлу
+        Path path,
+
+        // MD5-хеш содержимого файла
+        String hash
+) {
+}
@@ -0,0 +1,23 @@
+package com.neighbor.eventmosaic.collector.dto;
+
+import java.nio.file.Path;
+
+/**
+ * Файл, распакованный из архива.
+ * Содержит путь к файлу, MD5-хеш содержимого и манифест частей, вычисленные во время распаковки.
+ */
+public record ExtractedFile(
+        // Путь к распакованному файлу
+        Path path,
+
+        // MD5-хеш содержимого файла
+        String hash,
+
+        // Манифест частей файла или null, если он не строился
+        ChunkManifest manifest
+) {
+
+    public ExtractedFile(Path path, String hash) {
+        this(path, hash, null);
+    }
+}
@@ -25,6 +25,11 @@ public class ExtractedFileInfo {
      */
     private String fileUrl;
 
+    /**
+     * URL манифеста частей файла или null, если манифеста нет.
+     */
+    private String manifestUrl;
+
     /**
      * Статус отправки файла.
      */
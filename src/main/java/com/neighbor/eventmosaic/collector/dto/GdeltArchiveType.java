@@ -4,27 +4,34 @@ import com.neighbor.eventmosaic.collector.config.KafkaTopicProperties;
 import lombok.Getter;
 
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
  * Типы архивов GDELT.
  * Каждый тип архива соответствует определенному шаблону имени файла
- * и предоставляет метод для получения имени топика Kafka,
- * в который будут отправляться данные из этого архива.
+ * и предоставляет методы для получения имен топиков Kafka,
+ * в которые будут отправляться CSV- и Parquet-файлы из этого архива.
  */
 @Getter
 public enum GdeltArchiveType {
 
-    TRANSLATION_EXPORT("translation\\.export\\.CSV\\.zip$", KafkaTopicProperties::getCollectorEvent),
-    TRANSLATION_MENTIONS("translation\\.mentions\\.CSV\\.zip$", KafkaTopicProperties::getCollectorMention);
+    TRANSLATION_EXPORT("translation\\.export\\.CSV\\.zip$",
+            KafkaTopicProperties::getCollectorEvent, KafkaTopicProperties::getCollectorEventParquet),
+    TRANSLATION_MENTIONS("translation\\.mentions\\.CSV\\.zip$",
+            KafkaTopicProperties::getCollectorMention, KafkaTopicProperties::getCollectorMentionParquet);
 
     private final Pattern pattern;
     private final Function<KafkaTopicProperties, String> topicExtractor;
+    private final Function<KafkaTopicProperties, String> parquetTopicExtractor;
 
-    GdeltArchiveType(String regex, Function<KafkaTopicProperties, String> topicExtractor) {
+    GdeltArchiveType(String regex,
+                     Function<KafkaTopicProperties, String> topicExtractor,
+                     Function<KafkaTopicProperties, String> parquetTopicExtractor) {
         this.pattern = Pattern.compile(regex);
         this.topicExtractor = topicExtractor;
+        this.parquetTopicExtractor = parquetTopicExtractor;
     }
 
     /**
@@ -37,6 +44,26 @@ public enum GdeltArchiveType {
         return topicExtractor.apply(properties);
     }
 
+    /**
+     * Получает имя топика Kafka для Parquet-файлов этого типа архива.
+     *
+     * @param properties конфигурация топиков
+     * @return имя топика Kafka
+     */
+    public String getParquetTopicName(KafkaTopicProperties properties) {
+        return parquetTopicExtractor.apply(properties);
+    }
+
+    /**
+     * Возвращает сегмент ключа объекта в MinIO для этого типа архива,
+     * например {@code translation-export}.
+     *
+     * @return сегмент ключа объекта
+     */
+    public String getKeySegment() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
     /**
      * Определяет тип архива по имени файла.
      *
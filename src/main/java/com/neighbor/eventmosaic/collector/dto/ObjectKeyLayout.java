@@ -0,0 +1,42 @@
+package com.neighbor.eventmosaic.collector.dto;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Схемы формирования ключей объектов в MinIO.
+ */
+@Getter
+public enum ObjectKeyLayout {
+
+    /**
+     * Ключ - имя файла в корне бакета
+     */
+    FLAT("flat"),
+
+    /**
+     * Ключ с префиксом {@code yyyy/MM/dd/HH/<тип>/} по метке времени GDELT из имени файла
+     */
+    TIME_PARTITIONED("time-partitioned");
+
+    private final String configName;
+
+    ObjectKeyLayout(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * Определяет схему по имени из конфигурации (без учета регистра).
+     *
+     * @param name имя схемы
+     * @return схема формирования ключей
+     * @throws IllegalArgumentException если схема не поддерживается
+     */
+    public static ObjectKeyLayout fromName(String name) {
+        return Arrays.stream(values())
+                .filter(layout -> layout.configName.equalsIgnoreCase(name.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неподдерживаемая схема ключей объектов: " + name));
+    }
+}
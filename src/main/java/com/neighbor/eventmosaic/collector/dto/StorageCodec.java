@@ -0,0 +1,67 @@
+package com.neighbor.eventmosaic.collector.dto;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кодеки сжатия объектов, сохраняемых в MinIO.
+ * Каждый кодек задает значение заголовка Content-Encoding
+ * и суффикс имени объекта, по которому потребители определяют способ декодирования.
+ */
+@Getter
+public enum StorageCodec {
+
+    NONE(null, ""),
+    GZIP("gzip", ".gz"),
+    ZSTD("zstd", ".zst");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ZSTD_DEFAULT_LEVEL = 3;
+
+    private final String contentEncoding;
+    private final String extension;
+
+    StorageCodec(String contentEncoding, String extension) {
+        this.contentEncoding = contentEncoding;
+        this.extension = extension;
+    }
+
+    /**
+     * Оборачивает поток вывода в сжимающий поток кодека.
+     *
+     * @param out   поток для сжатых данных
+     * @param level уровень сжатия или отрицательное значение для уровня по умолчанию
+     * @return сжимающий поток (для {@link #NONE} - исходный поток)
+     * @throws IOException при ошибке создания потока
+     */
+    public OutputStream encode(OutputStream out, int level) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            case ZSTD -> new ZstdOutputStream(out, level < 0 ? ZSTD_DEFAULT_LEVEL : level);
+        };
+    }
+
+    /**
+     * Определяет кодек по имени из конфигурации (без учета регистра).
+     *
+     * @param name имя кодека
+     * @return кодек
+     * @throws IllegalArgumentException если кодек не поддерживается
+     */
+    public static StorageCodec fromName(String name) {
+        return Arrays.stream(values())
+                .filter(codec -> codec.name().equalsIgnoreCase(name.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неподдерживаемый кодек сжатия: " + name));
+    }
+}
@@ -0,0 +1,16 @@
+package com.neighbor.eventmosaic.collector.dto;
+
+/**
+ * Результат загрузки объекта в MinIO.
+ * Загрузка пропускается, если объект с тем же содержимым уже есть в бакете;
+ * такой объект записан и, возможно, опубликован предыдущей обработкой,
+ * поэтому при откате текущей обработки его удалять нельзя.
+ */
+public record UploadedObject(
+        // URL объекта в MinIO
+        String url,
+
+        // true, если объект записан этой загрузкой, false - если загрузка пропущена
+        boolean written
+) {
+}
@@ -3,17 +3,22 @@ package com.neighbor.eventmosaic.collector.event;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Событие успешного извлечения файлов из архива.
- * Содержит информацию об архиве и список URL к извлеченным файлам.
+ * Содержит информацию об архиве, список URL к извлеченным файлам
+ * и URL манифестов частей для файлов, у которых они есть.
  */
 public record ArchiveExtractedEvent(
 
         // Информация об архиве GDELT
         GdeltArchiveInfo archiveInfo,
 
-        // Список URL к извлеченным файлам (пока всегда 1 файл)
-        List<String> extractedFiles
+        // Список URL к извлеченным файлам (при разбиении на части - URL каждой части)
+        List<String> extractedFiles,
+
+        // URL манифестов частей по URL файлов
+        Map<String, String> manifestUrls
 ) {
 }
\ No newline at end of file
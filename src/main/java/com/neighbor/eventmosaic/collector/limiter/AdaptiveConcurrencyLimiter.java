@@ -0,0 +1,223 @@
+package com.neighbor.eventmosaic.collector.limiter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Адаптивный ограничитель количества одновременно выполняемых асинхронных задач.
+ * <p>
+ * Лимит подбирается по схеме AIMD (additive increase / multiplicative decrease):
+ * <ul>
+ *     <li>после успешной задачи, завершившейся при полностью занятом лимите, лимит растет на {@code 1 / limit},
+ *     то есть примерно на единицу за каждые {@code limit} завершенных задач;</li>
+ *     <li>после неуспешной задачи или если время обработки одного байта превысило базовое
+ *     в {@code latencyTolerance} раз, лимит умножается на {@code backoffRatio}.</li>
+ * </ul>
+ * Базовое время обработки байта - медленно сглаживаемое среднее по всем задачам,
+ * поэтому задачи разного объема сравниваются по пропускной способности, а не по абсолютной задержке.
+ * Задачи сверх лимита ставятся в очередь и запускаются по мере завершения выполняемых, без блокировки потоков.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BASELINE_SMOOTHING = 0.05; // Коэффициент сглаживания базового времени обработки байта
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final int minLimit;             // Минимальный лимит
+    private final int maxLimit;             // Максимальный лимит
+    private final double backoffRatio;      // Множитель уменьшения лимита
+    private final double latencyTolerance;  // Допустимое превышение базового времени обработки байта
+
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double baselineNanosPerByte;    // 0 - базовое значение еще не измерено
+
+    /**
+     * Создает ограничитель.
+     *
+     * @param initialLimit     начальный лимит
+     * @param minLimit         минимальный лимит (не меньше 1)
+     * @param maxLimit         максимальный лимит
+     * @param backoffRatio     множитель уменьшения лимита, от 0 до 1
+     * @param latencyTolerance допустимое превышение базового времени обработки байта, больше 1
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException(
+                    "Некорректные границы лимита: min=" + minLimit + ", max=" + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Множитель уменьшения лимита должен быть в интервале (0, 1): " + backoffRatio);
+        }
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("Допустимое превышение задержки должно быть больше 1: " + latencyTolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Запускает задачу с учетом текущего лимита или ставит ее в очередь.
+     *
+     * @param sizeBytes объем данных задачи в байтах, используется для оценки пропускной способности
+     * @param task      поставщик асинхронной задачи, вызывается в момент запуска
+     * @param isSuccess проверка результата задачи на успешность
+     * @param <T>       тип результата задачи
+     * @return CompletableFuture с результатом задачи
+     */
+    public <T> CompletableFuture<T> submit(long sizeBytes,
+                                           Supplier<CompletableFuture<T>> task,
+                                           Predicate<? super T> isSuccess) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> start(sizeBytes, task, isSuccess, result);
+
+        boolean acquired;
+        synchronized (this) {
+            acquired = inFlight < currentLimit();
+            if (acquired) {
+                inFlight++;
+            } else {
+                waiting.addLast(start);
+            }
+        }
+
+        if (acquired) {
+            start.run();
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает текущий лимит одновременно выполняемых задач.
+     *
+     * @return текущий лимит
+     */
+    public synchronized int getLimit() {
+        return currentLimit();
+    }
+
+    /**
+     * Возвращает количество выполняемых задач.
+     *
+     * @return количество выполняемых задач
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Возвращает количество задач, ожидающих запуска.
+     *
+     * @return размер очереди
+     */
+    public synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    /**
+     * Возвращает базовую пропускную способность одной задачи.
+     *
+     * @return пропускная способность в байтах в секунду или 0, если еще не измерена
+     */
+    public synchronized double getBaselineThroughput() {
+        return baselineNanosPerByte > 0 ? NANOS_PER_SECOND / baselineNanosPerByte : 0;
+    }
+
+    /**
+     * Запускает задачу и по ее завершении освобождает место и корректирует лимит.
+     */
+    private <T> void start(long sizeBytes,
+                           Supplier<CompletableFuture<T>> task,
+                           Predicate<? super T> isSuccess,
+                           CompletableFuture<T> result) {
+        long startNanos = System.nanoTime();
+
+        CompletableFuture<T> future;
+        try {
+            future = task.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((value, ex) -> {
+            boolean success = ex == null && isSuccess.test(value);
+            release(sizeBytes, System.nanoTime() - startNanos, success);
+
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Освобождает место завершенной задачи, корректирует лимит и запускает задачи из очереди.
+     *
+     * @param sizeBytes    объем данных задачи
+     * @param latencyNanos длительность задачи в наносекундах
+     * @param success      признак успешного завершения
+     */
+    private void release(long sizeBytes, long latencyNanos, boolean success) {
+        List<Runnable> toStart = new ArrayList<>();
+        synchronized (this) {
+            boolean saturated = inFlight >= currentLimit();
+            inFlight--;
+            adjustLimit(sizeBytes, latencyNanos, success, saturated);
+
+            while (!waiting.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                toStart.add(waiting.pollFirst());
+            }
+        }
+        toStart.forEach(Runnable::run);
+    }
+
+    /**
+     * Корректирует лимит по результату задачи.
+     *
+     * @param sizeBytes    объем данных задачи
+     * @param latencyNanos длительность задачи в наносекундах
+     * @param success      признак успешного завершения
+     * @param saturated    был ли лимит полностью занят в момент завершения
+     */
+    private void adjustLimit(long sizeBytes, long latencyNanos, boolean success, boolean saturated) {
+        int previousLimit = currentLimit();
+
+        if (!success) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else {
+            double nanosPerByte = (double) latencyNanos / Math.max(sizeBytes, 1);
+            if (baselineNanosPerByte == 0) {
+                baselineNanosPerByte = nanosPerByte;
+            }
+
+            if (nanosPerByte > baselineNanosPerByte * latencyTolerance) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            baselineNanosPerByte += BASELINE_SMOOTHING * (nanosPerByte - baselineNanosPerByte);
+        }
+
+        if (currentLimit() != previousLimit) {
+            log.debug("Лимит одновременной обработки изменен: {} -> {}", previousLimit, currentLimit());
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+}
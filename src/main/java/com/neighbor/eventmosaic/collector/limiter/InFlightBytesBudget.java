@@ -0,0 +1,145 @@
+package com.neighbor.eventmosaic.collector.limiter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Ограничитель суммарного объема данных, одновременно находящихся в обработке.
+ * <p>
+ * Каждая задача занимает часть бюджета, равную своему объему, и освобождает ее по завершении.
+ * Задача, не помещающаяся в свободный остаток, ставится в очередь и запускается без блокировки потоков,
+ * когда бюджет освободится. Очередь строго упорядочена: крупная задача в голове очереди
+ * не обгоняется мелкими, поэтому не может ожидать бесконечно.
+ * Задача больше всего бюджета занимает бюджет целиком и выполняется одна.
+ */
+public class InFlightBytesBudget {
+
+    private final long capacity;            // Размер бюджета в байтах
+
+    private final Deque<Pending> waiting = new ArrayDeque<>();
+    private long inFlightBytes;
+
+    /**
+     * Создает бюджет.
+     *
+     * @param capacity размер бюджета в байтах, больше 0
+     */
+    public InFlightBytesBudget(long capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер бюджета должен быть больше 0: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Запускает задачу, если для нее есть свободный бюджет, или ставит ее в очередь.
+     *
+     * @param sizeBytes объем данных задачи в байтах
+     * @param task      поставщик асинхронной задачи, вызывается в момент запуска
+     * @param <T>       тип результата задачи
+     * @return CompletableFuture с результатом задачи
+     */
+    public <T> CompletableFuture<T> submit(long sizeBytes, Supplier<CompletableFuture<T>> task) {
+        long reserved = Math.clamp(sizeBytes, 0, capacity);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> start(reserved, task, result);
+
+        boolean acquired;
+        synchronized (this) {
+            acquired = waiting.isEmpty() && inFlightBytes + reserved <= capacity;
+            if (acquired) {
+                inFlightBytes += reserved;
+            } else {
+                waiting.addLast(new Pending(reserved, start));
+            }
+        }
+
+        if (acquired) {
+            start.run();
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает размер бюджета.
+     *
+     * @return размер бюджета в байтах
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Возвращает объем данных выполняемых задач.
+     *
+     * @return занятый бюджет в байтах
+     */
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    /**
+     * Возвращает количество задач, ожидающих запуска.
+     *
+     * @return размер очереди
+     */
+    public synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    /**
+     * Запускает задачу и по ее завершении освобождает занятый бюджет.
+     */
+    private <T> void start(long reserved,
+                           Supplier<CompletableFuture<T>> task,
+                           CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = task.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((value, ex) -> {
+            release(reserved);
+
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Освобождает бюджет завершенной задачи и запускает задачи из очереди, которым его хватает.
+     *
+     * @param reserved объем данных задачи
+     */
+    private void release(long reserved) {
+        List<Runnable> toStart = new ArrayList<>();
+        synchronized (this) {
+            inFlightBytes -= reserved;
+
+            while (!waiting.isEmpty() && inFlightBytes + waiting.peekFirst().bytes() <= capacity) {
+                Pending pending = waiting.pollFirst();
+                inFlightBytes += pending.bytes();
+                toStart.add(pending.start());
+            }
+        }
+        toStart.forEach(Runnable::run);
+    }
+
+    /**
+     * Задача, ожидающая свободного бюджета.
+     *
+     * @param bytes объем данных задачи
+     * @param start запуск задачи
+     */
+    private record Pending(long bytes, Runnable start) {
+    }
+}
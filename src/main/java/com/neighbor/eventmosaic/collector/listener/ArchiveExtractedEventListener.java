@@ -24,8 +24,8 @@ public class ArchiveExtractedEventListener {
 
     /**
      * Асинхронно обрабатывает событие успешной распаковки архива.
-     * Определяет топик Kafka, в который будет отправлен файл.
-     * Регистрирует файл в Redis и отправляет его в Kafka.
+     * Определяет топик Kafka для каждого файла: Parquet-файлы отправляются в отдельный топик.
+     * Регистрирует все файлы архива в Redis за один обмен и отправляет их в Kafka.
      *
      * @param event событие
      */
@@ -34,13 +34,12 @@ public class ArchiveExtractedEventListener {
     public void handleArchiveExtractedEvent(ArchiveExtractedEvent event) {
         log.info("Получено событие о распаковке архива: {}", event.archiveInfo().fileName());
 
-        String topic = topicResolver.resolveTopic(event.archiveInfo().fileName());
         String archiveFileName = event.archiveInfo().fileName();
 
-        event.extractedFiles().forEach(filePath -> {
-            sendStatusService.registerFile(archiveFileName, filePath);
-            kafkaMessageService.sendUrlToKafka(topic, filePath);
-        });
+        sendStatusService.registerFiles(archiveFileName, event.extractedFiles(), event.manifestUrls());
+        event.extractedFiles().forEach(filePath ->
+                kafkaMessageService.sendUrlToKafka(topicResolver.resolveTopic(archiveFileName, filePath),
+                        filePath, event.manifestUrls().get(filePath)));
 
         log.info("Обработка события завершена.");
     }
@@ -0,0 +1,85 @@
+package com.neighbor.eventmosaic.collector.manifest;
+
+import com.neighbor.eventmosaic.collector.dto.ChunkManifest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строит манифест частей файла по мере передачи его содержимого.
+ * <p>
+ * Байты файла передаются в {@link #update} в порядке следования. Часть закрывается
+ * на первом конце строки ({@code \n}), после которого ее размер достиг {@code chunkSize},
+ * поэтому каждая часть начинается с начала строки и содержит только целые строки.
+ * Последняя строка без завершающего перевода строки учитывается в последней части.
+ * Экземпляр не потокобезопасен и используется для одного файла.
+ */
+public class ChunkIndexer {
+
+    private final long chunkSize;
+    private final List<ChunkManifest.Chunk> chunks = new ArrayList<>();
+
+    private long position;          // Количество переданных байтов
+    private long chunkStart;        // Смещение начала текущей части
+    private long chunkRows;         // Количество завершенных строк в текущей части
+    private long rowCount;          // Количество строк в закрытых частях
+    private boolean lineTerminated = true; // Заканчиваются ли переданные данные концом строки
+
+    /**
+     * @param chunkSize целевой размер части в байтах
+     */
+    public ChunkIndexer(long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Учитывает очередной фрагмент содержимого файла.
+     *
+     * @param buffer буфер с данными
+     * @param offset смещение данных в буфере
+     * @param length длина данных
+     */
+    public void update(byte[] buffer, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        long base = position - offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (buffer[i] == '\n') {
+                chunkRows++;
+                long lineEnd = base + i + 1;
+                if (lineEnd - chunkStart >= chunkSize) {
+                    closeChunk(lineEnd);
+                }
+            }
+        }
+        position += length;
+        lineTerminated = buffer[end - 1] == '\n';
+    }
+
+    /**
+     * Закрывает последнюю часть и возвращает манифест.
+     *
+     * @return манифест частей файла
+     */
+    public ChunkManifest finish() {
+        if (position > chunkStart) {
+            if (!lineTerminated) {
+                chunkRows++; // Последняя строка без перевода строки
+            }
+            closeChunk(position);
+        }
+        return new ChunkManifest(position, rowCount, chunkSize, List.copyOf(chunks));
+    }
+
+    private void closeChunk(long end) {
+        chunks.add(new ChunkManifest.Chunk(chunkStart, end - chunkStart, chunkRows));
+        rowCount += chunkRows;
+        chunkStart = end;
+        chunkRows = 0;
+    }
+}
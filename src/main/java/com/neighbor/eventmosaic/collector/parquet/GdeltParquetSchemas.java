@@ -0,0 +1,113 @@
+package com.neighbor.eventmosaic.collector.parquet;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.util.List;
+
+/**
+ * Типизированные Parquet-схемы файлов GDELT 2.0.
+ * <p>
+ * Порядок полей совпадает с порядком столбцов в CSV-файлах с разделителем табуляцией,
+ * поэтому i-й столбец строки записывается в i-е поле схемы. Все поля необязательные:
+ * пустые значения в GDELT встречаются практически в каждом столбце.
+ * Строковые поля помечены логическим типом STRING.
+ */
+public final class GdeltParquetSchemas {
+
+    private static final List<String> ACTOR_ATTRIBUTES = List.of(
+            "Code", "Name", "CountryCode", "KnownGroupCode", "EthnicCode",
+            "Religion1Code", "Religion2Code", "Type1Code", "Type2Code", "Type3Code");
+
+    /**
+     * Схема файлов событий ({@code *.export.CSV}), 61 столбец
+     */
+    public static final MessageType EVENT = buildEventSchema();
+
+    /**
+     * Схема файлов упоминаний ({@code *.mentions.CSV}), 16 столбцов
+     */
+    public static final MessageType MENTION = Types.buildMessage()
+            .optional(PrimitiveTypeName.INT64).named("GlobalEventID")
+            .optional(PrimitiveTypeName.INT64).named("EventTimeDate")
+            .optional(PrimitiveTypeName.INT64).named("MentionTimeDate")
+            .optional(PrimitiveTypeName.INT32).named("MentionType")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("MentionSourceName")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("MentionIdentifier")
+            .optional(PrimitiveTypeName.INT32).named("SentenceID")
+            .optional(PrimitiveTypeName.INT32).named("Actor1CharOffset")
+            .optional(PrimitiveTypeName.INT32).named("Actor2CharOffset")
+            .optional(PrimitiveTypeName.INT32).named("ActionCharOffset")
+            .optional(PrimitiveTypeName.INT32).named("InRawText")
+            .optional(PrimitiveTypeName.INT32).named("Confidence")
+            .optional(PrimitiveTypeName.INT32).named("MentionDocLen")
+            .optional(PrimitiveTypeName.DOUBLE).named("MentionDocTone")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("MentionDocTranslationInfo")
+            .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("Extras")
+            .named("gdelt_mention");
+
+    private GdeltParquetSchemas() {
+    }
+
+    /**
+     * Возвращает схему для типа архива.
+     *
+     * @param archiveType тип архива
+     * @return Parquet-схема файлов архива
+     */
+    public static MessageType forType(GdeltArchiveType archiveType) {
+        return switch (archiveType) {
+            case TRANSLATION_EXPORT -> EVENT;
+            case TRANSLATION_MENTIONS -> MENTION;
+        };
+    }
+
+    /**
+     * Строит схему файлов событий.
+     * Группы столбцов участников (Actor1/Actor2) и географии (Actor1Geo/Actor2Geo/ActionGeo)
+     * имеют одинаковый набор полей и добавляются в цикле.
+     */
+    private static MessageType buildEventSchema() {
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        builder.optional(PrimitiveTypeName.INT64).named("GlobalEventID")
+                .optional(PrimitiveTypeName.INT32).named("Day")
+                .optional(PrimitiveTypeName.INT32).named("MonthYear")
+                .optional(PrimitiveTypeName.INT32).named("Year")
+                .optional(PrimitiveTypeName.DOUBLE).named("FractionDate");
+
+        for (String actor : List.of("Actor1", "Actor2")) {
+            for (String attribute : ACTOR_ATTRIBUTES) {
+                builder.optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(actor + attribute);
+            }
+        }
+
+        builder.optional(PrimitiveTypeName.INT32).named("IsRootEvent")
+                .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("EventCode")
+                .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("EventBaseCode")
+                .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("EventRootCode")
+                .optional(PrimitiveTypeName.INT32).named("QuadClass")
+                .optional(PrimitiveTypeName.DOUBLE).named("GoldsteinScale")
+                .optional(PrimitiveTypeName.INT32).named("NumMentions")
+                .optional(PrimitiveTypeName.INT32).named("NumSources")
+                .optional(PrimitiveTypeName.INT32).named("NumArticles")
+                .optional(PrimitiveTypeName.DOUBLE).named("AvgTone");
+
+        for (String geo : List.of("Actor1Geo", "Actor2Geo", "ActionGeo")) {
+            builder.optional(PrimitiveTypeName.INT32).named(geo + "_Type")
+                    .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(geo + "_FullName")
+                    .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(geo + "_CountryCode")
+                    .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(geo + "_ADM1Code")
+                    .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(geo + "_ADM2Code")
+                    .optional(PrimitiveTypeName.DOUBLE).named(geo + "_Lat")
+                    .optional(PrimitiveTypeName.DOUBLE).named(geo + "_Long")
+                    .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named(geo + "_FeatureID");
+        }
+
+        return builder.optional(PrimitiveTypeName.INT64).named("DATEADDED")
+                .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("SOURCEURL")
+                .named("gdelt_event");
+    }
+}
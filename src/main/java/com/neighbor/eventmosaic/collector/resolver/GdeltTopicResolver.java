@@ -2,10 +2,14 @@ package com.neighbor.eventmosaic.collector.resolver;
 
 import com.neighbor.eventmosaic.collector.config.KafkaTopicProperties;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import com.neighbor.eventmosaic.collector.dto.StorageCodec;
+import com.neighbor.eventmosaic.collector.service.ParquetConversionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+
 /**
  * Решает, в какой топик Kafka отправлять файл.
  */
@@ -23,12 +27,36 @@ public class GdeltTopicResolver {
      * @return топик Kafka
      */
     public String resolveTopic(String archiveFileName) {
+        return resolveArchiveType(archiveFileName).getTopicName(topicProperties);
+    }
+
+    /**
+     * Определяет топик Kafka для отправки файла архива.
+     * Parquet-файлы (в том числе сохраненные в MinIO со сжатием) отправляются в отдельный топик
+     * своего типа архива, чтобы потребители CSV-топика получали только CSV-файлы.
+     *
+     * @param archiveFileName имя архива
+     * @param fileUrl         URL файла в хранилище
+     * @return топик Kafka
+     */
+    public String resolveTopic(String archiveFileName, String fileUrl) {
+        GdeltArchiveType archiveType = resolveArchiveType(archiveFileName);
+        return isParquet(fileUrl)
+                ? archiveType.getParquetTopicName(topicProperties)
+                : archiveType.getTopicName(topicProperties);
+    }
+
+    private GdeltArchiveType resolveArchiveType(String archiveFileName) {
         GdeltArchiveType archiveType = GdeltArchiveType.fromFileName(archiveFileName);
         if (archiveType == null) {
             log.error("Не удалось определить тип архива для файла: {}", archiveFileName);
             throw new IllegalArgumentException("Неизвестный тип архива: " + archiveFileName);
         }
+        return archiveType;
+    }
 
-        return archiveType.getTopicName(topicProperties);
+    private boolean isParquet(String fileUrl) {
+        return Arrays.stream(StorageCodec.values())
+                .anyMatch(codec -> fileUrl.endsWith(ParquetConversionService.PARQUET_SUFFIX + codec.getExtension()));
     }
 }
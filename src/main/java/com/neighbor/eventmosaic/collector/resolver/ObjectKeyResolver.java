@@ -0,0 +1,92 @@
+package com.neighbor.eventmosaic.collector.resolver;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import com.neighbor.eventmosaic.collector.dto.ObjectKeyLayout;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Формирует ключи объектов в MinIO для распакованных файлов.
+ * <p>
+ * При схеме {@link ObjectKeyLayout#TIME_PARTITIONED} ключ имеет вид
+ * {@code yyyy/MM/dd/HH/<тип архива>/<имя файла>}: время берется из метки GDELT
+ * в начале имени файла (или архива), тип - из имени архива. Если метку времени или тип
+ * определить не удалось, соответствующий сегмент не добавляется.
+ * Такие префиксы позволяют выбирать объекты за период и по типу без обхода всего бакета.
+ */
+@Slf4j
+@Component
+public class ObjectKeyResolver {
+
+    private static final Pattern GDELT_TIMESTAMP = Pattern.compile("^(\\d{14})\\.");
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd/HH/");
+
+    @Value("${storage.minio.key-layout:flat}")
+    private String layoutName;      // Схема ключей объектов: flat или time-partitioned
+
+    private ObjectKeyLayout layout;
+
+    @PostConstruct
+    private void initializeLayout() {
+        layout = ObjectKeyLayout.fromName(layoutName);
+        log.info("Схема ключей объектов MinIO: {}", layout.getConfigName());
+    }
+
+    /**
+     * Определяет ключ объекта в MinIO для файла из архива.
+     *
+     * @param archiveFileName имя архива
+     * @param fileName        имя распакованного файла
+     * @return ключ объекта
+     */
+    public String resolveObjectKey(String archiveFileName, String fileName) {
+        if (layout == ObjectKeyLayout.FLAT) {
+            return fileName;
+        }
+
+        StringBuilder key = new StringBuilder();
+        LocalDateTime timestamp = parseTimestamp(fileName);
+        if (timestamp == null) {
+            timestamp = parseTimestamp(archiveFileName);
+        }
+        if (timestamp != null) {
+            key.append(PARTITION_FORMAT.format(timestamp));
+        } else {
+            log.warn("Не удалось определить метку времени GDELT для файла {} из архива {}", fileName, archiveFileName);
+        }
+
+        GdeltArchiveType archiveType = GdeltArchiveType.fromFileName(archiveFileName);
+        if (archiveType != null) {
+            key.append(archiveType.getKeySegment()).append('/');
+        }
+
+        return key.append(fileName).toString();
+    }
+
+    /**
+     * Извлекает метку времени GDELT ({@code yyyyMMddHHmmss}) из начала имени файла.
+     *
+     * @param fileName имя файла
+     * @return метка времени или null, если имя не начинается с корректной метки
+     */
+    private LocalDateTime parseTimestamp(String fileName) {
+        Matcher matcher = GDELT_TIMESTAMP.matcher(fileName);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(matcher.group(1), TIMESTAMP_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
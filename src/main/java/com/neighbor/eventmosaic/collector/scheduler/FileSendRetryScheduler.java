@@ -39,10 +39,10 @@ public class FileSendRetryScheduler {
         pendingFiles.forEach(fileInfo -> {
             String fileUrl = fileInfo.getFileUrl();
 
-            String topic = topicResolver.resolveTopic(fileInfo.getArchiveFileName());
+            String topic = topicResolver.resolveTopic(fileInfo.getArchiveFileName(), fileUrl);
             log.info("Повторная отправка файла {} в топик {}", fileUrl, topic);
 
-            kafkaMessageService.sendUrlToKafka(topic, fileUrl);
+            kafkaMessageService.sendUrlToKafka(topic, fileUrl, fileInfo.getManifestUrl());
         });
     }
 }
@@ -0,0 +1,34 @@
+package com.neighbor.eventmosaic.collector.service;
+
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Сервис локального кеша проверенных архивов.
+ * Архивы хранятся под своим MD5-хешем, поэтому повторная обработка
+ * того же архива (повторы, переобработка, истекший TTL хеша в Redis)
+ * не требует повторной загрузки из сети.
+ */
+public interface ArchiveCacheService {
+
+    /**
+     * Ищет архив в кеше и, если он найден, размещает его по указанному пути.
+     *
+     * @param hash         MD5-хеш архива
+     * @param expectedSize ожидаемый размер архива в байтах
+     * @param targetPath   путь, по которому должен быть размещен архив
+     * @return размещенный архив и его хеш или пустой Optional, если архива нет в кеше
+     */
+    Optional<DownloadedFile> fetch(String hash, long expectedSize, Path targetPath);
+
+    /**
+     * Сохраняет проверенный архив в кеш.
+     * Ошибки сохранения не прерывают обработку архива.
+     *
+     * @param hash        проверенный MD5-хеш архива
+     * @param archivePath путь к архиву
+     */
+    void store(String hash, Path archivePath);
+}
@@ -0,0 +1,44 @@
+package com.neighbor.eventmosaic.collector.service;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+
+import java.util.List;
+
+/**
+ * Вероятностный фильтр истории обработанных архивов.
+ * Отвечает, мог ли архив с данным хешем уже быть обработан: отрицательный ответ точен,
+ * положительный может быть ложным с заданной вероятностью и подтверждается точной проверкой.
+ */
+public interface ArchiveHistoryFilter {
+
+    /**
+     * Проверяет, включен ли фильтр.
+     *
+     * @return true, если фильтр ведется и его ответам можно доверять
+     */
+    boolean isEnabled();
+
+    /**
+     * Отбирает архивы, которые могли быть обработаны ранее, за один обмен с хранилищем фильтра.
+     *
+     * @param archives Список архивов с текущими хешами
+     * @return Архивы с положительным ответом фильтра в исходном порядке
+     */
+    List<GdeltArchiveInfo> mightContain(List<GdeltArchiveInfo> archives);
+
+    /**
+     * Точно проверяет архивы с положительным ответом фильтра по истории обработанных архивов,
+     * которая хранится без срока действия. Ложные срабатывания фильтра здесь отсеиваются.
+     *
+     * @param archives Архивы с положительным ответом фильтра
+     * @return Архивы, которые точно обработаны с тем же хешем, в исходном порядке
+     */
+    List<GdeltArchiveInfo> confirmProcessed(List<GdeltArchiveInfo> archives);
+
+    /**
+     * Добавляет обработанный архив в фильтр.
+     *
+     * @param archive Информация об архиве
+     */
+    void put(GdeltArchiveInfo archive);
+}
@@ -0,0 +1,38 @@
+package com.neighbor.eventmosaic.collector.service;
+
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
+
+import java.util.Optional;
+
+/**
+ * Сервис аренды архивов между репликами коллектора.
+ * Архив обрабатывает только реплика, получившая аренду; аренда продлевается,
+ * пока реплика ее удерживает, и истекает сама, если реплика перестала работать.
+ */
+public interface ArchiveLeaseService {
+
+    /**
+     * Пытается получить аренду архива.
+     *
+     * @param archiveName Имя архива
+     * @return аренда или пустой Optional, если архив арендован другой репликой
+     */
+    Optional<ArchiveLease> tryAcquire(String archiveName);
+
+    /**
+     * Проверяет, что аренда архива, полученная этой репликой, все еще принадлежит ей.
+     * Вызывается перед фиксацией результата обработки (публикацией события и сохранением хеша);
+     * токен ограждения аренды передается при сохранении хеша.
+     *
+     * @param archiveName Имя архива
+     * @return аренда или пустой Optional, если она истекла или перешла к другой реплике
+     */
+    Optional<ArchiveLease> findHeldLease(String archiveName);
+
+    /**
+     * Освобождает аренду, если она все еще принадлежит текущей реплике.
+     *
+     * @param lease аренда
+     */
+    void release(ArchiveLease lease);
+}
@@ -3,6 +3,7 @@ package com.neighbor.eventmosaic.collector.service;
 import com.neighbor.eventmosaic.collector.dto.ExtractedFileInfo;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Сервис для отслеживания статуса отправки файлов в Kafka.
@@ -13,10 +14,21 @@ public interface FileSendStatusService {
      * Регистрирует извлеченный файл для отслеживания.
      *
      * @param archiveFileName имя архива
-     * @param fileUrl        URL файла в хранилище
+     * @param fileUrl         URL файла в хранилище
+     * @param manifestUrl     URL манифеста частей файла или null
      * @return true, если информация успешно сохранена
      */
-    boolean registerFile(String archiveFileName, String fileUrl);
+    boolean registerFile(String archiveFileName, String fileUrl, String manifestUrl);
+
+    /**
+     * Регистрирует несколько извлеченных файлов архива за один обмен с хранилищем.
+     *
+     * @param archiveFileName имя архива
+     * @param fileUrls        URL файлов в хранилище
+     * @param manifestUrls    URL манифестов частей по URL файлов (файлы без манифеста не включаются)
+     * @return true, если информация о всех файлах успешно сохранена
+     */
+    boolean registerFiles(String archiveFileName, List<String> fileUrls, Map<String, String> manifestUrls);
 
     /**
      * Отмечает файл как успешно отправленный.
@@ -1,6 +1,10 @@
 package com.neighbor.eventmosaic.collector.service;
 
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+import com.neighbor.eventmosaic.collector.dto.ExtractedFile;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -21,6 +25,20 @@ public interface FileSystemService {
      */
     Path downloadFile(String url, String targetPath) throws IOException;
 
+    /**
+     * Загружает файл по URL, одновременно вычисляя его MD5-хеш.
+     * Известный размер файла позволяет загружать его параллельными сегментами,
+     * а известные размер и хеш - продолжать прерванную загрузку.
+     *
+     * @param url          URL файла для загрузки
+     * @param targetPath   Путь для сохранения файла
+     * @param expectedSize Ожидаемый размер файла в байтах или значение меньше 1, если размер неизвестен
+     * @param expectedHash Ожидаемый MD5-хеш файла или null, если он неизвестен
+     * @return Путь к загруженному файлу и его MD5-хеш
+     * @throws IOException при ошибках ввода-вывода
+     */
+    DownloadedFile downloadFileWithDigest(String url, String targetPath, long expectedSize, String expectedHash) throws IOException;
+
     /**
      * Вычисляет MD5-хеш для указанного файла.
      *
@@ -31,14 +49,49 @@ public interface FileSystemService {
     String calculateMd5(Path filePath) throws IOException;
 
     /**
-     * Распаковывает ZIP-архив в указанную директорию.
+     * Распаковывает ZIP-архив в указанную директорию,
+     * одновременно вычисляя MD5-хеш содержимого каждого файла.
      *
      * @param zipFile   Путь к ZIP-архиву
      * @param targetDir Директория для распаковки
-     * @return Список путей к распакованным файлам
+     * @return Список распакованных файлов с хешами содержимого
      * @throws IOException при ошибках ввода-вывода
      */
-    List<Path> extractZipFile(Path zipFile, Path targetDir) throws IOException;
+    List<ExtractedFile> extractZipFile(Path zipFile, Path targetDir) throws IOException;
+
+    /**
+     * Разбивает файл на части по границам строк. Каждая часть, кроме последней,
+     * заканчивается на первом конце строки после достижения {@code chunkSize} байт.
+     * Части записываются рядом с исходным файлом как {@code <имя файла>.part-NNNNN},
+     * MD5-хеш каждой части вычисляется в том же проходе. Исходный файл не удаляется.
+     *
+     * @param file      Путь к файлу
+     * @param chunkSize Целевой размер части в байтах
+     * @return Список частей с хешами содержимого в порядке следования
+     * @throws IOException при ошибках ввода-вывода
+     */
+    List<ExtractedFile> splitFileByLines(Path file, long chunkSize) throws IOException;
+
+    /**
+     * Открывает поток чтения файла по URL без сохранения на диск.
+     * Вызывающий код обязан закрыть возвращенный поток.
+     *
+     * @param url URL файла
+     * @return Поток с содержимым файла
+     * @throws IOException при ошибках ввода-вывода или неуспешном HTTP-ответе
+     */
+    InputStream openDownloadStream(String url) throws IOException;
+
+    /**
+     * Потоково распаковывает ZIP-архив, передавая каждый файл обработчику,
+     * и одновременно вычисляет MD5-хеш всего потока архива.
+     *
+     * @param zipStream Поток ZIP-архива
+     * @param handler   Обработчик содержимого каждого файла архива
+     * @return MD5-хеш прочитанного архива
+     * @throws IOException при ошибках ввода-вывода или недопустимых путях внутри архива
+     */
+    String extractZipStream(InputStream zipStream, ZipEntryHandler handler) throws IOException;
 
     /**
      * Создает директорию, если она не существует.
@@ -48,4 +101,21 @@ public interface FileSystemService {
      * @throws IOException при ошибках ввода-вывода
      */
     Path checkAndCreateDirectory(String directory) throws IOException;
+
+    /**
+     * Обработчик файла, извлекаемого из ZIP-потока.
+     */
+    @FunctionalInterface
+    interface ZipEntryHandler {
+
+        /**
+         * Обрабатывает содержимое файла из архива.
+         * Поток действителен только во время вызова и не должен закрываться обработчиком.
+         *
+         * @param entryName   Имя файла внутри архива
+         * @param entryStream Поток с содержимым файла
+         * @throws IOException при ошибках ввода-вывода
+         */
+        void handle(String entryName, InputStream entryStream) throws IOException;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,10 @@
 package com.neighbor.eventmosaic.collector.service;
 
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+
+import java.util.List;
+import java.util.Map;
+
 /**
  * Сервис для работы с хранилищем хешей архивов.
  * Предоставляет методы для проверки и сохранения хешей архивов.
@@ -14,6 +19,14 @@ public interface HashStoreService {
      */
     String getStoredHash(String archiveName);
 
+    /**
+     * Получает сохраненные хеши нескольких архивов за один обмен с хранилищем.
+     *
+     * @param archiveNames Имена архивов
+     * @return Хеши по именам архивов (архивы, отсутствующие в хранилище, не включаются)
+     */
+    Map<String, String> getStoredHashes(List<String> archiveNames);
+
     /**
      * Сохраняет хеш архива в хранилище.
      *
@@ -22,6 +35,25 @@ public interface HashStoreService {
      */
     void storeHash(String archiveName, String hash);
 
+    /**
+     * Сохраняет хеш архива, если его еще не сохранила обработка с более поздней арендой архива.
+     * Вместе с хешем сохраняется токен ограждения, и сохранение с меньшим токеном отклоняется,
+     * поэтому реплика, потерявшая аренду, не перезапишет результат нового владельца архива.
+     *
+     * @param archiveName  Имя архива
+     * @param hash         Хеш архива для сохранения
+     * @param fencingToken Токен ограждения аренды архива
+     * @return true, если хеш сохранен, false - если его уже сохранила обработка с более поздней арендой
+     */
+    boolean storeHash(String archiveName, String hash, long fencingToken);
+
+    /**
+     * Сохраняет хеши нескольких архивов в хранилище за один обмен с ним.
+     *
+     * @param hashes Хеши архивов по их именам
+     */
+    void storeHashes(Map<String, String> hashes);
+
     /**
      * Проверяет, является ли архив новым или измененным.
      *
@@ -30,4 +62,13 @@ public interface HashStoreService {
      * @return true, если архив новый или его хеш изменился, иначе false
      */
     boolean isNewOrChanged(String archiveName, String currentHash);
+
+    /**
+     * Отбирает новые или измененные архивы из списка.
+     * В отличие от {@link #isNewOrChanged} проверяет все архивы за один обмен с хранилищем.
+     *
+     * @param archives Список архивов с текущими хешами
+     * @return Новые или измененные архивы в исходном порядке
+     */
+    List<GdeltArchiveInfo> filterNewOrChanged(List<GdeltArchiveInfo> archives);
 }
\ No newline at end of file
@@ -10,7 +10,8 @@ public interface KafkaMessageService {
 
     /**
      * Отправляет URL файла в указанный топик Kafka.
+     * Если у файла есть манифест частей, его URL передается в заголовке сообщения.
      * После успешной отправки файл помечается как отправленный в сервисе отслеживания.
      */
-    CompletableFuture<Void> sendUrlToKafka(String topic, String fileUrl);
+    CompletableFuture<Void> sendUrlToKafka(String topic, String fileUrl, String manifestUrl);
 }
\ No newline at end of file
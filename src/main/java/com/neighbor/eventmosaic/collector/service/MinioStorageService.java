@@ -1,6 +1,10 @@
 package com.neighbor.eventmosaic.collector.service;
 
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
+
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Определяет контракт для сервиса взаимодействия с S3-совместимым хранилищем MinIO.
@@ -14,6 +18,27 @@ public interface MinioStorageService {
      */
     String uploadFile(String objectName, Path filePath);
 
+    /**
+     * Загружает локальный файл в хранилище MinIO, сохраняя хеш содержимого в метаданных объекта.
+     * Если объект с тем же именем и хешем уже существует, повторная загрузка не выполняется,
+     * и результат отмечает объект как незаписанный.
+     */
+    UploadedObject uploadFile(String objectName, Path filePath, String contentHash);
+
+    /**
+     * Асинхронно загружает локальный файл в хранилище MinIO, сохраняя хеш содержимого в метаданных объекта.
+     * Блокирующая реализация выполняет загрузку в вызывающем потоке и возвращает завершенный результат.
+     */
+    CompletableFuture<UploadedObject> uploadFileAsync(String objectName, Path filePath, String contentHash);
+
+    /**
+     * Загружает поток данных неизвестного размера в хранилище MinIO.
+     * Поток читается до конца, но не закрывается.
+     * Хеш содержимого вычисляется при чтении и сохраняется в метаданных объекта.
+     * Результат отмечает, был ли объект записан или загрузка пропущена.
+     */
+    UploadedObject uploadStream(String objectName, InputStream inputStream);
+
     /**
      * Получает постоянный URL для доступа к объекту в MinIO.
      * Метод формирует стандартный URL вида: {@code <endpoint>/<bucket>/<objectName>}.
@@ -21,6 +46,11 @@ public interface MinioStorageService {
      */
     String getObjectUrl(String objectName);
 
+    /**
+     * Получает имя (полный ключ) объекта по его URL, сформированному {@link #getObjectUrl(String)}.
+     */
+    String getObjectName(String objectUrl);
+
     /**
      * Удаляет объект из хранилища MinIO.
      */
@@ -0,0 +1,30 @@
+package com.neighbor.eventmosaic.collector.service;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Сервис преобразования распакованных CSV-файлов GDELT в формат Parquet.
+ * Столбцовый формат позволяет потребителям читать только нужные им столбцы
+ * вместо разбора всего файла.
+ */
+public interface ParquetConversionService {
+
+    /**
+     * Суффикс имени Parquet-файла, добавляемый к имени исходного CSV-файла
+     */
+    String PARQUET_SUFFIX = ".parquet";
+
+    /**
+     * Преобразует CSV-файл GDELT в Parquet-файл рядом с исходным ({@code <имя файла>.parquet}).
+     * Файл читается потоково, в памяти хранится только текущая группа строк.
+     *
+     * @param csvFile     путь к CSV-файлу с разделителем табуляцией
+     * @param archiveType тип архива, определяющий схему
+     * @return путь к созданному Parquet-файлу
+     * @throws IOException если возникла ошибка при чтении CSV или записи Parquet
+     */
+    Path convertToParquet(Path csvFile, GdeltArchiveType archiveType) throws IOException;
+}
@@ -0,0 +1,171 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
+import com.neighbor.eventmosaic.collector.exception.MinioStorageException;
+import com.neighbor.eventmosaic.collector.service.MinioStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Общая часть блокирующей и неблокирующей реализаций {@link MinioStorageService}:
+ * настройки подключения, формирование URL и имен объектов, определение Content-Type,
+ * хеширование содержимого и учет переданных и пропущенных байтов.
+ */
+@Slf4j
+public abstract class AbstractMinioStorageService implements MinioStorageService {
+
+    /**
+     * Ключ пользовательских метаданных с MD5-хешем несжатого содержимого объекта
+     */
+    protected static final String METADATA_CONTENT_HASH = "content-hash";
+    protected static final String HASH_ALGORITHM = "MD5";
+
+    /**
+     * Счетчик байтов загрузки в MinIO с тегом результата (uploaded/skipped)
+     */
+    private static final String UPLOAD_BYTES_METRIC = "minio.upload.bytes";
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    @Value("${storage.minio.endpoint}")
+    protected String endpoint;
+
+    @Value("${storage.minio.access-key}")
+    protected String accessKey;
+
+    @Value("${storage.minio.secret-key}")
+    protected String secretKey;
+
+    @Value("${storage.minio.bucket}")
+    protected String bucketName;
+
+    protected Counter uploadedBytes;
+    protected Counter skippedBytes;
+
+    /**
+     * Загружает локальный файл в хранилище MinIO без проверки хеша содержимого.
+     *
+     * @param objectName Имя, под которым объект будет сохранен в MinIO.
+     * @param filePath   Путь к локальному файлу для загрузки.
+     * @return URL загруженного объекта в MinIO.
+     * @throws MinioStorageException если произошла ошибка при чтении файла или загрузке в MinIO.
+     */
+    @Override
+    public String uploadFile(String objectName,
+                             Path filePath) {
+        return uploadFile(objectName, filePath, null).url();
+    }
+
+    /**
+     * Получает постоянный URL для доступа к объекту в MinIO.
+     * Метод формирует стандартный URL вида: {@code <endpoint>/<bucket>/<objectName>}.
+     * Фактическая доступность URL зависит от политики доступа, настроенной для бакета в MinIO.
+     *
+     * @param objectName Имя объекта в MinIO.
+     * @return Строка, представляющая URL объекта.
+     */
+    @Override
+    public String getObjectUrl(String objectName) {
+        // Убедимся, что endpoint не заканчивается на '/' для корректной конкатенации
+        String cleanEndpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+
+        // Для доступа по этому URL бакет должен быть публичным
+        // или доступ должен осуществляться из внутренней сети/через прокси.
+        return String.format("%s/%s/%s", cleanEndpoint, bucketName, objectName);
+    }
+
+    /**
+     * Получает имя объекта по его URL вида {@code <endpoint>/<bucket>/<objectName>}.
+     * Имя может содержать разделители {@code /}, поэтому берется весь остаток URL после бакета.
+     *
+     * @param objectUrl URL объекта, сформированный {@link #getObjectUrl(String)}.
+     * @return Имя (полный ключ) объекта.
+     * @throws MinioStorageException если URL не относится к бакету сервиса.
+     */
+    @Override
+    public String getObjectName(String objectUrl) {
+        String bucketUrl = getObjectUrl("");
+        if (objectUrl == null || !objectUrl.startsWith(bucketUrl) || objectUrl.length() == bucketUrl.length()) {
+            throw new MinioStorageException("URL '" + objectUrl + "' не относится к бакету " + bucketName);
+        }
+        return objectUrl.substring(bucketUrl.length());
+    }
+
+    /**
+     * Регистрирует счетчики переданных и пропущенных байтов загрузки.
+     *
+     * @param meterRegistry реестр метрик
+     */
+    protected void registerUploadMetrics(MeterRegistry meterRegistry) {
+        uploadedBytes = Counter.builder(UPLOAD_BYTES_METRIC)
+                .description("Байты, переданные в MinIO")
+                .tag("result", "uploaded")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        skippedBytes = Counter.builder(UPLOAD_BYTES_METRIC)
+                .description("Байты, не переданные в MinIO, так как объект с тем же содержимым уже существует")
+                .tag("result", "skipped")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Учитывает пропущенную загрузку объекта, который уже существует с тем же содержимым.
+     *
+     * @param objectName Имя существующего объекта.
+     * @param size       Размер объекта в байтах.
+     * @return URL существующего объекта, отмеченного как незаписанный.
+     */
+    protected UploadedObject skipUpload(String objectName, long size) {
+        skippedBytes.increment(size);
+        log.info("Объект '{}' с тем же содержимым уже есть в бакете '{}'. Загрузка пропущена ({} байт)",
+                objectName, bucketName, size);
+        return new UploadedObject(getObjectUrl(objectName), false);
+    }
+
+    /**
+     * Создает экземпляр алгоритма хеширования содержимого объектов.
+     *
+     * @return экземпляр {@link MessageDigest}
+     * @throws MinioStorageException если алгоритм недоступен
+     */
+    protected MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new MinioStorageException("Алгоритм хеширования " + HASH_ALGORITHM + " недоступен", e);
+        }
+    }
+
+    /**
+     * Пытается определить MIME-тип файла по его расширению.
+     * Возвращает "application/octet-stream", если тип не удалось определить.
+     *
+     * @param filePath Путь к файлу.
+     * @return Определенный MIME-тип или тип по умолчанию.
+     */
+    protected String determineContentType(Path filePath) {
+        try {
+            String contentType = Files.probeContentType(filePath);
+            if (contentType == null) {
+                log.debug("Не удалось определить Content-Type для файла '{}'. Используется тип по умолчанию '{}'",
+                        filePath, DEFAULT_CONTENT_TYPE);
+                return DEFAULT_CONTENT_TYPE;
+            }
+            return contentType;
+
+        } catch (IOException e) {
+            log.warn("Ошибка при определении Content-Type для файла '{}': {}. Используется тип по умолчанию '{}'",
+                    filePath, e.getMessage(), DEFAULT_CONTENT_TYPE);
+            return DEFAULT_CONTENT_TYPE;
+        }
+    }
+}
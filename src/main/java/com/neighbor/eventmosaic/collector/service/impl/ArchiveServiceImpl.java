@@ -1,13 +1,26 @@
 package com.neighbor.eventmosaic.collector.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+import com.neighbor.eventmosaic.collector.dto.ExtractedFile;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveProcessResult;
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
 import com.neighbor.eventmosaic.collector.event.ArchiveExtractedEvent;
 import com.neighbor.eventmosaic.collector.exception.GdeltProcessingException;
+import com.neighbor.eventmosaic.collector.resolver.ObjectKeyResolver;
+import com.neighbor.eventmosaic.collector.service.ArchiveCacheService;
+import com.neighbor.eventmosaic.collector.service.ArchiveHistoryFilter;
+import com.neighbor.eventmosaic.collector.service.ArchiveLeaseService;
 import com.neighbor.eventmosaic.collector.service.ArchiveService;
 import com.neighbor.eventmosaic.collector.service.FileSystemService;
 import com.neighbor.eventmosaic.collector.service.HashStoreService;
 import com.neighbor.eventmosaic.collector.service.MinioStorageService;
+import com.neighbor.eventmosaic.collector.service.ParquetConversionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
@@ -17,12 +30,21 @@ import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Реализация сервиса обработки архивов GDELT.
@@ -34,12 +56,43 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPublisherAware {
 
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+
     @Value("${gdelt.storage.download-dir}")
     private String downloadDir;
 
+    @Value("${gdelt.processing.streaming-enabled:false}")
+    private boolean streamingEnabled;
+
+    @Value("${gdelt.parquet.enabled:false}")
+    private boolean parquetEnabled;
+
+    @Value("${gdelt.parquet.keep-csv:true}")
+    private boolean keepCsv;
+
+    @Value("${gdelt.chunking.enabled:false}")
+    private boolean chunkingEnabled;
+
+    @Value("${gdelt.chunking.chunk-size:16777216}")
+    private long chunkSize;
+
+    @Value("${gdelt.manifest.enabled:false}")
+    private boolean manifestEnabled;
+
     private final FileSystemService fileSystemService;
     private final HashStoreService hashStoreService;
+    private final ArchiveHistoryFilter archiveHistoryFilter;
     private final MinioStorageService minioStorageService;
+    private final ArchiveCacheService archiveCacheService;
+    private final ArchiveLeaseService archiveLeaseService;
+    private final ObjectKeyResolver objectKeyResolver;
+    private final ParquetConversionService parquetConversionService;
+    private final ObjectMapper objectMapper;
+
+    // Виртуальный поток на каждый архив: число одновременно обрабатываемых архивов ограничивает
+    // только адаптивный лимит вызывающей стороны, а не размер пула, и задачи не ждут свободного потока
+    private final ExecutorService archiveExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("GdeltArchive-", 0).factory());
 
     private ApplicationEventPublisher eventPublisher;
 
@@ -48,18 +101,41 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
      * <p>
      * Важно! Операции выполняются в следующем порядке для обеспечения целостности данных:
      * 1. Создание директории для скачивания.
-     * 2. Загрузка архива.
-     * 3. Проверка хеша загруженного файла.
+     * 2. Загрузка архива (или получение его из локального кеша по MD5-хешу).
+     * 3. Проверка хеша загруженного файла и сохранение архива в локальный кеш.
      * 4. Распаковка архива во временную директорию.
      * 5. Загрузка каждого распакованного файла в MinIO.
      * 6. Удаление временных локальных файлов.
-     * 7. Публикация события с URL файлов из MinIO.
-     * 8. Сохранение хеша архива в Redis.
-     * 9. Удаление исходного архива.
+     * 7. Проверка, что аренда архива все еще принадлежит этой реплике.
+     * 8. Публикация события с URL файлов из MinIO.
+     * 9. Сохранение хеша архива в Redis.
+     * 10. Удаление исходного архива.
      * <p>
      * Такой порядок гарантирует, что архив не будет помечен как обработанный,
      * если распаковка не завершилась успешно.
      * Также, при успешной распаковке будет опубликовано событие.
+     * Если аренда архива потеряна, обработка прерывается без публикации события
+     * и сохранения хеша: архив обрабатывает другая реплика.
+     * <p>
+     * В потоковом режиме ({@code gdelt.processing.streaming-enabled}) шаги 1-6 выполняются
+     * за один проход без промежуточных файлов: тело HTTP-ответа одновременно хешируется,
+     * распаковывается и выгружается в MinIO. Проверка хеша выполняется после чтения архива
+     * и разрешает публикацию события и сохранение хеша; при несовпадении загруженные объекты удаляются.
+     * Преобразование в Parquet, манифесты частей и разбиение на части требуют локального файла,
+     * поэтому с потоковым режимом не совмещаются (см. {@link #validateProcessingMode()}).
+     * <p>
+     * При включенном {@code gdelt.parquet.enabled} на шаге 5 каждый CSV-файл известного типа
+     * дополнительно преобразуется в Parquet, и в MinIO загружается Parquet-объект
+     * (вместе с CSV или вместо него, см. {@code gdelt.parquet.keep-csv}). URL Parquet-объектов
+     * отправляются в отдельные топики Kafka (см. {@code GdeltTopicResolver}).
+     * <p>
+     * При включенном {@code gdelt.manifest.enabled} рядом с каждым файлом в MinIO загружается
+     * манифест частей {@code <объект>.manifest.json}, а его URL передается в событии
+     * и далее в заголовке сообщения Kafka.
+     * <p>
+     * При включенном {@code gdelt.chunking.enabled} CSV-файлы больше {@code gdelt.chunking.chunk-size}
+     * разбиваются по границам строк на части, каждая часть загружается отдельным объектом
+     * и публикуется отдельным URL (и, соответственно, отдельным сообщением Kafka).
      *
      * @param archive Информация об архиве для обработки
      * @return CompletableFuture с результатом обработки архива
@@ -68,6 +144,10 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
     public CompletableFuture<GdeltArchiveProcessResult> processArchiveAsync(GdeltArchiveInfo archive) {
         log.info("Начало асинхронной обработки архива: {}", archive.fileName());
 
+        if (streamingEnabled) {
+            return processArchiveStreamingAsync(archive);
+        }
+
         // Создаем временную директорию для распаковки внутри downloadDir
         Path tempExtractDir = createTempExtractDirectory(archive.fileName());
 
@@ -76,15 +156,21 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
                 fileSystemService.checkAndCreateDirectory(downloadDir); // Создание директории для скачивания (директория для распаковки создается динамически)
                 log.debug("Директория для скачивания подготовлена: {}", downloadDir);
 
-                Path archivePath = downloadArchive(archive); // Загрузка архива
+                DownloadedFile downloadedArchive = downloadArchive(archive); // Загрузка архива с вычислением хеша на лету
+                Path archivePath = downloadedArchive.path();
+
+                verifyFileHash(downloadedArchive, archive); // Проверка хеша загруженного файла
 
-                verifyFileHash(archivePath, archive); // Проверка хеша загруженного файла
+                archiveCacheService.store(archive.hash(), archivePath); // Сохранение проверенного архива в локальный кеш
 
-                List<String> extractedFileUrls = extractAndUploadToMinio(archivePath, tempExtractDir, archive); // Распаковка, загрузка в MinIO и удаление локальных файлов
+                UploadedFiles uploadedFiles = extractAndUploadToMinio(archivePath, tempExtractDir, archive); // Распаковка, загрузка в MinIO и удаление локальных файлов
+                List<String> extractedFileUrls = uploadedFiles.fileUrls();
 
-                publishExtractedEvent(archive, extractedFileUrls); // Публикация события с URL
+                ArchiveLease lease = verifyLeaseHeld(archive); // Проверка аренды перед фиксацией результата
 
-                finalizeProcessing(archivePath, archive); // Сохранение хеша и удаление архива (только после успешной распаковки)
+                publishExtractedEvent(archive, extractedFileUrls, uploadedFiles.manifestUrls()); // Публикация события с URL
+
+                finalizeProcessing(archivePath, archive, lease); // Сохранение хеша и удаление архива (только после успешной распаковки)
 
                 log.info("Архив успешно обработан: {}", archive.fileName());
                 return GdeltArchiveProcessResult.success(archive, extractedFileUrls);
@@ -96,13 +182,82 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
             } finally {
                 cleanupTempDirectory(tempExtractDir); // Очищаем временную директорию распаковки в любом случае
             }
-        }).exceptionally(ex -> {
+        }, archiveExecutor).exceptionally(ex -> {
             log.error("Критическая ошибка при обработке архива {}: {}",
                     archive.fileName(), ex.getMessage(), ex);
             return GdeltArchiveProcessResult.failure(archive, ex.getMessage());
         });
     }
 
+    /**
+     * Асинхронно обрабатывает архив в потоковом режиме без промежуточных файлов на диске.
+     * Событие публикуется, а хеш сохраняется только после успешной проверки MD5 архива.
+     *
+     * @param archive Информация об архиве для обработки
+     * @return CompletableFuture с результатом обработки архива
+     */
+    private CompletableFuture<GdeltArchiveProcessResult> processArchiveStreamingAsync(GdeltArchiveInfo archive) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<String> extractedFileUrls = streamAndUploadToMinio(archive); // Загрузка, хеширование, распаковка и выгрузка в MinIO за один проход
+
+                ArchiveLease lease = verifyLeaseHeld(archive); // Проверка аренды перед фиксацией результата
+
+                publishExtractedEvent(archive, extractedFileUrls, Map.of()); // Публикация события с URL
+
+                storeArchiveHash(archive, lease); // Сохранение хеша (только после успешной проверки)
+
+                log.info("Архив успешно обработан в потоковом режиме: {}", archive.fileName());
+                return GdeltArchiveProcessResult.success(archive, extractedFileUrls);
+
+            } catch (Exception e) {
+                log.error("Ошибка при потоковой обработке архива {}: {}", archive.fileName(), e.getMessage(), e);
+                return GdeltArchiveProcessResult.failure(archive, e.getMessage());
+            }
+        }, archiveExecutor).exceptionally(ex -> {
+            log.error("Критическая ошибка при потоковой обработке архива {}: {}",
+                    archive.fileName(), ex.getMessage(), ex);
+            return GdeltArchiveProcessResult.failure(archive, ex.getMessage());
+        });
+    }
+
+    /**
+     * Проверяет совместимость режимов обработки при запуске приложения.
+     * Потоковый режим не сохраняет распакованные файлы на диск, а преобразование в Parquet,
+     * построение манифестов и разбиение на части выполняются над локальным файлом.
+     * Вместо того чтобы молча отключать эти функции, запуск с такой конфигурацией прерывается.
+     *
+     * @throws IllegalStateException если потоковый режим включен вместе с Parquet, манифестами или разбиением
+     */
+    @PostConstruct
+    private void validateProcessingMode() {
+        if (!streamingEnabled) {
+            return;
+        }
+        List<String> unsupported = new ArrayList<>();
+        if (parquetEnabled) {
+            unsupported.add("gdelt.parquet.enabled");
+        }
+        if (manifestEnabled) {
+            unsupported.add("gdelt.manifest.enabled");
+        }
+        if (chunkingEnabled) {
+            unsupported.add("gdelt.chunking.enabled");
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("Потоковый режим обработки (gdelt.processing.streaming-enabled) "
+                    + "не поддерживает настройки: " + String.join(", ", unsupported));
+        }
+    }
+
+    /**
+     * Останавливает потоки обработки архивов при завершении работы приложения.
+     */
+    @PreDestroy
+    private void shutdownArchiveExecutor() {
+        archiveExecutor.shutdownNow();
+    }
+
     @Override
     public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
         this.eventPublisher = eventPublisher;
@@ -132,31 +287,49 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
     }
 
     /**
-     * Загружает архив по-указанному URL.
+     * Загружает архив по-указанному URL, вычисляя его хеш во время загрузки.
+     * Если архив с ожидаемым хешем есть в локальном кеше, он берется из кеша без обращения к сети.
      *
      * @param archive информация об архиве
-     * @return путь к загруженному файлу
+     * @return путь к загруженному файлу и его хеш
      * @throws IOException если возникла ошибка при загрузке файла
      */
-    private Path downloadArchive(GdeltArchiveInfo archive) throws IOException {
+    private DownloadedFile downloadArchive(GdeltArchiveInfo archive) throws IOException {
         String targetPath = "%s/%s".formatted(downloadDir, archive.fileName());
+
+        Optional<DownloadedFile> cachedArchive = archiveCacheService.fetch(archive.hash(), archive.size(), Paths.get(targetPath));
+        if (cachedArchive.isPresent()) {
+            log.debug("Архив {} получен из локального кеша", archive.fileName());
+            return cachedArchive.get();
+        }
+
         log.debug("Загрузка архива {} в {}", archive.url(), targetPath);
-        return fileSystemService.downloadFile(archive.url(), targetPath);
+        return fileSystemService.downloadFileWithDigest(archive.url(), targetPath, archive.size(), archive.hash());
     }
 
     /**
      * Проверяет соответствие хеша загруженного файла ожидаемому хешу.
+     * Используется хеш, вычисленный во время загрузки, без повторного чтения файла.
      *
-     * @param archivePath путь к загруженному архиву
-     * @param archive     информация об архиве с ожидаемым хешем
-     * @throws IOException              если возникла ошибка при расчете хеша
+     * @param downloadedArchive загруженный архив и его хеш
+     * @param archive           информация об архиве с ожидаемым хешем
      * @throws GdeltProcessingException если хеш не соответствует ожидаемому
      */
-    private void verifyFileHash(Path archivePath, GdeltArchiveInfo archive) throws IOException {
+    private void verifyFileHash(DownloadedFile downloadedArchive, GdeltArchiveInfo archive) {
         log.debug("Проверка хеша архива {}", archive.fileName());
-        String downloadedFileHash = fileSystemService.calculateMd5(archivePath);
-        if (!downloadedFileHash.equals(archive.hash())) {
-            throw new GdeltProcessingException("Хеш загруженного файла не совпадает: " + downloadedFileHash + " != " + archive.hash());
+        verifyHash(downloadedArchive.hash(), archive);
+    }
+
+    /**
+     * Сравнивает вычисленный хеш архива с ожидаемым.
+     *
+     * @param actualHash вычисленный хеш архива
+     * @param archive    информация об архиве с ожидаемым хешем
+     * @throws GdeltProcessingException если хеш не соответствует ожидаемому
+     */
+    private void verifyHash(String actualHash, GdeltArchiveInfo archive) {
+        if (!actualHash.equals(archive.hash())) {
+            throw new GdeltProcessingException("Хеш загруженного файла не совпадает: " + actualHash + " != " + archive.hash());
         }
         log.debug("Хеш архива {} проверен успешно", archive.fileName());
     }
@@ -164,52 +337,258 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
     /**
      * Извлекает файлы из архива во временную директорию, загружает их в MinIO
      * и удаляет локальные копии.
+     * Загрузки всех файлов запускаются сразу через {@link MinioStorageService#uploadFileAsync}:
+     * при асинхронном клиенте MinIO они выполняются одновременно в пределах общего бюджета
+     * передаваемых байтов, при блокирующем - последовательно. Локальный файл удаляется сразу
+     * после загрузки. При ошибке новые загрузки не запускаются, а объекты, записанные этой обработкой
+     * (включая манифесты), удаляются. Объекты, загрузка которых была пропущена из-за совпадения
+     * содержимого, записаны предыдущей обработкой и не удаляются.
      *
      * @param archivePath    Путь к архиву.
      * @param tempExtractDir Временная директория для распаковки.
      * @param archive        Информация об архиве (для логирования и формирования имени объекта).
-     * @return Список URL загруженных в MinIO файлов.
+     * @return URL загруженных в MinIO файлов в порядке файлов архива и URL их манифестов.
      */
-    private List<String> extractAndUploadToMinio(Path archivePath,
+    private UploadedFiles extractAndUploadToMinio(Path archivePath,
                                                  Path tempExtractDir,
                                                  GdeltArchiveInfo archive) throws IOException {
 
         log.debug("Распаковка архива {} во временную директорию {}", archive.fileName(), tempExtractDir);
-        List<Path> localExtractedFiles = fileSystemService.extractZipFile(archivePath, tempExtractDir);
+        List<ExtractedFile> localExtractedFiles = fileSystemService.extractZipFile(archivePath, tempExtractDir);
         log.info("Архив {} распакован, {} файлов извлечено локально.", archive.fileName(), localExtractedFiles.size());
 
-        List<String> uploadedFileUrls = new ArrayList<>();
+        List<CompletableFuture<String>> uploads = new ArrayList<>(localExtractedFiles.size());
+        Queue<String> uploadedUrls = new ConcurrentLinkedQueue<>(); // Объекты, записанные этой обработкой, для отката
+        Map<String, String> manifestUrls = new ConcurrentHashMap<>();
+        try {
+            files:
+            for (ExtractedFile extractedFile : localExtractedFiles) {
+                for (ExtractedFile uploadFile : prepareUploadFiles(extractedFile, archive)) {
+                    CompletableFuture<String> upload = uploadExtractedFile(uploadFile, archive, uploadedUrls, manifestUrls);
+                    uploads.add(upload);
+
+                    if (upload.isCompletedExceptionally()) {
+                        break files; // Загрузка уже завершилась ошибкой, остальные файлы не загружаем
+                    }
+                }
+            }
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+
+        } catch (IOException | CompletionException e) {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            log.error("Ошибка при загрузке файла из {} в MinIO. Попытка очистки уже загруженных файлов...", archive.fileName(), cause);
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0]))
+                    .exceptionally(ex -> null)
+                    .join(); // Дожидаемся запущенных загрузок, чтобы удалить все загруженные объекты
+            cleanupMinioUploads(List.copyOf(uploadedUrls));
+            throw new GdeltProcessingException("Неожиданная ошибка при загрузке в MinIO", cause);
+        }
+
+        log.debug("Все файлы из архива {} загружены в MinIO.", archive.fileName());
+        List<String> fileUrls = uploads.stream()
+                .map(CompletableFuture::join)
+                .toList();
+        return new UploadedFiles(fileUrls, Map.copyOf(manifestUrls));
+    }
+
+    /**
+     * Определяет файлы, которые нужно загрузить в MinIO для распакованного файла.
+     * При включенном преобразовании в Parquet CSV-файл известного типа преобразуется,
+     * и вместе с Parquet-файлом возвращается исходный CSV (если {@code gdelt.parquet.keep-csv})
+     * либо CSV удаляется. При включенном разбиении CSV заменяется своими частями.
+     *
+     * @param extractedFile распакованный файл
+     * @param archive       информация об архиве (для определения типа)
+     * @return файлы для загрузки
+     * @throws IOException если возникла ошибка при преобразовании в Parquet или разбиении на части
+     */
+    private List<ExtractedFile> prepareUploadFiles(ExtractedFile extractedFile, GdeltArchiveInfo archive) throws IOException {
+        List<ExtractedFile> uploadFiles = new ArrayList<>();
+        boolean uploadCsv = true;
+
+        GdeltArchiveType archiveType = GdeltArchiveType.fromFileName(archive.fileName());
+        if (parquetEnabled && archiveType != null) {
+            Path parquetFile = parquetConversionService.convertToParquet(extractedFile.path(), archiveType);
+            // Преобразование детерминировано, поэтому при повторной обработке архива совпадающий объект не перезаписывается
+            uploadFiles.add(new ExtractedFile(parquetFile, fileSystemService.calculateMd5(parquetFile)));
+            uploadCsv = keepCsv;
+        }
+
+        if (uploadCsv) {
+            uploadFiles.addAll(0, splitIntoChunks(extractedFile));
+        } else {
+            deleteLocalFile(extractedFile.path());
+        }
+        return uploadFiles;
+    }
+
+    /**
+     * Разбивает CSV-файл на части по границам строк, если разбиение включено
+     * и файл больше размера части. Исходный файл после разбиения удаляется.
+     *
+     * @param extractedFile распакованный файл
+     * @return части файла или сам файл, если он не разбивается
+     * @throws IOException если возникла ошибка при разбиении
+     */
+    private List<ExtractedFile> splitIntoChunks(ExtractedFile extractedFile) throws IOException {
+        if (!chunkingEnabled || Files.size(extractedFile.path()) <= chunkSize) {
+            return List.of(extractedFile);
+        }
+
+        List<ExtractedFile> chunks = fileSystemService.splitFileByLines(extractedFile.path(), chunkSize);
+        log.debug("Файл {} разбит на {} частей для загрузки в MinIO", extractedFile.path(), chunks.size());
+        deleteLocalFile(extractedFile.path());
+        return chunks;
+    }
+
+    /**
+     * Запускает загрузку локального файла в MinIO и удаляет файл после успешной загрузки.
+     * Если у файла есть манифест частей, после файла загружается манифест.
+     *
+     * @param uploadFile   файл для загрузки, хеш его содержимого и манифест
+     * @param archive      информация об архиве (для формирования имени объекта)
+     * @param uploadedUrls URL объектов, записанных этой обработкой (пополняется)
+     * @param manifestUrls URL манифестов по URL файлов (пополняется)
+     * @return CompletableFuture с URL загруженного объекта
+     */
+    private CompletableFuture<String> uploadExtractedFile(ExtractedFile uploadFile,
+                                                          GdeltArchiveInfo archive,
+                                                          Queue<String> uploadedUrls,
+                                                          Map<String, String> manifestUrls) {
+        Path localFile = uploadFile.path();
+        String objectName = objectKeyResolver.resolveObjectKey(archive.fileName(), localFile.getFileName().toString()); // Формируем ключ объекта в MinIO по схеме ключей
+        log.debug("Загрузка файла {} как объект '{}' в MinIO...", localFile, objectName);
+
+        // Загружаем файл в MinIO (загрузка пропускается, если объект с тем же содержимым уже есть).
+        // Удаление файла и запись манифеста блокируют поток, поэтому продолжение выполняется
+        // в потоке обработки архивов, а не в потоке, завершившем загрузку
+        return minioStorageService
+                .uploadFileAsync(objectName, localFile, uploadFile.hash())
+                .thenComposeAsync(uploadedObject -> {
+                    String fileUrl = uploadedObject.url();
+                    log.info("Файл {} успешно загружен в MinIO. URL: {}", localFile, fileUrl);
+                    if (uploadedObject.written()) {
+                        uploadedUrls.add(fileUrl);
+                    }
+                    deleteLocalFile(localFile);
+                    return uploadManifest(uploadFile, objectName, fileUrl, uploadedUrls)
+                            .thenApply(manifestUrl -> {
+                                if (manifestUrl != null) {
+                                    manifestUrls.put(fileUrl, manifestUrl);
+                                }
+                                return fileUrl;
+                            });
+                }, archiveExecutor);
+    }
+
+    /**
+     * Загружает манифест частей файла в MinIO как объект {@code <объект>.manifest.json}.
+     * Смещения манифеста относятся к несжатому содержимому, поэтому для объектов,
+     * сохраненных со сжатием ({@code storage.minio.compression.codec}), манифест не загружается.
+     *
+     * @param uploadFile   загруженный файл и его манифест
+     * @param objectName   запрошенное имя объекта файла
+     * @param fileUrl      URL загруженного объекта файла
+     * @param uploadedUrls URL объектов, записанных этой обработкой (пополняется)
+     * @return CompletableFuture с URL манифеста или null, если манифест не загружался
+     */
+    private CompletableFuture<String> uploadManifest(ExtractedFile uploadFile,
+                                                     String objectName,
+                                                     String fileUrl,
+                                                     Queue<String> uploadedUrls) {
+        if (uploadFile.manifest() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!objectName.equals(minioStorageService.getObjectName(fileUrl))) {
+            log.debug("Объект '{}' сохранен со сжатием, манифест частей не загружается", objectName);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Path manifestFile = uploadFile.path().resolveSibling(uploadFile.path().getFileName() + MANIFEST_SUFFIX);
         try {
-            for (Path localFile : localExtractedFiles) {
+            objectMapper.writeValue(manifestFile.toFile(), uploadFile.manifest());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-                String objectName = localFile.getFileName().toString(); // Формируем имя объекта в MinIO (используем имя файла)
-                log.debug("Загрузка файла {} как объект '{}' в MinIO...", localFile, objectName);
+        return minioStorageService
+                .uploadFileAsync(objectName + MANIFEST_SUFFIX, manifestFile, null)
+                .thenApplyAsync(uploadedManifest -> {
+                    log.debug("Манифест частей файла {} загружен в MinIO. URL: {}", uploadFile.path(), uploadedManifest.url());
+                    if (uploadedManifest.written()) {
+                        uploadedUrls.add(uploadedManifest.url());
+                    }
+                    deleteLocalFile(manifestFile);
+                    return uploadedManifest.url();
+                }, archiveExecutor);
+    }
 
-                String fileUrl = minioStorageService.uploadFile(objectName, localFile); // Загружаем файл в MinIO
-                uploadedFileUrls.add(fileUrl);
-                log.info("Файл {} успешно загружен в MinIO. URL: {}", localFile, fileUrl);
+    /**
+     * Загружает архив потоком, распаковывает его на лету и выгружает каждый файл в MinIO.
+     * MD5-хеш вычисляется по тому же потоку и проверяется после чтения архива целиком.
+     * При любой ошибке, включая несовпадение хеша, объекты, записанные этой обработкой, удаляются из MinIO;
+     * объекты, загрузка которых была пропущена из-за совпадения содержимого, сохраняются.
+     *
+     * @param archive Информация об архиве.
+     * @return Список URL загруженных в MinIO файлов.
+     * @throws IOException если возникла ошибка при загрузке или распаковке архива
+     */
+    private List<String> streamAndUploadToMinio(GdeltArchiveInfo archive) throws IOException {
+        log.debug("Потоковая обработка архива {} с URL {}", archive.fileName(), archive.url());
+        List<String> uploadedFileUrls = new ArrayList<>();
+        List<String> writtenFileUrls = new ArrayList<>(); // Объекты, записанные этой обработкой, для отката
+
+        try (InputStream archiveStream = fileSystemService.openDownloadStream(archive.url())) {
+            String downloadedFileHash = fileSystemService.extractZipStream(archiveStream, (entryName, entryStream) -> {
+                String objectName = objectKeyResolver.resolveObjectKey(archive.fileName(), Paths.get(entryName).getFileName().toString()); // Формируем ключ объекта в MinIO по схеме ключей
+                log.debug("Потоковая загрузка файла '{}' из архива {} в MinIO...", objectName, archive.fileName());
+
+                UploadedObject uploadedObject = minioStorageService.uploadStream(objectName, entryStream);
+                uploadedFileUrls.add(uploadedObject.url());
+                if (uploadedObject.written()) {
+                    writtenFileUrls.add(uploadedObject.url());
+                }
+                log.info("Файл '{}' успешно загружен в MinIO. URL: {}", objectName, uploadedObject.url());
+            });
+
+            verifyHash(downloadedFileHash, archive); // Проверка хеша разрешает фиксацию результата
 
-                deleteLocalFile(localFile);
-            }
         } catch (Exception e) {
-            log.error("Ошибка при загрузке файла из {} в MinIO. Попытка очистки уже загруженных файлов...", archive.fileName(), e);
-            cleanupMinioUploads(uploadedFileUrls);
-            throw new GdeltProcessingException("Неожиданная ошибка при загрузке в MinIO", e);
+            log.error("Ошибка при потоковой обработке архива {}. Попытка очистки уже загруженных файлов...", archive.fileName(), e);
+            cleanupMinioUploads(writtenFileUrls);
+            throw e;
         }
 
-        log.debug("Все файлы из архива {} загружены в MinIO.", archive.fileName());
+        log.debug("Все файлы из архива {} загружены в MinIO в потоковом режиме.", archive.fileName());
         return uploadedFileUrls;
     }
 
+    /**
+     * Проверяет, что аренда архива все еще принадлежит этой реплике.
+     * Объекты, загруженные в MinIO, не удаляются: их ключи совпадают с ключами,
+     * которые записывает реплика, получившая аренду.
+     *
+     * @param archive Информация об архиве.
+     * @return аренда архива, токен ограждения которой передается при сохранении хеша
+     * @throws GdeltProcessingException если аренда истекла или перешла к другой реплике
+     */
+    private ArchiveLease verifyLeaseHeld(GdeltArchiveInfo archive) {
+        return archiveLeaseService.findHeldLease(archive.fileName())
+                .orElseThrow(() -> new GdeltProcessingException(
+                        "Аренда архива " + archive.fileName() + " потеряна, архив обрабатывает другая реплика"));
+    }
+
     /**
      * Публикует событие об успешной распаковке и загрузке файлов в MinIO.
      *
      * @param archive           Информация об архиве.
      * @param extractedFileUrls Список URL файлов в MinIO.
+     * @param manifestUrls      URL манифестов частей по URL файлов.
      */
     private void publishExtractedEvent(GdeltArchiveInfo archive,
-                                       List<String> extractedFileUrls) {
-        eventPublisher.publishEvent(new ArchiveExtractedEvent(archive, extractedFileUrls));
+                                       List<String> extractedFileUrls,
+                                       Map<String, String> manifestUrls) {
+        eventPublisher.publishEvent(new ArchiveExtractedEvent(archive, extractedFileUrls, manifestUrls));
         log.debug("Опубликовано событие {} с {} URL файлов из MinIO для архива {}",
                 ArchiveExtractedEvent.class.getSimpleName(),
                 extractedFileUrls.size(),
@@ -222,18 +601,36 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
      *
      * @param archivePath путь к архиву
      * @param archive     информация об архиве
+     * @param lease       аренда архива
      * @throws IOException если возникла ошибка при удалении архива
      */
-    private void finalizeProcessing(Path archivePath, GdeltArchiveInfo archive) throws IOException {
+    private void finalizeProcessing(Path archivePath, GdeltArchiveInfo archive, ArchiveLease lease) throws IOException {
         // Сохраняем хеш в Redis, чтобы избежать повторной обработки
-        hashStoreService.storeHash(archive.fileName(), archive.hash());
-        log.debug("Хеш архива {} сохранен в Redis", archive.fileName());
+        storeArchiveHash(archive, lease);
 
         // Удаляем исходный архив для экономии места
         Files.deleteIfExists(archivePath);
         log.debug("Исходный архив {} удален", archive.fileName());
     }
 
+    /**
+     * Сохраняет хеш архива в Redis, чтобы избежать повторной обработки.
+     * Хеш сохраняется с токеном ограждения аренды: если аренда была потеряна уже после проверки
+     * и архив зафиксировала более поздняя аренда, хранилище отклоняет запись.
+     *
+     * @param archive информация об архиве
+     * @param lease   аренда архива
+     */
+    private void storeArchiveHash(GdeltArchiveInfo archive, ArchiveLease lease) {
+        if (!hashStoreService.storeHash(archive.fileName(), archive.hash(), lease.fencingToken())) {
+            log.warn("Хеш архива {} не сохранен: аренда (токен ограждения {}) потеряна, результат зафиксировала другая реплика",
+                    archive.fileName(), lease.fencingToken());
+            return;
+        }
+        archiveHistoryFilter.put(archive);
+        log.debug("Хеш архива {} сохранен в Redis", archive.fileName());
+    }
+
     /**
      * Безопасно удаляет локальный файл.
      *
@@ -271,7 +668,7 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
     /**
      * Пытается удалить объекты из MinIO, если произошла ошибка во время загрузки группы файлов.
      *
-     * @param uploadedUrls Список URL уже загруженных объектов.
+     * @param uploadedUrls Список URL объектов, записанных этой обработкой.
      */
     private void cleanupMinioUploads(List<String> uploadedUrls) {
         if (uploadedUrls == null || uploadedUrls.isEmpty()) {
@@ -280,15 +677,10 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
         log.warn("Начало очистки {} объектов из MinIO из-за ошибки загрузки...", uploadedUrls.size());
         for (String url : uploadedUrls) {
             try {
-                // Извлекаем objectName из URL (ожидаемый формат endpoint/bucket/objectName)
-                String[] parts = url.split("/");
-                if (parts.length >= 3) {
-                    String objectName = parts[parts.length - 1]; // Берем последнюю часть
-                    minioStorageService.deleteObject(objectName);
-                    log.debug("Удален объект '{}' из MinIO при откате.", objectName);
-                } else {
-                    log.warn("Не удалось извлечь имя объекта из URL '{}' для удаления при откате.", url);
-                }
+                // Извлекаем полный ключ объекта из URL (формат endpoint/bucket/objectName, ключ может содержать '/')
+                String objectName = minioStorageService.getObjectName(url);
+                minioStorageService.deleteObject(objectName);
+                log.debug("Удален объект '{}' из MinIO при откате.", objectName);
             } catch (Exception e) {
                 log.error("Ошибка при попытке удалить объект по URL '{}' из MinIO во время отката: {}", url, e.getMessage(), e);
                 // Продолжаем попытки удалить остальные
@@ -296,4 +688,13 @@ public class ArchiveServiceImpl implements ArchiveService, ApplicationEventPubli
         }
         log.warn("Очистка объектов MinIO завершена.");
     }
+
+    /**
+     * Результат загрузки распакованных файлов в MinIO.
+     *
+     * @param fileUrls     URL загруженных файлов в порядке файлов архива
+     * @param manifestUrls URL манифестов частей по URL файлов
+     */
+    private record UploadedFiles(List<String> fileUrls, Map<String, String> manifestUrls) {
+    }
 }
\ No newline at end of file
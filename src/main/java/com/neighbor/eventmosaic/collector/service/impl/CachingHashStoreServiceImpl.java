@@ -0,0 +1,229 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+import com.neighbor.eventmosaic.collector.service.HashStoreService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Локальный кеш хешей архивов перед {@link RedisHashStoreServiceImpl}.
+ * Включается настройкой {@code gdelt.hash-cache.enabled=true} при хранении хешей в Redis.
+ * <p>
+ * Кешируются только найденные хеши: количество записей ограничено {@code gdelt.hash-cache.max-entries}
+ * (вытесняются записи, к которым дольше всего не обращались), а время жизни записи -
+ * {@code gdelt.hash-cache.ttl}. При сохранении хеша на любой реплике в канал Redis
+ * {@code gdelt:archive:hash:updates} публикуется сообщение {@code <хеш>:<имя архива>}, и все реплики
+ * обновляют свою запись. Если сообщение потеряно (например, при переподключении),
+ * устаревшая запись живет не дольше TTL.
+ * <p>
+ * При повторных опросах уже обработанные архивы проверяются без обращения к Redis.
+ * Попадания и промахи учитываются метрикой {@code hash.store.cache.requests} с тегом {@code result=hit|miss}.
+ */
+@Slf4j
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnExpression("${gdelt.hash-cache.enabled:false} and '${gdelt.hash-store.type:redis}' == 'redis'")
+public class CachingHashStoreServiceImpl implements HashStoreService {
+
+    static final String UPDATES_CHANNEL = "gdelt:archive:hash:updates";
+    private static final String REQUESTS_METRIC = "hash.store.cache.requests";
+
+    @Value("${gdelt.hash-cache.max-entries:10000}")
+    private int maxEntries;         // Максимальное количество записей в кеше
+
+    @Value("${gdelt.hash-cache.ttl:300000}")
+    private long ttlMillis;         // Время жизни записи в мс
+
+    private final RedisHashStoreServiceImpl delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CachedHash> entries = new LinkedHashMap<>(16, 0.75f, true); // Записи в порядке обращения
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    private void initializeCache() {
+        hits = Counter.builder(REQUESTS_METRIC)
+                .description("Проверки хешей архивов, выполненные по локальному кешу")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder(REQUESTS_METRIC)
+                .description("Проверки хешей архивов, потребовавшие обращения к Redis")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("hash.store.cache.size", this, CachingHashStoreServiceImpl::size)
+                .description("Количество записей в локальном кеше хешей")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this::onHashUpdate, new ChannelTopic(UPDATES_CHANNEL));
+        log.info("Локальный кеш хешей архивов включен: до {} записей, TTL {}", maxEntries, Duration.ofMillis(ttlMillis));
+    }
+
+    @Override
+    public String getStoredHash(String archiveName) {
+        String hash = getCached(archiveName);
+        if (hash != null) {
+            hits.increment();
+            return hash;
+        }
+        misses.increment();
+        hash = delegate.getStoredHash(archiveName);
+        if (hash != null) {
+            put(archiveName, hash);
+        }
+        return hash;
+    }
+
+    @Override
+    public Map<String, String> getStoredHashes(List<String> archiveNames) {
+        Map<String, String> storedHashes = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String archiveName : archiveNames) {
+            String hash = getCached(archiveName);
+            if (hash != null) {
+                storedHashes.put(archiveName, hash);
+            } else {
+                missing.add(archiveName);
+            }
+        }
+        hits.increment(storedHashes.size());
+        misses.increment(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<String, String> loadedHashes = delegate.getStoredHashes(missing);
+            loadedHashes.forEach(this::put);
+            storedHashes.putAll(loadedHashes);
+        }
+        return storedHashes;
+    }
+
+    @Override
+    public void storeHash(String archiveName, String hash) {
+        delegate.storeHash(archiveName, hash);
+        put(archiveName, hash);
+        publishUpdate(archiveName, hash);
+    }
+
+    @Override
+    public boolean storeHash(String archiveName, String hash, long fencingToken) {
+        if (!delegate.storeHash(archiveName, hash, fencingToken)) {
+            return false;
+        }
+        put(archiveName, hash);
+        publishUpdate(archiveName, hash);
+        return true;
+    }
+
+    @Override
+    public void storeHashes(Map<String, String> hashes) {
+        delegate.storeHashes(hashes);
+        hashes.forEach((archiveName, hash) -> {
+            put(archiveName, hash);
+            publishUpdate(archiveName, hash);
+        });
+    }
+
+    @Override
+    public boolean isNewOrChanged(String archiveName, String currentHash) {
+        return !currentHash.equals(getStoredHash(archiveName));
+    }
+
+    @Override
+    public List<GdeltArchiveInfo> filterNewOrChanged(List<GdeltArchiveInfo> archives) {
+        if (archives.isEmpty()) {
+            return List.of();
+        }
+        Map<String, String> storedHashes = getStoredHashes(archives.stream()
+                .map(GdeltArchiveInfo::fileName)
+                .toList());
+        return archives.stream()
+                .filter(archive -> !archive.hash().equals(storedHashes.get(archive.fileName())))
+                .toList();
+    }
+
+    /**
+     * Обрабатывает сообщение об обновлении хеша от любой реплики (включая текущую).
+     *
+     * @param message сообщение {@code <хеш>:<имя архива>}
+     * @param pattern шаблон подписки (не используется)
+     */
+    void onHashUpdate(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator <= 0) {
+            log.warn("Некорректное сообщение об обновлении хеша: {}", body);
+            return;
+        }
+        put(body.substring(separator + 1), body.substring(0, separator));
+    }
+
+    /**
+     * Публикует обновление хеша для остальных реплик.
+     * Ошибка публикации не прерывает обработку: записи других реплик устареют не дольше чем на TTL.
+     *
+     * @param archiveName имя архива
+     * @param hash        сохраненный хеш
+     */
+    private void publishUpdate(String archiveName, String hash) {
+        try {
+            redisTemplate.convertAndSend(UPDATES_CHANNEL, hash + ":" + archiveName);
+        } catch (Exception e) {
+            log.warn("Не удалось опубликовать обновление хеша архива {}: {}", archiveName, e.getMessage());
+        }
+    }
+
+    private synchronized String getCached(String archiveName) {
+        CachedHash cached = entries.get(archiveName);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() - System.nanoTime() <= 0) {
+            entries.remove(archiveName);
+            return null;
+        }
+        return cached.hash();
+    }
+
+    private synchronized void put(String archiveName, String hash) {
+        entries.put(archiveName, new CachedHash(hash, System.nanoTime() + Duration.ofMillis(ttlMillis).toNanos()));
+        if (entries.size() > maxEntries) {
+            entries.remove(entries.keySet().iterator().next()); // Вытесняем запись, к которой дольше всего не обращались
+        }
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Запись кеша.
+     *
+     * @param hash      сохраненный хеш архива
+     * @param expiresAt момент истечения записи по {@link System#nanoTime()}
+     */
+    private record CachedHash(String hash, long expiresAt) {
+    }
+}
@@ -1,28 +1,49 @@
 package com.neighbor.eventmosaic.collector.service.impl;
 
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+import com.neighbor.eventmosaic.collector.dto.ExtractedFile;
 import com.neighbor.eventmosaic.collector.exception.GdeltProcessingException;
+import com.neighbor.eventmosaic.collector.manifest.ChunkIndexer;
 import com.neighbor.eventmosaic.collector.service.FileSystemService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -39,6 +60,38 @@ public class FileSystemServiceImpl implements FileSystemService {
     private static final int BUFFER_SIZE = 8192;
     private static final String HASH_ALGORITHM = "MD5";
     private static final Duration HTTP_TIMEOUT = Duration.ofMinutes(2);
+    private static final long UNKNOWN_SIZE = -1;
+    private static final Pattern CONTENT_RANGE_TOTAL = Pattern.compile("^bytes \\d+-\\d+/(\\d+)$");
+
+    /**
+     * Константы для возобновляемой загрузки
+     */
+    private static final String STATE_FILE_SUFFIX = ".download";
+    private static final long STATE_CHECKPOINT_BYTES = 1024L * 1024;
+    private static final String STATE_EXPECTED_SIZE = "expectedSize";
+    private static final String STATE_EXPECTED_HASH = "expectedHash";
+    private static final String STATE_BYTES_RECEIVED = "bytesReceived";
+
+    @Value("${gdelt.download.segments:1}")
+    private int segmentCount;       // Максимальное количество параллельных сегментов загрузки (1 - сегментная загрузка выключена)
+
+    @Value("${gdelt.download.min-segment-size:8388608}")
+    private long minSegmentSize;    // Минимальный размер одного сегмента в байтах
+
+    @Value("${gdelt.extract.parallelism:0}")
+    private int extractParallelism; // Количество потоков параллельной распаковки (0 - по числу ядер)
+
+    @Value("${gdelt.manifest.enabled:false}")
+    private boolean manifestEnabled; // Строить ли манифест частей распакованных файлов
+
+    @Value("${gdelt.manifest.chunk-size:16777216}")
+    private long manifestChunkSize; // Целевой размер части в манифесте в байтах
+
+    @Value("${gdelt.download.max-attempts:3}")
+    private int maxAttempts;        // Максимальное количество попыток загрузки файла
+
+    @Value("${gdelt.download.retry-delay:2000}")
+    private long retryDelay;        // Базовая задержка между попытками загрузки в мс (растет линейно с номером попытки)
 
     private final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(HTTP_TIMEOUT)
@@ -56,6 +109,37 @@ public class FileSystemServiceImpl implements FileSystemService {
      */
     @Override
     public Path downloadFile(String url, String targetPath) throws IOException {
+        return downloadFileWithDigest(url, targetPath, UNKNOWN_SIZE, null).path();
+    }
+
+    /**
+     * Загружает файл по-указанному URL и вычисляет его MD5-хеш.
+     * <p>
+     * При известном размере файла и включенной сегментной загрузке ({@code gdelt.download.segments > 1})
+     * файл скачивается параллельно несколькими HTTP Range-запросами на виртуальных потоках
+     * в заранее выделенный файл. Если сервер не поддерживает Range, выполняется обычная загрузка одним потоком.
+     * <p>
+     * При загрузке одним потоком каждый прочитанный из HTTP-ответа буфер передается в дайджест
+     * перед записью на диск, поэтому повторное чтение файла для проверки целостности не требуется.
+     * При сегментной загрузке MD5 вычисляется сразу после загрузки, пока файл находится в page cache.
+     * <p>
+     * Если известны ожидаемые размер и хеш, загрузка одним потоком становится возобновляемой:
+     * рядом с файлом ведется файл состояния ({@value #STATE_FILE_SUFFIX}) с числом полученных байтов,
+     * и повторная попытка или перезапуск сервиса продолжают загрузку запросом {@code Range: bytes=N-}.
+     * Неудачные попытки повторяются до {@code gdelt.download.max-attempts} раз.
+     *
+     * @param url          URL-адрес файла для загрузки
+     * @param targetPath   путь для сохранения файла
+     * @param expectedSize ожидаемый размер файла в байтах или значение меньше 1, если размер неизвестен
+     * @param expectedHash ожидаемый MD5-хеш файла или null, если он неизвестен
+     * @return путь к загруженному файлу и его MD5-хеш
+     * @throws IOException при ошибках ввода-вывода или неудачном скачивании
+     */
+    @Override
+    public DownloadedFile downloadFileWithDigest(String url,
+                                                 String targetPath,
+                                                 long expectedSize,
+                                                 String expectedHash) throws IOException {
         log.info("Начало загрузки файла с URL: {} в {}", url, targetPath);
         Path target = Paths.get(targetPath);
 
@@ -63,14 +147,10 @@ public class FileSystemServiceImpl implements FileSystemService {
             // Создаем директорию для файла, если она не существует
             Files.createDirectories(target.getParent());
 
-            // Создаем HTTP-запрос
-            HttpRequest request = createHttpRequest(url);
-
-            // Выполняем запрос и обрабатываем ответ
-            downloadWithBuffering(httpClient, request, target);
+            String hash = downloadWithRetries(url, target, expectedSize, expectedHash);
 
-            log.info("Файл успешно загружен: {}", targetPath);
-            return target;
+            log.info("Файл успешно загружен: {} (MD5: {})", targetPath, hash);
+            return new DownloadedFile(target, hash);
 
         } catch (IOException e) {
             log.error("Ошибка ввода-вывода при загрузке файла {}: {}", url, e.getMessage(), e);
@@ -98,7 +178,7 @@ public class FileSystemServiceImpl implements FileSystemService {
     public String calculateMd5(Path filePath) throws IOException {
         log.debug("Расчет MD5-хеша для файла: {}", filePath);
         try {
-            MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM);
+            MessageDigest md = createMessageDigest();
             byte[] buffer = new byte[BUFFER_SIZE];
             int bytesRead;
 
@@ -114,10 +194,6 @@ public class FileSystemServiceImpl implements FileSystemService {
 
             return hash;
 
-        } catch (NoSuchAlgorithmException e) {
-            // Теоретически невозможно, так как MD5 - стандартный алгоритм
-            log.error("Алгоритм хеширования {} не найден", HASH_ALGORITHM, e);
-            throw new GdeltProcessingException("Ошибка при получении алгоритма хеширования", e);
         } catch (IOException e) {
             log.error("Ошибка при чтении файла для расчета хеша: {}", filePath, e);
             throw e;
@@ -126,62 +202,223 @@ public class FileSystemServiceImpl implements FileSystemService {
 
     /**
      * Распаковывает ZIP-архив в указанную директорию.
-     * Метод использует буферизованное чтение для эффективной работы
-     * с архивами большого размера, минимизируя потребление памяти.
-     * Также включает проверку безопасности для предотвращения уязвимости "Zip Slip".
+     * <p>
+     * Метод работает с архивом через {@link ZipFile} с произвольным доступом:
+     * сначала читается центральный каталог и проверяются пути всех записей
+     * на уязвимость "Zip Slip" (до записи чего-либо на диск), затем для каждого файла
+     * создается выходной файл итогового размера из центрального каталога,
+     * и независимые записи распаковываются параллельно на {@code gdelt.extract.parallelism} потоках
+     * (по умолчанию - по числу ядер). Архив из одного файла распаковывается в текущем потоке.
+     * MD5-хеш содержимого каждого файла вычисляется в том же проходе, что и запись на диск.
+     * В том же проходе при {@code gdelt.manifest.enabled} строится манифест частей файла
+     * (см. {@link ChunkIndexer}).
      *
      * @param zipFile   путь к ZIP-архиву
      * @param targetDir директория для распаковки
-     * @return список путей к распакованным файлам
+     * @return распакованные файлы с хешами содержимого и манифестами в порядке центрального каталога
      * @throws IOException при ошибках ввода-вывода или некорректном формате архива,
      *                     или если архив содержит недопустимые пути (Zip Slip)
      */
     @Override
-    public List<Path> extractZipFile(Path zipFile, Path targetDir) throws IOException {
+    public List<ExtractedFile> extractZipFile(Path zipFile, Path targetDir) throws IOException {
         log.info("Распаковка архива {} в директорию {}", zipFile, targetDir);
-        List<Path> extractedFiles = new ArrayList<>();
 
         // Преобразуем target директорию в абсолютный путь для надежной проверки
         Path absoluteTargetDir = targetDir
                 .toAbsolutePath()
                 .normalize();
 
-        try (ZipInputStream zipIn = new ZipInputStream(Files.newInputStream(zipFile))) {
-            ZipEntry entry;
-            while ((entry = zipIn.getNextEntry()) != null) {
-                /*
-                ZIP-архив может содержать файл с путём вроде ../../dir/dir,
-                и без нормализации он может записаться за пределами targetDir.
-                Добавление normalize() и проверки startsWith предотвращает подобную атаку.
-                 */
-                Path resolvedPath = absoluteTargetDir
-                        .resolve(entry.getName())
-                        .normalize();
-
-                // Проверка безопасности Zip Slip: убеждаемся, что путь находится ВНУТРИ целевой директории, например,
-                // /targetDir/dir/file.txt, а не /targetDir/../../file.txt
-                if (!resolvedPath.startsWith(absoluteTargetDir)) {
-                    throw new IOException("Обнаружена попытка Zip Slip! Недопустимый путь внутри архива: " + entry.getName());
-                }
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            // Читаем центральный каталог и проверяем пути всех записей до начала распаковки
+            Map<Path, ZipEntry> fileEntries = new LinkedHashMap<>();
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                Path resolvedPath = resolveEntryPath(absoluteTargetDir, entry.getName());
 
                 if (entry.isDirectory()) {
                     Files.createDirectories(resolvedPath);
                 } else {
-                    // Создаем родительские директории, если они еще не существуют
-                    Files.createDirectories(resolvedPath.getParent());
-                    extractFileFromZip(zipIn, resolvedPath);
-                    extractedFiles.add(resolvedPath);
-                    log.debug("Извлечен файл: {}", resolvedPath);
+                    fileEntries.put(resolvedPath, entry);
                 }
-                zipIn.closeEntry();
             }
+
+            // Создаем выходные файлы итогового размера
+            for (Map.Entry<Path, ZipEntry> fileEntry : fileEntries.entrySet()) {
+                preallocateFile(fileEntry.getKey(), fileEntry.getValue().getSize());
+            }
+
+            List<ExtractedFile> extractedFiles = extractEntries(zip, fileEntries);
+            log.info("Архив успешно распакован. Извлечено файлов: {}", extractedFiles.size());
+            return extractedFiles;
+
         } catch (IOException e) {
             log.error("Ошибка при распаковке архива {}: {}", zipFile, e.getMessage(), e);
             throw e;
         }
+    }
+
+    /**
+     * Разбивает файл на части по границам строк за один проход чтения.
+     * Данные копируются буфером в текущую часть; как только размер части достигает
+     * {@code chunkSize}, в буфере ищется ближайший конец строки, и часть закрывается после него.
+     * При ошибке уже созданные части удаляются.
+     *
+     * @param file      путь к файлу
+     * @param chunkSize целевой размер части в байтах
+     * @return части файла с MD5-хешами содержимого в порядке следования
+     * @throws IOException при ошибках ввода-вывода
+     */
+    @Override
+    public List<ExtractedFile> splitFileByLines(Path file, long chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер части должен быть положительным: " + chunkSize);
+        }
+        List<ExtractedFile> chunks = new ArrayList<>();
+        OutputStream out = null;
+        Path chunkPath = null;
+        MessageDigest md = null;
+        long chunkBytes = 0;
+
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                int start = 0;
+                while (start < bytesRead) {
+                    if (out == null) {
+                        chunkPath = file.resolveSibling("%s.part-%05d".formatted(file.getFileName(), chunks.size()));
+                        out = Files.newOutputStream(chunkPath);
+                        md = createMessageDigest();
+                        chunkBytes = 0;
+                    }
+
+                    // Ищем конец строки, начиная с байта, на котором часть достигает целевого размера
+                    int end = bytesRead;
+                    boolean boundary = false;
+                    int searchFrom = (int) Math.min(bytesRead, start + Math.max(0, chunkSize - chunkBytes - 1));
+                    for (int i = searchFrom; i < bytesRead; i++) {
+                        if (buffer[i] == '\n') {
+                            end = i + 1;
+                            boundary = true;
+                            break;
+                        }
+                    }
+
+                    out.write(buffer, start, end - start);
+                    md.update(buffer, start, end - start);
+                    chunkBytes += end - start;
+                    start = end;
+
+                    if (boundary) {
+                        out.close();
+                        out = null;
+                        chunks.add(new ExtractedFile(chunkPath, bytesToHex(md.digest())));
+                    }
+                }
+            }
+            if (out != null) {
+                out.close();
+                out = null;
+                chunks.add(new ExtractedFile(chunkPath, bytesToHex(md.digest())));
+            }
+
+        } catch (IOException e) {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException closeException) {
+                    e.addSuppressed(closeException);
+                }
+                Files.deleteIfExists(chunkPath);
+            }
+            for (ExtractedFile chunk : chunks) {
+                Files.deleteIfExists(chunk.path());
+            }
+            log.error("Ошибка при разбиении файла {} на части: {}", file, e.getMessage(), e);
+            throw e;
+        }
 
-        log.info("Архив успешно распакован. Извлечено файлов: {}", extractedFiles.size());
-        return extractedFiles;
+        log.debug("Файл {} разбит на {} частей", file, chunks.size());
+        return chunks;
+    }
+
+    /**
+     * Открывает потоковое чтение файла по URL без сохранения на диск.
+     * Тело HTTP-ответа возвращается как есть, буферизация остается на стороне потребителя.
+     *
+     * @param url URL-адрес файла
+     * @return поток с содержимым файла (закрывается вызывающим кодом)
+     * @throws IOException при ошибках ввода-вывода или неуспешном HTTP-ответе
+     */
+    @Override
+    public InputStream openDownloadStream(String url) throws IOException {
+        log.info("Открытие потока загрузки файла с URL: {}", url);
+        try {
+            HttpResponse<InputStream> response = httpClient.send(
+                    createHttpRequest(url),
+                    HttpResponse.BodyHandlers.ofInputStream());
+
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("Ошибка HTTP: код " + response.statusCode());
+            }
+            return response.body();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Открытие потока загрузки {} прервано: {}", url, e.getMessage(), e);
+            throw new IOException("Загрузка файла прервана", e);
+        }
+    }
+
+    /**
+     * Потоково распаковывает ZIP-архив и вычисляет MD5-хеш архива в тот же проход.
+     * Каждый байт исходного потока проходит через дайджест ровно один раз, поэтому
+     * после чтения последней записи поток дочитывается до конца (центральный каталог),
+     * чтобы хеш совпадал с хешем файла архива целиком.
+     * Имена записей проверяются на попытку "Zip Slip" так же, как и при распаковке на диск.
+     *
+     * @param zipStream поток ZIP-архива (закрывается этим методом)
+     * @param handler   обработчик содержимого каждого файла архива
+     * @return MD5-хеш архива в виде шестнадцатеричной строки
+     * @throws IOException при ошибках ввода-вывода или недопустимых путях внутри архива
+     */
+    @Override
+    public String extractZipStream(InputStream zipStream, ZipEntryHandler handler) throws IOException {
+        log.debug("Потоковая распаковка архива");
+        MessageDigest md = createMessageDigest();
+        Path virtualRoot = Paths.get("").toAbsolutePath();
+        int entriesCount = 0;
+
+        try (DigestInputStream digestIn = new DigestInputStream(zipStream, md);
+             ZipInputStream zipIn = new ZipInputStream(digestIn)) {
+
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                resolveEntryPath(virtualRoot, entry.getName());
+
+                if (!entry.isDirectory()) {
+                    // Обработчик не должен закрывать общий ZIP-поток
+                    handler.handle(entry.getName(), new FilterInputStream(zipIn) {
+                        @Override
+                        public void close() {
+                            // Закрытие выполняет метод распаковки
+                        }
+                    });
+                    entriesCount++;
+                    log.debug("Обработан файл из потока архива: {}", entry.getName());
+                }
+                zipIn.closeEntry();
+            }
+
+            // Дочитываем центральный каталог архива для корректного хеша
+            digestIn.transferTo(OutputStream.nullOutputStream());
+        }
+
+        String hash = bytesToHex(md.digest());
+        log.info("Потоковая распаковка завершена. Обработано файлов: {}, MD5-хеш архива: {}", entriesCount, hash);
+        return hash;
     }
 
     /**
@@ -202,6 +439,47 @@ public class FileSystemServiceImpl implements FileSystemService {
         return dir;
     }
 
+    /**
+     * Создает экземпляр алгоритма хеширования для проверки целостности архивов.
+     *
+     * @return экземпляр {@link MessageDigest}
+     * @throws GdeltProcessingException если алгоритм недоступен
+     */
+    private MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Теоретически невозможно, так как MD5 - стандартный алгоритм
+            log.error("Алгоритм хеширования {} не найден", HASH_ALGORITHM, e);
+            throw new GdeltProcessingException("Ошибка при получении алгоритма хеширования", e);
+        }
+    }
+
+    /**
+     * Вычисляет путь записи архива внутри целевой директории с проверкой на "Zip Slip".
+     * <p>
+     * ZIP-архив может содержать файл с путём вроде ../../dir/dir,
+     * и без нормализации он может записаться за пределами targetDir.
+     * Добавление normalize() и проверки startsWith предотвращает подобную атаку.
+     *
+     * @param absoluteTargetDir абсолютный нормализованный путь целевой директории
+     * @param entryName         имя записи внутри архива
+     * @return нормализованный путь записи
+     * @throws IOException если путь записи выходит за пределы целевой директории
+     */
+    private Path resolveEntryPath(Path absoluteTargetDir, String entryName) throws IOException {
+        Path resolvedPath = absoluteTargetDir
+                .resolve(entryName)
+                .normalize();
+
+        // Проверка безопасности Zip Slip: убеждаемся, что путь находится ВНУТРИ целевой директории, например,
+        // /targetDir/dir/file.txt, а не /targetDir/../../file.txt
+        if (!resolvedPath.startsWith(absoluteTargetDir)) {
+            throw new IOException("Обнаружена попытка Zip Slip! Недопустимый путь внутри архива: " + entryName);
+        }
+        return resolvedPath;
+    }
+
     /**
      * Преобразует массив байтов в шестнадцатеричную строку.
      *
@@ -226,37 +504,494 @@ public class FileSystemServiceImpl implements FileSystemService {
                 .build();
     }
 
+    /**
+     * Создает HTTP-запрос для получения диапазона байтов файла.
+     *
+     * @param url   URL-адрес файла
+     * @param start позиция первого байта (включительно)
+     * @param end   позиция последнего байта (включительно)
+     * @return HTTP-запрос с заголовком Range
+     */
+    private HttpRequest createRangeHttpRequest(String url, long start, long end) {
+        return HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(url))
+                .header("Range", "bytes=%d-%d".formatted(start, end))
+                .timeout(HTTP_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Создает HTTP-запрос для получения файла начиная с указанной позиции.
+     *
+     * @param url   URL-адрес файла
+     * @param start позиция первого байта
+     * @return HTTP-запрос с открытым заголовком Range
+     */
+    private HttpRequest createResumeHttpRequest(String url, long start) {
+        return HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(url))
+                .header("Range", "bytes=%d-".formatted(start))
+                .timeout(HTTP_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Выполняет загрузку с повторными попытками при ошибках ввода-вывода.
+     * Выбирает способ загрузки: сегментный, возобновляемый или обычный одним потоком.
+     *
+     * @param url          URL-адрес файла
+     * @param target       путь для сохранения файла
+     * @param expectedSize ожидаемый размер файла
+     * @param expectedHash ожидаемый MD5-хеш файла или null
+     * @return MD5-хеш загруженного файла
+     * @throws IOException          если все попытки загрузки завершились ошибкой
+     * @throws InterruptedException если процесс загрузки был прерван
+     */
+    private String downloadWithRetries(String url,
+                                       Path target,
+                                       long expectedSize,
+                                       String expectedHash) throws IOException, InterruptedException {
+        int attempts = Math.max(maxAttempts, 1);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (isSegmentedDownloadApplicable(expectedSize)) {
+                    return downloadInSegments(url, target, expectedSize);
+                }
+                if (expectedSize > 0 && expectedHash != null) {
+                    return downloadResumable(url, target, expectedSize, expectedHash);
+                }
+
+                // Выполняем запрос и обрабатываем ответ, попутно вычисляя хеш
+                MessageDigest md = createMessageDigest();
+                downloadWithBuffering(httpClient, createHttpRequest(url), target, md);
+                return bytesToHex(md.digest());
+
+            } catch (IOException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                long delay = retryDelay * attempt;
+                log.warn("Попытка {}/{} загрузки {} не удалась: {}. Повтор через {} мс",
+                        attempt, attempts, url, e.getMessage(), delay);
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Загружает файл одним потоком с возможностью продолжения после сбоя.
+     * <p>
+     * Если рядом с файлом есть файл состояния той же версии (совпадают ожидаемые размер и хеш),
+     * уже полученные байты повторно хешируются с диска, а недостающий хвост запрашивается
+     * через {@code Range: bytes=N-}. Во время загрузки состояние сохраняется каждые
+     * {@link #STATE_CHECKPOINT_BYTES} байт и при ошибке чтения; после успешной загрузки файл состояния удаляется.
+     * Если сервер отвечает 200 вместо 206, загрузка начинается заново.
+     *
+     * @param url          URL-адрес файла
+     * @param target       путь для сохранения файла
+     * @param expectedSize ожидаемый размер файла
+     * @param expectedHash ожидаемый MD5-хеш файла
+     * @return MD5-хеш загруженного файла
+     * @throws IOException          при ошибках ввода-вывода или неуспешном HTTP-ответе
+     * @throws InterruptedException если процесс загрузки был прерван
+     */
+    private String downloadResumable(String url,
+                                     Path target,
+                                     long expectedSize,
+                                     String expectedHash) throws IOException, InterruptedException {
+        Path statePath = Paths.get(target + STATE_FILE_SUFFIX);
+        long offset = resolveResumeOffset(target, statePath, expectedSize, expectedHash);
+
+        if (offset == expectedSize) {
+            // Загрузка завершилась, но файл состояния не успели удалить
+            Files.deleteIfExists(statePath);
+            return calculateMd5(target);
+        }
+
+        if (offset == 0) {
+            deleteStaleTarget(target);
+        }
+
+        HttpResponse<InputStream> response = httpClient.send(
+                offset > 0 ? createResumeHttpRequest(url, offset) : createHttpRequest(url),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        if (offset > 0 && response.statusCode() == 200) {
+            log.info("Сервер не поддерживает докачку {}. Загрузка с начала", url);
+            offset = 0;
+        } else if (response.statusCode() != (offset > 0 ? 206 : 200)) {
+            response.body().close();
+            throw new IOException("Ошибка HTTP: код " + response.statusCode());
+        } else if (offset > 0) {
+            verifyContentRangeTotal(response, expectedSize);
+            log.info("Продолжение загрузки {} с позиции {} из {} байт", url, offset, expectedSize);
+        }
+
+        MessageDigest md = createMessageDigest();
+        if (offset > 0) {
+            updateDigest(target, offset, md);
+        }
+
+        long received = offset;
+        saveDownloadState(statePath, expectedSize, expectedHash, received);
+
+        try (InputStream in = response.body();
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+            channel.truncate(offset);
+            channel.position(offset);
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long lastCheckpoint = received;
+            int bytesRead;
+            try {
+                while ((bytesRead = in.read(buffer)) != -1) {
+                    md.update(buffer, 0, bytesRead);
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, bytesRead);
+                    while (byteBuffer.hasRemaining()) {
+                        channel.write(byteBuffer);
+                    }
+                    received += bytesRead;
+
+                    if (received - lastCheckpoint >= STATE_CHECKPOINT_BYTES) {
+                        saveDownloadState(statePath, expectedSize, expectedHash, received);
+                        lastCheckpoint = received;
+                    }
+                }
+            } catch (IOException e) {
+                saveDownloadState(statePath, expectedSize, expectedHash, received);
+                log.warn("Загрузка {} прервана на {} из {} байт, состояние сохранено для продолжения",
+                        url, received, expectedSize);
+                throw e;
+            }
+        }
+
+        Files.deleteIfExists(statePath);
+        return bytesToHex(md.digest());
+    }
+
+    /**
+     * Определяет позицию, с которой можно продолжить загрузку.
+     * Продолжение возможно, только если файл состояния относится к той же версии файла,
+     * а на диске записано не меньше байтов, чем указано в состоянии.
+     *
+     * @param target       путь к частично загруженному файлу
+     * @param statePath    путь к файлу состояния
+     * @param expectedSize ожидаемый размер файла
+     * @param expectedHash ожидаемый MD5-хеш файла
+     * @return количество уже полученных байтов или 0, если загрузку нужно начать заново
+     */
+    private long resolveResumeOffset(Path target, Path statePath, long expectedSize, String expectedHash) {
+        if (!Files.exists(statePath) || !Files.exists(target)) {
+            return 0;
+        }
+        if (hasOtherLinks(target)) {
+            // Файл уже связан с кэшем архивов, дописывать в него нельзя
+            log.info("Файл {} связан жесткой ссылкой с другим файлом. Загрузка начнется заново", target);
+            return 0;
+        }
+
+        try (InputStream in = Files.newInputStream(statePath)) {
+            Properties state = new Properties();
+            state.load(in);
+
+            long bytesReceived = Long.parseLong(state.getProperty(STATE_BYTES_RECEIVED, "0"));
+            boolean sameVersion = String.valueOf(expectedSize).equals(state.getProperty(STATE_EXPECTED_SIZE))
+                    && expectedHash.equals(state.getProperty(STATE_EXPECTED_HASH));
+
+            if (sameVersion && bytesReceived > 0 && bytesReceived <= expectedSize && Files.size(target) >= bytesReceived) {
+                return bytesReceived;
+            }
+            log.info("Состояние загрузки {} устарело или не соответствует файлу. Загрузка начнется заново", target);
+
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Не удалось прочитать состояние загрузки {}: {}. Загрузка начнется заново", statePath, e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Сохраняет состояние возобновляемой загрузки.
+     * Файл состояния сначала пишется во временный файл и затем атомарно подменяется.
+     *
+     * @param statePath     путь к файлу состояния
+     * @param expectedSize  ожидаемый размер файла
+     * @param expectedHash  ожидаемый MD5-хеш файла
+     * @param bytesReceived количество полученных байтов
+     * @throws IOException при ошибках записи файла состояния
+     */
+    private void saveDownloadState(Path statePath,
+                                   long expectedSize,
+                                   String expectedHash,
+                                   long bytesReceived) throws IOException {
+        Properties state = new Properties();
+        state.setProperty(STATE_EXPECTED_SIZE, String.valueOf(expectedSize));
+        state.setProperty(STATE_EXPECTED_HASH, expectedHash);
+        state.setProperty(STATE_BYTES_RECEIVED, String.valueOf(bytesReceived));
+
+        Path tempStatePath = Paths.get(statePath + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempStatePath)) {
+            state.store(out, null);
+        }
+        Files.move(tempStatePath, statePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Передает в дайджест первые {@code length} байтов файла.
+     *
+     * @param file   путь к файлу
+     * @param length количество байтов
+     * @param md     дайджест
+     * @throws IOException при ошибках чтения
+     */
+    private void updateDigest(Path file, long length, MessageDigest md) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = length;
+            int bytesRead;
+            while (remaining > 0 && (bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                md.update(buffer, 0, bytesRead);
+                remaining -= bytesRead;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, имеет ли смысл загружать файл несколькими сегментами.
+     *
+     * @param expectedSize ожидаемый размер файла
+     * @return true, если сегментная загрузка включена и файл достаточно велик
+     */
+    private boolean isSegmentedDownloadApplicable(long expectedSize) {
+        return segmentCount > 1
+                && expectedSize > 0
+                && expectedSize >= 2 * Math.max(minSegmentSize, 1);
+    }
+
+    /**
+     * Загружает файл параллельными HTTP Range-запросами в заранее выделенный файл.
+     * Первый сегмент запрашивается синхронно: если сервер ответил 200 вместо 206,
+     * Range не поддерживается, и тот же ответ используется для обычной загрузки одним потоком.
+     * Остальные сегменты загружаются на виртуальных потоках и пишутся в файл позиционной записью.
+     *
+     * @param url          URL-адрес файла
+     * @param target       путь для сохранения файла
+     * @param expectedSize ожидаемый размер файла
+     * @return MD5-хеш загруженного файла
+     * @throws IOException          при ошибках ввода-вывода или неполной загрузке сегмента
+     * @throws InterruptedException если процесс загрузки был прерван
+     */
+    private String downloadInSegments(String url,
+                                      Path target,
+                                      long expectedSize) throws IOException, InterruptedException {
+        int segments = (int) Math.min(segmentCount, expectedSize / Math.max(minSegmentSize, 1));
+        long segmentSize = (expectedSize + segments - 1) / segments;
+
+        HttpResponse<InputStream> firstResponse = httpClient.send(
+                createRangeHttpRequest(url, 0, Math.min(segmentSize, expectedSize) - 1),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        if (firstResponse.statusCode() == 200) {
+            log.info("Сервер не поддерживает Range-запросы для {}. Загрузка одним потоком", url);
+            MessageDigest md = createMessageDigest();
+            writeWithDigest(firstResponse.body(), target, md);
+            return bytesToHex(md.digest());
+        }
+        if (firstResponse.statusCode() != 206) {
+            firstResponse.body().close();
+            throw new IOException("Ошибка HTTP: код " + firstResponse.statusCode());
+        }
+        verifyContentRangeTotal(firstResponse, expectedSize);
+
+        log.info("Сегментная загрузка {}: {} сегментов по {} байт", url, segments, segmentSize);
+
+        // Заранее выделяем место под файл целиком в новом файле
+        deleteStaleTarget(target);
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(expectedSize);
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            List<Future<Void>> futures = new ArrayList<>(segments);
+            futures.add(executor.submit(() -> {
+                writeSegment(firstResponse.body(), channel, 0, Math.min(segmentSize, expectedSize));
+                return null;
+            }));
+
+            for (int i = 1; i < segments; i++) {
+                long start = i * segmentSize;
+                long end = Math.min(start + segmentSize, expectedSize) - 1;
+                futures.add(executor.submit(() -> {
+                    downloadSegment(url, channel, start, end, expectedSize);
+                    return null;
+                }));
+            }
+
+            awaitTasks(futures);
+        }
+
+        // Файл только что записан и находится в page cache, повторное чтение не обращается к диску
+        return calculateMd5(target);
+    }
+
+    /**
+     * Загружает один сегмент файла и записывает его в канал по нужной позиции.
+     *
+     * @param url          URL-адрес файла
+     * @param channel      канал целевого файла
+     * @param start        позиция первого байта сегмента
+     * @param end          позиция последнего байта сегмента (включительно)
+     * @param expectedSize ожидаемый размер файла
+     * @throws IOException          при ошибках ввода-вывода или неуспешном HTTP-ответе
+     * @throws InterruptedException если процесс загрузки был прерван
+     */
+    private void downloadSegment(String url,
+                                 FileChannel channel,
+                                 long start,
+                                 long end,
+                                 long expectedSize) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(
+                createRangeHttpRequest(url, start, end),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        if (response.statusCode() != 206) {
+            response.body().close();
+            throw new IOException("Ошибка HTTP при загрузке сегмента %d-%d: код %d".formatted(start, end, response.statusCode()));
+        }
+        verifyContentRangeTotal(response, expectedSize);
+
+        writeSegment(response.body(), channel, start, end - start + 1);
+    }
+
+    /**
+     * Записывает тело ответа с сегментом в канал файла позиционной записью.
+     *
+     * @param in       поток с данными сегмента (закрывается этим методом)
+     * @param channel  канал целевого файла
+     * @param position позиция начала сегмента в файле
+     * @param length   ожидаемая длина сегмента
+     * @throws IOException при ошибках ввода-вывода или если сегмент загружен не полностью
+     */
+    private void writeSegment(InputStream in,
+                              FileChannel channel,
+                              long position,
+                              long length) throws IOException {
+        try (in) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long written = 0;
+            int bytesRead;
+            while (written < length && (bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, length - written))) != -1) {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    written += channel.write(byteBuffer, position + written);
+                }
+            }
+
+            if (written != length) {
+                throw new IOException("Сегмент загружен не полностью: позиция %d, получено %d из %d байт"
+                        .formatted(position, written, length));
+            }
+        }
+    }
+
+    /**
+     * Ожидает завершения всех параллельных задач (загрузки сегментов или распаковки файлов).
+     * При ошибке одной задачи отменяет остальные и пробрасывает причину.
+     *
+     * @param futures параллельные задачи
+     * @return результаты задач в порядке списка
+     * @throws IOException          при ошибке любой задачи
+     * @throws InterruptedException если ожидание было прервано
+     */
+    private <T> List<T> awaitTasks(List<Future<T>> futures) throws IOException, InterruptedException {
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Ошибка при выполнении параллельной задачи: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Проверяет, что полный размер файла из заголовка Content-Range совпадает с ожидаемым.
+     * Несовпадение означает, что файл на сервере изменился после получения списка архивов.
+     *
+     * @param response     HTTP-ответ с кодом 206
+     * @param expectedSize ожидаемый размер файла
+     * @throws IOException если размер файла на сервере отличается от ожидаемого
+     */
+    private void verifyContentRangeTotal(HttpResponse<InputStream> response, long expectedSize) throws IOException {
+        String contentRange = response.headers().firstValue("Content-Range").orElse("");
+        Matcher matcher = CONTENT_RANGE_TOTAL.matcher(contentRange);
+        if (matcher.matches() && Long.parseLong(matcher.group(1)) != expectedSize) {
+            response.body().close();
+            throw new IOException("Размер файла на сервере (%s) не совпадает с ожидаемым (%d)"
+                    .formatted(matcher.group(1), expectedSize));
+        }
+    }
+
     /**
      * Выполняет загрузку файла с буферизацией.
      * Метод потоково читает данные из HTTP-ответа и записывает их в файл
      * с использованием буфера, что позволяет обрабатывать файлы большого размера.
+     * Каждый буфер также передается в дайджест для вычисления хеша на лету.
      *
      * @param client  HTTP-клиент
      * @param request HTTP-запрос
      * @param target  путь для сохранения файла
+     * @param md      дайджест, обновляемый загруженными данными
      * @throws IOException          при ошибках ввода-вывода
      * @throws InterruptedException если процесс загрузки был прерван
      */
     private void downloadWithBuffering(HttpClient client,
                                        HttpRequest request,
-                                       Path target) throws IOException, InterruptedException {
+                                       Path target,
+                                       MessageDigest md) throws IOException, InterruptedException {
         // Открываем потоковый ответ
         HttpResponse<InputStream> response = client.send(
                 request,
                 HttpResponse.BodyHandlers.ofInputStream());
 
-        // Проверяем код ответа
-        if (response.statusCode() != 200) {
-            throw new IOException("Ошибка HTTP: код " + response.statusCode());
+        // Тело закрывается и при ошибочном коде ответа, иначе соединение не вернется в пул
+        try (InputStream body = response.body()) {
+            // Проверяем код ответа
+            if (response.statusCode() != 200) {
+                throw new IOException("Ошибка HTTP: код " + response.statusCode());
+            }
+
+            writeWithDigest(body, target, md);
         }
+    }
 
-        // Буферизированная запись в файл
-        try (InputStream in = response.body();
-             OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+    /**
+     * Выполняет буферизированную запись потока в файл с обновлением дайджеста.
+     *
+     * @param body   поток с данными (закрывается этим методом)
+     * @param target путь для сохранения файла
+     * @param md     дайджест, обновляемый записанными данными
+     * @throws IOException при ошибках ввода-вывода
+     */
+    private void writeWithDigest(InputStream body, Path target, MessageDigest md) throws IOException {
+        // Буферизированная запись в новый файл
+        deleteStaleTarget(target);
+        try (InputStream in = body;
+             OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW)) {
 
             byte[] buffer = new byte[BUFFER_SIZE];
             int bytesRead;
             while ((bytesRead = in.read(buffer)) != -1) {
+                md.update(buffer, 0, bytesRead);
                 out.write(buffer, 0, bytesRead);
             }
 
@@ -265,22 +1000,122 @@ public class FileSystemServiceImpl implements FileSystemService {
     }
 
     /**
-     * Извлекает файл из открытого ZIP-потока.
+     * Создает выходной файл (и его родительские директории) сразу итогового размера.
+     * Размер берется из центрального каталога; если он неизвестен, файл создается пустым.
+     *
+     * @param filePath путь к выходному файлу
+     * @param size     размер распакованного файла или -1, если он неизвестен
+     * @throws IOException при ошибках ввода-вывода
+     */
+    private void preallocateFile(Path filePath, long size) throws IOException {
+        // Создаем родительские директории, если они еще не существуют
+        Files.createDirectories(filePath.getParent());
+        deleteStaleTarget(filePath);
+        try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "rw")) {
+            file.setLength(Math.max(size, 0));
+        }
+    }
+
+    /**
+     * Удаляет существующий целевой файл перед записью, чтобы запись всегда шла в новый inode.
+     * <p>
+     * Файл от прошлой загрузки может быть жесткой ссылкой на файл локального кэша архивов
+     * ({@link LocalArchiveCacheServiceImpl}); усечение или перезапись такого файла на месте
+     * испортили бы закэшированную копию. После удаления имени кэш сохраняет свои данные.
+     *
+     * @param target путь к целевому файлу
+     * @throws IOException при ошибках удаления файла
+     */
+    private void deleteStaleTarget(Path target) throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    /**
+     * Проверяет, есть ли у файла другие жесткие ссылки.
+     * На файловых системах без атрибута {@code unix:nlink} считается, что других ссылок нет.
+     *
+     * @param file путь к файлу
+     * @return true, если число жестких ссылок на файл больше одной
+     */
+    private boolean hasOtherLinks(Path file) {
+        try {
+            return Files.getAttribute(file, "unix:nlink") instanceof Integer links && links > 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Распаковывает файлы архива в подготовленные выходные файлы.
+     * Несколько записей распаковываются параллельно: {@link ZipFile} допускает
+     * одновременное чтение разных записей, а распаковка каждой из них независима.
+     *
+     * @param zip         открытый ZIP-архив
+     * @param fileEntries записи архива по путям выходных файлов
+     * @return распакованные файлы в порядке записей
+     * @throws IOException при ошибках ввода-вывода
+     */
+    private List<ExtractedFile> extractEntries(ZipFile zip, Map<Path, ZipEntry> fileEntries) throws IOException {
+        if (fileEntries.size() <= 1) {
+            List<ExtractedFile> extractedFiles = new ArrayList<>(fileEntries.size());
+            for (Map.Entry<Path, ZipEntry> fileEntry : fileEntries.entrySet()) {
+                extractedFiles.add(extractFileFromZip(zip, fileEntry.getValue(), fileEntry.getKey()));
+            }
+            return extractedFiles;
+        }
+
+        int parallelism = Math.min(
+                extractParallelism > 0 ? extractParallelism : Runtime.getRuntime().availableProcessors(),
+                fileEntries.size());
+        log.debug("Параллельная распаковка {} файлов на {} потоках", fileEntries.size(), parallelism);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<ExtractedFile>> futures = new ArrayList<>(fileEntries.size());
+            fileEntries.forEach((filePath, entry) -> futures.add(executor.submit(
+                    () -> extractFileFromZip(zip, entry, filePath))));
+
+            return awaitTasks(futures);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Распаковка архива прервана", e);
+        }
+    }
+
+    /**
+     * Извлекает файл из ZIP-архива в подготовленный выходной файл.
      * Метод использует буферизацию для эффективного извлечения,
      * что позволяет работать с файлами большого размера.
+     * После записи файл обрезается до фактического размера распакованных данных.
      *
-     * @param zipIn    открытый ZIP-поток с текущей записью
+     * @param zip      открытый ZIP-архив
+     * @param entry    запись архива
      * @param filePath путь для сохранения извлекаемого файла
+     * @return извлеченный файл с MD5-хешем содержимого и манифестом частей (если он строится)
      * @throws IOException при ошибках ввода-вывода
      */
-    private void extractFileFromZip(ZipInputStream zipIn, Path filePath) throws IOException {
-        try (OutputStream out = Files.newOutputStream(filePath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+    private ExtractedFile extractFileFromZip(ZipFile zip, ZipEntry entry, Path filePath) throws IOException {
+        MessageDigest md = createMessageDigest();
+        ChunkIndexer chunkIndexer = manifestEnabled ? new ChunkIndexer(manifestChunkSize) : null;
+        try (InputStream in = zip.getInputStream(entry);
+             FileChannel out = FileChannel.open(filePath, StandardOpenOption.WRITE)) {
+
             byte[] buffer = new byte[BUFFER_SIZE];
+            long written = 0;
             int bytesRead;
-            while ((bytesRead = zipIn.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
+            while ((bytesRead = in.read(buffer)) != -1) {
+                md.update(buffer, 0, bytesRead);
+                if (chunkIndexer != null) {
+                    chunkIndexer.update(buffer, 0, bytesRead);
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    written += out.write(byteBuffer);
+                }
             }
-            out.flush();
+            out.truncate(written);
         }
+        log.debug("Извлечен файл: {}", filePath);
+        return new ExtractedFile(filePath, bytesToHex(md.digest()), chunkIndexer != null ? chunkIndexer.finish() : null);
     }
 }
\ No newline at end of file
@@ -1,20 +1,33 @@
 package com.neighbor.eventmosaic.collector.service.impl;
 
 import com.neighbor.eventmosaic.collector.client.GdeltClient;
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveProcessResult;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import com.neighbor.eventmosaic.collector.limiter.AdaptiveConcurrencyLimiter;
+import com.neighbor.eventmosaic.collector.service.ArchiveHistoryFilter;
+import com.neighbor.eventmosaic.collector.service.ArchiveLeaseService;
 import com.neighbor.eventmosaic.collector.service.ArchiveService;
 import com.neighbor.eventmosaic.collector.service.GdeltService;
 import com.neighbor.eventmosaic.collector.service.HashStoreService;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Реализация сервиса для работы с данными GDELT.
@@ -28,11 +41,21 @@ public class GdeltServiceImpl implements GdeltService {
     private final GdeltClient gdeltClient;
     private final HashStoreService hashStoreService;
     private final ArchiveService archiveService;
+    private final AdaptiveConcurrencyLimiter archiveConcurrencyLimiter;
+    private final ArchiveLeaseService archiveLeaseService;
+    private final ArchiveHistoryFilter archiveHistoryFilter;
+
+    // Валидаторы (ETag/Last-Modified) последнего полностью обработанного списка архивов
+    private final AtomicReference<ListValidators> listValidators = new AtomicReference<>(ListValidators.NONE);
 
     /**
      * Запускает процесс обработки последних доступных архивов GDELT.
      * Включает получение списка архивов, выбор тех, которые обрабатываем,
      * и их асинхронную обработку.
+     * <p>
+     * Список запрашивается условно: если с последней полностью успешной обработки
+     * он не изменился ({@code 304 Not Modified}), обработка завершается
+     * без разбора списка и обращений к Redis.
      *
      * @return CompletableFuture, который завершается, когда обработка всех архивов завершена
      */
@@ -41,12 +64,22 @@ public class GdeltServiceImpl implements GdeltService {
         log.info("Запуск процесса обработки последних архивов GDELT");
 
         try {
+            // Условный запрос списка архивов
+            Optional<ResponseEntity<String>> response = fetchLatestArchivesIfModified();
+            if (response.isEmpty()) {
+                log.info("Список архивов не изменился с последней проверки");
+                return CompletableFuture.completedFuture(null);
+            }
+
+            ListValidators receivedValidators = ListValidators.from(response.get().getHeaders());
+
             // Получение списка архивов
-            List<GdeltArchiveInfo> archives = fetchLatestArchives();
+            List<GdeltArchiveInfo> archives = parseArchiveList(response.get().getBody());
             log.info("Получено архивов: {}", archives.size());
 
             if (archives.isEmpty()) {
                 log.info("Список архивов пуст. Нечего обрабатывать.");
+                rememberValidators(receivedValidators);
                 return CompletableFuture.completedFuture(null);
             }
 
@@ -56,11 +89,23 @@ public class GdeltServiceImpl implements GdeltService {
 
             if (archivesToProcess.isEmpty()) {
                 log.info("Нет новых архивов для обработки");
+                rememberValidators(receivedValidators);
                 return CompletableFuture.completedFuture(null);
             }
 
+            // Аренда архивов, чтобы каждый архив обрабатывала только одна реплика
+            Map<GdeltArchiveInfo, ArchiveLease> leasedArchives = acquireLeases(archivesToProcess);
+            if (leasedArchives.isEmpty()) {
+                log.info("Все новые архивы обрабатываются другими репликами");
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // Валидаторы запоминаются, только если все архивы списка обрабатывает эта реплика:
+            // иначе следующая проверка должна увидеть архивы, которые не обработала другая реплика
+            ListValidators validators = leasedArchives.size() == archivesToProcess.size() ? receivedValidators : null;
+
             // Асинхронная обработка архивов
-            return processArchivesBatch(archivesToProcess);
+            return processArchivesBatch(leasedArchives, validators);
 
         } catch (Exception e) {
             log.error("Ошибка при обработке архивов GDELT: {}", e.getMessage(), e);
@@ -72,26 +117,73 @@ public class GdeltServiceImpl implements GdeltService {
 
     /**
      * Запускает асинхронную обработку пакета архивов и анализирует результаты.
+     * Количество одновременно обрабатываемых архивов ограничивается адаптивным лимитом,
+     * остальные архивы ожидают в очереди.
+     * Аренда каждого архива освобождается после завершения его обработки.
+     * Валидаторы списка запоминаются только если все архивы обработаны успешно,
+     * иначе следующая проверка получит список заново и повторит неудавшиеся архивы.
      *
-     * @param archives список архивов для обработки
+     * @param leasedArchives архивы для обработки и их аренды
+     * @param validators     валидаторы полученного списка архивов или null, если их нельзя запоминать
      * @return CompletableFuture, который завершается, когда обработка всех архивов завершена
      */
-    private CompletableFuture<Void> processArchivesBatch(List<GdeltArchiveInfo> archives) {
-        List<CompletableFuture<GdeltArchiveProcessResult>> futures = archives.stream()
-                .map(archiveService::processArchiveAsync)
+    private CompletableFuture<Void> processArchivesBatch(Map<GdeltArchiveInfo, ArchiveLease> leasedArchives,
+                                                         ListValidators validators) {
+        List<CompletableFuture<GdeltArchiveProcessResult>> futures = leasedArchives.entrySet().stream()
+                .map(leasedArchive -> archiveConcurrencyLimiter.submit(
+                                leasedArchive.getKey().size(),
+                                () -> archiveService.processArchiveAsync(leasedArchive.getKey()),
+                                GdeltArchiveProcessResult::isSuccess)
+                        .whenComplete((result, ex) -> archiveLeaseService.release(leasedArchive.getValue())))
                 .toList();
 
         // Ожидание завершения всех задач
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenAccept(v -> analyzeProcessingResults(futures));
+                .thenAccept(v -> {
+                    if (analyzeProcessingResults(futures) && validators != null) {
+                        rememberValidators(validators);
+                    }
+                });
+    }
+
+    /**
+     * Получает аренду архивов. Архивы, арендованные другими репликами, пропускаются.
+     * После получения аренды хеши проверяются повторно: другая реплика могла закончить
+     * обработку архива и освободить аренду между первой проверкой и арендой.
+     *
+     * @param archives архивы для обработки
+     * @return арендованные архивы и их аренды в исходном порядке
+     */
+    private Map<GdeltArchiveInfo, ArchiveLease> acquireLeases(List<GdeltArchiveInfo> archives) {
+        Map<GdeltArchiveInfo, ArchiveLease> leasedArchives = new LinkedHashMap<>();
+        for (GdeltArchiveInfo archive : archives) {
+            archiveLeaseService.tryAcquire(archive.fileName())
+                    .ifPresent(lease -> leasedArchives.put(archive, lease));
+        }
+
+        if (!leasedArchives.isEmpty()) {
+            List<GdeltArchiveInfo> stillNewOrChanged = hashStoreService.filterNewOrChanged(List.copyOf(leasedArchives.keySet()));
+            leasedArchives.entrySet().removeIf(leasedArchive -> {
+                if (stillNewOrChanged.contains(leasedArchive.getKey())) {
+                    return false;
+                }
+                archiveLeaseService.release(leasedArchive.getValue());
+                return true;
+            });
+        }
+        if (leasedArchives.size() < archives.size()) {
+            log.info("Архивов, пропущенных из-за аренды другими репликами: {}", archives.size() - leasedArchives.size());
+        }
+        return leasedArchives;
     }
 
     /**
      * Анализирует результаты обработки архивов и выводит статистику.
      *
      * @param futures список CompletableFuture с результатами обработки
+     * @return true, если все архивы обработаны успешно
      */
-    private void analyzeProcessingResults(List<CompletableFuture<GdeltArchiveProcessResult>> futures) {
+    private boolean analyzeProcessingResults(List<CompletableFuture<GdeltArchiveProcessResult>> futures) {
         long successCount = futures.stream()
                 .map(CompletableFuture::join)
                 .filter(GdeltArchiveProcessResult::isSuccess)
@@ -99,17 +191,52 @@ public class GdeltServiceImpl implements GdeltService {
 
         log.info("Обработка архивов завершена. Успешно: {}/{}",
                 successCount, futures.size());
+        return successCount == futures.size();
+    }
+
+    /**
+     * Выполняет условный запрос списка последних архивов GDELT
+     * с валидаторами последнего полностью обработанного списка.
+     *
+     * @return Ответ GDELT API или пустой Optional, если список не изменился (304 Not Modified)
+     */
+    private Optional<ResponseEntity<String>> fetchLatestArchivesIfModified() {
+        ListValidators validators = listValidators.get();
+        log.debug("Запрос последних архивов GDELT (If-None-Match: {}, If-Modified-Since: {})",
+                validators.etag(), validators.lastModified());
+
+        try {
+            return Optional.of(gdeltClient.getLatestArchivesList(validators.etag(), validators.lastModified()));
+        } catch (FeignException e) {
+            if (e.status() == HttpStatus.NOT_MODIFIED.value()) {
+                return Optional.empty();
+            }
+            throw e;
+        }
     }
 
     /**
-     * Получает список последних доступных архивов GDELT.
+     * Запоминает валидаторы списка архивов для следующих условных запросов.
      *
+     * @param validators валидаторы полученного списка архивов
+     */
+    private void rememberValidators(ListValidators validators) {
+        listValidators.set(validators);
+        log.debug("Сохранены валидаторы списка архивов: ETag={}, Last-Modified={}",
+                validators.etag(), validators.lastModified());
+    }
+
+    /**
+     * Разбирает список последних доступных архивов GDELT.
+     *
+     * @param content тело ответа GDELT API
      * @return Список объектов GdeltArchiveInfo
      */
-    private List<GdeltArchiveInfo> fetchLatestArchives() {
-        log.debug("Запрос последних архивов GDELT");
-        String content = gdeltClient.getLatestArchivesList();
+    private List<GdeltArchiveInfo> parseArchiveList(String content) {
         log.debug("Получен ответ от GDELT API: {}", content);
+        if (content == null) {
+            return List.of();
+        }
 
         return Arrays.stream(content.split("\n"))
                 .map(this::parseArchiveInfo)
@@ -162,13 +289,46 @@ public class GdeltServiceImpl implements GdeltService {
     /**
      * Выбирает архивы, которые требуют обработки.
      * Выбираются только новые или изменившиеся архивы.
+     * Хеши всех архивов проверяются одним пакетным запросом к хранилищу.
+     * <p>
+     * Если включен фильтр истории, хранилище хешей не используется: архивы с отрицательным ответом фильтра
+     * точно не обрабатывались, а положительные ответы подтверждаются точной историей обработанных архивов,
+     * которая, в отличие от хешей, хранится без TTL. Ложное срабатывание фильтра не приводит к пропуску архива.
      *
      * @param archives Список всех архивов
      * @return Список архивов, требующих обработки
      */
     private List<GdeltArchiveInfo> selectArchivesToProcess(List<GdeltArchiveInfo> archives) {
+        if (!archiveHistoryFilter.isEnabled()) {
+            return hashStoreService.filterNewOrChanged(archives);
+        }
+
+        List<GdeltArchiveInfo> possiblyProcessed = archiveHistoryFilter.mightContain(archives);
+        if (possiblyProcessed.isEmpty()) {
+            return archives;
+        }
+        Set<GdeltArchiveInfo> processed = Set.copyOf(archiveHistoryFilter.confirmProcessed(possiblyProcessed));
+        log.debug("Обработанных ранее архивов: {} из {} (по фильтру истории: {})",
+                processed.size(), archives.size(), possiblyProcessed.size());
         return archives.stream()
-                .filter(archive -> hashStoreService.isNewOrChanged(archive.fileName(), archive.hash()))
+                .filter(archive -> !processed.contains(archive))
                 .toList();
     }
+
+    /**
+     * Валидаторы ответа со списком архивов для условных запросов.
+     *
+     * @param etag         значение заголовка ETag или null
+     * @param lastModified значение заголовка Last-Modified или null
+     */
+    private record ListValidators(String etag, String lastModified) {
+
+        private static final ListValidators NONE = new ListValidators(null, null);
+
+        private static ListValidators from(HttpHeaders headers) {
+            return new ListValidators(
+                    headers.getFirst(HttpHeaders.ETAG),
+                    headers.getFirst(HttpHeaders.LAST_MODIFIED));
+        }
+    }
 }
\ No newline at end of file
@@ -4,9 +4,11 @@ import com.neighbor.eventmosaic.collector.service.FileSendStatusService;
 import com.neighbor.eventmosaic.collector.service.KafkaMessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -18,29 +20,43 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class KafkaMessageServiceImpl implements KafkaMessageService {
 
+    private static final String MANIFEST_URL_HEADER = "manifest-url";
+
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final FileSendStatusService fileSendStatusService;
 
     /**
      * Отправляет URL файла в указанный топик Kafka.
+     * URL манифеста частей файла (если он есть) передается в заголовке {@code manifest-url}:
+     * тело сообщения остается прежним, и существующие потребители его не замечают.
+     * Ключом сообщения служит URL файла: сообщения разных файлов (и частей одного файла)
+     * распределяются по партициям топика по хешу ключа, а повторная отправка того же URL
+     * попадает в ту же партицию.
      * После успешной отправки файл помечается как отправленный в сервисе отслеживания.
      * Метод возвращает CompletableFuture, который может быть использован для асинхронного отслеживания
      * результата отправки.
      *
-     * @param topic   Топик Kafka для отправки
-     * @param fileUrl URL файла, который будет отправлен
+     * @param topic       Топик Kafka для отправки
+     * @param fileUrl     URL файла, который будет отправлен
+     * @param manifestUrl URL манифеста частей файла или null
      * @return CompletableFuture, который завершается, когда сообщение подтверждено Kafka
      */
     @Override
     public CompletableFuture<Void> sendUrlToKafka(String topic,
-                                                  String fileUrl) {
+                                                  String fileUrl,
+                                                  String manifestUrl) {
 
         CompletableFuture<Void> resultFuture = new CompletableFuture<>();
 
         try {
             log.info("Отправка URL файла в топик Kafka '{}': {}", topic, fileUrl);
 
-            kafkaTemplate.send(topic, fileUrl)
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic, fileUrl, fileUrl);
+            if (manifestUrl != null) {
+                record.headers().add(MANIFEST_URL_HEADER, manifestUrl.getBytes(StandardCharsets.UTF_8));
+            }
+
+            kafkaTemplate.send(record)
                     .whenComplete((sendResult, ex) -> {
                         if (ex == null) {
                             // Успешная отправка
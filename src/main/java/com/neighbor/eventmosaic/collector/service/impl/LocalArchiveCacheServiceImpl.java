@@ -0,0 +1,283 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+import com.neighbor.eventmosaic.collector.service.ArchiveCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Реализация локального кеша архивов в директории на диске.
+ * <p>
+ * Каждый проверенный архив хранится в файле {@code <md5>.zip}. Архивы размещаются
+ * в кеше и из кеша жесткими ссылками (при невозможности - копированием), поэтому
+ * сохранение и выдача архива не требуют копирования данных.
+ * Суммарный размер кеша ограничен {@code gdelt.cache.max-size}: при превышении
+ * удаляются архивы, к которым дольше всего не обращались (LRU).
+ * Время последнего обращения хранится во времени изменения файла,
+ * поэтому порядок вытеснения сохраняется между перезапусками.
+ */
+@Slf4j
+@Service
+public class LocalArchiveCacheServiceImpl implements ArchiveCacheService {
+
+    private static final String CACHE_FILE_SUFFIX = ".zip";
+    private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    @Value("${gdelt.cache.enabled:false}")
+    private boolean enabled;        // Включен ли локальный кеш архивов
+
+    @Value("${gdelt.cache.dir:./data/gdelt/cache}")
+    private String cacheDir;        // Директория кеша
+
+    @Value("${gdelt.cache.max-size:10737418240}")
+    private long maxSize;           // Максимальный суммарный размер кеша в байтах
+
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true); // Размеры архивов по хешам в порядке обращения
+    private long totalSize;
+
+    /**
+     * Восстанавливает индекс кеша по содержимому директории.
+     * Архивы упорядочиваются по времени последнего обращения.
+     */
+    @PostConstruct
+    private void initializeCache() {
+        if (!enabled) {
+            log.info("Локальный кеш архивов отключен");
+            return;
+        }
+
+        try {
+            Path directory = Files.createDirectories(Paths.get(cacheDir));
+            List<Path> cachedFiles;
+            try (Stream<Path> files = Files.list(directory)) {
+                cachedFiles = files
+                        .filter(file -> hashOf(file) != null)
+                        .sorted(Comparator.comparing(this::lastModifiedTime))
+                        .toList();
+            }
+
+            synchronized (this) {
+                for (Path file : cachedFiles) {
+                    long size = Files.size(file);
+                    entries.put(hashOf(file), size);
+                    totalSize += size;
+                }
+                evictIfNeeded();
+            }
+            log.info("Локальный кеш архивов {} инициализирован: архивов {}, размер {} байт",
+                    directory, entries.size(), totalSize);
+
+        } catch (IOException e) {
+            log.error("Не удалось инициализировать локальный кеш архивов {}: {}", cacheDir, e.getMessage(), e);
+            throw new IllegalStateException("Сбой инициализации локального кеша архивов", e);
+        }
+    }
+
+    /**
+     * Размещает архив из кеша по указанному пути жесткой ссылкой или копированием.
+     * Архив, размер которого по индексу или на диске не совпадает с ожидаемым, удаляется из кеша.
+     * Размещение выполняется вне блокировки кеша, чтобы копирование большого архива
+     * не задерживало обращения к кешу из других потоков.
+     *
+     * @param hash         MD5-хеш архива
+     * @param expectedSize ожидаемый размер архива в байтах
+     * @param targetPath   путь, по которому должен быть размещен архив
+     * @return размещенный архив и его хеш или пустой Optional, если архива нет в кеше
+     */
+    @Override
+    public Optional<DownloadedFile> fetch(String hash, long expectedSize, Path targetPath) {
+        if (!enabled || !isValidHash(hash)) {
+            return Optional.empty();
+        }
+
+        synchronized (this) {
+            Long size = entries.get(hash);
+            if (size == null) {
+                log.debug("Архив с хешем {} отсутствует в локальном кеше", hash);
+                return Optional.empty();
+            }
+            if (expectedSize >= 0 && size != expectedSize) {
+                log.warn("Размер архива {} в локальном кеше ({}) не совпадает с ожидаемым ({}), архив удаляется из кеша",
+                        hash, size, expectedSize);
+                remove(hash);
+                return Optional.empty();
+            }
+        }
+
+        Path cachedFile = cacheFile(hash);
+        try {
+            linkOrCopy(cachedFile, targetPath);
+
+            // Файл кеша мог быть поврежден или усечен на диске после попадания в индекс
+            long actualSize = Files.size(targetPath);
+            if (expectedSize >= 0 && actualSize != expectedSize) {
+                log.warn("Размер файла {} из локального кеша ({}) не совпадает с ожидаемым ({}), архив удаляется из кеша",
+                        hash, actualSize, expectedSize);
+                Files.deleteIfExists(targetPath);
+                evict(hash);
+                return Optional.empty();
+            }
+
+            Files.setLastModifiedTime(cachedFile, FileTime.fromMillis(System.currentTimeMillis()));
+            log.info("Архив с хешем {} получен из локального кеша: {}", hash, targetPath);
+            return Optional.of(new DownloadedFile(targetPath, hash));
+
+        } catch (IOException e) {
+            log.warn("Не удалось получить архив {} из локального кеша: {}", hash, e.getMessage());
+            evict(hash);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Сохраняет проверенный архив в кеш жесткой ссылкой или копированием
+     * и вытесняет давно не использовавшиеся архивы при превышении размера кеша.
+     *
+     * @param hash        проверенный MD5-хеш архива
+     * @param archivePath путь к архиву
+     */
+    @Override
+    public void store(String hash, Path archivePath) {
+        if (!enabled || !isValidHash(hash)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (entries.containsKey(hash)) {
+                return;
+            }
+
+            try {
+                long size = Files.size(archivePath);
+                if (size > maxSize) {
+                    log.debug("Архив {} ({} байт) больше размера кеша и не кешируется", hash, size);
+                    return;
+                }
+
+                linkOrCopy(archivePath, cacheFile(hash));
+                entries.put(hash, size);
+                totalSize += size;
+                log.debug("Архив {} сохранен в локальный кеш ({} байт)", hash, size);
+
+                evictIfNeeded();
+
+            } catch (IOException e) {
+                log.warn("Не удалось сохранить архив {} в локальный кеш: {}", hash, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Удаляет из кеша архивы, к которым дольше всего не обращались,
+     * пока суммарный размер превышает допустимый.
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalSize > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalSize -= eldest.getValue();
+            deleteCacheFile(eldest.getKey());
+            log.debug("Архив {} вытеснен из локального кеша", eldest.getKey());
+        }
+    }
+
+    /**
+     * Удаляет поврежденный архив из кеша под блокировкой кеша.
+     *
+     * @param hash MD5-хеш архива
+     */
+    private synchronized void evict(String hash) {
+        remove(hash);
+    }
+
+    /**
+     * Удаляет архив из индекса и с диска.
+     *
+     * @param hash MD5-хеш архива
+     */
+    private void remove(String hash) {
+        Long size = entries.remove(hash);
+        if (size != null) {
+            totalSize -= size;
+        }
+        deleteCacheFile(hash);
+    }
+
+    private void deleteCacheFile(String hash) {
+        try {
+            Files.deleteIfExists(cacheFile(hash));
+        } catch (IOException e) {
+            log.warn("Не удалось удалить файл кеша {}: {}", hash, e.getMessage());
+        }
+    }
+
+    /**
+     * Размещает файл по целевому пути жесткой ссылкой, а если файловая система
+     * этого не позволяет - копированием через временный файл.
+     * Существующий целевой файл заменяется.
+     *
+     * @param source исходный файл
+     * @param target целевой путь
+     * @throws IOException при ошибках ввода-вывода
+     */
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            log.debug("Жесткая ссылка {} -> {} недоступна ({}), выполняется копирование", target, source, e.getMessage());
+            Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private Path cacheFile(String hash) {
+        return Paths.get(cacheDir, hash + CACHE_FILE_SUFFIX);
+    }
+
+    /**
+     * Возвращает хеш архива по имени файла кеша.
+     *
+     * @param file файл в директории кеша
+     * @return MD5-хеш или null, если файл не является архивом кеша
+     */
+    private String hashOf(Path file) {
+        String fileName = file.getFileName().toString();
+        if (!fileName.endsWith(CACHE_FILE_SUFFIX)) {
+            return null;
+        }
+        String hash = fileName.substring(0, fileName.length() - CACHE_FILE_SUFFIX.length());
+        return isValidHash(hash) ? hash : null;
+    }
+
+    private boolean isValidHash(String hash) {
+        return hash != null && MD5_PATTERN.matcher(hash).matches();
+    }
+
+    private FileTime lastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
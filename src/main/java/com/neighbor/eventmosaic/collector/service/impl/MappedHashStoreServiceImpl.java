@@ -0,0 +1,408 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+import com.neighbor.eventmosaic.collector.service.HashStoreService;
+import com.neighbor.eventmosaic.collector.store.MappedHashIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.zip.CRC32;
+
+/**
+ * Встроенное хранилище хешей архивов без Redis.
+ * Включается настройкой {@code gdelt.hash-store.type=mapped}.
+ * <p>
+ * Хеши хранятся в двух файлах каталога {@code gdelt.hash-store.dir}:
+ * <ul>
+ *     <li>{@code hashes.log} - журнал только для дозаписи: запись {@code [длина имени][имя][MD5][CRC32]}
+ *     добавляется при каждом сохранении и сбрасывается на диск до возврата из метода;</li>
+ *     <li>{@code hashes.idx} - {@link MappedHashIndex}, хеш-таблица с открытой адресацией
+ *     в отображенном в память файле, по которой выполняются проверки. Таблица хранит отпечаток имени,
+ *     смещение последней записи архива в журнале и MD5; при совпадении отпечатка имя сверяется
+ *     с записью журнала, поэтому коллизия отпечатков не приводит к чужому хешу.</li>
+ * </ul>
+ * При запуске таблица используется как есть, если она была штатно закрыта на текущей длине журнала,
+ * иначе перестраивается чтением журнала. Оборванная при сбое последняя запись журнала отбрасывается.
+ * Когда записей в журнале становится больше, чем {@code gdelt.hash-store.compaction-ratio} × число архивов,
+ * журнал переписывается по таблице с последним хешем каждого архива.
+ * <p>
+ * В отличие от Redis, хеши хранятся без TTL: история обработанных архивов не теряется.
+ * Хранилище локально для одного экземпляра сервиса и не подходит для нескольких реплик.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "gdelt.hash-store.type", havingValue = "mapped")
+public class MappedHashStoreServiceImpl implements HashStoreService {
+
+    private static final String LOG_FILE = "hashes.log";
+    private static final String INDEX_FILE = "hashes.idx";
+    private static final int MAX_NAME_LENGTH = 4096;
+    private static final long MIN_COMPACTION_RECORDS = 1024;
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Value("${gdelt.hash-store.dir:./data/gdelt/hash-store}")
+    private String storeDir;            // Каталог файлов хранилища
+
+    @Value("${gdelt.hash-store.initial-capacity:65536}")
+    private int initialCapacity;        // Начальная емкость таблицы (архивов)
+
+    @Value("${gdelt.hash-store.compaction-ratio:2}")
+    private int compactionRatio;        // Отношение записей журнала к числу архивов для сжатия журнала
+
+    private Path logPath;
+    private FileChannel logChannel;
+    private long logRecords;
+    private MappedHashIndex index;
+
+    @PostConstruct
+    private void openStore() {
+        try {
+            Path dir = Path.of(storeDir);
+            Files.createDirectories(dir);
+            logPath = dir.resolve(LOG_FILE);
+            logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            index = MappedHashIndex.open(dir.resolve(INDEX_FILE), initialCapacity);
+
+            Map<String, LogRecord> latest = replayLog();
+            if (index.getCommittedLogLength() != logChannel.size()) {
+                log.info("Таблица хешей перестраивается по журналу {}", logPath);
+                index.clear();
+                for (Map.Entry<String, LogRecord> entry : latest.entrySet()) {
+                    LogRecord record = entry.getValue();
+                    index.put(MappedHashIndex.fingerprint(entry.getKey()), recordNamed(entry.getKey()),
+                            record.offset(), record.hash());
+                }
+            }
+            logChannel.position(logChannel.size());
+            compactIfNeeded();
+            log.info("Открыто хранилище хешей {}: архивов {}, записей журнала {}",
+                    dir, index.size(), logRecords);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось открыть хранилище хешей " + storeDir, e);
+        }
+    }
+
+    @PreDestroy
+    private synchronized void closeStore() {
+        try {
+            logChannel.force(true);
+            index.commit(logChannel.size());
+            index.close();
+            logChannel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось штатно закрыть хранилище хешей {}: {}", storeDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Получает хеш архива из таблицы.
+     *
+     * @param archiveName имя архива
+     * @return хеш архива или null
+     */
+    @Override
+    public synchronized String getStoredHash(String archiveName) {
+        byte[] hash = new byte[MappedHashIndex.HASH_SIZE];
+        return index.get(MappedHashIndex.fingerprint(archiveName), recordNamed(archiveName), hash)
+                ? HEX.formatHex(hash)
+                : null;
+    }
+
+    /**
+     * Получает хеши архивов из таблицы.
+     *
+     * @param archiveNames имена архивов
+     * @return хеши по именам найденных архивов
+     */
+    @Override
+    public synchronized Map<String, String> getStoredHashes(List<String> archiveNames) {
+        Map<String, String> storedHashes = new HashMap<>();
+        for (String archiveName : archiveNames) {
+            String hash = getStoredHash(archiveName);
+            if (hash != null) {
+                storedHashes.put(archiveName, hash);
+            }
+        }
+        return storedHashes;
+    }
+
+    /**
+     * Дописывает хеш архива в журнал и обновляет таблицу.
+     *
+     * @param archiveName имя архива
+     * @param hash        хеш архива
+     */
+    @Override
+    public void storeHash(String archiveName, String hash) {
+        storeHashes(Map.of(archiveName, hash));
+    }
+
+    /**
+     * Дописывает хеш архива в журнал и обновляет таблицу.
+     * Хранилище локально для одного экземпляра сервиса, поэтому токен ограждения не проверяется.
+     *
+     * @param archiveName  имя архива
+     * @param hash         хеш архива
+     * @param fencingToken токен ограждения аренды архива (не используется)
+     * @return всегда true
+     */
+    @Override
+    public boolean storeHash(String archiveName, String hash, long fencingToken) {
+        storeHash(archiveName, hash);
+        return true;
+    }
+
+    /**
+     * Дописывает хеши архивов в журнал с одним сбросом на диск и обновляет таблицу.
+     *
+     * @param hashes хеши архивов по их именам
+     */
+    @Override
+    public synchronized void storeHashes(Map<String, String> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, byte[]> decoded = new LinkedHashMap<>();
+            hashes.forEach((archiveName, hash) -> decoded.put(archiveName, parseHash(hash)));
+            Map<String, Long> offsets = new HashMap<>();
+            for (Map.Entry<String, byte[]> entry : decoded.entrySet()) {
+                offsets.put(entry.getKey(), appendRecord(entry.getKey(), entry.getValue()));
+            }
+            logChannel.force(false);
+            for (Map.Entry<String, byte[]> entry : decoded.entrySet()) {
+                String archiveName = entry.getKey();
+                index.put(MappedHashIndex.fingerprint(archiveName), recordNamed(archiveName),
+                        offsets.get(archiveName), entry.getValue());
+            }
+            log.debug("Сохранены хеши {} архивов", hashes.size());
+            compactIfNeeded();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить хеши архивов в " + logPath, e);
+        }
+    }
+
+    /**
+     * Проверяет, новый или изменен ли архив.
+     *
+     * @param archiveName имя архива
+     * @param currentHash текущий хеш
+     * @return true, если новый или изменен, false - если нет
+     */
+    @Override
+    public boolean isNewOrChanged(String archiveName, String currentHash) {
+        String storedHash = getStoredHash(archiveName);
+        boolean isNewOrChanged = storedHash == null || !storedHash.equalsIgnoreCase(currentHash);
+        log.debug("Архив {} новый или изменен: {} (сохраненный хеш: {}, текущий хеш: {})",
+                archiveName, isNewOrChanged, storedHash, currentHash);
+        return isNewOrChanged;
+    }
+
+    /**
+     * Отбирает новые или измененные архивы по таблице хешей.
+     *
+     * @param archives архивы с текущими хешами
+     * @return новые или измененные архивы в исходном порядке
+     */
+    @Override
+    public List<GdeltArchiveInfo> filterNewOrChanged(List<GdeltArchiveInfo> archives) {
+        List<GdeltArchiveInfo> newOrChanged = archives.stream()
+                .filter(archive -> isNewOrChanged(archive.fileName(), archive.hash()))
+                .toList();
+        log.debug("Новых или измененных архивов: {} из {}", newOrChanged.size(), archives.size());
+        return newOrChanged;
+    }
+
+    /**
+     * Читает журнал с начала и возвращает последнюю запись каждого архива.
+     * Оборванная или поврежденная запись и все, что за ней следует, отрезаются от журнала.
+     *
+     * @return последние записи по именам архивов в порядке первой записи
+     */
+    private Map<String, LogRecord> replayLog() throws IOException {
+        Map<String, LogRecord> latest = new LinkedHashMap<>();
+        long validLength = 0;
+        long records = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+            while (true) {
+                int nameLength = input.readInt();
+                if (nameLength <= 0 || nameLength > MAX_NAME_LENGTH) {
+                    break;
+                }
+                byte[] name = input.readNBytes(nameLength);
+                byte[] hash = input.readNBytes(MappedHashIndex.HASH_SIZE);
+                int checksum = input.readInt();
+                if (name.length != nameLength
+                        || hash.length != MappedHashIndex.HASH_SIZE
+                        || checksum != checksum(name, hash)) {
+                    break;
+                }
+                latest.put(new String(name, StandardCharsets.UTF_8), new LogRecord(validLength, hash));
+                validLength += Integer.BYTES + nameLength + MappedHashIndex.HASH_SIZE + Integer.BYTES;
+                records++;
+            }
+        } catch (EOFException e) {
+            // Конец журнала или оборванная запись
+        }
+
+        if (validLength < logChannel.size()) {
+            log.warn("Журнал хешей {} отрезан до {} байт: последняя запись повреждена", logPath, validLength);
+            logChannel.truncate(validLength);
+        }
+        logRecords = records;
+        return latest;
+    }
+
+    /**
+     * Переписывает журнал, оставляя по одной записи на архив, если в нем накопилось слишком много
+     * устаревших записей. Записи копируются по смещениям из таблицы, без повторного чтения журнала:
+     * новый журнал пишется во временный файл и атомарно заменяет текущий, после чего в таблице
+     * обновляются только смещения. Если процесс прервется до замены смещений, таблица не будет
+     * зафиксирована и при следующем запуске перестроится по журналу.
+     */
+    private void compactIfNeeded() throws IOException {
+        if (!shouldCompact()) {
+            return;
+        }
+        Path compacted = logPath.resolveSibling(LOG_FILE + ".compact");
+        long recordsBefore = logRecords;
+        long[] offsets = index.logOffsets();
+        long[] relocated = new long[offsets.length];
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < offsets.length; i++) {
+                relocated[i] = target.position();
+                copyRecord(offsets[i], target);
+            }
+            target.force(true);
+        }
+        Files.move(compacted, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        FileChannel previous = logChannel;
+        logChannel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        logChannel.position(logChannel.size());
+        previous.close();
+        index.relocate(relocated);
+        logRecords = offsets.length;
+        log.info("Журнал хешей сжат: {} записей вместо {}", logRecords, recordsBefore);
+    }
+
+    private boolean shouldCompact() {
+        return logRecords >= MIN_COMPACTION_RECORDS && logRecords > (long) compactionRatio * index.size();
+    }
+
+    /**
+     * Дописывает запись в конец журнала.
+     *
+     * @param archiveName имя архива
+     * @param hash        MD5-хеш архива
+     * @return смещение записи в журнале
+     */
+    private long appendRecord(String archiveName, byte[] hash) throws IOException {
+        byte[] name = archiveName.getBytes(StandardCharsets.UTF_8);
+        if (name.length == 0 || name.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Недопустимая длина имени архива: " + archiveName);
+        }
+        long offset = logChannel.position();
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + name.length + hash.length + Integer.BYTES)
+                .putInt(name.length)
+                .put(name)
+                .put(hash)
+                .putInt(checksum(name, hash))
+                .flip();
+        while (record.hasRemaining()) {
+            logChannel.write(record);
+        }
+        logRecords++;
+        return offset;
+    }
+
+    /**
+     * Копирует запись журнала по смещению в конец другого файла.
+     *
+     * @param offset смещение записи в текущем журнале
+     * @param target файл, в который дописывается запись
+     */
+    private void copyRecord(long offset, FileChannel target) throws IOException {
+        ByteBuffer nameLength = readLog(offset, Integer.BYTES);
+        ByteBuffer record = readLog(offset,
+                Integer.BYTES + nameLength.getInt(0) + MappedHashIndex.HASH_SIZE + Integer.BYTES);
+        while (record.hasRemaining()) {
+            target.write(record);
+        }
+    }
+
+    /**
+     * Создает проверку для таблицы: относится ли запись журнала по смещению к архиву с указанным именем.
+     *
+     * @param archiveName имя архива
+     * @return проверка по смещению записи
+     */
+    private LongPredicate recordNamed(String archiveName) {
+        byte[] name = archiveName.getBytes(StandardCharsets.UTF_8);
+        return offset -> {
+            try {
+                if (readLog(offset, Integer.BYTES).getInt(0) != name.length) {
+                    return false;
+                }
+                return Arrays.equals(readLog(offset + Integer.BYTES, name.length).array(), name);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать запись журнала " + logPath, e);
+            }
+        };
+    }
+
+    private ByteBuffer readLog(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (logChannel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Запись журнала по смещению " + offset + " оборвана");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int checksum(byte[] name, byte[] hash) {
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(hash);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] parseHash(String hash) {
+        if (hash == null || hash.length() != MappedHashIndex.HASH_SIZE * 2) {
+            throw new IllegalArgumentException("Ожидался MD5-хеш из 32 шестнадцатеричных символов: " + hash);
+        }
+        return HEX.parseHex(hash);
+    }
+
+    /**
+     * Запись журнала: смещение от начала файла и MD5-хеш.
+     */
+    private record LogRecord(long offset, byte[] hash) {
+    }
+}
@@ -0,0 +1,481 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.StorageCodec;
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
+import com.neighbor.eventmosaic.collector.exception.MinioStorageException;
+import com.neighbor.eventmosaic.collector.limiter.InFlightBytesBudget;
+import com.neighbor.eventmosaic.collector.service.MinioStorageService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Неблокирующая реализация сервиса {@link MinioStorageService} на основе {@link MinioAsyncClient}.
+ * Включается настройкой {@code storage.minio.client=async}.
+ * <p>
+ * Загрузка файлов не занимает поток на время передачи данных, поэтому количество
+ * одновременных загрузок не зависит от количества потоков. Обратное давление обеспечивает
+ * общий бюджет {@code storage.minio.async.max-in-flight-bytes}: загрузки, не помещающиеся в бюджет,
+ * ожидают в очереди, и объем одновременно передаваемых данных остается предсказуемым.
+ * <p>
+ * Продолжения асинхронных операций MinIO выполняются в потоках диспетчера HTTP-клиента,
+ * поэтому запуск загрузки, который читает файл или поток, переносится в отдельный пул виртуальных потоков.
+ * <p>
+ * Сжатие объектов ({@code storage.minio.compression.codec}) этой реализацией не поддерживается.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.minio.client", havingValue = "async")
+public class MinioAsyncStorageServiceImpl extends AbstractMinioStorageService {
+
+    /**
+     * Размер части multipart-загрузки для потоков неизвестного размера (минимум для S3 - 5 МБ)
+     */
+    private static final long STREAM_PART_SIZE = 10L * 1024 * 1024;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storage.minio.async.max-in-flight-bytes:268435456}")
+    private long maxInFlightBytes;  // Бюджет одновременно передаваемых байтов
+
+    @Value("${storage.minio.compression.codec:none}")
+    private String codecName;       // Кодек сжатия объектов (поддерживается только none)
+
+    // Запуск загрузок: очередная загрузка может стартовать из продолжения другой операции MinIO,
+    // а блокирующее чтение данных в потоке диспетчера HTTP-клиента задержало бы ответы остальных запросов
+    private final ExecutorService uploadExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("MinioUpload-", 0).factory());
+
+    private MinioAsyncClient minioClient;
+    private InFlightBytesBudget inFlightBudget;
+
+    /**
+     * Инициализирует MinioAsyncClient после внедрения зависимостей Spring.
+     * Выполняет проверку доступности бакета и создает его при необходимости.
+     * В случае неустранимой ошибки инициализации выбрасывает {@link IllegalStateException},
+     * предотвращая запуск приложения с нерабочим компонентом.
+     */
+    @PostConstruct
+    private void initializeMinioClient() {
+        log.info("Инициализация асинхронного MinIO клиента. Endpoint: '{}', Bucket: '{}'", endpoint, bucketName);
+        if (StorageCodec.fromName(codecName) != StorageCodec.NONE) {
+            throw new IllegalStateException("Асинхронный MinIO клиент не поддерживает сжатие объектов: " + codecName);
+        }
+
+        try {
+            minioClient = MinioAsyncClient.builder()
+                    .endpoint(endpoint)
+                    .credentials(accessKey, secretKey)
+                    .build();
+
+            checkAndCreateBucket(); // Проверяем и создаем бакет, если он отсутствует
+
+            inFlightBudget = new InFlightBytesBudget(maxInFlightBytes);
+            registerMetrics();
+
+            log.info("Асинхронный MinIO клиент успешно инициализирован и подключен к бакету '{}'. Бюджет загрузки: {} байт",
+                    bucketName, maxInFlightBytes);
+
+        } catch (Exception e) {
+            log.error("Критическая ошибка: Не удалось инициализировать асинхронный MinIO клиент или проверить бакет '{}'. Причина: {}",
+                    bucketName, e.getMessage(), e);
+            throw new IllegalStateException("Сбой инициализации асинхронного MinIO клиента", e);
+        }
+    }
+
+    /**
+     * Останавливает потоки запуска загрузок при завершении работы приложения.
+     */
+    @PreDestroy
+    private void shutdownUploadExecutor() {
+        uploadExecutor.shutdownNow();
+    }
+
+    /**
+     * Загружает локальный файл в хранилище MinIO, сохраняя хеш содержимого,
+     * и дожидается завершения загрузки.
+     *
+     * @param objectName  Имя, под которым объект будет сохранен в MinIO.
+     * @param filePath    Путь к локальному файлу для загрузки.
+     * @param contentHash MD5-хеш содержимого файла или null, если он неизвестен.
+     * @return URL загруженного или уже существующего объекта в MinIO и признак записи объекта.
+     * @throws MinioStorageException если произошла ошибка при чтении файла или загрузке в MinIO.
+     */
+    @Override
+    public UploadedObject uploadFile(String objectName,
+                                     Path filePath,
+                                     String contentHash) {
+        return join(uploadFileAsync(objectName, filePath, contentHash));
+    }
+
+    /**
+     * Асинхронно загружает локальный файл в хранилище MinIO.
+     * Если известен хеш содержимого, сначала выполняется {@code statObject}: объект с тем же именем
+     * и хешем не загружается повторно. Загрузка занимает в общем бюджете объем, равный размеру файла,
+     * и начинается, когда бюджет освобождается.
+     *
+     * @param objectName  Имя, под которым объект будет сохранен в MinIO.
+     * @param filePath    Путь к локальному файлу для загрузки.
+     * @param contentHash MD5-хеш содержимого файла или null, если он неизвестен (проверка не выполняется).
+     * @return CompletableFuture с URL загруженного или уже существующего объекта и признаком записи объекта
+     * либо завершенный с {@link MinioStorageException}.
+     */
+    @Override
+    public CompletableFuture<UploadedObject> uploadFileAsync(String objectName,
+                                                             Path filePath,
+                                                             String contentHash) {
+        log.debug("Начало асинхронной загрузки файла '{}' как объект '{}' в бакет '{}'", filePath, objectName, bucketName);
+
+        long fileSize;
+        try {
+            fileSize = Files.size(filePath);
+        } catch (IOException e) {
+            log.error("Ошибка чтения локального файла '{}' перед загрузкой в MinIO: {}", filePath, e.getMessage(), e);
+            return CompletableFuture.failedFuture(new MinioStorageException("Ошибка чтения файла: " + filePath, e));
+        }
+
+        CompletableFuture<OptionalLong> existingObject = contentHash != null
+                ? findObjectWithHash(objectName, contentHash)
+                : CompletableFuture.completedFuture(OptionalLong.empty());
+
+        return existingObject.thenComposeAsync(existingSize -> {
+            if (existingSize.isPresent()) {
+                return CompletableFuture.completedFuture(skipUpload(objectName, existingSize.getAsLong()));
+            }
+            return inFlightBudget.submit(fileSize, () -> startUpload(() -> putFile(objectName, filePath, fileSize, contentHash)));
+        }, uploadExecutor);
+    }
+
+    /**
+     * Загружает поток данных неизвестного размера в хранилище MinIO.
+     * Поток читается до конца до возврата из метода, так как после этого он может стать недействительным.
+     * Поток не больше {@value #STREAM_PART_SIZE} байт буферизуется целиком: для него вычисляется хеш
+     * содержимого, и загрузка пропускается, если объект с тем же хешем уже существует.
+     * Больший поток передается multipart-загрузкой без хеша в метаданных.
+     *
+     * @param objectName  Имя, под которым объект будет сохранен в MinIO.
+     * @param inputStream Поток данных (читается до конца, закрывается вызывающим кодом).
+     * @return URL объекта в MinIO и признак записи объекта.
+     * @throws MinioStorageException если произошла ошибка при загрузке в MinIO.
+     */
+    @Override
+    public UploadedObject uploadStream(String objectName,
+                                       InputStream inputStream) {
+        log.debug("Начало потоковой загрузки объекта '{}' в бакет '{}'", objectName, bucketName);
+        String contentType = determineContentType(Path.of(objectName));
+
+        try {
+            MessageDigest md = createMessageDigest();
+            DigestInputStream digestStream = new DigestInputStream(inputStream, md);
+            byte[] firstPart = digestStream.readNBytes((int) STREAM_PART_SIZE);
+
+            if (firstPart.length < STREAM_PART_SIZE) {
+                String contentHash = HexFormat.of().formatHex(md.digest());
+                OptionalLong existingSize = join(findObjectWithHash(objectName, contentHash));
+                if (existingSize.isPresent()) {
+                    return skipUpload(objectName, existingSize.getAsLong());
+                }
+                return join(inFlightBudget.submit(firstPart.length, () -> startUpload(() -> putStream(
+                        objectName, new ByteArrayInputStream(firstPart), firstPart.length,
+                        contentType, Map.of(METADATA_CONTENT_HASH, contentHash)))));
+            }
+
+            InputStream fullStream = new SequenceInputStream(new ByteArrayInputStream(firstPart), inputStream);
+            return join(inFlightBudget.submit(STREAM_PART_SIZE, () -> startUpload(() -> putStream(
+                    objectName, fullStream, -1, contentType, Map.of()))));
+
+        } catch (IOException e) {
+            log.error("Ошибка чтения потока перед загрузкой объекта '{}' в MinIO: {}", objectName, e.getMessage(), e);
+            throw new MinioStorageException("Ошибка чтения потока для объекта " + objectName, e);
+        }
+    }
+
+    /**
+     * Удаляет объект из хранилища MinIO и дожидается завершения удаления.
+     *
+     * @param objectName Имя объекта для удаления.
+     * @throws MinioStorageException если произошла ошибка при удалении.
+     */
+    @Override
+    public void deleteObject(String objectName) {
+        log.debug("Начало удаления объекта '{}' из бакета '{}'", objectName, bucketName);
+
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build()).get();
+            log.info("Объект '{}' успешно удален из бакета '{}'", objectName, bucketName);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioStorageException("Удаление объекта '" + objectName + "' прервано", e);
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Ошибка при удалении объекта '{}' из MinIO бакета '{}': {}", objectName, bucketName, cause.getMessage(), cause);
+            throw new MinioStorageException("Ошибка при удалении объекта '" + objectName + "' из MinIO", cause);
+        }
+    }
+
+    /**
+     * Проверяет существование бакета и создает его при необходимости.
+     *
+     * @throws MinioStorageException если произошла ошибка при проверке или создании бакета.
+     */
+    private void checkAndCreateBucket() {
+        try {
+            boolean found = minioClient.bucketExists(
+                    BucketExistsArgs.builder()
+                            .bucket(bucketName)
+                            .build()).get();
+
+            if (!found) {
+                log.warn("Бакет '{}' не найден в MinIO по адресу '{}'. Попытка создания...", bucketName, endpoint);
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build()).get();
+                log.info("Бакет '{}' успешно создан.", bucketName);
+
+            } else {
+                log.debug("Бакет '{}' уже существует.", bucketName);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioStorageException("Проверка бакета " + bucketName + " прервана", e);
+        } catch (Exception e) {
+            throw new MinioStorageException("Ошибка при проверке или создании бакета " + bucketName, e);
+        }
+    }
+
+    /**
+     * Регистрирует метрики загрузки и бюджета одновременно передаваемых байтов.
+     */
+    private void registerMetrics() {
+        registerUploadMetrics(meterRegistry);
+        Gauge.builder("minio.upload.in-flight.bytes", inFlightBudget, InFlightBytesBudget::getInFlightBytes)
+                .description("Объем данных выполняющихся загрузок в MinIO")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("minio.upload.queued", inFlightBudget, InFlightBytesBudget::getQueued)
+                .description("Количество загрузок, ожидающих свободного бюджета")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запускает загрузку в пуле запуска загрузок. Бюджет запускает загрузку из очереди
+     * в потоке, завершившем предыдущую загрузку, то есть в потоке диспетчера HTTP-клиента.
+     *
+     * @param upload запуск загрузки
+     * @return CompletableFuture с результатом загрузки объекта
+     */
+    private CompletableFuture<UploadedObject> startUpload(Supplier<CompletableFuture<UploadedObject>> upload) {
+        return CompletableFuture.supplyAsync(upload, uploadExecutor).thenCompose(Function.identity());
+    }
+
+    /**
+     * Запускает загрузку файла через асинхронный клиент.
+     *
+     * @param objectName  Имя объекта в MinIO.
+     * @param filePath    Путь к локальному файлу.
+     * @param fileSize    Размер файла.
+     * @param contentHash MD5-хеш содержимого или null.
+     * @return CompletableFuture с результатом загрузки объекта.
+     */
+    private CompletableFuture<UploadedObject> putFile(String objectName,
+                                                      Path filePath,
+                                                      long fileSize,
+                                                      String contentHash) {
+        try {
+            UploadObjectArgs args = UploadObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .filename(filePath.toString())
+                    .contentType(determineContentType(filePath))
+                    .userMetadata(contentHash != null ? Map.of(METADATA_CONTENT_HASH, contentHash) : Map.of())
+                    .build();
+
+            return handleWriteResponse(objectName, fileSize, minioClient.uploadObject(args));
+
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(uploadFailure(objectName, e));
+        }
+    }
+
+    /**
+     * Запускает загрузку потока через асинхронный клиент.
+     *
+     * @param objectName   Имя объекта в MinIO.
+     * @param inputStream  Поток данных.
+     * @param size         Размер данных или -1, если он неизвестен.
+     * @param contentType  MIME-тип содержимого.
+     * @param userMetadata Пользовательские метаданные объекта.
+     * @return CompletableFuture с результатом загрузки объекта.
+     */
+    private CompletableFuture<UploadedObject> putStream(String objectName,
+                                                        InputStream inputStream,
+                                                        long size,
+                                                        String contentType,
+                                                        Map<String, String> userMetadata) {
+        try {
+            PutObjectArgs args = PutObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .stream(inputStream, size, size < 0 ? STREAM_PART_SIZE : -1)
+                    .contentType(contentType)
+                    .userMetadata(userMetadata)
+                    .build();
+
+            return handleWriteResponse(objectName, size, minioClient.putObject(args));
+
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(uploadFailure(objectName, e));
+        }
+    }
+
+    /**
+     * Обрабатывает результат записи объекта: учитывает переданные байты и формирует URL.
+     *
+     * @param objectName Имя объекта в MinIO.
+     * @param size       Объем переданных данных или -1, если он неизвестен.
+     * @param response   Результат записи объекта.
+     * @return CompletableFuture с URL записанного объекта или с {@link MinioStorageException}.
+     */
+    private CompletableFuture<UploadedObject> handleWriteResponse(String objectName,
+                                                                  long size,
+                                                                  CompletableFuture<ObjectWriteResponse> response) {
+        return response.handle((writeResponse, ex) -> {
+            if (ex != null) {
+                throw uploadFailure(objectName, unwrap(ex));
+            }
+            if (size >= 0) {
+                uploadedBytes.increment(size);
+            }
+            log.info("Объект '{}' успешно загружен в бакет '{}'. ETag: {}",
+                    writeResponse.object(), writeResponse.bucket(), writeResponse.etag());
+            return new UploadedObject(getObjectUrl(objectName), true);
+        });
+    }
+
+    /**
+     * Проверяет, существует ли объект с тем же хешем содержимого.
+     * Ошибка проверки не прерывает загрузку: объект в этом случае загружается заново.
+     *
+     * @param objectName  Имя объекта в MinIO.
+     * @param contentHash Ожидаемый MD5-хеш содержимого.
+     * @return CompletableFuture с размером существующего объекта
+     * или пустым значением, если объекта нет или его содержимое отличается.
+     */
+    private CompletableFuture<OptionalLong> findObjectWithHash(String objectName, String contentHash) {
+        CompletableFuture<StatObjectResponse> stat;
+        try {
+            stat = minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build());
+        } catch (Exception e) {
+            stat = CompletableFuture.failedFuture(e);
+        }
+
+        return stat.handle((response, ex) -> {
+            if (ex == null) {
+                if (contentHash.equals(response.userMetadata().get(METADATA_CONTENT_HASH))) {
+                    return OptionalLong.of(response.size());
+                }
+                log.debug("Объект '{}' существует, но его содержимое отличается. Объект будет перезаписан", objectName);
+                return OptionalLong.empty();
+            }
+
+            Throwable cause = unwrap(ex);
+            if (!(cause instanceof ErrorResponseException errorResponse)
+                    || !"NoSuchKey".equals(errorResponse.errorResponse().code())) {
+                log.warn("Не удалось проверить объект '{}' перед загрузкой: {}", objectName, cause.getMessage());
+            }
+            return OptionalLong.empty();
+        });
+    }
+
+    /**
+     * Создает исключение ошибки загрузки объекта.
+     *
+     * @param objectName Имя объекта в MinIO.
+     * @param cause      Причина ошибки.
+     * @return исключение {@link MinioStorageException}
+     */
+    private MinioStorageException uploadFailure(String objectName, Throwable cause) {
+        if (cause instanceof MinioStorageException storageException) {
+            return storageException;
+        }
+        log.error("Ошибка при загрузке объекта '{}' в MinIO бакет '{}': {}", objectName, bucketName, cause.getMessage(), cause);
+        return new MinioStorageException("Ошибка при загрузке объекта " + objectName + " в MinIO", cause);
+    }
+
+    /**
+     * Дожидается результата асинхронной операции в вызывающем потоке.
+     *
+     * @param future асинхронная операция
+     * @param <T>    тип результата
+     * @return результат операции
+     * @throws MinioStorageException если операция завершилась ошибкой
+     */
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof MinioStorageException storageException) {
+                throw storageException;
+            }
+            throw new MinioStorageException("Ошибка при выполнении операции MinIO", cause);
+        }
+    }
+
+    /**
+     * Извлекает исходную причину из обертки асинхронного выполнения.
+     *
+     * @param throwable исключение
+     * @return исходная причина
+     */
+    private Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
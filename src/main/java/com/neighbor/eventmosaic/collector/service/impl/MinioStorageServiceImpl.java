@@ -1,44 +1,113 @@
 package com.neighbor.eventmosaic.collector.service.impl;
 
+import com.neighbor.eventmosaic.collector.client.MinioMultipartClient;
+import com.neighbor.eventmosaic.collector.dto.StorageCodec;
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
 import com.neighbor.eventmosaic.collector.exception.MinioStorageException;
 import com.neighbor.eventmosaic.collector.service.MinioStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.BucketExistsArgs;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.Directive;
 import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import io.minio.ObjectWriteResponse;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Part;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * Реализация сервиса {@link MinioStorageService} для взаимодействия с хранилищем MinIO.
- * Использует официальный MinIO Java SDK.
+ * Использует официальный MinIO Java SDK и блокирующий {@link MinioClient}.
+ * Используется по умолчанию ({@code storage.minio.client=blocking}).
  */
 @Slf4j
 @Service
-public class MinioStorageServiceImpl implements MinioStorageService {
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.minio.client", havingValue = "blocking", matchIfMissing = true)
+public class MinioStorageServiceImpl extends AbstractMinioStorageService {
 
-    @Value("${storage.minio.endpoint}")
-    private String endpoint;
+    /**
+     * Размер части multipart-загрузки для потоков неизвестного размера (минимум для S3 - 5 МБ)
+     */
+    private static final long STREAM_PART_SIZE = 10L * 1024 * 1024;
+
+    /**
+     * Минимальный размер части multipart-загрузки (кроме последней) для S3
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * Ключи пользовательских метаданных сжатых объектов
+     */
+    private static final String METADATA_CODEC = "codec";
+    private static final String METADATA_UNCOMPRESSED_SIZE = "uncompressed-size";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storage.minio.multipart.part-size:16777216}")
+    private long partSize;          // Размер части параллельной загрузки в байтах (не меньше 5 МБ)
+
+    @Value("${storage.minio.multipart.concurrency:4}")
+    private int partConcurrency;    // Количество одновременно загружаемых частей
+
+    @Value("${storage.minio.multipart.max-attempts:3}")
+    private int partMaxAttempts;    // Количество попыток загрузки одной части
+
+    @Value("${storage.minio.multipart.retry-delay:1000}")
+    private long partRetryDelay;    // Базовая задержка между попытками загрузки части в мс
 
-    @Value("${storage.minio.access-key}")
-    private String accessKey;
+    @Value("${storage.minio.compression.codec:none}")
+    private String codecName;       // Кодек сжатия объектов: none, gzip или zstd
 
-    @Value("${storage.minio.secret-key}")
-    private String secretKey;
+    @Value("${storage.minio.compression.level:-1}")
+    private int compressionLevel;   // Уровень сжатия (-1 - по умолчанию для кодека)
 
-    @Value("${storage.minio.bucket}")
-    private String bucketName;
+    private StorageCodec codec;
 
     private MinioClient minioClient;
+    private MinioMultipartClient multipartClient;
+    private ExecutorService partUploadExecutor;
 
     /**
      * Инициализирует MinioClient после внедрения зависимостей Spring.
@@ -54,9 +123,19 @@ public class MinioStorageServiceImpl implements MinioStorageService {
                     .endpoint(endpoint)
                     .credentials(accessKey, secretKey)
                     .build();
+            multipartClient = new MinioMultipartClient(MinioAsyncClient.builder()
+                    .endpoint(endpoint)
+                    .credentials(accessKey, secretKey)
+                    .build());
 
             checkAndCreateBucket(); // Проверяем и создаем бакет, если он отсутствует
 
+            partSize = Math.max(partSize, MIN_PART_SIZE);
+            codec = StorageCodec.fromName(codecName);
+            log.info("Кодек сжатия объектов: {}", codec);
+            partUploadExecutor = Executors.newFixedThreadPool(Math.max(partConcurrency, 1));
+            registerUploadMetrics(meterRegistry);
+
             log.info("MinIO клиент успешно инициализирован и подключен к бакету '{}'", bucketName);
 
         } catch (Exception e) {
@@ -67,24 +146,60 @@ public class MinioStorageServiceImpl implements MinioStorageService {
     }
 
     /**
-     * Загружает локальный файл в хранилище MinIO.
-     * Автоматически определяет размер и Content-Type файла.
+     * Останавливает пул загрузки частей при завершении работы приложения.
+     */
+    @PreDestroy
+    private void shutdownPartUploadExecutor() {
+        if (partUploadExecutor != null) {
+            partUploadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Загружает локальный файл в хранилище MinIO, сохраняя хеш содержимого
+     * в пользовательских метаданных {@code content-hash}.
+     * Перед загрузкой выполняется {@code statObject}: если объект с тем же именем
+     * и хешем уже существует, файл не передается, а возвращается URL существующего объекта.
      *
-     * @param objectName Имя, под которым объект будет сохранен в MinIO (включая путь, если нужно, например, "subdir/my-file.csv").
-     * @param filePath   Путь к локальному файлу для загрузки.
-     * @return Публичный или внутренний URL загруженного объекта в MinIO. Доступность зависит от конфигурации бакета.
+     * @param objectName  Имя, под которым объект будет сохранен в MinIO.
+     * @param filePath    Путь к локальному файлу для загрузки.
+     * @param contentHash MD5-хеш содержимого файла или null, если он неизвестен (проверка не выполняется).
+     * @return URL загруженного или уже существующего объекта в MinIO и признак записи объекта.
      * @throws MinioStorageException если произошла ошибка при чтении файла или загрузке в MinIO.
      */
     @Override
-    public String uploadFile(String objectName,
-                             Path filePath) {
+    public UploadedObject uploadFile(String objectName,
+                                     Path filePath,
+                                     String contentHash) {
         log.debug("Начало загрузки файла '{}' как объект '{}' в бакет '{}'", filePath, objectName, bucketName);
 
-        try (InputStream inputStream = Files.newInputStream(filePath)) {
+        String storedObjectName = objectName + codec.getExtension();
+        if (contentHash != null) {
+            OptionalLong existingSize = findObjectWithHash(storedObjectName, contentHash);
+            if (existingSize.isPresent()) {
+                return skipUpload(storedObjectName, existingSize.getAsLong());
+            }
+        }
+        Map<String, String> hashMetadata = contentHash != null
+                ? Map.of(METADATA_CONTENT_HASH, contentHash)
+                : Map.of();
+
+        try {
             long fileSize = Files.size(filePath);
             String contentType = determineContentType(filePath);
 
-            return uploadStreamInternal(objectName, inputStream, fileSize, contentType);
+            if (codec != StorageCodec.NONE) {
+                try (InputStream inputStream = Files.newInputStream(filePath)) {
+                    return uploadEncodedStream(objectName, inputStream, contentType, () -> hashMetadata);
+                }
+            }
+            ObjectHeaders headers = new ObjectHeaders(contentType, Map.of(), hashMetadata);
+            if (fileSize > partSize) {
+                return new UploadedObject(uploadFileInParts(objectName, filePath, fileSize, headers), true);
+            }
+            try (InputStream inputStream = Files.newInputStream(filePath)) {
+                return new UploadedObject(uploadStreamInternal(objectName, inputStream, fileSize, headers), true);
+            }
 
         } catch (IOException e) {
             log.error("Ошибка чтения локального файла '{}' перед загрузкой в MinIO: {}", filePath, e.getMessage(), e);
@@ -93,26 +208,56 @@ public class MinioStorageServiceImpl implements MinioStorageService {
     }
 
     /**
-     * Получает постоянный URL для доступа к объекту в MinIO.
-     * Метод формирует стандартный URL вида: {@code <endpoint>/<bucket>/<objectName>}.
-     * Фактическая доступность URL зависит от политики доступа, настроенной для бакета в MinIO.
+     * Загружает локальный файл в вызывающем потоке и возвращает завершенный результат.
      *
-     * @param objectName Имя объекта в MinIO.
-     * @return Строка, представляющая URL объекта.
-     * @throws MinioStorageException если произошла ошибка
+     * @param objectName  Имя, под которым объект будет сохранен в MinIO.
+     * @param filePath    Путь к локальному файлу для загрузки.
+     * @param contentHash MD5-хеш содержимого файла или null, если он неизвестен.
+     * @return Завершенный CompletableFuture с результатом загрузки или с {@link MinioStorageException}.
      */
     @Override
-    public String getObjectUrl(String objectName) {
-        log.debug("Формирование URL для объекта '{}' в бакете '{}' (endpoint: '{}')", objectName, bucketName, endpoint);
-
-        // Убедимся, что endpoint не заканчивается на '/' для корректной конкатенации
-        String cleanEndpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+    public CompletableFuture<UploadedObject> uploadFileAsync(String objectName,
+                                                             Path filePath,
+                                                             String contentHash) {
+        try {
+            return CompletableFuture.completedFuture(uploadFile(objectName, filePath, contentHash));
+        } catch (MinioStorageException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-        // Формируем простой URL. Для доступа по этому URL бакет должен быть публичным
-        // или доступ должен осуществляться из внутренней сети/через прокси.
-        String url = String.format("%s/%s/%s", cleanEndpoint, bucketName, objectName);
-        log.debug("Сформирован URL: {}", url);
-        return url;
+    /**
+     * Загружает поток данных неизвестного размера в хранилище MinIO.
+     * Поток читается частями по {@code storage.minio.multipart.part-size} байт. Поток не больше
+     * одной части загружается одним запросом, больший - параллельными частями, при этом в памяти
+     * находится не более {@code storage.minio.multipart.concurrency} частей.
+     * Content-Type определяется по имени объекта. Если задан кодек сжатия,
+     * поток сжимается при загрузке, а к имени объекта добавляется суффикс кодека.
+     * MD5-хеш содержимого вычисляется при чтении и сохраняется в метаданных {@code content-hash};
+     * поток не больше одной части не загружается, если объект с тем же хешем уже существует.
+     *
+     * @param objectName  Имя, под которым объект будет сохранен в MinIO.
+     * @param inputStream Поток данных (читается до конца, закрывается вызывающим кодом).
+     * @return URL объекта в MinIO и признак записи объекта.
+     * @throws MinioStorageException если произошла ошибка при загрузке в MinIO.
+     */
+    @Override
+    public UploadedObject uploadStream(String objectName,
+                                       InputStream inputStream) {
+        log.debug("Начало потоковой загрузки объекта '{}' в бакет '{}'", objectName, bucketName);
+        String contentType = determineContentType(Path.of(objectName));
+
+        // Хеш содержимого запрашивается один раз, после того как поток прочитан до конца
+        MessageDigest md = createMessageDigest();
+        DigestInputStream digestStream = new DigestInputStream(inputStream, md);
+        Supplier<Map<String, String>> hashMetadata =
+                () -> Map.of(METADATA_CONTENT_HASH, HexFormat.of().formatHex(md.digest()));
+
+        if (codec != StorageCodec.NONE) {
+            return uploadEncodedStream(objectName, digestStream, contentType, hashMetadata);
+        }
+        return uploadBufferedStream(objectName, digestStream,
+                () -> new ObjectHeaders(contentType, Map.of(), hashMetadata.get()));
     }
 
     /**
@@ -173,23 +318,28 @@ public class MinioStorageServiceImpl implements MinioStorageService {
      * @param objectName  Имя объекта в MinIO.
      * @param inputStream Поток данных (будет закрыт вызывающим кодом или try-with-resources).
      * @param size        Размер данных (если известен, иначе -1).
-     * @param contentType MIME-тип содержимого.
+     * @param headers     Заголовки и пользовательские метаданные объекта.
      * @return URL загруженного объекта.
      * @throws MinioStorageException при ошибке во время загрузки.
      */
     private String uploadStreamInternal(String objectName,
                                         InputStream inputStream,
                                         long size,
-                                        String contentType) {
+                                        ObjectHeaders headers) {
         try {
             PutObjectArgs args = PutObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
-                    .stream(inputStream, size, -1) // size = -1 (неизвестен), partSize = -1 (авто)
-                    .contentType(contentType)
+                    .stream(inputStream, size, size < 0 ? STREAM_PART_SIZE : -1) // при неизвестном размере (-1) part size задается явно, иначе - авто
+                    .contentType(headers.contentType())
+                    .headers(headers.headers())
+                    .userMetadata(headers.userMetadata())
                     .build();
 
             ObjectWriteResponse response = minioClient.putObject(args);
+            if (size >= 0) {
+                uploadedBytes.increment(size);
+            }
             log.info("Объект '{}' успешно загружен в бакет '{}'. VersionId: {}, ETag: {}",
                     response.object(),
                     response.bucket(),
@@ -205,26 +355,493 @@ public class MinioStorageServiceImpl implements MinioStorageService {
     }
 
     /**
-     * Пытается определить MIME-тип файла по его расширению.
-     * Возвращает "application/octet-stream", если тип не удалось определить.
+     * Сжимает поток кодеком {@code storage.minio.compression.codec} при загрузке.
+     * Объект сохраняется под именем с суффиксом кодека, с заголовком Content-Encoding
+     * и пользовательскими метаданными {@code codec} и {@code uncompressed-size}.
      *
-     * @param filePath Путь к файлу.
-     * @return Определенный MIME-тип или тип по умолчанию.
+     * @param objectName        Имя объекта без суффикса кодека.
+     * @param inputStream       Несжатые данные (читаются до конца, закрываются вызывающим кодом).
+     * @param contentType       MIME-тип несжатого содержимого.
+     * @param extraUserMetadata Поставщик дополнительных метаданных, вызывается после чтения потока.
+     * @return URL сжатого объекта и признак записи объекта.
+     * @throws MinioStorageException при ошибке во время сжатия или загрузки.
      */
-    private String determineContentType(Path filePath) {
+    private UploadedObject uploadEncodedStream(String objectName,
+                                       InputStream inputStream,
+                                       String contentType,
+                                       Supplier<Map<String, String>> extraUserMetadata) {
+        EncodingInputStream encodedStream;
         try {
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                log.warn("Не удалось определить Content-Type для файла '{}'. Используется тип по умолчанию 'application/octet-stream'.", filePath);
-                return "application/octet-stream";
+            encodedStream = new EncodingInputStream(inputStream, codec, compressionLevel);
+        } catch (IOException e) {
+            throw new MinioStorageException("Ошибка инициализации кодека " + codec + " для объекта " + objectName, e);
+        }
+
+        String encodedObjectName = objectName + codec.getExtension();
+        return uploadBufferedStream(encodedObjectName, encodedStream, () -> {
+            Map<String, String> userMetadata = new HashMap<>(extraUserMetadata.get());
+            userMetadata.put(METADATA_CODEC, codec.getContentEncoding());
+            userMetadata.put(METADATA_UNCOMPRESSED_SIZE, String.valueOf(encodedStream.getSourceBytes()));
+            return new ObjectHeaders(
+                    contentType,
+                    Map.of("Content-Encoding", codec.getContentEncoding()),
+                    userMetadata);
+        });
+    }
+
+    /**
+     * Загружает поток неизвестного размера: поток не больше одной части - одним запросом,
+     * больший - параллельными частями.
+     * Заголовки запрашиваются после того, как поток прочитан до конца,
+     * поэтому могут зависеть от прочитанных данных (например, от несжатого размера).
+     * Поток, уместившийся в одну часть, не загружается, если объект с тем же хешем
+     * содержимого ({@code content-hash}) уже существует.
+     *
+     * @param objectName  Имя объекта в MinIO.
+     * @param inputStream Поток данных (читается до конца, закрывается вызывающим кодом).
+     * @param headers     Поставщик заголовков и метаданных объекта.
+     * @return URL объекта и признак записи объекта.
+     * @throws MinioStorageException при ошибке во время чтения или загрузки.
+     */
+    private UploadedObject uploadBufferedStream(String objectName,
+                                        InputStream inputStream,
+                                        Supplier<ObjectHeaders> headers) {
+        try {
+            byte[] firstPart = inputStream.readNBytes((int) partSize);
+            if (firstPart.length < partSize) {
+                ObjectHeaders objectHeaders = headers.get();
+                String contentHash = objectHeaders.userMetadata().get(METADATA_CONTENT_HASH);
+                if (contentHash != null && findObjectWithHash(objectName, contentHash).isPresent()) {
+                    return skipUpload(objectName, firstPart.length);
+                }
+                return new UploadedObject(
+                        uploadStreamInternal(objectName, new ByteArrayInputStream(firstPart), firstPart.length, objectHeaders),
+                        true);
             }
-            log.debug("Определен Content-Type '{}' для файла '{}'", contentType, filePath);
-            return contentType;
+            return new UploadedObject(uploadStreamInParts(objectName, firstPart, inputStream, headers), true);
 
         } catch (IOException e) {
-            log.warn("Ошибка при определении Content-Type для файла '{}': {}. Используется тип по умолчанию 'application/octet-stream'.",
-                    filePath, e.getMessage());
-            return "application/octet-stream";
+            log.error("Ошибка чтения потока перед загрузкой объекта '{}' в MinIO: {}", objectName, e.getMessage(), e);
+            throw new MinioStorageException("Ошибка чтения потока для объекта " + objectName, e);
+        }
+    }
+
+    /**
+     * Проверяет, существует ли объект с тем же хешем содержимого.
+     * Ошибка проверки не прерывает загрузку: объект в этом случае загружается заново.
+     *
+     * @param objectName  Имя объекта в MinIO.
+     * @param contentHash Ожидаемый MD5-хеш содержимого.
+     * @return Размер существующего объекта или пустое значение, если объекта нет или его содержимое отличается.
+     */
+    private OptionalLong findObjectWithHash(String objectName, String contentHash) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build());
+
+            if (contentHash.equals(stat.userMetadata().get(METADATA_CONTENT_HASH))) {
+                return OptionalLong.of(stat.size());
+            }
+            log.debug("Объект '{}' существует, но его содержимое отличается. Объект будет перезаписан", objectName);
+
+        } catch (ErrorResponseException e) {
+            if (!"NoSuchKey".equals(e.errorResponse().code())) {
+                log.warn("Не удалось проверить объект '{}' перед загрузкой: {}", objectName, e.getMessage());
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось проверить объект '{}' перед загрузкой: {}", objectName, e.getMessage());
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Загружает файл параллельными частями S3 multipart-загрузки.
+     * Каждая часть читается из файла независимо, поэтому при повторной попытке
+     * перечитывается только неудавшаяся часть.
+     *
+     * @param objectName  Имя объекта в MinIO.
+     * @param filePath    Путь к локальному файлу.
+     * @param fileSize    Размер файла.
+     * @param headers     Заголовки и пользовательские метаданные объекта.
+     * @return URL загруженного объекта.
+     * @throws MinioStorageException при ошибке во время загрузки.
+     */
+    private String uploadFileInParts(String objectName,
+                                     Path filePath,
+                                     long fileSize,
+                                     ObjectHeaders headers) {
+        int partCount = (int) ((fileSize + partSize - 1) / partSize);
+        log.debug("Параллельная загрузка файла '{}' как объект '{}': {} частей по {} байт",
+                filePath, objectName, partCount, partSize);
+
+        String uploadId = createMultipartUpload(objectName, headers);
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<Part>> parts = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            long offset = i * partSize;
+            int length = (int) Math.min(partSize, fileSize - offset);
+            int partNumber = i + 1;
+            parts.add(partUploadExecutor.submit(() ->
+                    uploadPartWithRetries(objectName, uploadId, partNumber,
+                            () -> readFileRange(filePath, offset, length), aborted)));
+        }
+
+        return completePartUpload(objectName, uploadId, parts, aborted);
+    }
+
+    /**
+     * Загружает поток параллельными частями S3 multipart-загрузки.
+     * Число прочитанных, но еще не загруженных частей ограничено количеством одновременно загружаемых частей.
+     * Заголовки и метаданные известны только после чтения потока, поэтому они записываются
+     * после сборки объекта копированием объекта в себя с заменой метаданных
+     * (для MinIO это обновление только метаданных, без повторной записи данных).
+     *
+     * @param objectName  Имя объекта в MinIO.
+     * @param firstPart   Уже прочитанная первая часть.
+     * @param inputStream Оставшаяся часть потока.
+     * @param headers     Поставщик заголовков и метаданных объекта, вызывается после чтения потока.
+     * @return URL загруженного объекта.
+     * @throws IOException           при ошибке чтения потока.
+     * @throws MinioStorageException при ошибке во время загрузки.
+     */
+    private String uploadStreamInParts(String objectName,
+                                       byte[] firstPart,
+                                       InputStream inputStream,
+                                       Supplier<ObjectHeaders> headers) throws IOException {
+        String uploadId = createMultipartUpload(objectName, null);
+        Semaphore bufferedParts = new Semaphore(Math.max(partConcurrency, 1));
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<Part>> parts = new ArrayList<>();
+
+        try {
+            byte[] part = firstPart;
+            while (part.length > 0) {
+                bufferedParts.acquire();
+                byte[] data = part;
+                int partNumber = parts.size() + 1;
+                parts.add(partUploadExecutor.submit(() -> {
+                    try {
+                        return uploadPartWithRetries(objectName, uploadId, partNumber, () -> data, aborted);
+                    } finally {
+                        bufferedParts.release();
+                    }
+                }));
+                part = inputStream.readNBytes((int) partSize);
+            }
+        } catch (InterruptedException | IOException e) {
+            aborted.set(true);
+            awaitUploadedParts(parts);
+            abortMultipartUpload(objectName, uploadId);
+            if (e instanceof IOException ioException) {
+                throw ioException;
+            }
+            Thread.currentThread().interrupt();
+            throw new MinioStorageException("Загрузка объекта " + objectName + " прервана", e);
+        }
+
+        log.debug("Поток объекта '{}' прочитан: {} частей", objectName, parts.size());
+        String url = completePartUpload(objectName, uploadId, parts, aborted);
+        replaceObjectHeaders(objectName, headers.get());
+        return url;
+    }
+
+    /**
+     * Начинает multipart-загрузку объекта.
+     *
+     * @param objectName Имя объекта в MinIO.
+     * @param headers    Заголовки и пользовательские метаданные объекта или null, если они еще неизвестны.
+     * @return Идентификатор загрузки.
+     * @throws MinioStorageException если MinIO не принял запрос.
+     */
+    private String createMultipartUpload(String objectName, ObjectHeaders headers) {
+        try {
+            return multipartClient.createMultipartUpload(bucketName, objectName,
+                    headers != null ? headers.withContentType() : Map.of(),
+                    headers != null ? headers.userMetadata() : Map.of());
+        } catch (Exception e) {
+            log.error("Не удалось начать multipart-загрузку объекта '{}' в бакет '{}': {}",
+                    objectName, bucketName, e.getMessage(), e);
+            throw new MinioStorageException("Ошибка при параллельной загрузке объекта " + objectName + " в MinIO", e);
+        }
+    }
+
+    /**
+     * Дожидается загрузки всех частей и завершает multipart-загрузку: объект становится видимым атомарно.
+     * При ошибке еще не начатые части не загружаются, а уже выполняющиеся дожидаются завершения,
+     * после чего загрузка отменяется, и MinIO удаляет все ее части.
+     *
+     * @param objectName Имя итогового объекта.
+     * @param uploadId   Идентификатор загрузки.
+     * @param parts      Задачи загрузки частей, возвращающие номер и ETag части.
+     * @param aborted    Признак отмены загрузки, проверяемый задачами перед началом.
+     * @return URL загруженного объекта.
+     * @throws MinioStorageException если не удалось загрузить часть или завершить загрузку.
+     */
+    private String completePartUpload(String objectName,
+                                      String uploadId,
+                                      List<Future<Part>> parts,
+                                      AtomicBoolean aborted) {
+        List<Part> uploadedParts = new ArrayList<>(parts.size());
+        try {
+            for (Future<Part> part : parts) {
+                uploadedParts.add(part.get());
+            }
+
+            ObjectWriteResponse response = multipartClient.completeMultipartUpload(
+                    bucketName, objectName, uploadId, uploadedParts.toArray(Part[]::new));
+            log.info("Объект '{}' загружен из {} частей в бакет '{}'. ETag: {}",
+                    objectName, uploadedParts.size(), bucketName, response.etag());
+
+            return getObjectUrl(objectName);
+
+        } catch (Exception e) {
+            aborted.set(true);
+            awaitUploadedParts(parts.subList(uploadedParts.size(), parts.size()));
+            abortMultipartUpload(objectName, uploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Ошибка при параллельной загрузке объекта '{}' в MinIO бакет '{}': {}",
+                    objectName, bucketName, cause.getMessage(), cause);
+            throw new MinioStorageException("Ошибка при параллельной загрузке объекта " + objectName + " в MinIO", cause);
+        }
+    }
+
+    /**
+     * Загружает одну часть, повторяя попытку при ошибке.
+     *
+     * @param objectName   Имя итогового объекта.
+     * @param uploadId     Идентификатор загрузки.
+     * @param partNumber   Номер части, начиная с 1.
+     * @param partSupplier Источник данных части, читается заново для каждой попытки.
+     * @param aborted      Признак отмены загрузки объекта.
+     * @return Номер и ETag загруженной части.
+     * @throws Exception если все попытки завершились ошибкой или загрузка объекта отменена.
+     */
+    private Part uploadPartWithRetries(String objectName,
+                                       String uploadId,
+                                       int partNumber,
+                                       PartSupplier partSupplier,
+                                       AtomicBoolean aborted) throws Exception {
+        int attempts = Math.max(partMaxAttempts, 1);
+        for (int attempt = 1; ; attempt++) {
+            if (aborted.get()) {
+                throw new IllegalStateException("Загрузка объекта отменена, часть " + partNumber + " не загружается");
+            }
+            try {
+                byte[] data = partSupplier.read();
+                Part part = multipartClient.uploadPart(bucketName, objectName, uploadId, partNumber, data);
+                uploadedBytes.increment(data.length);
+                log.debug("Часть {} объекта '{}' ({} байт) загружена", partNumber, objectName, data.length);
+                return part;
+
+            } catch (Exception e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                log.warn("Попытка {}/{} загрузки части {} объекта '{}' не удалась: {}. Повтор...",
+                        attempt, attempts, partNumber, objectName, e.getMessage());
+                Thread.sleep(partRetryDelay * attempt);
+            }
+        }
+    }
+
+    /**
+     * Дожидается завершения задач загрузки частей, чтобы после отмены загрузки
+     * в ней не появились новые части.
+     *
+     * @param parts Задачи загрузки частей.
+     */
+    private void awaitUploadedParts(List<Future<Part>> parts) {
+        for (Future<Part> part : parts) {
+            try {
+                part.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Ожидание загрузки частей прервано, отмена загрузки может не удалить последние части");
+                break;
+            } catch (ExecutionException e) {
+                // Часть не загружена - ожидать нечего
+            }
+        }
+    }
+
+    /**
+     * Отменяет multipart-загрузку, чтобы MinIO удалил ее части.
+     *
+     * @param objectName Имя итогового объекта.
+     * @param uploadId   Идентификатор загрузки.
+     */
+    private void abortMultipartUpload(String objectName, String uploadId) {
+        try {
+            multipartClient.abortMultipartUpload(bucketName, objectName, uploadId);
+            log.debug("Multipart-загрузка объекта '{}' отменена", objectName);
+        } catch (Exception e) {
+            log.warn("Не удалось отменить multipart-загрузку '{}' объекта '{}': {}",
+                    uploadId, objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * Записывает заголовки и метаданные уже загруженного объекта копированием объекта в себя
+     * с заменой метаданных. Если записать их не удалось, объект удаляется,
+     * чтобы в бакете не остался объект без Content-Encoding и хеша содержимого.
+     *
+     * @param objectName Имя объекта в MinIO.
+     * @param headers    Заголовки и пользовательские метаданные объекта.
+     * @throws MinioStorageException если не удалось записать метаданные.
+     */
+    private void replaceObjectHeaders(String objectName, ObjectHeaders headers) {
+        try {
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .source(CopySource.builder()
+                                    .bucket(bucketName)
+                                    .object(objectName)
+                                    .build())
+                            .metadataDirective(Directive.REPLACE)
+                            .headers(headers.withContentType())
+                            .userMetadata(headers.userMetadata())
+                            .build());
+
+        } catch (Exception e) {
+            log.error("Не удалось записать метаданные объекта '{}' в бакете '{}': {}",
+                    objectName, bucketName, e.getMessage(), e);
+            try {
+                deleteObject(objectName);
+            } catch (MinioStorageException deleteException) {
+                log.warn("Объект '{}' без метаданных остался в бакете '{}'", objectName, bucketName);
+            }
+            throw new MinioStorageException("Ошибка при записи метаданных объекта " + objectName + " в MinIO", e);
+        }
+    }
+
+    /**
+     * Читает диапазон файла.
+     *
+     * @param filePath Путь к файлу.
+     * @param offset   Позиция начала чтения.
+     * @param length   Количество байтов.
+     * @return Прочитанные байты.
+     * @throws IOException при ошибке чтения или если файл короче ожидаемого.
+     */
+    private byte[] readFileRange(Path filePath, long offset, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) == -1) {
+                    throw new EOFException("Файл " + filePath + " короче ожидаемого: позиция " + (offset + buffer.position()));
+                }
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Источник данных части, который можно прочитать повторно.
+     */
+    @FunctionalInterface
+    private interface PartSupplier {
+        byte[] read() throws IOException;
+    }
+
+    /**
+     * Заголовки и пользовательские метаданные загружаемого объекта.
+     *
+     * @param contentType  MIME-тип содержимого
+     * @param headers      дополнительные заголовки (например, Content-Encoding)
+     * @param userMetadata пользовательские метаданные
+     */
+    private record ObjectHeaders(String contentType,
+                                 Map<String, String> headers,
+                                 Map<String, String> userMetadata) {
+
+        /**
+         * Возвращает дополнительные заголовки вместе с Content-Type.
+         */
+        private Map<String, String> withContentType() {
+            Map<String, String> allHeaders = new HashMap<>(headers);
+            allHeaders.put("Content-Type", contentType);
+            return allHeaders;
+        }
+    }
+
+    /**
+     * Поток, сжимающий данные исходного потока по мере чтения.
+     * Данные сжимаются порциями, поэтому в памяти находится не более одной сжатой порции.
+     * Исходный поток не закрывается.
+     */
+    private static final class EncodingInputStream extends InputStream {
+
+        private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+        private final InputStream source;
+        private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        private final OutputStream encoder;
+        private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+        private byte[] chunk = new byte[0];
+        private int position;
+        private long sourceBytes;
+        private boolean finished;
+
+        private EncodingInputStream(InputStream source, StorageCodec codec, int level) throws IOException {
+            this.source = source;
+            this.encoder = codec.encode(encoded, level);
+        }
+
+        /**
+         * Возвращает количество прочитанных несжатых байт.
+         */
+        private long getSourceBytes() {
+            return sourceBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position >= chunk.length) {
+                if (finished) {
+                    return -1;
+                }
+                encodeNextChunk();
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Читает следующую порцию исходных данных и сжимает ее.
+         * По достижении конца исходного потока завершает сжатие.
+         */
+        private void encodeNextChunk() throws IOException {
+            int bytesRead = source.read(readBuffer);
+            if (bytesRead == -1) {
+                encoder.close();
+                finished = true;
+            } else {
+                encoder.write(readBuffer, 0, bytesRead);
+                sourceBytes += bytesRead;
+            }
+            chunk = encoded.toByteArray();
+            encoded.reset();
+            position = 0;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import com.neighbor.eventmosaic.collector.parquet.GdeltParquetSchemas;
+import com.neighbor.eventmosaic.collector.service.ParquetConversionService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Реализация преобразования CSV-файлов GDELT в Parquet.
+ * <p>
+ * Каждая строка CSV разбивается по табуляции, и i-й столбец записывается в i-е поле
+ * схемы {@link GdeltParquetSchemas} с приведением к типу поля. Пустые значения и значения,
+ * которые не удалось разобрать как число, записываются как отсутствующие; лишние столбцы
+ * отбрасываются. Запись ведется группами строк размером {@code gdelt.parquet.row-group-size}
+ * со словарным кодированием, которое хорошо сжимает повторяющиеся коды стран, событий и участников.
+ */
+@Slf4j
+@Service
+public class ParquetConversionServiceImpl implements ParquetConversionService {
+
+    private static final String COLUMN_SEPARATOR = "\t";
+
+    @Value("${gdelt.parquet.compression:snappy}")
+    private String compressionName; // Кодек сжатия страниц: uncompressed, snappy, gzip, zstd
+
+    @Value("${gdelt.parquet.row-group-size:134217728}")
+    private long rowGroupSize;      // Размер группы строк в байтах
+
+    @Value("${gdelt.parquet.page-size:1048576}")
+    private int pageSize;           // Размер страницы в байтах
+
+    private CompressionCodecName compressionCodec;
+
+    @PostConstruct
+    private void initializeCodec() {
+        compressionCodec = CompressionCodecName.fromConf(compressionName);
+        log.info("Parquet: сжатие {}, размер группы строк {} байт, размер страницы {} байт",
+                compressionCodec, rowGroupSize, pageSize);
+    }
+
+    @Override
+    public Path convertToParquet(Path csvFile, GdeltArchiveType archiveType) throws IOException {
+        MessageType schema = GdeltParquetSchemas.forType(archiveType);
+        Path parquetFile = csvFile.resolveSibling(csvFile.getFileName() + PARQUET_SUFFIX);
+        SimpleGroupFactory groupFactory = new SimpleGroupFactory(schema);
+
+        long rows = 0;
+        long invalidValues = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+             ParquetWriter<Group> writer = ExampleParquetWriter.builder(new LocalOutputFile(parquetFile))
+                     .withType(schema)
+                     .withCompressionCodec(compressionCodec)
+                     .withDictionaryEncoding(true)
+                     .withRowGroupSize(rowGroupSize)
+                     .withPageSize(pageSize)
+                     .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                     .build()) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Group group = groupFactory.newGroup();
+                invalidValues += fillGroup(group, schema, line.split(COLUMN_SEPARATOR, -1));
+                writer.write(group);
+                rows++;
+            }
+        }
+
+        if (invalidValues > 0) {
+            log.warn("При преобразовании {} пропущено {} значений, не соответствующих типу поля", csvFile.getFileName(), invalidValues);
+        }
+        log.debug("Файл {} преобразован в Parquet: {} строк, {} -> {} байт",
+                csvFile.getFileName(), rows, Files.size(csvFile), Files.size(parquetFile));
+        return parquetFile;
+    }
+
+    /**
+     * Заполняет запись значениями столбцов строки CSV.
+     *
+     * @param group   запись Parquet
+     * @param schema  схема записи
+     * @param columns значения столбцов
+     * @return количество значений, которые не удалось привести к типу поля
+     */
+    private int fillGroup(Group group, MessageType schema, String[] columns) {
+        int invalidValues = 0;
+        int fieldCount = Math.min(columns.length, schema.getFieldCount());
+        for (int i = 0; i < fieldCount; i++) {
+            String value = columns[i];
+            if (value.isEmpty()) {
+                continue; // Отсутствующее значение необязательного поля
+            }
+            PrimitiveType.PrimitiveTypeName type = schema.getType(i).asPrimitiveType().getPrimitiveTypeName();
+            try {
+                switch (type) {
+                    case INT32 -> group.add(i, Integer.parseInt(value));
+                    case INT64 -> group.add(i, Long.parseLong(value));
+                    case DOUBLE -> group.add(i, Double.parseDouble(value));
+                    default -> group.add(i, value);
+                }
+            } catch (NumberFormatException e) {
+                invalidValues++;
+            }
+        }
+        return invalidValues;
+    }
+}
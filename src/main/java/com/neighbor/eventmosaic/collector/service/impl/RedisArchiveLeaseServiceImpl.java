@@ -0,0 +1,205 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
+import com.neighbor.eventmosaic.collector.service.ArchiveLeaseService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реализация аренды архивов на основе Redis.
+ * <p>
+ * Аренда - ключ {@code gdelt:archive:lease:<имя архива>} со сроком {@code gdelt.lease.duration}.
+ * Ключ создается Lua-скриптом, который выдает токен ограждения командой {@code INCR} только если
+ * архив еще не арендован, поэтому неудачные попытки не расходуют токены. Значение ключа содержит
+ * идентификатор реплики и токен ограждения. Пока аренда удерживается,
+ * она продлевается каждую треть срока; продление и освобождение выполняются Lua-скриптами,
+ * которые меняют ключ только если он все еще принадлежит этой аренде. Если реплика
+ * остановилась, аренда истекает, и архив может взять другая реплика. Перед фиксацией
+ * результата обработки владение арендой проверяется тем же скриптом продления,
+ * поэтому реплика, потерявшая аренду, не публикует событие и не сохраняет хеш архива.
+ * Между проверкой и фиксацией аренда может быть потеряна (например, при долгой паузе реплики),
+ * поэтому хеш архива сохраняется с токеном ограждения, и хранилище хешей отклоняет запись
+ * с токеном меньше уже сохраненного. Публикация события токеном не ограждается: в этом случае
+ * URL файлов могут быть отправлены в Kafka повторно.
+ * <p>
+ * При выключенном {@code gdelt.lease.enabled} аренда выдается без обращения к Redis.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RedisArchiveLeaseServiceImpl implements ArchiveLeaseService {
+
+    private static final String LEASE_KEY_PREFIX = "gdelt:archive:lease:";
+    private static final String FENCING_TOKEN_KEY = "gdelt:archive:lease:fencing-token";
+
+    // Создает ключ аренды со значением <реплика>:<токен>, если архив не арендован.
+    // Возвращает токен ограждения или 0, если архив уже арендован
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            local token = redis.call('INCR', KEYS[2])
+            redis.call('SET', KEYS[1], ARGV[1] .. ':' .. token, 'PX', ARGV[2])
+            return token
+            """, Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    @Value("${gdelt.lease.enabled:false}")
+    private boolean enabled;        // Распределять архивы между репликами через аренду в Redis
+
+    @Value("${gdelt.lease.duration:60000}")
+    private long leaseDuration;     // Срок аренды в мс (продлевается каждую треть срока)
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, ArchiveLease> heldLeases = new ConcurrentHashMap<>(); // Удерживаемые аренды по ключам
+    private ScheduledExecutorService renewalExecutor;
+
+    @PostConstruct
+    private void initializeRenewal() {
+        if (!enabled) {
+            log.info("Аренда архивов отключена");
+            return;
+        }
+        long renewalPeriod = Math.max(1, leaseDuration / 3);
+        renewalExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ArchiveLeaseRenewal").daemon().factory());
+        renewalExecutor.scheduleAtFixedRate(this::renewLeases, renewalPeriod, renewalPeriod, TimeUnit.MILLISECONDS);
+        log.info("Аренда архивов включена: реплика {}, срок аренды {}", instanceId, Duration.ofMillis(leaseDuration));
+    }
+
+    @PreDestroy
+    private void shutdownRenewal() {
+        if (renewalExecutor != null) {
+            renewalExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public Optional<ArchiveLease> tryAcquire(String archiveName) {
+        if (!enabled) {
+            return Optional.of(new ArchiveLease(archiveName, instanceId, 0));
+        }
+
+        String key = buildKey(archiveName);
+        Long fencingToken = redisTemplate.execute(ACQUIRE_SCRIPT, List.of(key, FENCING_TOKEN_KEY),
+                instanceId, String.valueOf(leaseDuration));
+        if (fencingToken == null) {
+            throw new IllegalStateException("Redis не вернул результат аренды архива " + archiveName);
+        }
+        if (fencingToken == 0) {
+            log.info("Архив {} уже обрабатывается другой репликой", archiveName);
+            return Optional.empty();
+        }
+
+        ArchiveLease lease = new ArchiveLease(archiveName, instanceId + ":" + fencingToken, fencingToken);
+        heldLeases.put(key, lease);
+        log.debug("Получена аренда архива {} (токен ограждения {})", archiveName, fencingToken);
+        return Optional.of(lease);
+    }
+
+    @Override
+    public Optional<ArchiveLease> findHeldLease(String archiveName) {
+        if (!enabled) {
+            return Optional.of(new ArchiveLease(archiveName, instanceId, 0));
+        }
+        String key = buildKey(archiveName);
+        ArchiveLease lease = heldLeases.get(key);
+        if (lease == null) {
+            log.warn("Аренда архива {} не удерживается этой репликой", archiveName);
+            return Optional.empty();
+        }
+
+        // Проверка продлевает аренду на полный срок, чтобы его хватило на фиксацию результата
+        Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key), lease.owner(), String.valueOf(leaseDuration));
+        if (renewed == null || renewed == 0) {
+            heldLeases.remove(key, lease);
+            log.warn("Аренда архива {} (токен ограждения {}) потеряна до фиксации результата обработки",
+                    archiveName, lease.fencingToken());
+            return Optional.empty();
+        }
+        return Optional.of(lease);
+    }
+
+    @Override
+    public void release(ArchiveLease lease) {
+        if (!enabled) {
+            return;
+        }
+        String key = buildKey(lease.archiveName());
+        heldLeases.remove(key, lease);
+        try {
+            Long released = redisTemplate.execute(RELEASE_SCRIPT, List.of(key), lease.owner());
+            if (released == null || released == 0) {
+                log.warn("Аренда архива {} (токен ограждения {}) к моменту освобождения уже истекла или перешла к другой реплике",
+                        lease.archiveName(), lease.fencingToken());
+            } else {
+                log.debug("Освобождена аренда архива {} (токен ограждения {})", lease.archiveName(), lease.fencingToken());
+            }
+        } catch (Exception e) {
+            // Аренда истечет сама по сроку
+            log.warn("Не удалось освободить аренду архива {}: {}", lease.archiveName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Продлевает все удерживаемые аренды.
+     * Аренда, которая истекла или перешла к другой реплике, перестает продлеваться.
+     */
+    private void renewLeases() {
+        heldLeases.forEach((key, lease) -> {
+            try {
+                Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key), lease.owner(), String.valueOf(leaseDuration));
+                if (renewed == null || renewed == 0) {
+                    heldLeases.remove(key, lease);
+                    log.warn("Аренда архива {} (токен ограждения {}) потеряна: она истекла или перешла к другой реплике",
+                            lease.archiveName(), lease.fencingToken());
+                }
+            } catch (Exception e) {
+                // Повторим при следующем продлении, пока аренда не истекла
+                log.warn("Не удалось продлить аренду архива {}: {}", lease.archiveName(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Формирует ключ Redis для аренды архива.
+     *
+     * @param archiveName имя архива
+     * @return ключ Redis
+     */
+    private String buildKey(String archiveName) {
+        return LEASE_KEY_PREFIX + archiveName;
+    }
+}
@@ -0,0 +1,231 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+import com.neighbor.eventmosaic.collector.exception.GdeltProcessingException;
+import com.neighbor.eventmosaic.collector.service.ArchiveHistoryFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.BitFieldSubCommands.BitFieldType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Фильтр Блума обработанных архивов в битовой карте Redis.
+ * Включается настройкой {@code gdelt.history-filter.enabled=true}.
+ * <p>
+ * Элемент фильтра - пара {@code <имя архива>:<MD5-хеш>}, поэтому архив с изменившимся хешем
+ * в фильтре не найден. Размер карты и число хеш-функций рассчитываются по ожидаемому числу архивов
+ * ({@code gdelt.history-filter.expected-archives}) и допустимой вероятности ложного срабатывания
+ * ({@code gdelt.history-filter.false-positive-probability}); при значениях по умолчанию
+ * (400 000 архивов - больше 10 лет GDELT, вероятность 10⁻⁶) карта занимает около 1,4 МБ.
+ * Параметры входят в ключ {@code gdelt:archive:history:bloom:<бит>:<функций>}, поэтому после
+ * их изменения фильтр заполняется заново, а не дает неверных ответов.
+ * <p>
+ * Позиции битов получаются двойным хешированием двух половин MD5 элемента.
+ * Проверка и добавление архива выполняются одной командой {@code BITFIELD} со всеми позициями;
+ * проверка списка архивов - в одном конвейере.
+ * <p>
+ * Положительный ответ фильтра подтверждается точной проверкой по множеству обработанных пар
+ * {@code gdelt:archive:history:processed}, которое пополняется вместе с фильтром и хранится без TTL
+ * (около 100 байт на архив, порядка 3-4 МБ за год GDELT). Фильтр избавляет от этой проверки архивы,
+ * которых точно не было, а ложное срабатывание не приводит к пропуску нового архива.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RedisBloomArchiveHistoryFilterImpl implements ArchiveHistoryFilter {
+
+    private static final String KEY_PREFIX = "gdelt:archive:history:bloom:";
+    private static final byte[] PROCESSED_KEY = "gdelt:archive:history:processed".getBytes(StandardCharsets.UTF_8);
+    private static final int SMISMEMBER_BATCH_SIZE = 1000;
+    private static final String HASH_ALGORITHM = "MD5";
+    private static final BitFieldType BIT = BitFieldType.unsigned(1);
+
+    @Value("${gdelt.history-filter.enabled:false}")
+    private boolean enabled;                        // Вести фильтр обработанных архивов
+
+    @Value("${gdelt.history-filter.expected-archives:400000}")
+    private long expectedArchives;                  // Ожидаемое количество архивов в фильтре
+
+    @Value("${gdelt.history-filter.false-positive-probability:0.000001}")
+    private double falsePositiveProbability;        // Допустимая вероятность ложного срабатывания
+
+    private final StringRedisTemplate redisTemplate;
+
+    private long bitCount;
+    private int hashFunctions;
+    private byte[] key;
+
+    @PostConstruct
+    private void initializeFilter() {
+        bitCount = optimalBitCount(expectedArchives, falsePositiveProbability);
+        hashFunctions = optimalHashFunctions(expectedArchives, bitCount);
+        String filterKey = KEY_PREFIX + bitCount + ":" + hashFunctions;
+        key = filterKey.getBytes(StandardCharsets.UTF_8);
+        if (enabled) {
+            log.info("Фильтр истории архивов {}: {} КБ, хеш-функций {}", filterKey, bitCount / 8 / 1024, hashFunctions);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Отбирает архивы, все биты которых установлены, командами BITFIELD GET в одном конвейере.
+     * Если фильтр выключен, возвращаются все архивы.
+     *
+     * @param archives архивы с текущими хешами
+     * @return архивы, которые могли быть обработаны
+     */
+    @Override
+    public List<GdeltArchiveInfo> mightContain(List<GdeltArchiveInfo> archives) {
+        if (!enabled || archives.isEmpty()) {
+            return archives;
+        }
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (GdeltArchiveInfo archive : archives) {
+                BitFieldSubCommands commands = BitFieldSubCommands.create();
+                for (long offset : bitOffsets(element(archive), bitCount, hashFunctions)) {
+                    commands = commands.get(BIT).valueAt(offset);
+                }
+                connection.stringCommands().bitField(key, commands);
+            }
+            return null;
+        });
+
+        List<GdeltArchiveInfo> possiblyProcessed = new ArrayList<>();
+        for (int i = 0; i < archives.size(); i++) {
+            List<?> bits = (List<?>) results.get(i);
+            if (bits.stream().allMatch(bit -> ((Number) bit).longValue() == 1)) {
+                possiblyProcessed.add(archives.get(i));
+            }
+        }
+        log.debug("Могли быть обработаны ранее (по фильтру): {} из {} архивов", possiblyProcessed.size(), archives.size());
+        return possiblyProcessed;
+    }
+
+    /**
+     * Проверяет архивы по множеству обработанных пар командами SMISMEMBER
+     * по {@value #SMISMEMBER_BATCH_SIZE} элементов в одном конвейере.
+     * Если фильтр выключен, история не ведется и ни один архив не подтверждается.
+     *
+     * @param archives архивы с положительным ответом фильтра
+     * @return архивы, точно обработанные с тем же хешем
+     */
+    @Override
+    public List<GdeltArchiveInfo> confirmProcessed(List<GdeltArchiveInfo> archives) {
+        if (!enabled || archives.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> batchResults = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int from = 0; from < archives.size(); from += SMISMEMBER_BATCH_SIZE) {
+                byte[][] elements = archives.subList(from, Math.min(from + SMISMEMBER_BATCH_SIZE, archives.size())).stream()
+                        .map(archive -> element(archive).getBytes(StandardCharsets.UTF_8))
+                        .toArray(byte[][]::new);
+                connection.setCommands().sMIsMember(PROCESSED_KEY, elements);
+            }
+            return null;
+        });
+
+        List<GdeltArchiveInfo> processed = new ArrayList<>();
+        int i = 0;
+        for (Object batchResult : batchResults) {
+            for (Object isMember : (List<?>) batchResult) {
+                if (Boolean.TRUE.equals(isMember)) {
+                    processed.add(archives.get(i));
+                }
+                i++;
+            }
+        }
+        log.debug("Обработаны ранее (по истории): {} из {} архивов", processed.size(), archives.size());
+        return processed;
+    }
+
+    /**
+     * Устанавливает биты архива командой BITFIELD SET и добавляет архив в множество обработанных
+     * в одном конвейере.
+     *
+     * @param archive информация об архиве
+     */
+    @Override
+    public void put(GdeltArchiveInfo archive) {
+        if (!enabled) {
+            return;
+        }
+        BitFieldSubCommands commands = BitFieldSubCommands.create();
+        for (long offset : bitOffsets(element(archive), bitCount, hashFunctions)) {
+            commands = commands.set(BIT).valueAt(offset).to(1);
+        }
+        BitFieldSubCommands bitFieldCommands = commands;
+        byte[] element = element(archive).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().bitField(key, bitFieldCommands);
+            connection.setCommands().sAdd(PROCESSED_KEY, element);
+            return null;
+        });
+        log.debug("Архив {} добавлен в фильтр истории", archive.fileName());
+    }
+
+    /**
+     * Рассчитывает позиции битов элемента: {@code h1 + i * h2} по модулю размера карты,
+     * где h1 и h2 - половины MD5-хеша элемента.
+     *
+     * @param element        элемент фильтра
+     * @param bitCount       размер карты в битах
+     * @param hashFunctions  количество хеш-функций
+     * @return позиции битов
+     */
+    static long[] bitOffsets(String element, long bitCount, int hashFunctions) {
+        ByteBuffer digest = ByteBuffer.wrap(md5(element.getBytes(StandardCharsets.UTF_8)));
+        long h1 = digest.getLong();
+        long h2 = digest.getLong();
+        long[] offsets = new long[hashFunctions];
+        for (int i = 0; i < hashFunctions; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, bitCount);
+        }
+        return offsets;
+    }
+
+    /**
+     * Рассчитывает размер карты: {@code -n * ln(p) / ln(2)²} бит.
+     */
+    static long optimalBitCount(long expectedElements, double falsePositiveProbability) {
+        double bits = -expectedElements * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        return Math.max(64, (long) Math.ceil(bits));
+    }
+
+    /**
+     * Рассчитывает количество хеш-функций: {@code m / n * ln(2)}.
+     */
+    static int optimalHashFunctions(long expectedElements, long bitCount) {
+        return Math.max(1, (int) Math.round((double) bitCount / expectedElements * Math.log(2)));
+    }
+
+    private static String element(GdeltArchiveInfo archive) {
+        return archive.fileName() + ":" + archive.hash();
+    }
+
+    private static byte[] md5(byte[] value) {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM).digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            // Теоретически невозможно, так как MD5 - стандартный алгоритм
+            throw new GdeltProcessingException("Ошибка при получении алгоритма хеширования", e);
+        }
+    }
+}
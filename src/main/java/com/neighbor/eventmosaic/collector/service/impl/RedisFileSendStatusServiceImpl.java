@@ -4,30 +4,109 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neighbor.eventmosaic.collector.dto.ExtractedFileInfo;
 import com.neighbor.eventmosaic.collector.service.FileSendStatusService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * Реализация сервиса статуса отправки сообщений в топик Kafka на основе Redis.
+ * <p>
+ * Запись о каждом файле хранится хешем Redis {@code gdelt:file:status:<URL>} с полями
+ * {@code archiveFileName}, {@code fileUrl}, {@code manifestUrl} (если есть) и {@code sent}.
+ * Помимо записей ведется индекс ожидающих отправки файлов - сортированное множество
+ * {@code gdelt:file:pending} с URL файлов и временем регистрации в качестве оценки.
+ * Запись о файле и индекс изменяются вместе: регистрация файлов архива - одной транзакцией MULTI/EXEC,
+ * отправленной конвейером, которая создает записи и добавляет URL в индекс; отметка об отправке - Lua-скриптом,
+ * который меняет поле {@code sent} и удаляет URL из индекса за один обмен с Redis,
+ * без чтения и повторной записи всей записи. Список ожидающих файлов читается постранично только по индексу,
+ * без {@code KEYS} по всему Redis и без чтения записей уже отправленных файлов.
+ * <p>
+ * Записи прежнего формата - JSON в строковых ключах {@code gdelt:file:info:<URL>} - переносятся при запуске,
+ * чтобы файлы, не отправленные до обновления сервиса, были отправлены повторно.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RedisFileSendStatusServiceImpl implements FileSendStatusService {
 
-    private static final String FILE_INFO_PREFIX = "gdelt:file:info:";
+    private static final String FILE_STATUS_PREFIX = "gdelt:file:status:";
+    private static final String PENDING_KEY = "gdelt:file:pending";
+    private static final String LEGACY_FILE_INFO_PREFIX = "gdelt:file:info:"; // JSON-записи прежнего формата
     private static final Duration TTL = Duration.ofHours(1); // Время хранения статусов
 
+    private static final String ARCHIVE_FILE_NAME_FIELD = "archiveFileName";
+    private static final String FILE_URL_FIELD = "fileUrl";
+    private static final String MANIFEST_URL_FIELD = "manifestUrl";
+    private static final String SENT_FIELD = "sent";
+
+    // Отмечает файл отправленным и удаляет его URL из индекса ожидающих отправки.
+    // Возвращает 0, если записи о файле нет
+    private static final RedisScript<Long> MARK_SENT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[2], ARGV[2])
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'sent', 'true')
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    @Value("${gdelt.retry.page-size:500}")
+    private int pageSize;           // Количество ожидающих файлов, читаемых из Redis за один запрос
+
     private final StringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
 
+    /**
+     * Переносит записи о файлах прежнего формата ({@code gdelt:file:info:<URL>} с JSON).
+     * Ключи перебираются командой SCAN, каждая запись забирается командой GETDEL, поэтому
+     * при одновременном запуске нескольких реплик запись переносит только одна из них.
+     * Неотправленные файлы регистрируются заново, записи об отправленных просто удаляются.
+     */
+    @PostConstruct
+    private void migrateLegacyRecords() {
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(LEGACY_FILE_INFO_PREFIX + "*")
+                .count(pageSize)
+                .build();
+        int migrated = 0;
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                try {
+                    if (migrateLegacyRecord(key)) {
+                        migrated++;
+                    }
+                } catch (JsonProcessingException e) {
+                    log.warn("Запись о файле прежнего формата {} не разобрана и удалена: {}", key, e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Ошибка при переносе записей о файлах прежнего формата: {}", e.getMessage(), e);
+        }
+        if (migrated > 0) {
+            log.info("Перенесено неотправленных файлов из записей прежнего формата: {}", migrated);
+        }
+    }
+
     /**
      * Регистрирует файл в Redis.
      * Когда файл зарегистрирован, он добавляется в список ожидающих отправки в топик Kafka.
@@ -35,36 +114,76 @@ public class RedisFileSendStatusServiceImpl implements FileSendStatusService {
      *
      * @param archiveFileName имя архива
      * @param fileUrl         путь к файлу
+     * @param manifestUrl     URL манифеста частей файла или null
      * @return true, если зарегистрирован, false - если нет
      */
     @Override
-    public boolean registerFile(String archiveFileName, String fileUrl) {
-
-        ExtractedFileInfo extractedFileInfo = ExtractedFileInfo.builder()
-                .archiveFileName(archiveFileName)
-                .fileUrl(fileUrl)
-                .isSent(false) // начальный статус - не отправлен
-                .build();
+    public boolean registerFile(String archiveFileName, String fileUrl, String manifestUrl) {
+        return registerFiles(archiveFileName, List.of(fileUrl),
+                manifestUrl != null ? Map.of(fileUrl, manifestUrl) : Map.of());
+    }
 
-        return saveFileInfo(fileUrl, extractedFileInfo);
+    /**
+     * Регистрирует файлы архива в Redis одной транзакцией MULTI/EXEC, отправленной конвейером.
+     * Для каждого файла создается запись со статусом "не отправлен" и его URL добавляется
+     * в индекс ожидающих отправки файлов.
+     *
+     * @param archiveFileName имя архива
+     * @param fileUrls        URL файлов
+     * @param manifestUrls    URL манифестов частей по URL файлов
+     * @return true, если зарегистрированы, false - если нет
+     */
+    @Override
+    public boolean registerFiles(String archiveFileName, List<String> fileUrls, Map<String, String> manifestUrls) {
+        if (fileUrls.isEmpty()) {
+            return true;
+        }
+        try {
+            double registeredAt = System.currentTimeMillis();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                byte[] pendingKey = serialize(PENDING_KEY);
+                connection.multi();
+                for (String fileUrl : fileUrls) {
+                    byte[] key = serialize(buildFileStatusKey(fileUrl));
+                    connection.keyCommands().del(key);
+                    connection.hashCommands().hMSet(key, buildFields(archiveFileName, fileUrl, manifestUrls.get(fileUrl)));
+                    connection.keyCommands().pExpire(key, TTL.toMillis());
+                    connection.zSetCommands().zAdd(pendingKey, registeredAt, serialize(fileUrl));
+                }
+                connection.exec();
+                return null;
+            });
+            log.debug("Зарегистрировано файлов архива {}: {}", archiveFileName, fileUrls.size());
+            return true;
+        } catch (Exception e) {
+            log.error("Ошибка при сохранении информации о файлах архива {} в Redis. Файлов: {}, Ошибка: {}",
+                    archiveFileName, fileUrls.size(), e.getMessage(), e);
+            return false;
+        }
     }
 
     /**
-     * Отмечает файл как отправленный в топик Kafka.
+     * Отмечает файл как отправленный в топик Kafka одним Lua-скриптом.
      *
      * @param fileUrl путь к файлу
      * @return true, если отправлен, false - если нет
      */
     @Override
     public boolean markAsSent(String fileUrl) {
-        ExtractedFileInfo fileInfo = getFileInfo(fileUrl);
-        if (fileInfo == null) {
-            log.warn("Попытка отметить как доставленный незарегистрированный файл: {}", fileUrl);
+        String key = buildFileStatusKey(fileUrl);
+        try {
+            Long marked = redisTemplate.execute(MARK_SENT_SCRIPT, List.of(key, PENDING_KEY),
+                    String.valueOf(TTL.toMillis()), fileUrl);
+            if (marked == null || marked == 0) {
+                log.warn("Попытка отметить как доставленный незарегистрированный файл: {}", fileUrl);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Ошибка при обновлении статуса файла в Redis. Ключ: {}, Ошибка: {}",
+                    key, e.getMessage(), e);
             return false;
         }
-
-        fileInfo.setSent(true);
-        return saveFileInfo(fileUrl, fileInfo);
     }
 
     /**
@@ -75,13 +194,10 @@ public class RedisFileSendStatusServiceImpl implements FileSendStatusService {
      */
     @Override
     public ExtractedFileInfo getFileInfo(String fileUrl) {
-        String key = buildFileInfoKey(fileUrl);
+        String key = buildFileStatusKey(fileUrl);
         try {
-            String json = redisTemplate.opsForValue().get(key);
-            if (json == null) {
-                return null;
-            }
-            return objectMapper.readValue(json, ExtractedFileInfo.class);
+            Map<String, String> fields = redisTemplate.<String, String>opsForHash().entries(key);
+            return toFileInfo(fields);
         } catch (Exception e) {
             log.error("Ошибка при получении информации о файле из Redis. URL: {}, Ключ: {}, Ошибка: {}",
                     fileUrl, key, e.getMessage(), e);
@@ -91,30 +207,57 @@ public class RedisFileSendStatusServiceImpl implements FileSendStatusService {
 
     /**
      * Получает список ожидающих отправки файлов из Redis или пустой список.
+     * <p>
+     * URL читаются из индекса {@code gdelt:file:pending} страницами по {@code gdelt.retry.page-size}
+     * в порядке регистрации, записи о файлах страницы - командами HGETALL в одном конвейере.
+     * Страницы выбираются по оценке, а не по позиции: следующая страница начинается после последних
+     * прочитанных оценки и URL, поэтому одновременные отметки об отправке, удаляющие URL из индекса,
+     * не сдвигают границы страниц и не приводят к пропуску файлов.
+     * URL, записи о которых истекли, и URL старше времени хранения статусов удаляются из индекса.
      *
      * @return список ожидающих отправки файлов
      */
-    // TODO: Оптимизировать метод
     @Override
     public List<ExtractedFileInfo> getPendingFiles() {
         log.debug("Запрос списка неотправленных файлов из Redis...");
         List<ExtractedFileInfo> pendingFiles = new ArrayList<>();
         try {
-            // Получаем все ключи с префиксом
-            Set<String> keys = redisTemplate.keys(FILE_INFO_PREFIX + "*");
-            if (keys.isEmpty()) {
-                return pendingFiles;
-            }
+            // Записи старше TTL уже истекли, их URL в индексе не нужны
+            redisTemplate.opsForZSet().removeRangeByScore(PENDING_KEY,
+                    Double.NEGATIVE_INFINITY, System.currentTimeMillis() - TTL.toMillis());
 
-            // Проверяем каждый файл
-            for (String key : keys) {
-                String json = redisTemplate.opsForValue().get(key);
-                if (json != null) {
-                    ExtractedFileInfo fileInfo = objectMapper.readValue(json, ExtractedFileInfo.class);
-                    if (!fileInfo.isSent()) {
-                        pendingFiles.add(fileInfo);
+            TypedTuple<String> last = null;
+            int seenWithLastScore = 0;
+            while (true) {
+                // URL с той же оценкой, что у последнего прочитанного, могли быть прочитаны раньше:
+                // запрашиваем их с запасом и отбрасываем по порядку URL внутри оценки
+                int limit = seenWithLastScore + pageSize;
+                Set<TypedTuple<String>> fetched = redisTemplate.opsForZSet().rangeByScoreWithScores(PENDING_KEY,
+                        last != null ? last.getScore() : Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, limit);
+                if (fetched == null || fetched.isEmpty()) {
+                    break;
+                }
+                List<TypedTuple<String>> page = new ArrayList<>();
+                for (TypedTuple<String> entry : fetched) {
+                    if (isAfter(entry, last)) {
+                        page.add(entry);
                     }
                 }
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<String> fileUrls = page.stream().map(TypedTuple::getValue).toList();
+                readPendingPage(fileUrls, pendingFiles);
+                for (TypedTuple<String> entry : page) {
+                    seenWithLastScore = last != null && Objects.equals(entry.getScore(), last.getScore())
+                            ? seenWithLastScore + 1
+                            : 1;
+                    last = entry;
+                }
+                if (fetched.size() < limit) {
+                    break;
+                }
             }
         } catch (Exception e) {
             log.error("Ошибка при получении списка ожидающих файлов: {}", e.getMessage(), e);
@@ -123,30 +266,108 @@ public class RedisFileSendStatusServiceImpl implements FileSendStatusService {
     }
 
     /**
-     * Сохраняет информацию о файле в Redis.
-     * Устанавливает время жизни ключа.
+     * Читает записи о файлах страницы индекса командами HGETALL в одном конвейере.
+     * Неотправленные файлы добавляются в результат, URL истекших и отправленных записей удаляются из индекса.
      *
-     * @param fileUrl  путь к файлу
-     * @param fileInfo информация о файле
-     * @return true, если сохранено, false - если нет
+     * @param fileUrls     URL файлов страницы
+     * @param pendingFiles ожидающие отправки файлы (пополняется)
      */
-    private boolean saveFileInfo(String fileUrl, ExtractedFileInfo fileInfo) {
-        String key = buildFileInfoKey(fileUrl);
-        try {
-            String json = objectMapper.writeValueAsString(fileInfo);
-            redisTemplate.opsForValue().set(key, json, TTL);
+    private void readPendingPage(List<String> fileUrls, List<ExtractedFileInfo> pendingFiles) {
+        List<Object> records = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String fileUrl : fileUrls) {
+                connection.hashCommands().hGetAll(serialize(buildFileStatusKey(fileUrl)));
+            }
+            return null;
+        });
+        List<String> staleUrls = new ArrayList<>();
+        for (int i = 0; i < fileUrls.size(); i++) {
+            @SuppressWarnings("unchecked")
+            ExtractedFileInfo fileInfo = toFileInfo((Map<String, String>) records.get(i));
+            if (fileInfo != null && !fileInfo.isSent()) {
+                pendingFiles.add(fileInfo);
+            } else {
+                staleUrls.add(fileUrls.get(i));
+            }
+        }
+        if (!staleUrls.isEmpty()) {
+            redisTemplate.opsForZSet().remove(PENDING_KEY, staleUrls.toArray());
+            log.debug("Из индекса ожидающих файлов удалено устаревших URL: {}", staleUrls.size());
+        }
+    }
+
+    /**
+     * Проверяет, следует ли элемент индекса за последним прочитанным в порядке Redis:
+     * по оценке, а при равной оценке - по байтам URL.
+     *
+     * @param entry элемент индекса
+     * @param last  последний прочитанный элемент или null
+     * @return true, если элемент еще не прочитан
+     */
+    private boolean isAfter(TypedTuple<String> entry, TypedTuple<String> last) {
+        if (last == null) {
             return true;
+        }
+        int byScore = Double.compare(entry.getScore(), last.getScore());
+        if (byScore != 0) {
+            return byScore > 0;
+        }
+        return Arrays.compareUnsigned(serialize(entry.getValue()), serialize(last.getValue())) > 0;
+    }
 
-        } catch (JsonProcessingException e) {
-            log.error("Ошибка сериализации информации о файле. URL: {}, Данные: {}, Ошибка: {}",
-                    fileUrl, fileInfo, e.getMessage(), e);
+    /**
+     * Забирает запись прежнего формата и регистрирует файл заново, если он не был отправлен.
+     *
+     * @param key ключ записи прежнего формата
+     * @return true, если файл зарегистрирован заново
+     * @throws JsonProcessingException если запись не удалось разобрать
+     */
+    private boolean migrateLegacyRecord(String key) throws JsonProcessingException {
+        String json = redisTemplate.opsForValue().getAndDelete(key);
+        if (json == null) {
+            return false; // Запись истекла или ее уже перенесла другая реплика
+        }
+        ExtractedFileInfo fileInfo = objectMapper.readValue(json, ExtractedFileInfo.class);
+        if (fileInfo.isSent()) {
             return false;
+        }
+        return registerFile(fileInfo.getArchiveFileName(), fileInfo.getFileUrl(), fileInfo.getManifestUrl());
+    }
 
-        } catch (Exception e) {
-            log.error("Ошибка при сохранении информации о файле в Redis. Ключ: {}, Ошибка: {}",
-                    key, e.getMessage(), e);
-            return false;
+    /**
+     * Формирует поля новой записи о файле.
+     *
+     * @param archiveFileName имя архива
+     * @param fileUrl         URL файла
+     * @param manifestUrl     URL манифеста частей файла или null
+     * @return поля хеша Redis
+     */
+    private Map<byte[], byte[]> buildFields(String archiveFileName, String fileUrl, String manifestUrl) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        fields.put(serialize(ARCHIVE_FILE_NAME_FIELD), serialize(archiveFileName));
+        fields.put(serialize(FILE_URL_FIELD), serialize(fileUrl));
+        fields.put(serialize(SENT_FIELD), serialize("false")); // начальный статус - не отправлен
+        if (manifestUrl != null) {
+            fields.put(serialize(MANIFEST_URL_FIELD), serialize(manifestUrl));
         }
+        return fields;
+    }
+
+    /**
+     * Собирает информацию о файле из полей хеша Redis.
+     *
+     * @param fields поля записи
+     * @return информация о файле или null, если записи нет
+     */
+    private ExtractedFileInfo toFileInfo(Map<String, String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        return ExtractedFileInfo.builder()
+                .archiveFileName(fields.get(ARCHIVE_FILE_NAME_FIELD))
+                .fileUrl(fields.get(FILE_URL_FIELD))
+                .manifestUrl(fields.get(MANIFEST_URL_FIELD))
+                .isSent(Boolean.parseBoolean(fields.get(SENT_FIELD)))
+                .build();
     }
 
     /**
@@ -155,7 +376,17 @@ public class RedisFileSendStatusServiceImpl implements FileSendStatusService {
      * @param fileUrl URL файла.
      * @return Строка, представляющая ключ Redis.
      */
-    private String buildFileInfoKey(String fileUrl) {
-        return FILE_INFO_PREFIX + fileUrl;
+    private String buildFileStatusKey(String fileUrl) {
+        return FILE_STATUS_PREFIX + fileUrl;
+    }
+
+    /**
+     * Сериализует строку для команд соединения Redis.
+     *
+     * @param value строка
+     * @return байты строки
+     */
+    private byte[] serialize(String value) {
+        return redisTemplate.getStringSerializer().serialize(value);
     }
 }
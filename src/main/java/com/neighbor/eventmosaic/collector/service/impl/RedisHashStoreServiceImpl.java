@@ -1,24 +1,57 @@
 package com.neighbor.eventmosaic.collector.service.impl;
 
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
 import com.neighbor.eventmosaic.collector.service.HashStoreService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Реализация сервиса хранения хешей на базе Redis.
  * Использует Redis для хранения хешей архивов GDELT.
+ * Пакетные операции выполняются в конвейере (pipeline): проверка хешей - командами MGET
+ * по 1000 ключей, сохранение - командами SET с TTL. Все команды
+ * отправляются за один обмен с Redis независимо от количества архивов, а ограничение
+ * размера MGET не дает одной команде надолго занять Redis.
+ * Хеш, сохраняемый по результату обработки с арендой, записывается Lua-скриптом вместе с токеном ограждения
+ * аренды в ключ {@code gdelt:archive:hash-fencing:<имя архива>}: скрипт отклоняет запись с токеном
+ * меньше сохраненного, то есть запись реплики, у которой архив уже забрала более поздняя аренда.
+ * Используется по умолчанию ({@code gdelt.hash-store.type=redis}).
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "gdelt.hash-store.type", havingValue = "redis", matchIfMissing = true)
 public class RedisHashStoreServiceImpl implements HashStoreService {
 
     private static final String KEY_PREFIX = "gdelt:archive:hash:";
+    private static final String FENCING_KEY_PREFIX = "gdelt:archive:hash-fencing:";
     private static final Duration TTL = Duration.ofHours(1);
+    private static final int MGET_BATCH_SIZE = 1000;
+
+    // Сохраняет хеш и токен ограждения, если сохраненный токен не больше переданного.
+    // Возвращает 0, если хеш уже сохранила обработка с более поздней арендой
+    private static final RedisScript<Long> FENCED_STORE_SCRIPT = new DefaultRedisScript<>("""
+            local stored = redis.call('GET', KEYS[2])
+            if stored and tonumber(stored) > tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
 
     private final StringRedisTemplate redisTemplate;
 
@@ -36,6 +69,43 @@ public class RedisHashStoreServiceImpl implements HashStoreService {
         return hash;
     }
 
+    /**
+     * Получает хеши архивов из Redis командами MGET в одном конвейере.
+     *
+     * @param archiveNames имена архивов
+     * @return хеши по именам архивов, найденных в Redis
+     */
+    @Override
+    public Map<String, String> getStoredHashes(List<String> archiveNames) {
+        if (archiveNames.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Object> batchResults = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int from = 0; from < archiveNames.size(); from += MGET_BATCH_SIZE) {
+                byte[][] keys = archiveNames.subList(from, Math.min(from + MGET_BATCH_SIZE, archiveNames.size())).stream()
+                        .map(archiveName -> serialize(buildKey(archiveName)))
+                        .toArray(byte[][]::new);
+                connection.stringCommands().mGet(keys);
+            }
+            return null;
+        });
+
+        // Результаты MGET идут в порядке пакетов, а внутри пакета - в порядке ключей
+        Map<String, String> storedHashes = new HashMap<>();
+        int index = 0;
+        for (Object batchResult : batchResults) {
+            for (Object storedHash : (List<?>) batchResult) {
+                String archiveName = archiveNames.get(index++);
+                if (storedHash != null) {
+                    storedHashes.put(archiveName, (String) storedHash);
+                }
+            }
+        }
+        log.debug("Получены хеши {} из {} архивов", storedHashes.size(), archiveNames.size());
+        return storedHashes;
+    }
+
     /**
      * Сохраняет хеш архива в Redis.
      *
@@ -49,6 +119,50 @@ public class RedisHashStoreServiceImpl implements HashStoreService {
         log.debug("Сохранен хеш {} для архива {} с TTL {}", hash, archiveName, TTL);
     }
 
+    /**
+     * Сохраняет хеш архива в Redis одним Lua-скриптом, если сохраненный токен ограждения
+     * архива не больше токена этой аренды.
+     *
+     * @param archiveName  имя архива
+     * @param hash         хеш архива
+     * @param fencingToken токен ограждения аренды архива
+     * @return true, если хеш сохранен, false - если его уже сохранила более поздняя аренда
+     */
+    @Override
+    public boolean storeHash(String archiveName, String hash, long fencingToken) {
+        Long stored = redisTemplate.execute(FENCED_STORE_SCRIPT,
+                List.of(buildKey(archiveName), FENCING_KEY_PREFIX + archiveName),
+                hash, String.valueOf(fencingToken), String.valueOf(TTL.toMillis()));
+        if (stored == null || stored == 0) {
+            log.debug("Хеш {} архива {} не сохранен: токен ограждения {} устарел", hash, archiveName, fencingToken);
+            return false;
+        }
+        log.debug("Сохранен хеш {} для архива {} с токеном ограждения {} и TTL {}", hash, archiveName, fencingToken, TTL);
+        return true;
+    }
+
+    /**
+     * Сохраняет хеши нескольких архивов в Redis в одном конвейере.
+     *
+     * @param hashes хеши архивов по их именам
+     */
+    @Override
+    public void storeHashes(Map<String, String> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        Expiration expiration = Expiration.from(TTL);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            hashes.forEach((archiveName, hash) -> connection.stringCommands().set(
+                    serialize(buildKey(archiveName)),
+                    serialize(hash),
+                    expiration,
+                    RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+        log.debug("Сохранены хеши {} архивов с TTL {}", hashes.size(), TTL);
+    }
+
     /**
      * Проверяет, новый или изменен ли архив.
      *
@@ -65,6 +179,28 @@ public class RedisHashStoreServiceImpl implements HashStoreService {
         return isNewOrChanged;
     }
 
+    /**
+     * Отбирает новые или измененные архивы по сохраненным хешам, полученным одним конвейером.
+     *
+     * @param archives архивы с текущими хешами
+     * @return новые или измененные архивы в исходном порядке
+     */
+    @Override
+    public List<GdeltArchiveInfo> filterNewOrChanged(List<GdeltArchiveInfo> archives) {
+        if (archives.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, String> storedHashes = getStoredHashes(archives.stream()
+                .map(GdeltArchiveInfo::fileName)
+                .toList());
+        List<GdeltArchiveInfo> newOrChanged = archives.stream()
+                .filter(archive -> !archive.hash().equals(storedHashes.get(archive.fileName())))
+                .toList();
+        log.debug("Новых или измененных архивов: {} из {}", newOrChanged.size(), archives.size());
+        return newOrChanged;
+    }
+
     /**
      * Формирует ключ Redis для хеша архива.
      *
@@ -74,4 +210,14 @@ public class RedisHashStoreServiceImpl implements HashStoreService {
     private String buildKey(String archiveName) {
         return KEY_PREFIX + archiveName;
     }
+
+    /**
+     * Сериализует строку для команд соединения Redis.
+     *
+     * @param value строка
+     * @return байты строки
+     */
+    private byte[] serialize(String value) {
+        return redisTemplate.getStringSerializer().serialize(value);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,306 @@
+package com.neighbor.eventmosaic.collector.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * Хеш-таблица с открытой адресацией в отображенном в память файле.
+ * <p>
+ * Ключ - 64-битный отпечаток имени архива, значение - 16 байт MD5-хеша. Слот занимает 32 байта:
+ * {@code [отпечаток][смещение записи в журнале][MD5]}, нулевой отпечаток означает пустой слот.
+ * Имена в таблице не хранятся: совпадение отпечатка подтверждается проверкой, переданной вызывающим
+ * кодом, которая сравнивает имя с записью журнала по смещению. Поэтому архивы с одинаковым отпечатком
+ * занимают разные слоты и не подменяют хеши друг друга.
+ * Коллизии разрешаются линейным пробированием, емкость - степень двойки, заполнение не превышает
+ * половины емкости (при превышении таблица переписывается в файл удвоенной емкости).
+ * Удаление не поддерживается.
+ * <p>
+ * Заголовок файла хранит емкость, количество записей и длину журнала, по которому таблица построена.
+ * Пока таблица открыта, длина журнала в заголовке сброшена в -1; после аварийной остановки
+ * это признак того, что таблицу нужно перестроить по журналу.
+ * Экземпляр не потокобезопасен.
+ */
+public class MappedHashIndex implements Closeable {
+
+    public static final int HASH_SIZE = 16;
+    public static final long UNKNOWN_LOG_LENGTH = -1;
+
+    private static final long MAGIC = 0x454D484153484932L; // "EMHASHI2"
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = Long.BYTES + Long.BYTES + HASH_SIZE;
+    private static final int LOG_OFFSET_IN_SLOT = Long.BYTES;
+    private static final int HASH_OFFSET_IN_SLOT = Long.BYTES + Long.BYTES;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int LOG_LENGTH_OFFSET = 16;
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+    private long committedLogLength;
+
+    private MappedHashIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Открывает таблицу из файла или создает новую, если файла нет или он поврежден.
+     * После открытия таблица помечается как изменяемая (длина журнала в файле сбрасывается).
+     *
+     * @param file            путь к файлу таблицы
+     * @param initialCapacity начальная емкость новой таблицы (округляется до степени двойки)
+     * @return открытая таблица
+     * @throws IOException при ошибках ввода-вывода
+     */
+    public static MappedHashIndex open(Path file, int initialCapacity) throws IOException {
+        MappedHashIndex index = new MappedHashIndex(file);
+        if (!index.mapExisting()) {
+            index.map(file, capacityFor(initialCapacity));
+            index.committedLogLength = UNKNOWN_LOG_LENGTH;
+        }
+        index.writeLogLength(UNKNOWN_LOG_LENGTH);
+        return index;
+    }
+
+    /**
+     * Возвращает длину журнала, по которому была построена таблица при последнем закрытии.
+     *
+     * @return длина журнала или {@link #UNKNOWN_LOG_LENGTH}, если таблица новая или не была закрыта штатно
+     */
+    public long getCommittedLogLength() {
+        return committedLogLength;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Вычисляет отпечаток имени архива (FNV-1a с финальным перемешиванием, никогда не равен нулю).
+     *
+     * @param name имя архива
+     * @return отпечаток
+     */
+    public static long fingerprint(String name) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Ищет хеш по отпечатку имени.
+     *
+     * @param fingerprint отпечаток имени
+     * @param isSameName  проверяет по смещению записи в журнале, что запись относится к искомому имени
+     * @param target      массив из {@link #HASH_SIZE} байт для найденного хеша
+     * @return true, если запись найдена
+     */
+    public boolean get(long fingerprint, LongPredicate isSameName, byte[] target) {
+        int offset = slotOffset(findSlot(fingerprint, isSameName));
+        if (buffer.getLong(offset) == 0) {
+            return false;
+        }
+        buffer.get(offset + HASH_OFFSET_IN_SLOT, target, 0, HASH_SIZE);
+        return true;
+    }
+
+    /**
+     * Добавляет или заменяет хеш для отпечатка имени.
+     *
+     * @param fingerprint отпечаток имени
+     * @param isSameName  проверяет по смещению записи в журнале, что запись относится к тому же имени
+     * @param logOffset   смещение новой записи в журнале
+     * @param hash        {@link #HASH_SIZE} байт хеша
+     * @throws IOException при ошибках ввода-вывода во время расширения таблицы
+     */
+    public void put(long fingerprint, LongPredicate isSameName, long logOffset, byte[] hash) throws IOException {
+        int offset = slotOffset(findSlot(fingerprint, isSameName));
+        if (buffer.getLong(offset) == 0) {
+            if ((size + 1L) * 2 > capacity) {
+                grow();
+                put(fingerprint, isSameName, logOffset, hash);
+                return;
+            }
+            buffer.putLong(offset, fingerprint);
+            buffer.putInt(SIZE_OFFSET, ++size);
+        }
+        buffer.putLong(offset + LOG_OFFSET_IN_SLOT, logOffset);
+        buffer.put(offset + HASH_OFFSET_IN_SLOT, hash, 0, HASH_SIZE);
+    }
+
+    /**
+     * Возвращает смещения записей журнала в порядке слотов таблицы.
+     *
+     * @return смещения записей по одной на архив
+     */
+    public long[] logOffsets() {
+        long[] offsets = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = slotOffset(slot);
+            if (buffer.getLong(offset) != 0) {
+                offsets[i++] = buffer.getLong(offset + LOG_OFFSET_IN_SLOT);
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Заменяет смещения записей журнала после его переписывания.
+     * Между вызовами {@link #logOffsets()} и этим методом таблица не должна меняться.
+     *
+     * @param logOffsets новые смещения в порядке, возвращенном {@link #logOffsets()}
+     */
+    public void relocate(long[] logOffsets) {
+        if (logOffsets.length != size) {
+            throw new IllegalArgumentException("Ожидалось смещений: " + size + ", получено: " + logOffsets.length);
+        }
+        int i = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = slotOffset(slot);
+            if (buffer.getLong(offset) != 0) {
+                buffer.putLong(offset + LOG_OFFSET_IN_SLOT, logOffsets[i++]);
+            }
+        }
+    }
+
+    /**
+     * Удаляет все записи.
+     */
+    public void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            buffer.putLong(slotOffset(slot), 0);
+        }
+        size = 0;
+        buffer.putInt(SIZE_OFFSET, 0);
+    }
+
+    /**
+     * Сбрасывает таблицу на диск и запоминает длину журнала, которому она соответствует.
+     *
+     * @param logLength длина журнала
+     */
+    public void commit(long logLength) {
+        writeLogLength(logLength);
+        committedLogLength = logLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+
+    private boolean mapExisting() throws IOException {
+        if (!Files.exists(file) || Files.size(file) < HEADER_SIZE) {
+            return false;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        int storedCapacity = header.getInt(CAPACITY_OFFSET);
+        boolean valid = header.getLong(0) == MAGIC
+                && storedCapacity > 0
+                && Integer.bitCount(storedCapacity) == 1
+                && Files.size(file) == HEADER_SIZE + (long) storedCapacity * SLOT_SIZE;
+        if (!valid) {
+            channel.close();
+            return false;
+        }
+        capacity = storedCapacity;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        size = buffer.getInt(SIZE_OFFSET);
+        committedLogLength = buffer.getLong(LOG_LENGTH_OFFSET);
+        return true;
+    }
+
+    private void map(Path target, int newCapacity) throws IOException {
+        channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        capacity = newCapacity;
+        size = 0;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        buffer.putLong(0, MAGIC);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(SIZE_OFFSET, 0);
+    }
+
+    /**
+     * Переписывает записи в файл удвоенной емкости и атомарно заменяет им текущий файл.
+     */
+    private void grow() throws IOException {
+        MappedByteBuffer oldBuffer = buffer;
+        FileChannel oldChannel = channel;
+        int oldCapacity = capacity;
+
+        Path resized = file.resolveSibling(file.getFileName() + ".resize");
+        map(resized, oldCapacity * 2);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int oldOffset = HEADER_SIZE + slot * SLOT_SIZE;
+            long fingerprint = oldBuffer.getLong(oldOffset);
+            if (fingerprint != 0) {
+                // Записи в старой таблице различны, поэтому имена не сравниваются: нужен только пустой слот
+                int offset = slotOffset(findSlot(fingerprint, logOffset -> false));
+                buffer.putLong(offset, fingerprint);
+                for (int i = Long.BYTES; i < SLOT_SIZE; i++) {
+                    buffer.put(offset + i, oldBuffer.get(oldOffset + i));
+                }
+                size++;
+            }
+        }
+        buffer.putInt(SIZE_OFFSET, size);
+        writeLogLength(UNKNOWN_LOG_LENGTH);
+
+        oldChannel.close();
+        Files.move(resized, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int findSlot(long fingerprint, LongPredicate isSameName) {
+        int mask = capacity - 1;
+        int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        while (true) {
+            int offset = slotOffset(slot);
+            long stored = buffer.getLong(offset);
+            if (stored == 0
+                    || stored == fingerprint && isSameName.test(buffer.getLong(offset + LOG_OFFSET_IN_SLOT))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void writeLogLength(long logLength) {
+        buffer.putLong(LOG_LENGTH_OFFSET, logLength);
+        buffer.force();
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int capacityFor(int expectedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedCapacity - 1)) << 1;
+        return Math.max(16, capacity);
+    }
+}
@@ -1,5 +1,6 @@
 package com.neighbor.eventmosaic.collector.config;
 
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
 import com.neighbor.eventmosaic.collector.service.FileSystemService;
 import com.neighbor.eventmosaic.collector.service.impl.FileSystemServiceImpl;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -7,6 +8,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -21,7 +23,7 @@ public class TestFileSystemConfig {
     /**
      * Подменяет FileSystemServiceImpl на тестовый.
      * Разница в том, что тестовый сервис не скачивает файлы по url,
-     * а просто создает их в нужном месте.
+     * а просто создает их в нужном месте (или читает локальный файл в потоковом режиме).
      *
      * @return тестовый сервис FileSystemServiceImpl
      */
@@ -30,15 +32,26 @@ public class TestFileSystemConfig {
     public FileSystemService testFileSystemService() {
         return new FileSystemServiceImpl() {
             @Override
-            public Path downloadFile(String url, String targetPath) throws IOException {
+            public DownloadedFile downloadFileWithDigest(String url,
+                                                         String targetPath,
+                                                         long expectedSize,
+                                                         String expectedHash) throws IOException {
                 if (url.startsWith("file://")) {
                     Path source = Paths.get(url.substring(7));
                     Path target = Paths.get(targetPath);
                     Files.createDirectories(target.getParent());
                     Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
-                    return target;
+                    return new DownloadedFile(target, calculateMd5(target));
                 }
-                return super.downloadFile(url, targetPath);
+                return super.downloadFileWithDigest(url, targetPath, expectedSize, expectedHash);
+            }
+
+            @Override
+            public InputStream openDownloadStream(String url) throws IOException {
+                if (url.startsWith("file://")) {
+                    return Files.newInputStream(Paths.get(url.substring(7)));
+                }
+                return super.openDownloadStream(url);
             }
         };
     }
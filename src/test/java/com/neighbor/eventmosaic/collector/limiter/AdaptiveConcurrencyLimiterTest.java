@@ -0,0 +1,91 @@
+package com.neighbor.eventmosaic.collector.limiter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link AdaptiveConcurrencyLimiter}.
+ */
+@DisplayName("Unit-тесты для AdaptiveConcurrencyLimiter")
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    @DisplayName("Не запускает задачи сверх лимита и запускает их из очереди по мере освобождения")
+    void submit_shouldQueueTasksAboveLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 2, 0.5, 1000);
+        List<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+
+        // Act
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(limiter.submit(100, () -> {
+                CompletableFuture<Boolean> task = new CompletableFuture<>();
+                tasks.add(task);
+                return task;
+            }, Boolean::booleanValue));
+        }
+
+        // Assert: две задачи запущены, третья ждет в очереди
+        assertThat(tasks).hasSize(2);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(limiter.getQueued()).isEqualTo(1);
+
+        // Завершение задачи запускает ожидающую
+        tasks.getFirst().complete(true);
+        assertThat(tasks).hasSize(3);
+        assertThat(limiter.getQueued()).isZero();
+        assertThat(results.getFirst()).isCompletedWithValue(true);
+    }
+
+    @Test
+    @DisplayName("Уменьшает лимит мультипликативно при неуспешной задаче")
+    void submit_shouldDecreaseLimitOnFailure() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 16, 0.5, 1000);
+
+        // Act
+        limiter.submit(100, () -> CompletableFuture.completedFuture(false), Boolean::booleanValue);
+        limiter.submit(100, () -> CompletableFuture.failedFuture(new IllegalStateException("Ошибка")), Boolean::booleanValue);
+
+        // Assert
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Увеличивает лимит аддитивно, только если успешные задачи занимают весь лимит")
+    void submit_shouldIncreaseLimitOnlyWhenSaturated() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 4, 0.5, 1000);
+        List<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            limiter.submit(100, () -> {
+                CompletableFuture<Boolean> task = new CompletableFuture<>();
+                tasks.add(task);
+                return task;
+            }, Boolean::booleanValue);
+        }
+
+        // Act: пока есть очередь, каждая завершенная задача освобождает полностью занятый лимит
+        for (int i = 0; i < 6; i++) {
+            tasks.get(i).complete(true);
+        }
+
+        // Assert: 1 -> 2 после первой задачи, далее +1/limit за каждую задачу при заполненном лимите
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(limiter.getInFlight()).isZero();
+
+        // Последовательные задачи не заполняют лимит и не увеличивают его
+        for (int i = 0; i < 10; i++) {
+            limiter.submit(100, () -> CompletableFuture.completedFuture(true), Boolean::booleanValue);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,93 @@
+package com.neighbor.eventmosaic.collector.limiter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link InFlightBytesBudget}.
+ */
+@DisplayName("Unit-тесты для InFlightBytesBudget")
+class InFlightBytesBudgetTest {
+
+    @Test
+    @DisplayName("Не запускает задачи сверх бюджета и запускает их по мере освобождения байтов")
+    void submit_shouldQueueTasksAboveBudget() {
+        // Arrange
+        InFlightBytesBudget budget = new InFlightBytesBudget(100);
+        List<CompletableFuture<String>> tasks = new ArrayList<>();
+
+        // Act
+        CompletableFuture<String> first = budget.submit(60, pendingTask(tasks));
+        budget.submit(30, pendingTask(tasks));
+        budget.submit(50, pendingTask(tasks));
+
+        // Assert: третья задача не помещается в оставшиеся 10 байт
+        assertThat(tasks).hasSize(2);
+        assertThat(budget.getInFlightBytes()).isEqualTo(90);
+        assertThat(budget.getQueued()).isEqualTo(1);
+
+        // Завершение первой задачи освобождает 60 байт
+        tasks.getFirst().complete("url");
+        assertThat(first).isCompletedWithValue("url");
+        assertThat(tasks).hasSize(3);
+        assertThat(budget.getInFlightBytes()).isEqualTo(80);
+        assertThat(budget.getQueued()).isZero();
+    }
+
+    @Test
+    @DisplayName("Не пропускает мелкие задачи вперед ожидающей крупной")
+    void submit_shouldKeepQueueOrder() {
+        // Arrange
+        InFlightBytesBudget budget = new InFlightBytesBudget(100);
+        List<CompletableFuture<String>> tasks = new ArrayList<>();
+        budget.submit(80, pendingTask(tasks));
+
+        // Act
+        budget.submit(50, pendingTask(tasks));
+        budget.submit(10, pendingTask(tasks));
+
+        // Assert: мелкая задача ждет, хотя помещается в свободный остаток
+        assertThat(tasks).hasSize(1);
+        assertThat(budget.getQueued()).isEqualTo(2);
+
+        tasks.getFirst().complete("url");
+        assertThat(tasks).hasSize(3);
+        assertThat(budget.getInFlightBytes()).isEqualTo(60);
+    }
+
+    @Test
+    @DisplayName("Выполняет задачу больше бюджета в одиночку и освобождает бюджет при ошибке")
+    void submit_shouldRunOversizedTaskAloneAndReleaseOnFailure() {
+        // Arrange
+        InFlightBytesBudget budget = new InFlightBytesBudget(100);
+        List<CompletableFuture<String>> tasks = new ArrayList<>();
+
+        // Act
+        CompletableFuture<String> oversized = budget.submit(500, pendingTask(tasks));
+        budget.submit(1, pendingTask(tasks));
+
+        // Assert
+        assertThat(tasks).hasSize(1);
+        assertThat(budget.getInFlightBytes()).isEqualTo(100);
+
+        tasks.getFirst().completeExceptionally(new IllegalStateException("Ошибка"));
+        assertThat(oversized).isCompletedExceptionally();
+        assertThat(tasks).hasSize(2);
+        assertThat(budget.getInFlightBytes()).isEqualTo(1);
+    }
+
+    private Supplier<CompletableFuture<String>> pendingTask(List<CompletableFuture<String>> tasks) {
+        return () -> {
+            CompletableFuture<String> task = new CompletableFuture<>();
+            tasks.add(task);
+            return task;
+        };
+    }
+}
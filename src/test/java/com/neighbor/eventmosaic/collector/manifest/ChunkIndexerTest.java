@@ -0,0 +1,55 @@
+package com.neighbor.eventmosaic.collector.manifest;
+
+import com.neighbor.eventmosaic.collector.dto.ChunkManifest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link ChunkIndexer}.
+ */
+@DisplayName("Unit-тесты для ChunkIndexer")
+class ChunkIndexerTest {
+
+    @Test
+    @DisplayName("Закрывает части на границах строк после достижения целевого размера")
+    void finish_shouldAlignChunksToLineEnds() {
+        // Arrange
+        byte[] content = "aaa\nbbbbbb\ncc\nd\n".getBytes(StandardCharsets.UTF_8);
+        ChunkIndexer indexer = new ChunkIndexer(5);
+
+        // Act: данные передаются фрагментами, не совпадающими с границами строк
+        indexer.update(content, 0, 6);
+        indexer.update(content, 6, 7);
+        indexer.update(content, 13, content.length - 13);
+        ChunkManifest manifest = indexer.finish();
+
+        // Assert
+        assertThat(manifest.fileSize()).isEqualTo(content.length);
+        assertThat(manifest.rowCount()).isEqualTo(4);
+        assertThat(manifest.chunks()).containsExactly(
+                new ChunkManifest.Chunk(0, 11, 2),
+                new ChunkManifest.Chunk(11, 5, 2));
+    }
+
+    @Test
+    @DisplayName("Учитывает последнюю строку без перевода строки")
+    void finish_shouldCountUnterminatedLastLine() {
+        // Arrange
+        byte[] content = "aaaaaa\nbb\ncc".getBytes(StandardCharsets.UTF_8);
+        ChunkIndexer indexer = new ChunkIndexer(4);
+
+        // Act
+        indexer.update(content, 0, content.length);
+        ChunkManifest manifest = indexer.finish();
+
+        // Assert
+        assertThat(manifest.rowCount()).isEqualTo(3);
+        assertThat(manifest.chunks()).containsExactly(
+                new ChunkManifest.Chunk(0, 7, 1),
+                new ChunkManifest.Chunk(7, 5, 2));
+    }
+}
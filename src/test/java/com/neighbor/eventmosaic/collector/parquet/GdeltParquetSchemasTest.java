@@ -0,0 +1,36 @@
+package com.neighbor.eventmosaic.collector.parquet;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link GdeltParquetSchemas}.
+ */
+@DisplayName("Unit-тесты для GdeltParquetSchemas")
+class GdeltParquetSchemasTest {
+
+    @Test
+    @DisplayName("Схемы содержат по одному полю на каждый столбец CSV")
+    void forType_shouldMatchCsvColumnCount() {
+        // Act & Assert
+        assertThat(GdeltParquetSchemas.forType(GdeltArchiveType.TRANSLATION_EXPORT).getFieldCount()).isEqualTo(61);
+        assertThat(GdeltParquetSchemas.forType(GdeltArchiveType.TRANSLATION_MENTIONS).getFieldCount()).isEqualTo(16);
+    }
+
+    @Test
+    @DisplayName("Поля схемы событий следуют порядку столбцов GDELT")
+    void eventSchema_shouldKeepColumnOrder() {
+        // Act & Assert
+        assertThat(GdeltParquetSchemas.EVENT.getFieldName(0)).isEqualTo("GlobalEventID");
+        assertThat(GdeltParquetSchemas.EVENT.getFieldName(5)).isEqualTo("Actor1Code");
+        assertThat(GdeltParquetSchemas.EVENT.getFieldName(25)).isEqualTo("IsRootEvent");
+        assertThat(GdeltParquetSchemas.EVENT.getFieldName(35)).isEqualTo("Actor1Geo_Type");
+        assertThat(GdeltParquetSchemas.EVENT.getFieldName(60)).isEqualTo("SOURCEURL");
+        assertThat(GdeltParquetSchemas.EVENT.getType("AvgTone").asPrimitiveType().getPrimitiveTypeName())
+                .isEqualTo(PrimitiveTypeName.DOUBLE);
+    }
+}
@@ -0,0 +1,59 @@
+package com.neighbor.eventmosaic.collector.resolver;
+
+import com.neighbor.eventmosaic.collector.config.KafkaTopicProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit-тесты для {@link GdeltTopicResolver}.
+ */
+@DisplayName("Unit-тесты для GdeltTopicResolver")
+class GdeltTopicResolverTest {
+
+    private static final String EXPORT_ARCHIVE = "20250421073000.translation.export.CSV.zip";
+    private static final String MENTIONS_ARCHIVE = "20250421073000.translation.mentions.CSV.zip";
+    private static final String FILE_URL = "http://minio:9000/gdelt/20250421073000.translation.mentions.CSV";
+
+    private GdeltTopicResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        KafkaTopicProperties properties = new KafkaTopicProperties();
+        properties.setCollectorEvent("event-topic");
+        properties.setCollectorMention("mention-topic");
+        properties.setCollectorEventParquet("event-parquet-topic");
+        properties.setCollectorMentionParquet("mention-parquet-topic");
+        resolver = new GdeltTopicResolver(properties);
+    }
+
+    @Test
+    @DisplayName("Направляет CSV-файлы и их части в топик типа архива")
+    void resolveTopic_shouldReturnCsvTopicForCsvFiles() {
+        // Act & Assert
+        assertThat(resolver.resolveTopic(MENTIONS_ARCHIVE, FILE_URL)).isEqualTo("mention-topic");
+        assertThat(resolver.resolveTopic(MENTIONS_ARCHIVE, FILE_URL + ".part-00001")).isEqualTo("mention-topic");
+        assertThat(resolver.resolveTopic(MENTIONS_ARCHIVE, FILE_URL + ".gz")).isEqualTo("mention-topic");
+        assertThat(resolver.resolveTopic(EXPORT_ARCHIVE)).isEqualTo("event-topic");
+    }
+
+    @Test
+    @DisplayName("Направляет Parquet-файлы, в том числе сжатые, в отдельный топик типа архива")
+    void resolveTopic_shouldReturnParquetTopicForParquetFiles() {
+        // Act & Assert
+        assertThat(resolver.resolveTopic(MENTIONS_ARCHIVE, FILE_URL + ".parquet")).isEqualTo("mention-parquet-topic");
+        assertThat(resolver.resolveTopic(MENTIONS_ARCHIVE, FILE_URL + ".parquet.zst")).isEqualTo("mention-parquet-topic");
+        assertThat(resolver.resolveTopic(EXPORT_ARCHIVE, FILE_URL + ".parquet")).isEqualTo("event-parquet-topic");
+    }
+
+    @Test
+    @DisplayName("Отклоняет архив неизвестного типа")
+    void resolveTopic_shouldRejectUnknownArchiveType() {
+        // Act & Assert
+        assertThatThrownBy(() -> resolver.resolveTopic("gdelt-archive.zip", FILE_URL + ".parquet"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
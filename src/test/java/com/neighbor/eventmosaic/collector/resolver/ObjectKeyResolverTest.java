@@ -0,0 +1,65 @@
+package com.neighbor.eventmosaic.collector.resolver;
+
+import com.neighbor.eventmosaic.collector.dto.ObjectKeyLayout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link ObjectKeyResolver}.
+ */
+@DisplayName("Unit-тесты для ObjectKeyResolver")
+class ObjectKeyResolverTest {
+
+    private static final String ARCHIVE_NAME = "20250421073000.translation.export.CSV.zip";
+    private static final String FILE_NAME = "20250421073000.translation.export.CSV";
+
+    @Test
+    @DisplayName("Формирует ключ с префиксом времени и типа архива")
+    void resolveObjectKey_shouldBuildTimePartitionedKey() {
+        // Arrange
+        ObjectKeyResolver resolver = createResolver(ObjectKeyLayout.TIME_PARTITIONED);
+
+        // Act
+        String key = resolver.resolveObjectKey(ARCHIVE_NAME, FILE_NAME);
+
+        // Assert
+        assertThat(key).isEqualTo("2025/04/21/07/translation-export/" + FILE_NAME);
+    }
+
+    @Test
+    @DisplayName("Пропускает сегменты, которые не удалось определить по именам файлов")
+    void resolveObjectKey_shouldSkipUnknownSegments() {
+        // Arrange
+        ObjectKeyResolver resolver = createResolver(ObjectKeyLayout.TIME_PARTITIONED);
+
+        // Act & Assert
+        assertThat(resolver.resolveObjectKey("gdelt-archive.zip", FILE_NAME))
+                .isEqualTo("2025/04/21/07/" + FILE_NAME);
+        assertThat(resolver.resolveObjectKey(ARCHIVE_NAME, "data.csv"))
+                .isEqualTo("2025/04/21/07/translation-export/data.csv");
+        assertThat(resolver.resolveObjectKey("archive.zip", "data.csv"))
+                .isEqualTo("data.csv");
+    }
+
+    @Test
+    @DisplayName("Возвращает имя файла при плоской схеме ключей")
+    void resolveObjectKey_shouldReturnFileNameForFlatLayout() {
+        // Arrange
+        ObjectKeyResolver resolver = createResolver(ObjectKeyLayout.FLAT);
+
+        // Act
+        String key = resolver.resolveObjectKey(ARCHIVE_NAME, FILE_NAME);
+
+        // Assert
+        assertThat(key).isEqualTo(FILE_NAME);
+    }
+
+    private ObjectKeyResolver createResolver(ObjectKeyLayout layout) {
+        ObjectKeyResolver resolver = new ObjectKeyResolver();
+        ReflectionTestUtils.setField(resolver, "layout", layout);
+        return resolver;
+    }
+}
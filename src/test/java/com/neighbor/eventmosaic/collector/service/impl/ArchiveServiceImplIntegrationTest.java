@@ -1,10 +1,13 @@
 package com.neighbor.eventmosaic.collector.service.impl;
 
 import com.neighbor.eventmosaic.collector.config.TestFileSystemConfig;
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveProcessResult;
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
 import com.neighbor.eventmosaic.collector.event.ArchiveExtractedEvent;
 import com.neighbor.eventmosaic.collector.scheduler.GdeltScheduler;
+import com.neighbor.eventmosaic.collector.service.ArchiveLeaseService;
 import com.neighbor.eventmosaic.collector.service.ArchiveService;
 import com.neighbor.eventmosaic.collector.service.FileSystemService;
 import com.neighbor.eventmosaic.collector.service.HashStoreService;
@@ -34,6 +37,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -68,6 +72,7 @@ class ArchiveServiceImplIntegrationTest implements RedisTestContainerInitializer
 
     private static final String TEST_ARCHIVE_FILENAME = "gdelt-archive.zip";
     private static final String ACTUAL_FILENAME_IN_ARCHIVE = "20250421073000.translation.mentions.CSV";
+    private static final ArchiveLease TEST_LEASE = new ArchiveLease(TEST_ARCHIVE_FILENAME, "test-replica:1", 1);
 
     @TempDir
     Path tempDownloadDir;
@@ -90,6 +95,9 @@ class ArchiveServiceImplIntegrationTest implements RedisTestContainerInitializer
     @MockitoBean
     private MinioStorageService mockMinioStorageService;
 
+    @MockitoBean
+    private ArchiveLeaseService mockArchiveLeaseService;
+
     @Mock
     private ApplicationEventPublisher mockEventPublisher;
 
@@ -135,8 +143,9 @@ class ArchiveServiceImplIntegrationTest implements RedisTestContainerInitializer
         // Arrange
         String expectedFileUrl = "http://minio-test-host/test-bucket/" + ACTUAL_FILENAME_IN_ARCHIVE;
 
-        when(mockMinioStorageService.uploadFile(anyString(), any(Path.class)))
-                .thenReturn(expectedFileUrl);
+        when(mockMinioStorageService.uploadFileAsync(anyString(), any(Path.class), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(new UploadedObject(expectedFileUrl, true)));
+        when(mockArchiveLeaseService.findHeldLease(TEST_ARCHIVE_FILENAME)).thenReturn(Optional.of(TEST_LEASE));
 
         // Act
         CompletableFuture<GdeltArchiveProcessResult> future = archiveService.processArchiveAsync(testArchiveInfo);
@@ -149,7 +158,7 @@ class ArchiveServiceImplIntegrationTest implements RedisTestContainerInitializer
                 .containsExactly(expectedFileUrl);
 
         verify(mockMinioStorageService, times(1))
-                .uploadFile(eq(ACTUAL_FILENAME_IN_ARCHIVE), any(Path.class));
+                .uploadFileAsync(eq(ACTUAL_FILENAME_IN_ARCHIVE), any(Path.class), anyString());
 
         ArgumentCaptor<ArchiveExtractedEvent> eventCaptor = ArgumentCaptor.forClass(ArchiveExtractedEvent.class);
         verify(mockEventPublisher, times(1)).publishEvent(eventCaptor.capture());
@@ -185,7 +194,7 @@ class ArchiveServiceImplIntegrationTest implements RedisTestContainerInitializer
         assertTrue(result.errorMessage().contains("не совпадает"),
                 "Сообщение об ошибке должно содержать информацию о несовпадении хеша");
 
-        verify(mockMinioStorageService, never()).uploadFile(anyString(), any(Path.class));
+        verify(mockMinioStorageService, never()).uploadFileAsync(anyString(), any(Path.class), anyString());
         verify(mockMinioStorageService, never()).deleteObject(anyString());
 
         String storedHash = hashStoreService.getStoredHash(testArchiveInfo.fileName());
@@ -193,4 +202,50 @@ class ArchiveServiceImplIntegrationTest implements RedisTestContainerInitializer
 
         verify(mockEventPublisher, never()).publishEvent(any());
     }
+
+    @Test
+    @DisplayName("При потере аренды архива не должно публиковаться событие и не должен сохраняться хеш")
+    void processArchiveAsync_LeaseLost_ShouldNotPublishEventOrStoreHash() throws Exception {
+        // Arrange: файлы загружены, но к моменту фиксации архив арендовала другая реплика
+        String expectedFileUrl = "http://minio-test-host/test-bucket/" + ACTUAL_FILENAME_IN_ARCHIVE;
+
+        when(mockMinioStorageService.uploadFileAsync(anyString(), any(Path.class), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(new UploadedObject(expectedFileUrl, true)));
+        when(mockArchiveLeaseService.findHeldLease(TEST_ARCHIVE_FILENAME)).thenReturn(Optional.empty());
+
+        // Act
+        CompletableFuture<GdeltArchiveProcessResult> future = archiveService.processArchiveAsync(testArchiveInfo);
+        GdeltArchiveProcessResult result = future.get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertFalse(result.isSuccess(), "Результат обработки должен быть неуспешным");
+        assertTrue(result.errorMessage().contains("Аренда архива"),
+                "Сообщение об ошибке должно содержать информацию о потере аренды");
+
+        verify(mockEventPublisher, never()).publishEvent(any());
+        verify(mockMinioStorageService, never()).deleteObject(anyString());
+
+        String storedHash = hashStoreService.getStoredHash(testArchiveInfo.fileName());
+        assertNull(storedHash, "Хеш не должен быть сохранен в Redis");
+    }
+
+    @Test
+    @DisplayName("Если аренду потеряли после проверки и архив зафиксировала более поздняя аренда, хеш не должен перезаписываться")
+    void processArchiveAsync_LaterLeaseCommitted_ShouldNotOverwriteHash() throws Exception {
+        // Arrange: реплика с более поздней арендой (токен 5) уже сохранила хеш архива
+        String expectedFileUrl = "http://minio-test-host/test-bucket/" + ACTUAL_FILENAME_IN_ARCHIVE;
+        hashStoreService.storeHash(TEST_ARCHIVE_FILENAME, "later-lease-hash", 5);
+
+        when(mockMinioStorageService.uploadFileAsync(anyString(), any(Path.class), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(new UploadedObject(expectedFileUrl, true)));
+        when(mockArchiveLeaseService.findHeldLease(TEST_ARCHIVE_FILENAME)).thenReturn(Optional.of(TEST_LEASE));
+
+        // Act
+        GdeltArchiveProcessResult result = archiveService.processArchiveAsync(testArchiveInfo).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(result.isSuccess(), "Файлы загружены, и событие опубликовано до сохранения хеша");
+        assertEquals("later-lease-hash", hashStoreService.getStoredHash(TEST_ARCHIVE_FILENAME),
+                "Хеш более поздней аренды не должен перезаписываться");
+    }
 }
\ No newline at end of file
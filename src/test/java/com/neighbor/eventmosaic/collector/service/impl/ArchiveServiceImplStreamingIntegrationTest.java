@@ -0,0 +1,193 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.config.TestFileSystemConfig;
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveProcessResult;
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
+import com.neighbor.eventmosaic.collector.event.ArchiveExtractedEvent;
+import com.neighbor.eventmosaic.collector.scheduler.GdeltScheduler;
+import com.neighbor.eventmosaic.collector.service.ArchiveLeaseService;
+import com.neighbor.eventmosaic.collector.service.ArchiveService;
+import com.neighbor.eventmosaic.collector.service.FileSystemService;
+import com.neighbor.eventmosaic.collector.service.HashStoreService;
+import com.neighbor.eventmosaic.collector.service.MinioStorageService;
+import com.neighbor.eventmosaic.collector.testcontainer.RedisTestContainerInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Интеграционные тесты для {@link ArchiveServiceImpl} в потоковом режиме
+ * ({@code gdelt.processing.streaming-enabled=true}).
+ * <p>
+ * Проверяют обработку архива за один проход и откат объектов, записанных в MinIO,
+ * когда несовпадение хеша обнаруживается уже после их загрузки.
+ * <p>
+ * Тесты используют Testcontainers для запуска Redis в контейнере.
+ */
+@SpringBootTest(properties = "gdelt.processing.streaming-enabled=true")
+@Testcontainers
+@DisplayName("Интеграционные тесты для ArchiveServiceImpl в потоковом режиме")
+@Import(TestFileSystemConfig.class)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles("test")
+class ArchiveServiceImplStreamingIntegrationTest implements RedisTestContainerInitializer {
+
+    private static final String TEST_ARCHIVE_FILENAME = "gdelt-archive.zip";
+    private static final String ACTUAL_FILENAME_IN_ARCHIVE = "20250421073000.translation.mentions.CSV";
+    private static final String EXPECTED_FILE_URL = "http://minio-test-host/test-bucket/" + ACTUAL_FILENAME_IN_ARCHIVE;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private HashStoreService hashStoreService;
+
+    @Autowired
+    private FileSystemService fileSystemService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @MockitoBean
+    private GdeltScheduler gdeltScheduler;
+
+    @MockitoBean
+    private MinioStorageService mockMinioStorageService;
+
+    @MockitoBean
+    private ArchiveLeaseService mockArchiveLeaseService;
+
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+
+    private GdeltArchiveInfo testArchiveInfo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Архив читается потоком прямо из ресурсов теста, без копии на диске
+        Path sourceArchive = Paths.get("src/test/resources/data/", TEST_ARCHIVE_FILENAME);
+
+        ReflectionTestUtils.setField(archiveService, "eventPublisher", mockEventPublisher);
+
+        // Очищаем Redis перед каждым тестом
+        Objects.requireNonNull(redisTemplate.getConnectionFactory())
+                .getConnection()
+                .serverCommands()
+                .flushDb();
+
+        testArchiveInfo = new GdeltArchiveInfo(
+                TEST_ARCHIVE_FILENAME,
+                "file://" + sourceArchive.toAbsolutePath(),
+                fileSystemService.calculateMd5(sourceArchive),
+                sourceArchive.toFile().length()
+        );
+    }
+
+    @Test
+    @DisplayName("При успешной потоковой обработке файлы должны загрузиться в MinIO, а событие опубликоваться после проверки хеша")
+    void processArchiveAsync_StreamingSuccess_ShouldUploadAndPublishEvent() throws Exception {
+        // Arrange
+        when(mockMinioStorageService.uploadStream(eq(ACTUAL_FILENAME_IN_ARCHIVE), any(InputStream.class)))
+                .thenReturn(new UploadedObject(EXPECTED_FILE_URL, true));
+        when(mockArchiveLeaseService.findHeldLease(TEST_ARCHIVE_FILENAME))
+                .thenReturn(Optional.of(new ArchiveLease(TEST_ARCHIVE_FILENAME, "test-replica:1", 1)));
+
+        // Act
+        GdeltArchiveProcessResult result = archiveService.processArchiveAsync(testArchiveInfo).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertTrue(result.isSuccess(), "Результат обработки должен быть успешным");
+        assertThat(result.extractedFiles()).containsExactly(EXPECTED_FILE_URL);
+
+        verify(mockMinioStorageService, times(1)).uploadStream(eq(ACTUAL_FILENAME_IN_ARCHIVE), any(InputStream.class));
+        verify(mockMinioStorageService, never()).uploadFileAsync(anyString(), any(Path.class), any());
+        verify(mockMinioStorageService, never()).deleteObject(anyString());
+
+        ArgumentCaptor<ArchiveExtractedEvent> eventCaptor = ArgumentCaptor.forClass(ArchiveExtractedEvent.class);
+        verify(mockEventPublisher, times(1)).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().extractedFiles()).containsExactly(EXPECTED_FILE_URL);
+
+        assertEquals(testArchiveInfo.hash(), hashStoreService.getStoredHash(TEST_ARCHIVE_FILENAME),
+                "Хеш должен быть сохранен в Redis");
+    }
+
+    @Test
+    @DisplayName("При несовпадении хеша после загрузки записанные объекты должны удаляться, событие не публикуется")
+    void processArchiveAsync_StreamingHashMismatch_ShouldRollBackWrittenObjects() throws Exception {
+        // Arrange: хеш проверяется только после того, как файл уже выгружен в MinIO
+        GdeltArchiveInfo archiveWithInvalidHash = withInvalidHash(testArchiveInfo);
+        when(mockMinioStorageService.uploadStream(eq(ACTUAL_FILENAME_IN_ARCHIVE), any(InputStream.class)))
+                .thenReturn(new UploadedObject(EXPECTED_FILE_URL, true));
+        when(mockMinioStorageService.getObjectName(EXPECTED_FILE_URL)).thenReturn(ACTUAL_FILENAME_IN_ARCHIVE);
+
+        // Act
+        GdeltArchiveProcessResult result = archiveService.processArchiveAsync(archiveWithInvalidHash).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertFalse(result.isSuccess(), "Результат обработки должен быть неуспешным");
+        assertTrue(result.errorMessage().contains("не совпадает"),
+                "Сообщение об ошибке должно содержать информацию о несовпадении хеша");
+
+        verify(mockMinioStorageService, times(1)).deleteObject(ACTUAL_FILENAME_IN_ARCHIVE);
+        verify(mockEventPublisher, never()).publishEvent(any());
+        verify(mockArchiveLeaseService, never()).findHeldLease(anyString());
+        assertNull(hashStoreService.getStoredHash(TEST_ARCHIVE_FILENAME), "Хеш не должен быть сохранен в Redis");
+    }
+
+    @Test
+    @DisplayName("При несовпадении хеша объекты, загрузка которых была пропущена, не должны удаляться")
+    void processArchiveAsync_StreamingHashMismatch_ShouldKeepSkippedObjects() throws Exception {
+        // Arrange: объект с тем же содержимым записан предыдущей обработкой
+        GdeltArchiveInfo archiveWithInvalidHash = withInvalidHash(testArchiveInfo);
+        when(mockMinioStorageService.uploadStream(eq(ACTUAL_FILENAME_IN_ARCHIVE), any(InputStream.class)))
+                .thenReturn(new UploadedObject(EXPECTED_FILE_URL, false));
+
+        // Act
+        GdeltArchiveProcessResult result = archiveService.processArchiveAsync(archiveWithInvalidHash).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertFalse(result.isSuccess(), "Результат обработки должен быть неуспешным");
+        verify(mockMinioStorageService, never()).deleteObject(anyString());
+        verify(mockEventPublisher, never()).publishEvent(any());
+    }
+
+    private GdeltArchiveInfo withInvalidHash(GdeltArchiveInfo archive) {
+        return new GdeltArchiveInfo(archive.fileName(), archive.url(), "invalid_hash_value", archive.size());
+    }
+}
@@ -0,0 +1,93 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link CachingHashStoreServiceImpl}.
+ */
+@DisplayName("Unit-тесты для CachingHashStoreServiceImpl")
+@ExtendWith(MockitoExtension.class)
+class CachingHashStoreServiceImplTest {
+
+    private static final String ARCHIVE_NAME = "20250421073000.translation.export.CSV.zip";
+
+    @Mock
+    private RedisHashStoreServiceImpl delegate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private MeterRegistry meterRegistry;
+    private CachingHashStoreServiceImpl hashStoreService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        hashStoreService = new CachingHashStoreServiceImpl(delegate, redisTemplate, listenerContainer, meterRegistry);
+        ReflectionTestUtils.setField(hashStoreService, "maxEntries", 100);
+        ReflectionTestUtils.setField(hashStoreService, "ttlMillis", 60_000L);
+        ReflectionTestUtils.invokeMethod(hashStoreService, "initializeCache");
+    }
+
+    @Test
+    @DisplayName("Повторная проверка архивов выполняется без обращения к Redis")
+    void filterNewOrChanged_shouldServeRepeatedChecksFromCache() {
+        // Arrange
+        List<GdeltArchiveInfo> archives = List.of(new GdeltArchiveInfo(ARCHIVE_NAME, "url", "hash1", 1));
+        when(delegate.getStoredHashes(List.of(ARCHIVE_NAME))).thenReturn(Map.of(ARCHIVE_NAME, "hash1"));
+
+        // Act
+        List<GdeltArchiveInfo> first = hashStoreService.filterNewOrChanged(archives);
+        List<GdeltArchiveInfo> second = hashStoreService.filterNewOrChanged(archives);
+
+        // Assert
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        verify(delegate, times(1)).getStoredHashes(any());
+        assertThat(meterRegistry.get("hash.store.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("hash.store.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Обновляет запись по сообщению от другой реплики")
+    void onHashUpdate_shouldUpdateCachedHash() {
+        // Arrange
+        DefaultMessage message = new DefaultMessage(
+                CachingHashStoreServiceImpl.UPDATES_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                ("hash2:" + ARCHIVE_NAME).getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        hashStoreService.onHashUpdate(message, null);
+
+        // Assert
+        assertThat(hashStoreService.isNewOrChanged(ARCHIVE_NAME, "hash2")).isFalse();
+        assertThat(hashStoreService.isNewOrChanged(ARCHIVE_NAME, "hash1")).isTrue();
+        verifyNoInteractions(delegate);
+    }
+}
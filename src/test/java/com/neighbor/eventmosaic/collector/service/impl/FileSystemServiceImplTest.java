@@ -3,17 +3,27 @@ package com.neighbor.eventmosaic.collector.service.impl;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+import com.neighbor.eventmosaic.collector.dto.ExtractedFile;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -145,6 +155,7 @@ class FileSystemServiceImplTest {
 
         // Assert
         assertThat(extractedFiles)
+                .extracting(ExtractedFile::path)
                 .isNotEmpty()
                 .allSatisfy(path -> assertThat(Files.exists(path)).isTrue())
                 .anyMatch(p -> p.getFileName().toString().equals("file1.txt"))
@@ -168,6 +179,76 @@ class FileSystemServiceImplTest {
                 .hasMessageContaining("Zip Slip");
     }
 
+    @Test
+    @DisplayName("extractZipFile: параллельно распаковывает записи с сохранением порядка центрального каталога")
+    void extractZipFile_shouldExtractEntriesInParallel() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(fileSystemService, "extractParallelism", 2);
+        Path zip = tempDir.resolve("multi.zip");
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("a.csv", "a".repeat(10_000));
+        entries.put("nested/b.csv", "b".repeat(20_000));
+        entries.put("c.csv", "c");
+        createZip(zip, entries);
+        Path extractDir = tempDir.resolve("multi-unzip");
+
+        // Act
+        List<ExtractedFile> extractedFiles = fileSystemService.extractZipFile(zip, extractDir);
+
+        // Assert
+        assertThat(extractedFiles)
+                .extracting(ExtractedFile::path)
+                .containsExactly(
+                        extractDir.toAbsolutePath().resolve("a.csv"),
+                        extractDir.toAbsolutePath().resolve("nested/b.csv"),
+                        extractDir.toAbsolutePath().resolve("c.csv"));
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            assertThat(Files.readString(extractDir.resolve(entry.getKey())))
+                    .isEqualTo(entry.getValue());
+        }
+    }
+
+    @Test
+    @DisplayName("extractZipFile: вычисляет MD5-хеш содержимого каждого файла при распаковке")
+    void extractZipFile_shouldCalculateContentHashes() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(fileSystemService, "extractParallelism", 2);
+        Path zip = tempDir.resolve("hashes.zip");
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("a.csv", "a".repeat(50_000));
+        entries.put("b.csv", "b");
+        createZip(zip, entries);
+        Path extractDir = tempDir.resolve("hashes-unzip");
+
+        // Act
+        List<ExtractedFile> extractedFiles = fileSystemService.extractZipFile(zip, extractDir);
+
+        // Assert
+        assertThat(extractedFiles).hasSize(2);
+        for (ExtractedFile extractedFile : extractedFiles) {
+            assertThat(extractedFile.hash())
+                    .isEqualTo(fileSystemService.calculateMd5(extractedFile.path()));
+        }
+    }
+
+    @Test
+    @DisplayName("extractZipFile: проверяет пути всех записей до записи файлов на диск")
+    void extractZipFile_shouldValidateAllEntriesBeforeWriting() throws IOException {
+        // Arrange
+        Path zip = tempDir.resolve("late-slip.zip");
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("good.csv", "data");
+        entries.put("../evil.txt", "evil");
+        createZip(zip, entries);
+        Path extractDir = tempDir.resolve("late-slip-unzip");
+
+        // Act & Assert
+        assertThatThrownBy(() -> fileSystemService.extractZipFile(zip, extractDir))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Zip Slip");
+        assertThat(extractDir.resolve("good.csv")).doesNotExist();
+    }
+
     @Test
     @DisplayName("extractZipFile: корректно обрабатывает пустой архив")
     void extractZipFile_shouldHandleEmptyZip() throws IOException {
@@ -176,13 +257,54 @@ class FileSystemServiceImplTest {
         Path extractDir = tempDir.resolve("empty-unzip");
 
         // Act
-        List<Path> extractedFiles = fileSystemService.extractZipFile(emptyZip, extractDir);
+        List<ExtractedFile> extractedFiles = fileSystemService.extractZipFile(emptyZip, extractDir);
 
         // Assert
         assertThat(extractedFiles)
                 .isEmpty();
     }
 
+    @Test
+    @DisplayName("extractZipStream: передает файлы обработчику и возвращает MD5 всего архива")
+    void extractZipStream_shouldHandleEntriesAndReturnArchiveHash() throws IOException {
+        // Arrange
+        Path zip = Path.of("src/test/resources/data/simple.zip");
+        String expectedHash = fileSystemService.calculateMd5(zip);
+        Map<String, String> handledEntries = new HashMap<>();
+
+        // Act
+        String actualHash;
+        try (InputStream zipStream = Files.newInputStream(zip)) {
+            actualHash = fileSystemService.extractZipStream(zipStream, (entryName, entryStream) ->
+                    handledEntries.put(entryName, new String(entryStream.readAllBytes(), StandardCharsets.UTF_8)));
+        }
+
+        // Assert
+        assertThat(actualHash)
+                .as("Хеш потока должен совпадать с хешем файла архива")
+                .isEqualTo(expectedHash);
+        assertThat(handledEntries)
+                .containsEntry("file1.txt", "Hello from file1")
+                .containsKey("dir/file2.txt");
+    }
+
+    @Test
+    @DisplayName("extractZipStream: выбрасывает IOException при попытке Zip Slip")
+    void extractZipStream_shouldThrowIOExceptionOnZipSlip() {
+        // Arrange
+        Path zipSlip = Path.of("src/test/resources/data/zip-slip.zip");
+
+        // Act & Assert
+        assertThatThrownBy(() -> {
+            try (InputStream zipStream = Files.newInputStream(zipSlip)) {
+                fileSystemService.extractZipStream(zipStream, (entryName, entryStream) -> {
+                });
+            }
+        })
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Zip Slip");
+    }
+
     @Test
     @DisplayName("downloadFile: успешно скачивает файл по HTTP")
     void downloadFile_shouldDownloadFileSuccessfully() throws IOException {
@@ -210,6 +332,182 @@ class FileSystemServiceImplTest {
         assertThat(Files.readString(result)).isEqualTo(fileContent);
     }
 
+    @Test
+    @DisplayName("downloadFileWithDigest: вычисляет MD5 во время загрузки")
+    void downloadFileWithDigest_shouldReturnHashOfDownloadedContent() throws IOException {
+        // Arrange
+        wireMockServer = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        wireMockServer.start();
+
+        String fileContent = "Hello, GDELT!";
+        String filePath = "/archive.zip";
+
+        wireMockServer.stubFor(
+                WireMock.get(WireMock.urlEqualTo(filePath))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(200)
+                                .withBody(fileContent))
+        );
+        String url = "http://localhost:" + wireMockServer.port() + filePath;
+        Path target = tempDir.resolve("archive.zip");
+
+        // Act
+        DownloadedFile result = fileSystemService.downloadFileWithDigest(url, target.toString(), fileContent.length(), null);
+
+        // Assert
+        assertThat(Files.readString(result.path())).isEqualTo(fileContent);
+        assertThat(result.hash())
+                .isEqualToIgnoringCase("8e8ac5e9b5d7048e9de0d2e11c5581d8")
+                .isEqualTo(fileSystemService.calculateMd5(result.path()));
+    }
+
+    @Test
+    @DisplayName("downloadFileWithDigest: загружает файл параллельными Range-сегментами")
+    void downloadFileWithDigest_shouldDownloadInSegmentsWhenRangeSupported() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(fileSystemService, "segmentCount", 2);
+        ReflectionTestUtils.setField(fileSystemService, "minSegmentSize", 4L);
+
+        wireMockServer = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        wireMockServer.start();
+
+        String fileContent = "0123456789abcdefghij";
+        String filePath = "/segmented.zip";
+
+        wireMockServer.stubFor(
+                WireMock.get(WireMock.urlEqualTo(filePath))
+                        .withHeader("Range", WireMock.equalTo("bytes=0-9"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(206)
+                                .withHeader("Content-Range", "bytes 0-9/20")
+                                .withBody(fileContent.substring(0, 10)))
+        );
+        wireMockServer.stubFor(
+                WireMock.get(WireMock.urlEqualTo(filePath))
+                        .withHeader("Range", WireMock.equalTo("bytes=10-19"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(206)
+                                .withHeader("Content-Range", "bytes 10-19/20")
+                                .withBody(fileContent.substring(10)))
+        );
+        String url = "http://localhost:" + wireMockServer.port() + filePath;
+        Path target = tempDir.resolve("segmented.zip");
+
+        // Act
+        DownloadedFile result = fileSystemService.downloadFileWithDigest(url, target.toString(), fileContent.length(), null);
+
+        // Assert
+        assertThat(Files.readString(result.path())).isEqualTo(fileContent);
+        assertThat(result.hash()).isEqualTo(fileSystemService.calculateMd5(result.path()));
+        wireMockServer.verify(2, WireMock.getRequestedFor(WireMock.urlEqualTo(filePath)));
+    }
+
+    @Test
+    @DisplayName("downloadFileWithDigest: загружает файл одним потоком, если сервер игнорирует Range")
+    void downloadFileWithDigest_shouldFallBackToSingleStreamWhenRangeIgnored() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(fileSystemService, "segmentCount", 2);
+        ReflectionTestUtils.setField(fileSystemService, "minSegmentSize", 4L);
+
+        wireMockServer = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        wireMockServer.start();
+
+        String fileContent = "0123456789abcdefghij";
+        String filePath = "/no-range.zip";
+
+        wireMockServer.stubFor(
+                WireMock.get(WireMock.urlEqualTo(filePath))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(200)
+                                .withBody(fileContent))
+        );
+        String url = "http://localhost:" + wireMockServer.port() + filePath;
+        Path target = tempDir.resolve("no-range.zip");
+
+        // Act
+        DownloadedFile result = fileSystemService.downloadFileWithDigest(url, target.toString(), fileContent.length(), null);
+
+        // Assert
+        assertThat(Files.readString(result.path())).isEqualTo(fileContent);
+        assertThat(result.hash()).isEqualTo(fileSystemService.calculateMd5(result.path()));
+        wireMockServer.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo(filePath)));
+    }
+
+    @Test
+    @DisplayName("downloadFileWithDigest: продолжает прерванную загрузку по файлу состояния")
+    void downloadFileWithDigest_shouldResumePartialDownload() throws IOException {
+        // Arrange
+        wireMockServer = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        wireMockServer.start();
+
+        String fileContent = "0123456789abcdefghij";
+        String expectedHash = "644be06dfc54061fd1e67f5ebbabcd58";
+        String filePath = "/resumable.zip";
+        Path target = tempDir.resolve("resumable.zip");
+        Path statePath = tempDir.resolve("resumable.zip.download");
+
+        // Первые 10 байт уже загружены в предыдущей попытке
+        Files.writeString(target, fileContent.substring(0, 10));
+        Files.writeString(statePath, """
+                expectedSize=20
+                expectedHash=%s
+                bytesReceived=10
+                """.formatted(expectedHash));
+
+        wireMockServer.stubFor(
+                WireMock.get(WireMock.urlEqualTo(filePath))
+                        .withHeader("Range", WireMock.equalTo("bytes=10-"))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(206)
+                                .withHeader("Content-Range", "bytes 10-19/20")
+                                .withBody(fileContent.substring(10)))
+        );
+        String url = "http://localhost:" + wireMockServer.port() + filePath;
+
+        // Act
+        DownloadedFile result = fileSystemService.downloadFileWithDigest(url, target.toString(), fileContent.length(), expectedHash);
+
+        // Assert
+        assertThat(Files.readString(result.path())).isEqualTo(fileContent);
+        assertThat(result.hash()).isEqualTo(fileSystemService.calculateMd5(result.path()));
+        assertThat(Files.exists(statePath))
+                .as("Файл состояния должен быть удален после успешной загрузки")
+                .isFalse();
+    }
+
+    @Test
+    @DisplayName("downloadFileWithDigest: не изменяет файл, связанный жесткой ссылкой с целевым путем")
+    void downloadFileWithDigest_shouldNotOverwriteHardLinkedFile() throws IOException {
+        // Arrange
+        wireMockServer = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        wireMockServer.start();
+
+        String filePath = "/linked.zip";
+        Path target = tempDir.resolve("linked.zip");
+        Path cachedFile = tempDir.resolve("cached.zip");
+
+        // Файл прошлой загрузки остался жесткой ссылкой на копию в кэше архивов
+        Files.writeString(cachedFile, "old archive content");
+        Files.createLink(target, cachedFile);
+
+        wireMockServer.stubFor(
+                WireMock.get(WireMock.urlEqualTo(filePath))
+                        .willReturn(WireMock.aResponse()
+                                .withStatus(200)
+                                .withBody("new"))
+        );
+        String url = "http://localhost:" + wireMockServer.port() + filePath;
+
+        // Act
+        DownloadedFile result = fileSystemService.downloadFileWithDigest(url, target.toString(), 3, null);
+
+        // Assert
+        assertThat(Files.readString(result.path())).isEqualTo("new");
+        assertThat(Files.readString(cachedFile))
+                .as("Загрузка не должна перезаписывать файл по жесткой ссылке")
+                .isEqualTo("old archive content");
+    }
+
     @Test
     @DisplayName("downloadFile: выбрасывает IOException при ошибке HTTP")
     void downloadFile_shouldThrowIOExceptionOnHttpError() {
@@ -230,4 +528,41 @@ class FileSystemServiceImplTest {
                 .isInstanceOf(IOException.class)
                 .hasMessageContaining("404");
     }
+
+    @Test
+    @DisplayName("splitFileByLines: разбивает файл на части по границам строк")
+    void splitFileByLines_shouldSplitOnLineBoundaries() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("data.CSV");
+        Files.writeString(file, "aaa\nbbbbbb\ncc\nd", StandardOpenOption.CREATE_NEW);
+
+        // Act
+        List<ExtractedFile> chunks = fileSystemService.splitFileByLines(file, 5);
+
+        // Assert
+        assertThat(chunks)
+                .extracting(ExtractedFile::path)
+                .containsExactly(tempDir.resolve("data.CSV.part-00000"), tempDir.resolve("data.CSV.part-00001"));
+        assertThat(chunks.get(0).path()).hasContent("aaa\nbbbbbb\n");
+        assertThat(chunks.get(1).path()).hasContent("cc\nd");
+        assertThat(chunks.get(1).hash()).isEqualTo(fileSystemService.calculateMd5(chunks.get(1).path()));
+        assertThat(file).exists();
+    }
+
+    /**
+     * Создает ZIP-архив с указанными записями.
+     *
+     * @param zip     путь к создаваемому архиву
+     * @param entries содержимое записей по их именам
+     * @throws IOException при ошибках ввода-вывода
+     */
+    private void createZip(Path zip, Map<String, String> entries) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
 } 
\ No newline at end of file
@@ -19,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
@@ -36,6 +37,7 @@ import java.util.concurrent.TimeoutException;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.doReturn;
@@ -106,7 +108,7 @@ class GdeltServiceImplIntegrationTest implements RedisTestContainerInitializer {
         // Arrange
         String gdeltResponse = getGdeltResponse();
 
-        doReturn(gdeltResponse).when(gdeltClient).getLatestArchivesList();
+        doReturn(ResponseEntity.ok(gdeltResponse)).when(gdeltClient).getLatestArchivesList(any(), any());
 
         hashStoreService.storeHash(TEST_ARCHIVE_FILENAME_1, TEST_HASH_1);
         hashStoreService.storeHash(TEST_ARCHIVE_FILENAME_2, TEST_HASH_2);
@@ -116,7 +118,7 @@ class GdeltServiceImplIntegrationTest implements RedisTestContainerInitializer {
         future.get(10, TimeUnit.SECONDS); // Ожидаем завершения асинхронной операции
 
         // Assert
-        verify(gdeltClient, times(1)).getLatestArchivesList();
+        verify(gdeltClient, times(1)).getLatestArchivesList(any(), any());
 
         // Проверяем, что проверка на изменение хеша была выполнена для обоих архивов
         verify(hashStoreService, times(1)).isNewOrChanged(TEST_ARCHIVE_FILENAME_1, TEST_HASH_1);
@@ -127,6 +129,7 @@ class GdeltServiceImplIntegrationTest implements RedisTestContainerInitializer {
 
         // Убеждаемся, что никакие новые хеши не записывались в Redis (только начальные)
         verify(hashStoreService, times(2)).storeHash(anyString(), anyString());
+        verify(hashStoreService, never()).storeHash(anyString(), anyString(), anyLong());
 
         assertEquals(TEST_HASH_1, hashStoreService.getStoredHash(TEST_ARCHIVE_FILENAME_1), "Хеш первого архива в Redis не должен измениться");
         assertEquals(TEST_HASH_2, hashStoreService.getStoredHash(TEST_ARCHIVE_FILENAME_2), "Хеш второго архива в Redis не должен измениться");
@@ -138,7 +141,7 @@ class GdeltServiceImplIntegrationTest implements RedisTestContainerInitializer {
         // Arrange
         String gdeltResponse = getGdeltResponse();
 
-        doReturn(gdeltResponse).when(gdeltClient).getLatestArchivesList();
+        doReturn(ResponseEntity.ok(gdeltResponse)).when(gdeltClient).getLatestArchivesList(any(), any());
         doReturn(true).when(hashStoreService).isNewOrChanged(anyString(), anyString());
 
         // Для первого архива эмулируем ошибку скачивания
@@ -192,7 +195,7 @@ class GdeltServiceImplIntegrationTest implements RedisTestContainerInitializer {
         // Arrange
         String gdeltResponse = getGdeltResponse();
 
-        doReturn(gdeltResponse).when(gdeltClient).getLatestArchivesList();
+        doReturn(ResponseEntity.ok(gdeltResponse)).when(gdeltClient).getLatestArchivesList(any(), any());
         doReturn(true).when(hashStoreService).isNewOrChanged(anyString(), anyString());
 
         // Для первого архива эмулируем ошибку валидации хеша
@@ -243,7 +246,7 @@ class GdeltServiceImplIntegrationTest implements RedisTestContainerInitializer {
         // - processArchiveAsync (обработка)
         // Так как processArchiveAsync для первого архива вернул ошибку,
         // то финальная запись хеша не должна произойти
-        verify(hashStoreService, never()).storeHash(eq(TEST_ARCHIVE_FILENAME_1), anyString());
+        verify(hashStoreService, never()).storeHash(eq(TEST_ARCHIVE_FILENAME_1), anyString(), anyLong());
     }
 
 
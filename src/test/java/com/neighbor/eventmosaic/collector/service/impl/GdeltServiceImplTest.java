@@ -1,10 +1,17 @@
 package com.neighbor.eventmosaic.collector.service.impl;
 
 import com.neighbor.eventmosaic.collector.client.GdeltClient;
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
 import com.neighbor.eventmosaic.collector.dto.GdeltArchiveProcessResult;
+import com.neighbor.eventmosaic.collector.limiter.AdaptiveConcurrencyLimiter;
+import com.neighbor.eventmosaic.collector.service.ArchiveHistoryFilter;
+import com.neighbor.eventmosaic.collector.service.ArchiveLeaseService;
 import com.neighbor.eventmosaic.collector.service.ArchiveService;
 import com.neighbor.eventmosaic.collector.service.HashStoreService;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,8 +19,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,8 +35,10 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.argThat;
-import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isNull;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -44,18 +60,27 @@ class GdeltServiceImplTest {
     @Mock
     private ArchiveService archiveService;
 
+    @Mock
+    private ArchiveLeaseService archiveLeaseService;
+
+    @Mock
+    private ArchiveHistoryFilter archiveHistoryFilter;
+
     private GdeltServiceImpl gdeltService;
 
     @BeforeEach
     void setUp() {
-        gdeltService = new GdeltServiceImpl(gdeltClient, hashStoreService, archiveService);
+        gdeltService = new GdeltServiceImpl(gdeltClient, hashStoreService, archiveService,
+                new AdaptiveConcurrencyLimiter(4, 1, 32, 0.7, 2.0), archiveLeaseService, archiveHistoryFilter);
+        lenient().when(archiveLeaseService.tryAcquire(anyString()))
+                .thenAnswer(invocation -> Optional.of(new ArchiveLease(invocation.getArgument(0), "owner", 1)));
     }
 
     @Test
     @DisplayName("Должен ничего не делать, если список архивов пуст")
     void processLatestArchives_shouldDoNothing_ifArchiveListIsEmpty() throws Exception {
         // Arrange
-        when(gdeltClient.getLatestArchivesList()).thenReturn(""); // пустой ответ
+        when(gdeltClient.getLatestArchivesList(any(), any())).thenReturn(ResponseEntity.ok("")); // пустой ответ
 
         // Act
         CompletableFuture<Void> future = gdeltService.processLatestArchives();
@@ -74,10 +99,10 @@ class GdeltServiceImplTest {
                 12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
                 12345
                 """;
-        when(gdeltClient.getLatestArchivesList())
-                .thenReturn(content);
-        when(hashStoreService.isNewOrChanged(anyString(), anyString()))
-                .thenReturn(true);
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
         when(archiveService.processArchiveAsync(any()))
                 .thenReturn(
                         CompletableFuture.completedFuture(
@@ -101,10 +126,10 @@ class GdeltServiceImplTest {
                 12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
                 12345 hash2 http://data.gdeltproject.org/gdeltv2/20250323151500.unsupportedtype.zip
                 """;
-        when(gdeltClient.getLatestArchivesList())
-                .thenReturn(content);
-        when(hashStoreService.isNewOrChanged(anyString(), anyString()))
-                .thenReturn(true);
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
         when(archiveService.processArchiveAsync(any()))
                 .thenReturn(
                         CompletableFuture.completedFuture(
@@ -129,12 +154,10 @@ class GdeltServiceImplTest {
                 12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
                 12345 hash2 http://data.gdeltproject.org/gdeltv2/20250323153000.translation.export.CSV.zip
                 """;
-        when(gdeltClient.getLatestArchivesList())
-                .thenReturn(content);
-        when(hashStoreService.isNewOrChanged(anyString(), eq("hash1")))
-                .thenReturn(false);
-        when(hashStoreService.isNewOrChanged(anyString(), eq("hash2")))
-                .thenReturn(true);
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept("hash1"));
         when(archiveService.processArchiveAsync(any()))
                 .thenReturn(
                         CompletableFuture.completedFuture(
@@ -151,6 +174,104 @@ class GdeltServiceImplTest {
                 info.hash().equals("hash2")));
     }
 
+    @Test
+    @DisplayName("Должен сверять с точной историей только архивы с положительным ответом фильтра истории")
+    void processLatestArchives_shouldCheckOnlyPossiblyProcessedArchives_ifHistoryFilterEnabled() throws Exception {
+        // Arrange: первый архив фильтр не знает, второй и третий могли быть обработаны
+        String content = """
+                12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
+                12345 hash2 http://data.gdeltproject.org/gdeltv2/20250323153000.translation.export.CSV.zip
+                12345 hash3 http://data.gdeltproject.org/gdeltv2/20250323154500.translation.export.CSV.zip
+                """;
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(archiveHistoryFilter.isEnabled()).thenReturn(true);
+        when(archiveHistoryFilter.mightContain(any()))
+                .thenAnswer(invocation -> invocation.<List<GdeltArchiveInfo>>getArgument(0).subList(1, 3));
+        // Второй архив есть в истории (хеш в хранилище мог уже истечь), у третьего изменился хеш
+        when(archiveHistoryFilter.confirmProcessed(any()))
+                .thenAnswer(invocation -> invocation.<List<GdeltArchiveInfo>>getArgument(0).subList(0, 1));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
+        when(archiveService.processArchiveAsync(any()))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                GdeltArchiveProcessResult.success(mock(GdeltArchiveInfo.class), List.of())
+                        )
+                );
+
+        // Act
+        gdeltService.processLatestArchives().get();
+
+        // Assert: второй архив считается обработанным ранее, хранилище хешей для отбора не используется
+        verify(archiveService, times(1)).processArchiveAsync(withHash("hash1"));
+        verify(archiveService, times(1)).processArchiveAsync(withHash("hash3"));
+        verify(archiveService, never()).processArchiveAsync(withHash("hash2"));
+        verify(hashStoreService, never()).getStoredHashes(any());
+    }
+
+    @Test
+    @DisplayName("Должен обрабатывать архив с ложным срабатыванием фильтра истории, которого нет в точной истории")
+    void processLatestArchives_shouldProcessFalsePositiveArchive_ifHistoryFilterEnabled() throws Exception {
+        // Arrange: фильтр отвечает положительно, но архив не обрабатывался и его хеша нет в хранилище
+        String content = """
+                12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
+                """;
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(archiveHistoryFilter.isEnabled()).thenReturn(true);
+        when(archiveHistoryFilter.mightContain(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(archiveHistoryFilter.confirmProcessed(any()))
+                .thenReturn(List.of());
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
+        when(archiveService.processArchiveAsync(any()))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                GdeltArchiveProcessResult.success(mock(GdeltArchiveInfo.class), List.of())
+                        )
+                );
+
+        // Act
+        gdeltService.processLatestArchives().get();
+
+        // Assert
+        verify(archiveService, times(1)).processArchiveAsync(withHash("hash1"));
+    }
+
+    @Test
+    @DisplayName("Должен пропускать архивы, арендованные другой репликой, и освобождать аренду после обработки")
+    void processLatestArchives_shouldSkipArchivesLeasedByAnotherReplica() throws Exception {
+        // Arrange: второй архив уже обрабатывает другая реплика
+        String content = """
+                12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
+                12345 hash2 http://data.gdeltproject.org/gdeltv2/20250323153000.translation.export.CSV.zip
+                """;
+        ArchiveLease lease = new ArchiveLease("20250323151500.translation.export.CSV.zip", "owner", 1);
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
+        when(archiveLeaseService.tryAcquire("20250323151500.translation.export.CSV.zip"))
+                .thenReturn(Optional.of(lease));
+        when(archiveLeaseService.tryAcquire("20250323153000.translation.export.CSV.zip"))
+                .thenReturn(Optional.empty());
+        when(archiveService.processArchiveAsync(any()))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                GdeltArchiveProcessResult.success(mock(GdeltArchiveInfo.class), List.of())
+                        )
+                );
+
+        // Act
+        gdeltService.processLatestArchives().get();
+
+        // Assert: обрабатывается только арендованный архив, его аренда освобождается
+        verify(archiveService, times(1)).processArchiveAsync(withHash("hash1"));
+        verify(archiveLeaseService).release(lease);
+    }
+
     @Test
     @DisplayName("Должен корректно обрабатывать ошибку в одном архиве и продолжать обработку остальных")
     void processLatestArchives_shouldHandleErrorInOneArchiveAndContinueProcessingOthers() throws Exception {
@@ -159,10 +280,10 @@ class GdeltServiceImplTest {
                 12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
                 12345 hash2 http://data.gdeltproject.org/gdeltv2/20250323153000.translation.export.CSV.zip
                 """;
-        when(gdeltClient.getLatestArchivesList())
-                .thenReturn(content);
-        when(hashStoreService.isNewOrChanged(anyString(), anyString()))
-                .thenReturn(true);
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
         when(archiveService.processArchiveAsync(withHash("hash1")))
                 .thenReturn(
                         CompletableFuture.completedFuture(
@@ -193,14 +314,10 @@ class GdeltServiceImplTest {
                 12345 hash2 http://data.gdeltproject.org/gdeltv2/20250323153000.translation.export.CSV.zip
                 12345 hash3 http://data.gdeltproject.org/gdeltv2/20250323154500.translation.export.CSV.zip
                 """;
-        when(gdeltClient.getLatestArchivesList())
-                .thenReturn(content);
-        when(hashStoreService.isNewOrChanged(anyString(), eq("hash1")))
-                .thenReturn(false);
-        when(hashStoreService.isNewOrChanged(anyString(), eq("hash2")))
-                .thenReturn(true);
-        when(hashStoreService.isNewOrChanged(anyString(), eq("hash3")))
-                .thenReturn(true);
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept("hash1"));
         when(archiveService.processArchiveAsync(any()))
                 .thenReturn(
                         CompletableFuture.completedFuture(
@@ -229,10 +346,10 @@ class GdeltServiceImplTest {
                 12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
                 12345 hash2 http://data.gdeltproject.org/gdeltv2/20250323153000.translation.export.CSV.zip
                 """;
-        when(gdeltClient.getLatestArchivesList())
-                .thenReturn(content);
-        when(hashStoreService.isNewOrChanged(anyString(), anyString()))
-                .thenReturn(true);
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
         when(archiveService.processArchiveAsync(any()))
                 .thenReturn(
                         CompletableFuture.completedFuture(
@@ -255,7 +372,7 @@ class GdeltServiceImplTest {
     @DisplayName("Должен корректно обрабатывать исключения верхнего уровня")
     void processLatestArchives_shouldHandleTopLevelExceptionsProperly() {
         // Arrange: GdeltClient выбрасывает исключение
-        when(gdeltClient.getLatestArchivesList())
+        when(gdeltClient.getLatestArchivesList(any(), any()))
                 .thenThrow(new RuntimeException("Ошибка сети"));
 
         // Act & Assert
@@ -264,7 +381,105 @@ class GdeltServiceImplTest {
                 .hasRootCauseMessage("Ошибка сети");
     }
 
+    @Test
+    @DisplayName("Должен завершать обработку без разбора и обращений к Redis, если список не изменился")
+    void processLatestArchives_shouldShortCircuit_ifArchiveListNotModified() {
+        // Arrange: сервер отвечает 304 Not Modified
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenThrow(notModified());
+
+        // Act
+        gdeltService.processLatestArchives().join();
+
+        // Assert
+        verifyNoInteractions(hashStoreService, archiveService);
+    }
+
+    @Test
+    @DisplayName("Должен отправлять валидаторы полностью обработанного списка в следующем запросе")
+    void processLatestArchives_shouldSendValidatorsOfProcessedList() {
+        // Arrange
+        String content = """
+                12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
+                """;
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok()
+                        .eTag("\"v1\"")
+                        .header(HttpHeaders.LAST_MODIFIED, "Sun, 23 Mar 2025 15:15:00 GMT")
+                        .body(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
+        when(archiveService.processArchiveAsync(any()))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                GdeltArchiveProcessResult.success(mock(GdeltArchiveInfo.class), List.of())
+                        )
+                );
+
+        // Act
+        gdeltService.processLatestArchives().join();
+        gdeltService.processLatestArchives().join();
+
+        // Assert: первый запрос без валидаторов, второй - с валидаторами первого ответа
+        verify(gdeltClient).getLatestArchivesList(isNull(), isNull());
+        verify(gdeltClient).getLatestArchivesList("\"v1\"", "Sun, 23 Mar 2025 15:15:00 GMT");
+    }
+
+    @Test
+    @DisplayName("Не должен запоминать валидаторы списка, если обработка архива не удалась")
+    void processLatestArchives_shouldNotRememberValidators_ifArchiveProcessingFailed() {
+        // Arrange
+        String content = """
+                12345 hash1 http://data.gdeltproject.org/gdeltv2/20250323151500.translation.export.CSV.zip
+                """;
+        when(gdeltClient.getLatestArchivesList(any(), any()))
+                .thenReturn(ResponseEntity.ok()
+                        .eTag("\"v1\"")
+                        .body(content));
+        when(hashStoreService.filterNewOrChanged(any()))
+                .thenAnswer(newOrChangedExcept());
+        when(archiveService.processArchiveAsync(any()))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                GdeltArchiveProcessResult.failure(mock(GdeltArchiveInfo.class), "Ошибка")
+                        )
+                );
+
+        // Act
+        gdeltService.processLatestArchives().join();
+        gdeltService.processLatestArchives().join();
+
+        // Assert: оба запроса без валидаторов, архив обрабатывается повторно
+        verify(gdeltClient, times(2)).getLatestArchivesList(isNull(), isNull());
+        verify(archiveService, times(2)).processArchiveAsync(any());
+    }
+
+    private static FeignException notModified() {
+        Request request = Request.create(Request.HttpMethod.GET, "/lastupdate-translation.txt",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        Response response = Response.builder()
+                .status(304)
+                .reason("Not Modified")
+                .request(request)
+                .headers(Map.of())
+                .build();
+        return FeignException.errorStatus("GdeltClient#getLatestArchivesList", response);
+    }
+
     private static GdeltArchiveInfo withHash(String expectedHash) {
         return argThat(info -> info != null && expectedHash.equals(info.hash()));
     }
-} 
\ No newline at end of file
+
+    /**
+     * Возвращает ответ заглушки, отбирающий архивы с хешами, отличными от указанных.
+     *
+     * @param unchangedHashes хеши неизменившихся архивов
+     * @return ответ для {@link HashStoreService#filterNewOrChanged}
+     */
+    private Answer<List<GdeltArchiveInfo>> newOrChangedExcept(String... unchangedHashes) {
+        Set<String> unchanged = Set.of(unchangedHashes);
+        return invocation -> invocation.<List<GdeltArchiveInfo>>getArgument(0).stream()
+                .filter(archive -> !unchanged.contains(archive.hash()))
+                .toList();
+    }
+}
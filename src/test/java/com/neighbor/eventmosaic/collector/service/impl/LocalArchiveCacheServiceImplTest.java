@@ -0,0 +1,134 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.DownloadedFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link LocalArchiveCacheServiceImpl}.
+ */
+@DisplayName("Unit-тесты для LocalArchiveCacheServiceImpl")
+class LocalArchiveCacheServiceImplTest {
+
+    private static final String HASH_1 = "0123456789abcdef0123456789abcdef";
+    private static final String HASH_2 = "11111111111111111111111111111111";
+    private static final String HASH_3 = "22222222222222222222222222222222";
+
+    @TempDir
+    Path tempDir;
+
+    private Path cacheDir;
+    private Path downloadDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cacheDir = tempDir.resolve("cache");
+        downloadDir = Files.createDirectories(tempDir.resolve("download"));
+    }
+
+    @Test
+    @DisplayName("fetch: возвращает сохраненный архив по хешу без обращения к исходному файлу")
+    void fetch_shouldReturnStoredArchive() throws IOException {
+        // Arrange
+        LocalArchiveCacheServiceImpl cache = createCache(1024);
+        Path archive = writeArchive("archive.zip", "archive-content");
+        cache.store(HASH_1, archive);
+        Files.delete(archive);
+        Path target = downloadDir.resolve("restored.zip");
+
+        // Act
+        Optional<DownloadedFile> result = cache.fetch(HASH_1, 15, target);
+
+        // Assert
+        assertThat(result).contains(new DownloadedFile(target, HASH_1));
+        assertThat(Files.readString(target)).isEqualTo("archive-content");
+    }
+
+    @Test
+    @DisplayName("store: вытесняет архив, к которому дольше всего не обращались, при превышении размера кеша")
+    void store_shouldEvictLeastRecentlyUsedArchive() throws IOException {
+        // Arrange: в кеш помещаются два архива по 10 байт
+        LocalArchiveCacheServiceImpl cache = createCache(25);
+        cache.store(HASH_1, writeArchive("first.zip", "0123456789"));
+        cache.store(HASH_2, writeArchive("second.zip", "0123456789"));
+        cache.fetch(HASH_1, 10, downloadDir.resolve("touch.zip")); // Обращение делает первый архив недавно использованным
+
+        // Act
+        cache.store(HASH_3, writeArchive("third.zip", "0123456789"));
+
+        // Assert
+        assertThat(cache.fetch(HASH_2, 10, downloadDir.resolve("second-restored.zip"))).isEmpty();
+        assertThat(cache.fetch(HASH_1, 10, downloadDir.resolve("first-restored.zip"))).isPresent();
+        assertThat(cache.fetch(HASH_3, 10, downloadDir.resolve("third-restored.zip"))).isPresent();
+    }
+
+    @Test
+    @DisplayName("fetch: удаляет из кеша архив с неожиданным размером")
+    void fetch_shouldDropArchiveWithUnexpectedSize() throws IOException {
+        // Arrange
+        LocalArchiveCacheServiceImpl cache = createCache(1024);
+        cache.store(HASH_1, writeArchive("archive.zip", "0123456789"));
+
+        // Act
+        Optional<DownloadedFile> result = cache.fetch(HASH_1, 11, downloadDir.resolve("restored.zip"));
+
+        // Assert
+        assertThat(result).isEmpty();
+        assertThat(cacheDir.resolve(HASH_1 + ".zip")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("fetch: удаляет из кеша архив, файл которого был усечен на диске")
+    void fetch_shouldDropArchiveTruncatedOnDisk() throws IOException {
+        // Arrange: индекс кеша хранит прежний размер, а файл на диске усечен
+        LocalArchiveCacheServiceImpl cache = createCache(1024);
+        cache.store(HASH_1, writeArchive("archive.zip", "0123456789"));
+        Files.writeString(cacheDir.resolve(HASH_1 + ".zip"), "01234");
+        Path target = downloadDir.resolve("restored.zip");
+
+        // Act
+        Optional<DownloadedFile> result = cache.fetch(HASH_1, 10, target);
+
+        // Assert
+        assertThat(result).isEmpty();
+        assertThat(target).doesNotExist();
+        assertThat(cacheDir.resolve(HASH_1 + ".zip")).doesNotExist();
+        assertThat(cache.fetch(HASH_1, 10, downloadDir.resolve("retry.zip"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("initializeCache: восстанавливает содержимое кеша после перезапуска")
+    void initializeCache_shouldRestoreCachedArchives() throws IOException {
+        // Arrange
+        createCache(1024).store(HASH_1, writeArchive("archive.zip", "0123456789"));
+
+        // Act
+        LocalArchiveCacheServiceImpl restartedCache = createCache(1024);
+
+        // Assert
+        assertThat(restartedCache.fetch(HASH_1, 10, downloadDir.resolve("restored.zip"))).isPresent();
+    }
+
+    private LocalArchiveCacheServiceImpl createCache(long maxSize) {
+        LocalArchiveCacheServiceImpl cache = new LocalArchiveCacheServiceImpl();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        ReflectionTestUtils.invokeMethod(cache, "initializeCache");
+        return cache;
+    }
+
+    private Path writeArchive(String fileName, String content) throws IOException {
+        return Files.writeString(downloadDir.resolve(fileName), content);
+    }
+}
@@ -0,0 +1,129 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link MappedHashStoreServiceImpl}.
+ */
+@DisplayName("Unit-тесты для MappedHashStoreServiceImpl")
+class MappedHashStoreServiceImplTest {
+
+    private static final String ARCHIVE_NAME = "20250421073000.translation.export.CSV.zip";
+    private static final String HASH = "0123456789abcdef0123456789abcdef";
+    private static final String NEW_HASH = "fedcba9876543210fedcba9876543210";
+
+    @TempDir
+    private Path storeDir;
+
+    private MappedHashStoreServiceImpl hashStoreService;
+
+    @AfterEach
+    void tearDown() {
+        if (hashStoreService != null) {
+            ReflectionTestUtils.invokeMethod(hashStoreService, "closeStore");
+        }
+    }
+
+    @Test
+    @DisplayName("Отбирает новые и измененные архивы по сохраненным хешам")
+    void filterNewOrChanged_shouldCompareWithStoredHashes() {
+        // Arrange
+        hashStoreService = openStore(16);
+        hashStoreService.storeHashes(Map.of(ARCHIVE_NAME, HASH, "unchanged.zip", HASH));
+        GdeltArchiveInfo changed = new GdeltArchiveInfo(ARCHIVE_NAME, "url-1", NEW_HASH, 1L);
+        GdeltArchiveInfo unchanged = new GdeltArchiveInfo("unchanged.zip", "url-2", HASH, 1L);
+        GdeltArchiveInfo added = new GdeltArchiveInfo("new.zip", "url-3", HASH, 1L);
+
+        // Act
+        List<GdeltArchiveInfo> result = hashStoreService.filterNewOrChanged(List.of(changed, unchanged, added));
+
+        // Assert
+        assertThat(result).containsExactly(changed, added);
+        assertThat(hashStoreService.getStoredHash("missing.zip")).isNull();
+    }
+
+    @Test
+    @DisplayName("Восстанавливает хеши после перезапуска и расширения таблицы")
+    void openStore_shouldRestoreHashesAfterRestart() {
+        // Arrange
+        hashStoreService = openStore(16);
+        Map<String, String> hashes = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            hashes.put(i + ".zip", HASH);
+        }
+        hashStoreService.storeHashes(hashes);
+        hashStoreService.storeHash(ARCHIVE_NAME, NEW_HASH);
+
+        // Act
+        ReflectionTestUtils.invokeMethod(hashStoreService, "closeStore");
+        hashStoreService = openStore(16);
+
+        // Assert
+        assertThat(hashStoreService.getStoredHashes(List.copyOf(hashes.keySet()))).isEqualTo(hashes);
+        assertThat(hashStoreService.getStoredHash(ARCHIVE_NAME)).isEqualTo(NEW_HASH);
+    }
+
+    @Test
+    @DisplayName("Перестраивает таблицу по журналу после сбоя, отбрасывая оборванную запись")
+    void openStore_shouldRebuildIndexFromLogAfterCrash() throws IOException {
+        // Arrange: хранилище не закрыто штатно, а в конец журнала попала оборванная запись
+        hashStoreService = openStore(16);
+        hashStoreService.storeHash(ARCHIVE_NAME, HASH);
+        Files.write(storeDir.resolve("hashes.log"), new byte[]{0, 0, 0, 10, 'b', 'r'}, StandardOpenOption.APPEND);
+        Files.delete(storeDir.resolve("hashes.idx"));
+
+        // Act
+        hashStoreService = openStore(16);
+
+        // Assert
+        assertThat(hashStoreService.getStoredHash(ARCHIVE_NAME)).isEqualTo(HASH);
+        assertThat(hashStoreService.isNewOrChanged(ARCHIVE_NAME, HASH)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Сжимает журнал по таблице и сохраняет хеши после перезапуска")
+    void storeHashes_shouldCompactLogFromIndex() throws IOException {
+        // Arrange: многократная перезапись хеша одного архива порождает устаревшие записи журнала
+        hashStoreService = openStore(16);
+        hashStoreService.storeHash("other.zip", HASH);
+
+        // Act
+        for (int i = 0; i < 1100; i++) {
+            hashStoreService.storeHash(ARCHIVE_NAME, i % 2 == 0 ? HASH : NEW_HASH);
+        }
+
+        // Assert
+        assertThat(Files.size(storeDir.resolve("hashes.log"))).isLessThan(1100L * ARCHIVE_NAME.length());
+        assertThat(hashStoreService.getStoredHash(ARCHIVE_NAME)).isEqualTo(NEW_HASH);
+        assertThat(hashStoreService.getStoredHash("other.zip")).isEqualTo(HASH);
+
+        ReflectionTestUtils.invokeMethod(hashStoreService, "closeStore");
+        hashStoreService = openStore(16);
+        assertThat(hashStoreService.getStoredHash(ARCHIVE_NAME)).isEqualTo(NEW_HASH);
+        assertThat(hashStoreService.getStoredHash("other.zip")).isEqualTo(HASH);
+    }
+
+    private MappedHashStoreServiceImpl openStore(int initialCapacity) {
+        MappedHashStoreServiceImpl service = new MappedHashStoreServiceImpl();
+        ReflectionTestUtils.setField(service, "storeDir", storeDir.toString());
+        ReflectionTestUtils.setField(service, "initialCapacity", initialCapacity);
+        ReflectionTestUtils.setField(service, "compactionRatio", 2);
+        ReflectionTestUtils.invokeMethod(service, "openStore");
+        return service;
+    }
+}
@@ -0,0 +1,157 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
+import com.neighbor.eventmosaic.collector.exception.MinioStorageException;
+import com.neighbor.eventmosaic.collector.limiter.InFlightBytesBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link MinioAsyncStorageServiceImpl}.
+ * <p>
+ * Проверяют освобождение бюджета одновременно передаваемых байтов после неудачной загрузки
+ * и пропуск загрузки объекта, который уже существует с тем же хешем содержимого,
+ * а также запуск загрузки вне потока, завершившего проверку объекта.
+ */
+@DisplayName("Unit-тесты для MinioAsyncStorageServiceImpl")
+@ExtendWith(MockitoExtension.class)
+class MinioAsyncStorageServiceImplTest {
+
+    private static final String CONTENT = "0123456789";
+    private static final String CONTENT_HASH = "781e5e245d69b566979b86e28d23f2c7"; // MD5 содержимого CONTENT
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private MinioAsyncClient minioClient;
+
+    private MinioAsyncStorageServiceImpl minioStorageService;
+    private InFlightBytesBudget inFlightBudget;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        inFlightBudget = new InFlightBytesBudget(CONTENT.length());
+
+        minioStorageService = new MinioAsyncStorageServiceImpl(meterRegistry);
+        ReflectionTestUtils.setField(minioStorageService, "minioClient", minioClient);
+        ReflectionTestUtils.setField(minioStorageService, "inFlightBudget", inFlightBudget);
+        ReflectionTestUtils.setField(minioStorageService, "endpoint", "http://localhost:9000");
+        ReflectionTestUtils.setField(minioStorageService, "bucketName", "gdelt");
+        ReflectionTestUtils.setField(minioStorageService, "uploadedBytes", meterRegistry.counter("uploaded"));
+        ReflectionTestUtils.setField(minioStorageService, "skippedBytes", meterRegistry.counter("skipped"));
+    }
+
+    @Test
+    @DisplayName("uploadFile: освобождает бюджет загрузки, если загрузка завершилась ошибкой")
+    void uploadFile_shouldReleaseBudgetWhenUploadFails() throws Exception {
+        // Arrange
+        Path file = writeFile("events.csv");
+        when(minioClient.uploadObject(any(UploadObjectArgs.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("Соединение разорвано")));
+
+        // Act & Assert
+        assertThatThrownBy(() -> minioStorageService.uploadFile("events.csv", file, null))
+                .isInstanceOf(MinioStorageException.class)
+                .hasRootCauseInstanceOf(IOException.class);
+        assertThat(inFlightBudget.getInFlightBytes()).isZero();
+        assertThat(inFlightBudget.getQueued()).isZero();
+        assertThat(meterRegistry.counter("uploaded").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("uploadFileAsync: пропускает загрузку, если объект с тем же хешем уже существует")
+    void uploadFileAsync_shouldSkipUploadWhenObjectWithSameHashExists() throws Exception {
+        // Arrange
+        Path file = writeFile("events.csv");
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.userMetadata()).thenReturn(Map.of("content-hash", CONTENT_HASH));
+        when(stat.size()).thenReturn((long) CONTENT.length());
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(CompletableFuture.completedFuture(stat));
+
+        // Act
+        UploadedObject uploaded = minioStorageService.uploadFileAsync("events.csv", file, CONTENT_HASH).join();
+
+        // Assert
+        assertThat(uploaded).isEqualTo(new UploadedObject("http://localhost:9000/gdelt/events.csv", false));
+        verify(minioClient, never()).uploadObject(any(UploadObjectArgs.class));
+        assertThat(meterRegistry.counter("skipped").count()).isEqualTo(CONTENT.length());
+        assertThat(inFlightBudget.getInFlightBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("uploadFileAsync: запускает загрузку в пуле загрузок, а не в потоке, завершившем проверку объекта")
+    void uploadFileAsync_shouldStartUploadOutsideStatCompletionThread() throws Exception {
+        // Arrange: проверка объекта завершается в отдельном потоке, как в диспетчере HTTP-клиента
+        Path file = writeFile("events.csv");
+        ErrorResponseException noSuchKey = mock(ErrorResponseException.class);
+        ErrorResponse errorResponse = mock(ErrorResponse.class);
+        when(errorResponse.code()).thenReturn("NoSuchKey");
+        when(noSuchKey.errorResponse()).thenReturn(errorResponse);
+        CompletableFuture<StatObjectResponse> stat = new CompletableFuture<>();
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat);
+
+        AtomicReference<String> uploadThread = new AtomicReference<>();
+        ObjectWriteResponse writeResponse = mock(ObjectWriteResponse.class);
+        doAnswer(invocation -> {
+            uploadThread.set(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(writeResponse);
+        }).when(minioClient).uploadObject(any(UploadObjectArgs.class));
+
+        // Act
+        CompletableFuture<UploadedObject> upload = minioStorageService.uploadFileAsync("events.csv", file, CONTENT_HASH);
+        Thread dispatcher = new Thread(() -> stat.completeExceptionally(noSuchKey), "OkHttp Dispatcher");
+        dispatcher.start();
+        dispatcher.join();
+        UploadedObject uploaded = upload.join();
+
+        // Assert
+        assertThat(uploaded).isEqualTo(new UploadedObject("http://localhost:9000/gdelt/events.csv", true));
+        assertThat(uploadThread.get()).startsWith("MinioUpload-");
+        assertThat(meterRegistry.counter("uploaded").count()).isEqualTo(CONTENT.length());
+        assertThat(inFlightBudget.getInFlightBytes()).isZero();
+    }
+
+    /**
+     * Создает во временном каталоге файл с тестовым содержимым.
+     *
+     * @param name имя файла
+     * @return путь к файлу
+     */
+    private Path writeFile(String name) throws IOException {
+        return Files.writeString(tempDir.resolve(name), CONTENT, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,293 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.neighbor.eventmosaic.collector.client.MinioMultipartClient;
+import com.neighbor.eventmosaic.collector.dto.StorageCodec;
+import com.neighbor.eventmosaic.collector.dto.UploadedObject;
+import com.neighbor.eventmosaic.collector.exception.MinioStorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.CopyObjectArgs;
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyMap;
+import static org.mockito.Mockito.aryEq;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link MinioStorageServiceImpl}.
+ * <p>
+ * Проверяют параллельную загрузку частями: разбиение файла и потока на части S3 multipart-загрузки,
+ * повтор неудавшейся части и отмену загрузки при ошибке, а также сжатие объектов кодеками gzip и zstd.
+ */
+@DisplayName("Unit-тесты для MinioStorageServiceImpl")
+@ExtendWith(MockitoExtension.class)
+class MinioStorageServiceImplTest {
+
+    private static final String BUCKET = "gdelt";
+    private static final String UPLOAD_ID = "upload-1";
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private MinioClient minioClient;
+
+    @Mock
+    private MinioMultipartClient multipartClient;
+
+    private MinioStorageServiceImpl minioStorageService;
+    private ExecutorService partUploadExecutor;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        partUploadExecutor = Executors.newFixedThreadPool(2);
+
+        minioStorageService = new MinioStorageServiceImpl(meterRegistry);
+        ReflectionTestUtils.setField(minioStorageService, "minioClient", minioClient);
+        ReflectionTestUtils.setField(minioStorageService, "multipartClient", multipartClient);
+        ReflectionTestUtils.setField(minioStorageService, "endpoint", "http://localhost:9000");
+        ReflectionTestUtils.setField(minioStorageService, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(minioStorageService, "partSize", 4L); // 10 байт - три части: 4, 4 и 2
+        ReflectionTestUtils.setField(minioStorageService, "partConcurrency", 2);
+        ReflectionTestUtils.setField(minioStorageService, "partMaxAttempts", 2);
+        ReflectionTestUtils.setField(minioStorageService, "partRetryDelay", 0L);
+        ReflectionTestUtils.setField(minioStorageService, "codec", StorageCodec.NONE);
+        ReflectionTestUtils.setField(minioStorageService, "partUploadExecutor", partUploadExecutor);
+        ReflectionTestUtils.setField(minioStorageService, "uploadedBytes", meterRegistry.counter("uploaded"));
+        ReflectionTestUtils.setField(minioStorageService, "skippedBytes", meterRegistry.counter("skipped"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        partUploadExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("uploadFile: разбивает файл на части одной multipart-загрузки и завершает ее частями по порядку")
+    void uploadFile_shouldUploadFileInPartsOfSingleMultipartUpload() throws Exception {
+        // Arrange
+        Path file = writeFile("big.csv");
+        when(multipartClient.createMultipartUpload(eq(BUCKET), eq("big.csv"), anyMap(), anyMap())).thenReturn(UPLOAD_ID);
+        when(multipartClient.uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), anyInt(), any(byte[].class)))
+                .thenAnswer(invocation -> new Part(invocation.getArgument(3), "etag-" + invocation.getArgument(3)));
+        when(multipartClient.completeMultipartUpload(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), any(Part[].class)))
+                .thenReturn(mock(ObjectWriteResponse.class));
+
+        // Act
+        String url = minioStorageService.uploadFile("big.csv", file);
+
+        // Assert
+        assertThat(url).isEqualTo("http://localhost:9000/gdelt/big.csv");
+        verify(multipartClient).uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), eq(1), aryEq(bytes("0123")));
+        verify(multipartClient).uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), eq(2), aryEq(bytes("4567")));
+        verify(multipartClient).uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), eq(3), aryEq(bytes("89")));
+
+        ArgumentCaptor<Part[]> partsCaptor = ArgumentCaptor.forClass(Part[].class);
+        verify(multipartClient).completeMultipartUpload(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), partsCaptor.capture());
+        assertThat(partsCaptor.getValue())
+                .extracting(Part::partNumber)
+                .containsExactly(1, 2, 3);
+        verify(multipartClient, never()).abortMultipartUpload(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("uploadFile: повторяет только неудавшуюся часть")
+    void uploadFile_shouldRetryFailedPartOnly() throws Exception {
+        // Arrange
+        Path file = writeFile("big.csv");
+        AtomicInteger secondPartAttempts = new AtomicInteger();
+        when(multipartClient.createMultipartUpload(eq(BUCKET), eq("big.csv"), anyMap(), anyMap())).thenReturn(UPLOAD_ID);
+        when(multipartClient.uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), anyInt(), any(byte[].class)))
+                .thenAnswer(invocation -> {
+                    int partNumber = invocation.getArgument(3);
+                    if (partNumber == 2 && secondPartAttempts.getAndIncrement() == 0) {
+                        throw new IOException("Connection reset");
+                    }
+                    return new Part(partNumber, "etag-" + partNumber);
+                });
+        when(multipartClient.completeMultipartUpload(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), any(Part[].class)))
+                .thenReturn(mock(ObjectWriteResponse.class));
+
+        // Act
+        minioStorageService.uploadFile("big.csv", file);
+
+        // Assert
+        verify(multipartClient, times(2)).uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), eq(2), aryEq(bytes("4567")));
+        verify(multipartClient).uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), eq(1), any(byte[].class));
+        verify(multipartClient).uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), eq(3), any(byte[].class));
+        verify(multipartClient).completeMultipartUpload(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), any(Part[].class));
+        verify(multipartClient, never()).abortMultipartUpload(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("uploadFile: отменяет multipart-загрузку, если часть не удалось загрузить за все попытки")
+    void uploadFile_shouldAbortMultipartUploadWhenPartFails() throws Exception {
+        // Arrange
+        Path file = writeFile("big.csv");
+        when(multipartClient.createMultipartUpload(eq(BUCKET), eq("big.csv"), anyMap(), anyMap())).thenReturn(UPLOAD_ID);
+        when(multipartClient.uploadPart(eq(BUCKET), eq("big.csv"), eq(UPLOAD_ID), anyInt(), any(byte[].class)))
+                .thenAnswer(invocation -> {
+                    int partNumber = invocation.getArgument(3);
+                    if (partNumber == 2) {
+                        throw new IOException("Connection reset");
+                    }
+                    return new Part(partNumber, "etag-" + partNumber);
+                });
+
+        // Act & Assert
+        assertThatThrownBy(() -> minioStorageService.uploadFile("big.csv", file))
+                .isInstanceOf(MinioStorageException.class)
+                .hasMessageContaining("big.csv");
+        verify(multipartClient).abortMultipartUpload(BUCKET, "big.csv", UPLOAD_ID);
+        verify(multipartClient, never()).completeMultipartUpload(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("uploadFile: не загружает файл и отмечает объект незаписанным, если объект с тем же хешем уже существует")
+    void uploadFile_shouldSkipUploadWhenObjectWithSameHashExists() throws Exception {
+        // Arrange
+        Path file = writeFile("big.csv");
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.userMetadata()).thenReturn(Map.of("content-hash", "781e5e245d69b566979b86e28d23f2c7"));
+        when(stat.size()).thenReturn((long) CONTENT.length());
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat);
+
+        // Act
+        UploadedObject uploaded = minioStorageService.uploadFile("big.csv", file, "781e5e245d69b566979b86e28d23f2c7");
+
+        // Assert
+        assertThat(uploaded).isEqualTo(new UploadedObject("http://localhost:9000/gdelt/big.csv", false));
+        verify(multipartClient, never()).createMultipartUpload(any(), any(), any(), any());
+        verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+    }
+
+    @Test
+    @DisplayName("uploadStream: загружает поток частями и записывает метаданные после завершения загрузки")
+    void uploadStream_shouldUploadStreamInPartsAndWriteHeadersAfterCompletion() throws Exception {
+        // Arrange
+        when(multipartClient.createMultipartUpload(BUCKET, "stream.csv", Map.of(), Map.of())).thenReturn(UPLOAD_ID);
+        when(multipartClient.uploadPart(eq(BUCKET), eq("stream.csv"), eq(UPLOAD_ID), anyInt(), any(byte[].class)))
+                .thenAnswer(invocation -> new Part(invocation.getArgument(3), "etag-" + invocation.getArgument(3)));
+        when(multipartClient.completeMultipartUpload(eq(BUCKET), eq("stream.csv"), eq(UPLOAD_ID), any(Part[].class)))
+                .thenReturn(mock(ObjectWriteResponse.class));
+
+        // Act
+        UploadedObject uploaded = minioStorageService.uploadStream("stream.csv", new ByteArrayInputStream(bytes(CONTENT)));
+
+        // Assert
+        assertThat(uploaded).isEqualTo(new UploadedObject("http://localhost:9000/gdelt/stream.csv", true));
+        verify(multipartClient, times(3)).uploadPart(eq(BUCKET), eq("stream.csv"), eq(UPLOAD_ID), anyInt(), any(byte[].class));
+        verify(minioClient).copyObject(any(CopyObjectArgs.class));
+    }
+
+    @Test
+    @DisplayName("uploadStream: сжимает поток gzip и сохраняет объект с суффиксом .gz и заголовками кодека")
+    void uploadStream_shouldUploadGzipEncodedObject() throws Exception {
+        assertEncodedUpload(StorageCodec.GZIP, "events.csv.gz", "gzip");
+    }
+
+    @Test
+    @DisplayName("uploadStream: сжимает поток zstd и сохраняет объект с суффиксом .zst и заголовками кодека")
+    void uploadStream_shouldUploadZstdEncodedObject() throws Exception {
+        assertEncodedUpload(StorageCodec.ZSTD, "events.csv.zst", "zstd");
+    }
+
+    /**
+     * Загружает поток с указанным кодеком и проверяет, что сохраненный объект
+     * декодируется в исходные данные и имеет заголовки и метаданные кодека.
+     */
+    private void assertEncodedUpload(StorageCodec codec,
+                                     String expectedObjectName,
+                                     String expectedEncoding) throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(minioStorageService, "codec", codec);
+        ReflectionTestUtils.setField(minioStorageService, "compressionLevel", -1);
+        ReflectionTestUtils.setField(minioStorageService, "partSize", 1024L * 1024); // объект умещается в одну часть
+        byte[] content = bytes("GLOBALEVENTID\tSQLDATE\tActor1Code\n".repeat(100));
+
+        AtomicReference<byte[]> storedBytes = new AtomicReference<>();
+        when(minioClient.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            storedBytes.set(args.stream().readAllBytes());
+            return mock(ObjectWriteResponse.class);
+        });
+
+        // Act
+        UploadedObject uploaded = minioStorageService.uploadStream("events.csv", new ByteArrayInputStream(content));
+
+        // Assert
+        assertThat(uploaded).isEqualTo(new UploadedObject("http://localhost:9000/gdelt/" + expectedObjectName, true));
+
+        ArgumentCaptor<PutObjectArgs> argsCaptor = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient).putObject(argsCaptor.capture());
+        PutObjectArgs args = argsCaptor.getValue();
+        assertThat(args.object()).isEqualTo(expectedObjectName);
+        assertThat(args.headers().get("Content-Encoding")).containsExactly(expectedEncoding);
+        assertThat(args.userMetadata().get("codec")).containsExactly(expectedEncoding);
+        assertThat(args.userMetadata().get("uncompressed-size")).containsExactly(String.valueOf(content.length));
+        assertThat(args.userMetadata().get("content-hash"))
+                .containsExactly(HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)));
+
+        assertThat(storedBytes.get().length).isLessThan(content.length);
+        assertThat(decode(codec, storedBytes.get())).isEqualTo(content);
+    }
+
+    private static byte[] decode(StorageCodec codec, byte[] encoded) throws IOException {
+        try (InputStream in = switch (codec) {
+            case GZIP -> new GZIPInputStream(new ByteArrayInputStream(encoded));
+            case ZSTD -> new ZstdInputStream(new ByteArrayInputStream(encoded));
+            case NONE -> new ByteArrayInputStream(encoded);
+        }) {
+            return in.readAllBytes();
+        }
+    }
+
+    private Path writeFile(String name) throws IOException {
+        return Files.writeString(tempDir.resolve(name), CONTENT);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
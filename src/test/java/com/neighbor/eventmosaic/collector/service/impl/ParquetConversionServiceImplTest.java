@@ -0,0 +1,152 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.GdeltArchiveType;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link ParquetConversionServiceImpl}.
+ * <p>
+ * Преобразуют файл упоминаний из тестового архива GDELT в Parquet и читают результат обратно,
+ * проверяя количество строк, типизированные значения, а также пустые и некорректные значения.
+ */
+@DisplayName("Unit-тесты для ParquetConversionServiceImpl")
+class ParquetConversionServiceImplTest {
+
+    private static final Path TEST_ARCHIVE = Paths.get("src/test/resources/data/gdelt-archive.zip");
+    private static final String MENTIONS_FILE = "20250421073000.translation.mentions.CSV";
+    private static final int SAMPLE_ROWS = 1134;
+
+    // Строка с нечисловыми значениями в числовых полях и пустыми значениями
+    private static final String MALFORMED_ROW = String.join("\t",
+            "not-a-number", "20250421073000", "", "1", "example.com", "https://example.com/news",
+            "1", "12", "-1", "40", "1", "100", "1500", "bad-tone", "", "");
+
+    @TempDir
+    Path tempDir;
+
+    private ParquetConversionServiceImpl parquetConversionService;
+
+    @BeforeEach
+    void setUp() {
+        parquetConversionService = new ParquetConversionServiceImpl();
+        ReflectionTestUtils.setField(parquetConversionService, "compressionCodec", CompressionCodecName.SNAPPY);
+        ReflectionTestUtils.setField(parquetConversionService, "rowGroupSize", 134217728L);
+        ReflectionTestUtils.setField(parquetConversionService, "pageSize", 1048576);
+    }
+
+    @Test
+    @DisplayName("convertToParquet: сохраняет все строки файла упоминаний GDELT с типизированными значениями")
+    void convertToParquet_shouldKeepRowsAndTypedValuesOfMentionsFile() throws IOException {
+        // Arrange
+        Path csvFile = extractSampleFile();
+
+        // Act
+        Path parquetFile = parquetConversionService.convertToParquet(csvFile, GdeltArchiveType.TRANSLATION_MENTIONS);
+        List<Group> rows = readRows(parquetFile);
+
+        // Assert
+        assertThat(parquetFile.getFileName()).hasToString(MENTIONS_FILE + ".parquet");
+        assertThat(rows).hasSize(SAMPLE_ROWS);
+
+        Group first = rows.getFirst();
+        assertThat(first.getLong("GlobalEventID", 0)).isEqualTo(1239130177L);
+        assertThat(first.getLong("EventTimeDate", 0)).isEqualTo(20250421073000L);
+        assertThat(first.getInteger("MentionType", 0)).isEqualTo(1);
+        assertThat(first.getString("MentionSourceName", 0)).isEqualTo("insight.co.kr");
+        assertThat(first.getString("MentionIdentifier", 0)).isEqualTo("https://www.insight.co.kr/news/499651");
+        assertThat(first.getInteger("Actor2CharOffset", 0)).isEqualTo(166);
+        assertThat(first.getInteger("MentionDocLen", 0)).isEqualTo(2136);
+        assertThat(first.getDouble("MentionDocTone", 0)).isEqualTo(-0.90361445783132);
+        assertThat(first.getString("MentionDocTranslationInfo", 0)).isEqualTo("srclc:kor;eng:GT-KOR 1.0");
+        assertThat(first.getFieldRepetitionCount("Extras")).isZero(); // Пустой последний столбец
+
+        Group second = rows.get(1);
+        assertThat(second.getInteger("Actor1CharOffset", 0)).isEqualTo(355);
+        assertThat(second.getInteger("Actor2CharOffset", 0)).isEqualTo(-1);
+        assertThat(second.getDouble("MentionDocTone", 0)).isEqualTo(-3.61990950226245);
+
+        Group last = rows.getLast();
+        assertThat(last.getLong("GlobalEventID", 0)).isEqualTo(1239130746L);
+        assertThat(last.getString("MentionSourceName", 0)).isEqualTo("elpuntavui.cat");
+    }
+
+    @Test
+    @DisplayName("convertToParquet: записывает пустые и некорректные значения как отсутствующие, не теряя строку")
+    void convertToParquet_shouldWriteEmptyAndMalformedValuesAsMissing() throws IOException {
+        // Arrange
+        Path csvFile = extractSampleFile();
+        Files.writeString(csvFile, MALFORMED_ROW + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // Act
+        List<Group> rows = readRows(parquetConversionService.convertToParquet(csvFile, GdeltArchiveType.TRANSLATION_MENTIONS));
+
+        // Assert
+        assertThat(rows).hasSize(SAMPLE_ROWS + 1);
+
+        Group malformed = rows.getLast();
+        assertThat(malformed.getFieldRepetitionCount("GlobalEventID")).isZero();   // не число
+        assertThat(malformed.getFieldRepetitionCount("MentionTimeDate")).isZero(); // пустое значение
+        assertThat(malformed.getFieldRepetitionCount("MentionDocTone")).isZero();  // не число
+        assertThat(malformed.getFieldRepetitionCount("MentionDocTranslationInfo")).isZero();
+        assertThat(malformed.getLong("EventTimeDate", 0)).isEqualTo(20250421073000L);
+        assertThat(malformed.getString("MentionSourceName", 0)).isEqualTo("example.com");
+        assertThat(malformed.getInteger("Actor2CharOffset", 0)).isEqualTo(-1);
+        assertThat(malformed.getInteger("MentionDocLen", 0)).isEqualTo(1500);
+    }
+
+    /**
+     * Распаковывает файл упоминаний из тестового архива GDELT во временный каталог.
+     *
+     * @return путь к CSV-файлу
+     */
+    private Path extractSampleFile() throws IOException {
+        Path csvFile = tempDir.resolve(MENTIONS_FILE);
+        try (ZipFile zipFile = new ZipFile(TEST_ARCHIVE.toFile())) {
+            ZipEntry entry = zipFile.getEntry(MENTIONS_FILE);
+            try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                Files.copy(inputStream, csvFile);
+            }
+        }
+        return csvFile;
+    }
+
+    /**
+     * Читает все записи Parquet-файла.
+     *
+     * @param parquetFile путь к Parquet-файлу
+     * @return записи в порядке хранения
+     */
+    private List<Group> readRows(Path parquetFile) throws IOException {
+        List<Group> rows = new ArrayList<>();
+        try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(),
+                new org.apache.hadoop.fs.Path(parquetFile.toUri())).build()) {
+            Group row;
+            while ((row = reader.read()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
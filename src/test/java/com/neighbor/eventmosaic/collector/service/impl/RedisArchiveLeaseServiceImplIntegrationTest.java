@@ -0,0 +1,171 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.ArchiveLease;
+import com.neighbor.eventmosaic.collector.scheduler.GdeltScheduler;
+import com.neighbor.eventmosaic.collector.service.ArchiveLeaseService;
+import com.neighbor.eventmosaic.collector.service.MinioStorageService;
+import com.neighbor.eventmosaic.collector.testcontainer.RedisTestContainerInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционные тесты для {@link RedisArchiveLeaseServiceImpl}.
+ * <p>
+ * Проверяют получение, продление и освобождение аренды, в том числе аренды,
+ * которая перешла к другой реплике, вместе с Lua-скриптами на реальном Redis.
+ * <p>
+ * Тесты используют Testcontainers для запуска Redis в контейнере.
+ */
+@SpringBootTest(properties = {
+        "gdelt.lease.enabled=true",
+        "gdelt.lease.duration=60000"
+})
+@Testcontainers
+@DisplayName("Интеграционные тесты для RedisArchiveLeaseServiceImpl")
+@ActiveProfiles("test")
+class RedisArchiveLeaseServiceImplIntegrationTest implements RedisTestContainerInitializer {
+
+    private static final String LEASE_KEY_PREFIX = "gdelt:archive:lease:";
+    private static final String OTHER_REPLICA_OWNER = "other-replica:1000";
+
+    @Autowired
+    private ArchiveLeaseService archiveLeaseService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @MockitoBean
+    private GdeltScheduler gdeltScheduler;
+
+    @MockitoBean
+    private MinioStorageService minioStorageService;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем Redis перед каждым тестом
+        Objects.requireNonNull(redisTemplate.getConnectionFactory())
+                .getConnection()
+                .serverCommands()
+                .flushDb();
+    }
+
+    @Test
+    @DisplayName("Выдает аренду с растущим токеном ограждения и не выдает уже арендованный архив")
+    void tryAcquire_shouldLeaseArchiveOnlyOnce() {
+        // Act
+        Optional<ArchiveLease> first = archiveLeaseService.tryAcquire("acquire-1.zip");
+        Optional<ArchiveLease> second = archiveLeaseService.tryAcquire("acquire-2.zip");
+        Optional<ArchiveLease> repeated = archiveLeaseService.tryAcquire("acquire-1.zip");
+
+        // Assert
+        assertThat(first).isPresent();
+        assertThat(second).isPresent();
+        assertThat(repeated).isEmpty();
+        assertThat(second.get().fencingToken()).isEqualTo(first.get().fencingToken() + 1);
+        assertThat(first.get().owner()).endsWith(":" + first.get().fencingToken());
+        assertThat(redisTemplate.opsForValue().get(LEASE_KEY_PREFIX + "acquire-1.zip")).isEqualTo(first.get().owner());
+        assertThat(redisTemplate.getExpire(LEASE_KEY_PREFIX + "acquire-1.zip", TimeUnit.MILLISECONDS))
+                .isBetween(1L, 60000L);
+        assertThat(archiveLeaseService.findHeldLease("acquire-1.zip")).contains(first.get());
+    }
+
+    @Test
+    @DisplayName("Не расходует токен ограждения на неудачную попытку аренды")
+    void tryAcquire_shouldNotConsumeFencingTokenWhenArchiveIsLeased() {
+        // Arrange
+        ArchiveLease first = archiveLeaseService.tryAcquire("busy.zip").orElseThrow();
+
+        // Act
+        Optional<ArchiveLease> repeated = archiveLeaseService.tryAcquire("busy.zip");
+        ArchiveLease next = archiveLeaseService.tryAcquire("free.zip").orElseThrow();
+
+        // Assert
+        assertThat(repeated).isEmpty();
+        assertThat(next.fencingToken()).isEqualTo(first.fencingToken() + 1);
+    }
+
+    @Test
+    @DisplayName("Продлевает удерживаемую аренду на полный срок")
+    void renewLeases_shouldExtendHeldLease() {
+        // Arrange
+        archiveLeaseService.tryAcquire("renew.zip").orElseThrow();
+        redisTemplate.expire(LEASE_KEY_PREFIX + "renew.zip", Duration.ofSeconds(1));
+
+        // Act
+        renewLeases();
+
+        // Assert
+        assertThat(redisTemplate.getExpire(LEASE_KEY_PREFIX + "renew.zip", TimeUnit.MILLISECONDS))
+                .isGreaterThan(Duration.ofSeconds(30).toMillis());
+        assertThat(archiveLeaseService.findHeldLease("renew.zip")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Перестает считать аренду своей, если она перешла к другой реплике, и не трогает чужой ключ")
+    void findHeldLease_shouldDetectLeaseTakenByAnotherReplica() {
+        // Arrange: аренда истекла, и архив арендовала другая реплика
+        ArchiveLease lease = archiveLeaseService.tryAcquire("lost.zip").orElseThrow();
+        String key = LEASE_KEY_PREFIX + "lost.zip";
+        redisTemplate.opsForValue().set(key, OTHER_REPLICA_OWNER, Duration.ofSeconds(5));
+
+        // Act
+        renewLeases();
+        Optional<ArchiveLease> held = archiveLeaseService.findHeldLease("lost.zip");
+        archiveLeaseService.release(lease);
+
+        // Assert
+        assertThat(held).isEmpty();
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo(OTHER_REPLICA_OWNER);
+        assertThat(redisTemplate.getExpire(key, TimeUnit.MILLISECONDS)).isLessThanOrEqualTo(5000L);
+    }
+
+    @Test
+    @DisplayName("Проверка аренды перед фиксацией результата обнаруживает потерю аренды до очередного продления")
+    void findHeldLease_shouldReturnEmptyWhenLeaseExpiredBeforeRenewal() {
+        // Arrange
+        archiveLeaseService.tryAcquire("expired.zip").orElseThrow();
+        redisTemplate.delete(LEASE_KEY_PREFIX + "expired.zip");
+
+        // Act & Assert
+        assertThat(archiveLeaseService.findHeldLease("expired.zip")).isEmpty();
+        assertThat(redisTemplate.hasKey(LEASE_KEY_PREFIX + "expired.zip")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Освобождает свою аренду, после чего архив можно арендовать снова")
+    void release_shouldDeleteOwnLease() {
+        // Arrange
+        ArchiveLease lease = archiveLeaseService.tryAcquire("release.zip").orElseThrow();
+
+        // Act
+        archiveLeaseService.release(lease);
+
+        // Assert
+        assertThat(redisTemplate.hasKey(LEASE_KEY_PREFIX + "release.zip")).isFalse();
+        assertThat(archiveLeaseService.findHeldLease("release.zip")).isEmpty();
+        assertThat(archiveLeaseService.tryAcquire("release.zip")).isPresent();
+    }
+
+    /**
+     * Выполняет плановое продление аренд, не дожидаясь его срока.
+     */
+    private void renewLeases() {
+        ReflectionTestUtils.invokeMethod(AopTestUtils.getTargetObject(archiveLeaseService), "renewLeases");
+    }
+}
@@ -0,0 +1,63 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link RedisBloomArchiveHistoryFilterImpl}.
+ */
+@DisplayName("Unit-тесты для RedisBloomArchiveHistoryFilterImpl")
+class RedisBloomArchiveHistoryFilterImplTest {
+
+    @Test
+    @DisplayName("Рассчитывает размер карты и количество хеш-функций по ожидаемому числу архивов")
+    void optimalParameters_shouldFitDecadeOfArchivesIntoMegabytes() {
+        // Act
+        long bitCount = RedisBloomArchiveHistoryFilterImpl.optimalBitCount(400_000, 0.000001);
+        int hashFunctions = RedisBloomArchiveHistoryFilterImpl.optimalHashFunctions(400_000, bitCount);
+
+        // Assert
+        assertThat(bitCount / 8).isBetween(1_400_000L, 1_500_000L);
+        assertThat(hashFunctions).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Не дает ложных отрицательных ответов и держит долю ложных срабатываний у расчетной")
+    void bitOffsets_shouldKeepFalsePositiveRateNearTarget() {
+        // Arrange
+        int archives = 10_000;
+        long bitCount = RedisBloomArchiveHistoryFilterImpl.optimalBitCount(archives, 0.01);
+        int hashFunctions = RedisBloomArchiveHistoryFilterImpl.optimalHashFunctions(archives, bitCount);
+        BitSet bits = new BitSet((int) bitCount);
+        for (int i = 0; i < archives; i++) {
+            for (long offset : RedisBloomArchiveHistoryFilterImpl.bitOffsets("processed-" + i, bitCount, hashFunctions)) {
+                bits.set((int) offset);
+            }
+        }
+
+        // Act
+        int missing = 0;
+        int falsePositives = 0;
+        for (int i = 0; i < archives; i++) {
+            missing += contains(bits, "processed-" + i, bitCount, hashFunctions) ? 0 : 1;
+            falsePositives += contains(bits, "new-" + i, bitCount, hashFunctions) ? 1 : 0;
+        }
+
+        // Assert
+        assertThat(missing).isZero();
+        assertThat(falsePositives).isLessThan(archives * 2 / 100);
+    }
+
+    private boolean contains(BitSet bits, String element, long bitCount, int hashFunctions) {
+        for (long offset : RedisBloomArchiveHistoryFilterImpl.bitOffsets(element, bitCount, hashFunctions)) {
+            if (!bits.get((int) offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.neighbor.eventmosaic.collector.dto.ExtractedFileInfo;
+import com.neighbor.eventmosaic.collector.scheduler.FileSendRetryScheduler;
+import com.neighbor.eventmosaic.collector.scheduler.GdeltScheduler;
+import com.neighbor.eventmosaic.collector.service.FileSendStatusService;
+import com.neighbor.eventmosaic.collector.service.MinioStorageService;
+import com.neighbor.eventmosaic.collector.testcontainer.RedisTestContainerInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Интеграционные тесты для {@link RedisFileSendStatusServiceImpl}.
+ * <p>
+ * Проверяют регистрацию файлов, отметку об отправке Lua-скриптом и постраничное чтение
+ * индекса ожидающих файлов на реальном Redis, а также перенос записей прежнего формата.
+ * <p>
+ * Тесты используют Testcontainers для запуска Redis в контейнере.
+ */
+@SpringBootTest(properties = "gdelt.retry.page-size=2")
+@Testcontainers
+@DisplayName("Интеграционные тесты для RedisFileSendStatusServiceImpl")
+@ActiveProfiles("test")
+class RedisFileSendStatusServiceImplIntegrationTest implements RedisTestContainerInitializer {
+
+    private static final String ARCHIVE_NAME = "20250421073000.translation.export.CSV.zip";
+    private static final String FILE_URL = "http://minio:9000/gdelt/20250421073000.translation.export.CSV";
+    private static final String FILE_STATUS_PREFIX = "gdelt:file:status:";
+    private static final String PENDING_KEY = "gdelt:file:pending";
+
+    @Autowired
+    private FileSendStatusService fileSendStatusService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @MockitoBean
+    private GdeltScheduler gdeltScheduler;
+
+    @MockitoBean
+    private FileSendRetryScheduler fileSendRetryScheduler; // Повторная отправка не должна менять индекс во время теста
+
+    @MockitoBean
+    private MinioStorageService minioStorageService;
+
+    @BeforeEach
+    void setUp() {
+        // Очищаем Redis перед каждым тестом
+        Objects.requireNonNull(redisTemplate.getConnectionFactory())
+                .getConnection()
+                .serverCommands()
+                .flushDb();
+    }
+
+    @Test
+    @DisplayName("Отправленный файл исчезает из ожидающих, а его запись остается с отметкой об отправке")
+    void markAsSent_shouldRemoveFileFromPendingFiles() {
+        // Arrange
+        List<String> fileUrls = List.of(part(0), part(1), part(2));
+        fileSendStatusService.registerFiles(ARCHIVE_NAME, fileUrls, Map.of(part(0), part(0) + ".manifest.json"));
+
+        // Act
+        boolean marked = fileSendStatusService.markAsSent(part(1));
+        List<ExtractedFileInfo> pendingFiles = fileSendStatusService.getPendingFiles();
+
+        // Assert
+        assertThat(marked).isTrue();
+        assertThat(pendingFiles).extracting(ExtractedFileInfo::getFileUrl).containsExactly(part(0), part(2));
+        assertThat(pendingFiles.getFirst().getManifestUrl()).isEqualTo(part(0) + ".manifest.json");
+        assertThat(pendingFiles.getFirst().getArchiveFileName()).isEqualTo(ARCHIVE_NAME);
+
+        ExtractedFileInfo sentFile = fileSendStatusService.getFileInfo(part(1));
+        assertThat(sentFile.isSent()).isTrue();
+        assertThat(redisTemplate.opsForZSet().score(PENDING_KEY, part(1))).isNull();
+        assertThat(redisTemplate.getExpire(FILE_STATUS_PREFIX + part(1), TimeUnit.MILLISECONDS))
+                .isBetween(1L, TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Test
+    @DisplayName("Не отмечает незарегистрированный файл и не создает для него запись")
+    void markAsSent_shouldRejectUnregisteredFile() {
+        // Act
+        boolean marked = fileSendStatusService.markAsSent(FILE_URL);
+
+        // Assert
+        assertThat(marked).isFalse();
+        assertThat(redisTemplate.hasKey(FILE_STATUS_PREFIX + FILE_URL)).isFalse();
+        assertThat(fileSendStatusService.getPendingFiles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Читает все ожидающие файлы с одной оценкой через несколько страниц и чистит индекс от истекших записей")
+    void getPendingFiles_shouldReadAllPagesAndDropExpiredEntries() {
+        // Arrange: пять частей архива регистрируются с одной оценкой, запись одной из них истекла
+        List<String> fileUrls = List.of(part(0), part(1), part(2), part(3), part(4));
+        fileSendStatusService.registerFiles(ARCHIVE_NAME, fileUrls, Map.of());
+        redisTemplate.delete(FILE_STATUS_PREFIX + part(3));
+
+        // Act
+        List<ExtractedFileInfo> pendingFiles = fileSendStatusService.getPendingFiles();
+
+        // Assert
+        assertThat(pendingFiles).extracting(ExtractedFileInfo::getFileUrl)
+                .containsExactly(part(0), part(1), part(2), part(4));
+        assertThat(redisTemplate.opsForZSet().range(PENDING_KEY, 0, -1))
+                .containsExactly(part(0), part(1), part(2), part(4));
+    }
+
+    @Test
+    @DisplayName("Переносит неотправленные файлы из записей прежнего формата")
+    void migrateLegacyRecords_shouldReregisterPendingLegacyFiles() {
+        // Arrange
+        redisTemplate.opsForValue().set("gdelt:file:info:" + part(0), """
+                {"archiveFileName":"%s","fileUrl":"%s","sent":false}""".formatted(ARCHIVE_NAME, part(0)));
+        redisTemplate.opsForValue().set("gdelt:file:info:" + part(1), """
+                {"archiveFileName":"%s","fileUrl":"%s","sent":true}""".formatted(ARCHIVE_NAME, part(1)));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(AopTestUtils.getTargetObject(fileSendStatusService), "migrateLegacyRecords");
+
+        // Assert
+        assertThat(fileSendStatusService.getPendingFiles()).extracting(ExtractedFileInfo::getFileUrl)
+                .containsExactly(part(0));
+        assertThat(redisTemplate.keys("gdelt:file:info:*")).isEmpty();
+    }
+
+    private String part(int index) {
+        return FILE_URL + ".part-%05d".formatted(index);
+    }
+}
@@ -0,0 +1,233 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neighbor.eventmosaic.collector.dto.ExtractedFileInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link RedisFileSendStatusServiceImpl}.
+ */
+@DisplayName("Unit-тесты для RedisFileSendStatusServiceImpl")
+@ExtendWith(MockitoExtension.class)
+class RedisFileSendStatusServiceImplTest {
+
+    private static final String PENDING_KEY = "gdelt:file:pending";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private Cursor<String> legacyKeys;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    @Mock
+    private RedisHashCommands hashCommands;
+
+    @Mock
+    private RedisZSetCommands zSetCommands;
+
+    private RedisFileSendStatusServiceImpl sendStatusService;
+
+    @BeforeEach
+    void setUp() {
+        sendStatusService = new RedisFileSendStatusServiceImpl(redisTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(sendStatusService, "pageSize", 2);
+    }
+
+    @Test
+    @DisplayName("Читает ожидающие файлы постранично по индексу и удаляет из него истекшие записи")
+    void getPendingFiles_shouldReadIndexInPagesAndDropExpiredEntries() {
+        // Arrange: три URL в индексе, запись второго уже истекла
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(PENDING_KEY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, 2))
+                .thenReturn(orderedSet(entry("url-1", 1), entry("url-2", 2)));
+        when(zSetOperations.rangeByScoreWithScores(PENDING_KEY, 2, Double.POSITIVE_INFINITY, 0, 3))
+                .thenReturn(orderedSet(entry("url-2", 2), entry("url-3", 3)));
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(fields("url-1"), Map.of()))
+                .thenReturn(List.of(fields("url-3")));
+
+        // Act
+        List<ExtractedFileInfo> pendingFiles = sendStatusService.getPendingFiles();
+
+        // Assert
+        assertThat(pendingFiles).extracting(ExtractedFileInfo::getFileUrl).containsExactly("url-1", "url-3");
+        verify(zSetOperations).removeRangeByScore(eq(PENDING_KEY), eq(Double.NEGATIVE_INFINITY), anyDouble());
+        verify(zSetOperations).remove(PENDING_KEY, "url-2");
+        verify(redisTemplate, never()).keys(anyString());
+    }
+
+    @Test
+    @DisplayName("Не пропускает файлы, когда между страницами другие файлы удаляются из индекса после отправки")
+    void getPendingFiles_shouldNotSkipFilesWhenIndexShrinksBetweenPages() {
+        // Arrange: все части архива зарегистрированы с одной оценкой, url-1 отправлен после чтения первой страницы
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(PENDING_KEY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, 2))
+                .thenReturn(orderedSet(entry("url-1", 1), entry("url-2", 1)));
+        when(zSetOperations.rangeByScoreWithScores(PENDING_KEY, 1, Double.POSITIVE_INFINITY, 0, 4))
+                .thenReturn(orderedSet(entry("url-2", 1), entry("url-3", 1), entry("url-4", 2)));
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(fields("url-1"), fields("url-2")))
+                .thenReturn(List.of(fields("url-3"), fields("url-4")));
+
+        // Act
+        List<ExtractedFileInfo> pendingFiles = sendStatusService.getPendingFiles();
+
+        // Assert: при чтении по позиции url-3 сдвинулся бы на первую страницу и был бы пропущен
+        assertThat(pendingFiles).extracting(ExtractedFileInfo::getFileUrl)
+                .containsExactly("url-1", "url-2", "url-3", "url-4");
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @DisplayName("Отмечает файл отправленным одним скриптом без чтения записи")
+    void markAsSent_shouldUpdateStatusWithSingleScript() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("gdelt:file:status:url-1", PENDING_KEY)),
+                eq("3600000"), eq("url-1")))
+                .thenReturn(1L);
+
+        // Act
+        boolean marked = sendStatusService.markAsSent("url-1");
+
+        // Assert
+        assertThat(marked).isTrue();
+        verify(redisTemplate, never()).opsForHash();
+    }
+
+    @Test
+    @DisplayName("Регистрирует все файлы архива одной транзакцией в одном конвейере")
+    void registerFiles_shouldRegisterAllFilesInSinglePipeline() {
+        // Arrange
+        List<String> fileUrls = List.of("url-1.part-00000", "url-1.part-00001", "url-1.part-00002");
+        when(redisTemplate.getStringSerializer()).thenReturn(StringRedisSerializer.UTF_8);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.zSetCommands()).thenReturn(zSetCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
+
+        // Act
+        boolean registered = sendStatusService.registerFiles("20250421073000.translation.export.CSV.zip",
+                fileUrls, Map.of("url-1.part-00000", "manifest-url"));
+
+        // Assert
+        assertThat(registered).isTrue();
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+
+        InOrder inOrder = inOrder(connection, keyCommands, hashCommands, zSetCommands);
+        inOrder.verify(connection).multi();
+        for (String fileUrl : fileUrls) {
+            byte[] key = bytes("gdelt:file:status:" + fileUrl);
+            inOrder.verify(keyCommands).del(aryEq(key));
+            inOrder.verify(hashCommands).hMSet(aryEq(key), anyMap());
+            inOrder.verify(keyCommands).pExpire(aryEq(key), eq(3600000L));
+            inOrder.verify(zSetCommands).zAdd(aryEq(bytes(PENDING_KEY)), anyDouble(), aryEq(bytes(fileUrl)));
+        }
+        inOrder.verify(connection).exec();
+    }
+
+    @Test
+    @DisplayName("Регистрирует заново неотправленные файлы из записей прежнего формата и удаляет эти записи")
+    void migrateLegacyRecords_shouldReregisterPendingFiles() {
+        // Arrange: две записи прежнего формата, второй файл уже отправлен
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(legacyKeys);
+        when(legacyKeys.hasNext()).thenReturn(true, true, false);
+        when(legacyKeys.next()).thenReturn("gdelt:file:info:url-1", "gdelt:file:info:url-2");
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.getAndDelete("gdelt:file:info:url-1")).thenReturn("""
+                {"archiveFileName":"20250421073000.translation.export.CSV.zip","fileUrl":"url-1","sent":false}""");
+        when(valueOperations.getAndDelete("gdelt:file:info:url-2")).thenReturn("""
+                {"archiveFileName":"20250421073000.translation.export.CSV.zip","fileUrl":"url-2","sent":true}""");
+        when(redisTemplate.getStringSerializer()).thenReturn(StringRedisSerializer.UTF_8);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.zSetCommands()).thenReturn(zSetCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
+
+        // Act
+        ReflectionTestUtils.invokeMethod(sendStatusService, "migrateLegacyRecords");
+
+        // Assert
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(zSetCommands).zAdd(aryEq(bytes(PENDING_KEY)), anyDouble(), aryEq(bytes("url-1")));
+        verify(legacyKeys).close();
+    }
+
+    private Map<String, String> fields(String fileUrl) {
+        return Map.of(
+                "archiveFileName", "20250421073000.translation.export.CSV.zip",
+                "fileUrl", fileUrl,
+                "sent", "false");
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private TypedTuple<String> entry(String fileUrl, double score) {
+        return new DefaultTypedTuple<>(fileUrl, score);
+    }
+
+    @SafeVarargs
+    private LinkedHashSet<TypedTuple<String>> orderedSet(TypedTuple<String>... entries) {
+        return new LinkedHashSet<>(List.of(entries));
+    }
+}
@@ -0,0 +1,111 @@
+package com.neighbor.eventmosaic.collector.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link RedisHashStoreServiceImpl}.
+ */
+@DisplayName("Unit-тесты для RedisHashStoreServiceImpl")
+@ExtendWith(MockitoExtension.class)
+class RedisHashStoreServiceImplTest {
+
+    private static final int ARCHIVE_COUNT = 2500; // Три пакета MGET: 1000, 1000 и 500 ключей
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    private RedisHashStoreServiceImpl hashStoreService;
+
+    @BeforeEach
+    void setUp() {
+        hashStoreService = new RedisHashStoreServiceImpl(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Читает хеши пакетами MGET по 1000 ключей и сопоставляет результаты с именами архивов")
+    void getStoredHashes_shouldSplitKeysIntoBatchesAndSkipMissingHashes() {
+        // Arrange: хеш отсутствует у каждого третьего архива
+        List<String> archiveNames = new ArrayList<>();
+        for (int i = 0; i < ARCHIVE_COUNT; i++) {
+            archiveNames.add("archive-" + i);
+        }
+
+        List<List<String>> requestedKeys = new ArrayList<>();
+        when(redisTemplate.getStringSerializer()).thenReturn(StringRedisSerializer.UTF_8);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        doAnswer(invocation -> {
+            List<String> keys = new ArrayList<>();
+            for (Object key : invocation.getArguments()) {
+                keys.add(new String((byte[]) key, StandardCharsets.UTF_8));
+            }
+            requestedKeys.add(keys);
+            return null; // В конвейере результат приходит из executePipelined
+        }).when(stringCommands).mGet(any(byte[][].class));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of(storedHashes(0, 1000), storedHashes(1000, 2000), storedHashes(2000, ARCHIVE_COUNT));
+        });
+
+        // Act
+        Map<String, String> hashes = hashStoreService.getStoredHashes(archiveNames);
+
+        // Assert
+        assertThat(requestedKeys).extracting(List::size).containsExactly(1000, 1000, 500);
+        assertThat(requestedKeys.get(1).getFirst()).isEqualTo("gdelt:archive:hash:archive-1000");
+        assertThat(requestedKeys.get(2).getLast()).isEqualTo("gdelt:archive:hash:archive-2499");
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+
+        assertThat(hashes).hasSize(ARCHIVE_COUNT - (ARCHIVE_COUNT + 2) / 3);
+        assertThat(hashes)
+                .containsEntry("archive-1", "hash-1")
+                .containsEntry("archive-1000", "hash-1000")
+                .containsEntry("archive-2000", "hash-2000")
+                .containsEntry("archive-2498", "hash-2498")
+                .doesNotContainKeys("archive-0", "archive-999", "archive-1500", "archive-2499");
+    }
+
+    /**
+     * Формирует результат одного MGET: хеши архивов с индексами в диапазоне
+     * и null для каждого третьего архива.
+     *
+     * @param from первый индекс архива
+     * @param to   индекс архива после последнего
+     * @return значения в порядке ключей
+     */
+    private List<String> storedHashes(int from, int to) {
+        List<String> hashes = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            hashes.add(i % 3 == 0 ? null : "hash-" + i);
+        }
+        return hashes;
+    }
+}
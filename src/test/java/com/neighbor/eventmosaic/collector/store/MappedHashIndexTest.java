@@ -0,0 +1,92 @@
+package com.neighbor.eventmosaic.collector.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit-тесты для {@link MappedHashIndex}.
+ */
+@DisplayName("Unit-тесты для MappedHashIndex")
+class MappedHashIndexTest {
+
+    private static final long FINGERPRINT = 42L;
+    private static final long FIRST_OFFSET = 0L;
+    private static final long SECOND_OFFSET = 100L;
+
+    @TempDir
+    private Path dir;
+
+    private MappedHashIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = MappedHashIndex.open(dir.resolve("hashes.idx"), 16);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Разделяет архивы с одинаковым отпечатком по записям журнала")
+    void get_shouldNotReturnHashOfArchiveWithSameFingerprint() throws IOException {
+        // Arrange: два имени с одинаковым отпечатком различаются только смещением своей записи
+        byte[] firstHash = hash(1);
+        byte[] secondHash = hash(2);
+        index.put(FINGERPRINT, recordAt(FIRST_OFFSET), FIRST_OFFSET, firstHash);
+        index.put(FINGERPRINT, recordAt(SECOND_OFFSET), SECOND_OFFSET, secondHash);
+        byte[] found = new byte[MappedHashIndex.HASH_SIZE];
+
+        // Act & Assert
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get(FINGERPRINT, recordAt(FIRST_OFFSET), found)).isTrue();
+        assertThat(found).isEqualTo(firstHash);
+        assertThat(index.get(FINGERPRINT, recordAt(SECOND_OFFSET), found)).isTrue();
+        assertThat(found).isEqualTo(secondHash);
+        assertThat(index.get(FINGERPRINT, recordAt(200L), found)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Сохраняет смещения записей при расширении таблицы и заменяет их после сжатия журнала")
+    void relocate_shouldReplaceLogOffsetsAfterGrow() throws IOException {
+        // Arrange: 20 записей не помещаются в половину емкости 16, таблица расширяется
+        for (long i = 1; i <= 20; i++) {
+            index.put(i, recordAt(i * 10), i * 10, hash((int) i));
+        }
+        long[] offsets = index.logOffsets();
+        long[] relocated = Arrays.stream(offsets).map(offset -> offset + 1).toArray();
+
+        // Act
+        index.relocate(relocated);
+
+        // Assert
+        assertThat(index.capacity()).isGreaterThan(16);
+        assertThat(offsets).containsExactlyInAnyOrder(LongStream.rangeClosed(1, 20).map(i -> i * 10).toArray());
+        byte[] found = new byte[MappedHashIndex.HASH_SIZE];
+        assertThat(index.get(7, recordAt(71), found)).isTrue();
+        assertThat(found).isEqualTo(hash(7));
+        assertThat(index.get(7, recordAt(70), found)).isFalse();
+    }
+
+    private static LongPredicate recordAt(long expectedOffset) {
+        return offset -> offset == expectedOffset;
+    }
+
+    private static byte[] hash(int value) {
+        byte[] hash = new byte[MappedHashIndex.HASH_SIZE];
+        Arrays.fill(hash, (byte) value);
+        return hash;
+    }
+}